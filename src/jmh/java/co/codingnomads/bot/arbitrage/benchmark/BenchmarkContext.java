@@ -0,0 +1,72 @@
+package co.codingnomads.bot.arbitrage.benchmark;
+
+import co.codingnomads.bot.arbitrage.mapper.ArbitrageOpportunityMapper;
+import co.codingnomads.bot.arbitrage.mapper.MarketDataMapper;
+import co.codingnomads.bot.arbitrage.mapper.MarketDataPartitionMapper;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基准测试用的Spring上下文
+ *
+ * 只扫描 service 包，不连接数据库和交易所：
+ * - MyBatis Mapper 替换为什么都不做的桩（插入返回1，查询返回空）
+ * - arbitrage.websocket.enabled=false，不建立WebSocket连接
+ */
+public final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    /**
+     * 创建并启动上下文
+     *
+     * @param properties 覆盖的配置项
+     */
+    public static AnnotationConfigApplicationContext start(Map<String, Object> properties) {
+        Map<String, Object> merged = new HashMap<>();
+        merged.put("arbitrage.symbols", "ethusdt");
+        merged.put("arbitrage.websocket.enabled", "false");
+        merged.put("arbitrage.retention.enabled", "false");
+        merged.putAll(properties);
+
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", merged));
+        context.registerBean(MarketDataMapper.class, () -> stub(MarketDataMapper.class));
+        context.registerBean(ArbitrageOpportunityMapper.class, () -> stub(ArbitrageOpportunityMapper.class));
+        context.registerBean(MarketDataPartitionMapper.class, () -> stub(MarketDataPartitionMapper.class));
+        context.scan("co.codingnomads.bot.arbitrage.service");
+        context.refresh();
+        return context;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "toString":
+                    return type.getSimpleName() + "Stub";
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    break;
+            }
+            Class<?> returnType = method.getReturnType();
+            if (returnType == int.class) {
+                return method.getName().startsWith("insert") ? 1 : 0;
+            }
+            if (returnType == List.class) {
+                return Collections.emptyList();
+            }
+            return null;
+        });
+    }
+}
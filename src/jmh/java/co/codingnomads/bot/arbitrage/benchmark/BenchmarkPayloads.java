@@ -0,0 +1,69 @@
+package co.codingnomads.bot.arbitrage.benchmark;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 基准测试用的行情样本
+ *
+ * 样本位于 src/jmh/resources/payloads，每行一帧，格式与交易所推送一致：
+ * - binance-ethusdt-ticker.jsonl：币安 ethusdt@ticker
+ * - huobi-ethusdt-bbo.jsonl：火币 market.ethusdt.bbo（解压后的内容，使用前按推送格式GZIP压缩）
+ */
+public final class BenchmarkPayloads {
+
+    public static final String BINANCE_TICKER = "payloads/binance-ethusdt-ticker.jsonl";
+    public static final String HUOBI_BBO = "payloads/huobi-ethusdt-bbo.jsonl";
+
+    private BenchmarkPayloads() {
+    }
+
+    /**
+     * 读取样本文件中的所有帧
+     *
+     * @param resource classpath 资源路径
+     * @return 每行一帧，数量为2的幂便于按掩码轮询
+     */
+    public static String[] lines(String resource) {
+        InputStream in = BenchmarkPayloads.class.getClassLoader().getResourceAsStream(resource);
+        if (in == null) {
+            throw new IllegalStateException("找不到基准测试样本: " + resource);
+        }
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    lines.add(line);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (Integer.bitCount(lines.size()) != 1) {
+            throw new IllegalStateException("样本帧数必须是2的幂: " + resource + " = " + lines.size());
+        }
+        return lines.toArray(new String[0]);
+    }
+
+    /**
+     * 按火币推送格式GZIP压缩
+     */
+    public static byte[] gzip(String text) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(text.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,69 @@
+package co.codingnomads.bot.arbitrage.exchange.binance;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 币安 @ticker / @bookTicker 帧解析开销：JsonNode树 与 流式解码器对比
+ *
+ * 运行：mvn -Pjmh test-compile exec:exec -Djmh.args="BinanceTickerDecoderBenchmark -prof gc"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BinanceTickerDecoderBenchmark {
+
+    private static final String TICKER = "{\"e\":\"24hrTicker\",\"E\":1672515782136,\"s\":\"ETHUSDT\","
+            + "\"p\":\"12.34000000\",\"P\":\"0.645\",\"w\":\"1915.43871220\",\"x\":\"1912.05000000\","
+            + "\"c\":\"1924.38000000\",\"Q\":\"0.52310000\",\"b\":\"1924.37000000\",\"B\":\"31.21540000\","
+            + "\"a\":\"1924.38000000\",\"A\":\"12.04420000\",\"o\":\"1912.04000000\",\"h\":\"1931.00000000\","
+            + "\"l\":\"1898.81000000\",\"v\":\"312541.72410000\",\"q\":\"598659412.33180800\","
+            + "\"O\":1672429382136,\"C\":1672515782136,\"F\":1018265127,\"L\":1018650211,\"n\":385085}";
+
+    private static final String BOOK_TICKER = "{\"u\":400900217,\"s\":\"ETHUSDT\",\"b\":\"1924.37000000\","
+            + "\"B\":\"31.21540000\",\"a\":\"1924.38000000\",\"A\":\"12.04420000\"}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BinanceTickerDecoder decoder = new BinanceTickerDecoder();
+
+    @Benchmark
+    public void tickerReadTree(Blackhole blackhole) throws Exception {
+        JsonNode jsonNode = objectMapper.readTree(TICKER);
+        blackhole.consume(jsonNode.get("b").asDouble());
+        blackhole.consume(jsonNode.get("a").asDouble());
+    }
+
+    @Benchmark
+    public void tickerDecoder(Blackhole blackhole) {
+        decoder.decode(TICKER);
+        blackhole.consume(decoder.getBestBid());
+        blackhole.consume(decoder.getBestAsk());
+        blackhole.consume(decoder.getBidSize());
+        blackhole.consume(decoder.getAskSize());
+        blackhole.consume(decoder.getEventTime());
+    }
+
+    @Benchmark
+    public void bookTickerDecoder(Blackhole blackhole) {
+        decoder.decode(BOOK_TICKER);
+        blackhole.consume(decoder.getBestBid());
+        blackhole.consume(decoder.getBestAsk());
+        blackhole.consume(decoder.getBidSize());
+        blackhole.consume(decoder.getAskSize());
+    }
+}
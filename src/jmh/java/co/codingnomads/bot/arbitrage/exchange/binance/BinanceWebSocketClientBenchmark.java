@@ -0,0 +1,69 @@
+package co.codingnomads.bot.arbitrage.exchange.binance;
+
+import co.codingnomads.bot.arbitrage.benchmark.BenchmarkPayloads;
+import co.codingnomads.bot.arbitrage.service.websocket.WebSocketMessageHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 币安客户端处理一帧 @ticker 消息的开销（解析 + 回调处理器）
+ *
+ * 客户端不建立连接，直接调用 onMessage；处理器只把结果交给 Blackhole。
+ *
+ * 运行：mvn -Pjmh test-compile exec:exec -Djmh.args="BinanceWebSocketClientBenchmark -prof gc"
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BinanceWebSocketClientBenchmark {
+
+    private String[] frames;
+    private int cursor;
+    private BinanceWebSocketClient client;
+
+    @Setup(Level.Trial)
+    public void setup(Blackhole blackhole) throws Exception {
+        frames = BenchmarkPayloads.lines(BenchmarkPayloads.BINANCE_TICKER);
+        WebSocketMessageHandler handler = new WebSocketMessageHandler() {
+            @Override
+            public void handlePriceUpdate(String exchange, String symbol, double bestBid, double bestAsk) {
+                blackhole.consume(bestBid);
+                blackhole.consume(bestAsk);
+            }
+
+            @Override
+            public void handleQuote(String exchange, String symbol, double bestBid, double bestAsk,
+                                    double bidSize, double askSize, long eventTime) {
+                blackhole.consume(bestBid);
+                blackhole.consume(bestAsk);
+                blackhole.consume(bidSize);
+                blackhole.consume(askSize);
+                blackhole.consume(eventTime);
+            }
+        };
+        client = new BinanceWebSocketClient(new URI("ws://localhost/ws/ethusdt@ticker"), "ethusdt", handler);
+    }
+
+    @Benchmark
+    public void handleBinanceMessage() {
+        String frame = frames[cursor];
+        cursor = (cursor + 1) & (frames.length - 1);
+        client.onMessage(frame);
+    }
+}
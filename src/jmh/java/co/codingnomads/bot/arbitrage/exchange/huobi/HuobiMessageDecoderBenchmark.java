@@ -0,0 +1,83 @@
+package co.codingnomads.bot.arbitrage.exchange.huobi;
+
+import co.codingnomads.bot.arbitrage.util.GzipUtil;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 火币bbo帧处理开销：GzipUtil + contains + JsonNode树 与 复用Inflater的解码器对比
+ *
+ * 运行：mvn -Pjmh test-compile exec:exec -Djmh.args="HuobiMessageDecoderBenchmark -prof gc"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HuobiMessageDecoderBenchmark {
+
+    private static final String BBO = "{\"ch\":\"market.ethusdt.bbo\",\"ts\":1672515782136,\"tick\":{"
+            + "\"seqId\":161499562790,\"ask\":1924.38,\"askSize\":12.0442,\"bid\":1924.37,\"bidSize\":31.2154,"
+            + "\"quoteTime\":1672515782135,\"symbol\":\"ethusdt\"}}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HuobiMessageDecoder decoder = new HuobiMessageDecoder();
+    private final byte[] channel = "market.ethusdt.bbo".getBytes(StandardCharsets.US_ASCII);
+    private byte[] compressed;
+    private ByteBuffer frame;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(BBO.getBytes(StandardCharsets.UTF_8));
+        }
+        compressed = out.toByteArray();
+        frame = ByteBuffer.wrap(compressed);
+    }
+
+    @Benchmark
+    public void gzipUtilReadTree(Blackhole blackhole) throws Exception {
+        ByteBuffer bytes = ByteBuffer.wrap(compressed);
+        byte[] byteArray = new byte[bytes.remaining()];
+        bytes.get(byteArray);
+        String message = GzipUtil.decompressGzip(byteArray);
+        if (message.contains("pong") || message.contains("subbed") || message.contains("err-msg")) {
+            return;
+        }
+        JsonNode tick = objectMapper.readTree(message).get("tick");
+        blackhole.consume(tick.get("bid").asDouble());
+        blackhole.consume(tick.get("ask").asDouble());
+    }
+
+    @Benchmark
+    public void decoder(Blackhole blackhole) {
+        frame.clear();
+        blackhole.consume(decoder.decode(frame));
+        blackhole.consume(decoder.channelEquals(channel));
+        blackhole.consume(decoder.getBestBid());
+        blackhole.consume(decoder.getBestAsk());
+        blackhole.consume(decoder.getBidSize());
+        blackhole.consume(decoder.getAskSize());
+    }
+}
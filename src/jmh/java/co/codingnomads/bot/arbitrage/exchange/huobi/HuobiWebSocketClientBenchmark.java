@@ -0,0 +1,85 @@
+package co.codingnomads.bot.arbitrage.exchange.huobi;
+
+import co.codingnomads.bot.arbitrage.benchmark.BenchmarkPayloads;
+import co.codingnomads.bot.arbitrage.service.websocket.WebSocketMessageHandler;
+import co.codingnomads.bot.arbitrage.util.GzipUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 火币客户端处理一帧GZIP压缩的bbo消息的开销（解压 + 解析 + 回调处理器），
+ * 以及 GzipUtil 单独解压一帧的开销
+ *
+ * 运行：mvn -Pjmh test-compile exec:exec -Djmh.args="HuobiWebSocketClientBenchmark -prof gc"
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HuobiWebSocketClientBenchmark {
+
+    private byte[][] compressed;
+    private ByteBuffer[] frames;
+    private int cursor;
+    private HuobiWebSocketClient client;
+
+    @Setup(Level.Trial)
+    public void setup(Blackhole blackhole) throws Exception {
+        String[] lines = BenchmarkPayloads.lines(BenchmarkPayloads.HUOBI_BBO);
+        compressed = new byte[lines.length][];
+        frames = new ByteBuffer[lines.length];
+        for (int i = 0; i < lines.length; i++) {
+            compressed[i] = BenchmarkPayloads.gzip(lines[i]);
+            frames[i] = ByteBuffer.wrap(compressed[i]);
+        }
+        WebSocketMessageHandler handler = new WebSocketMessageHandler() {
+            @Override
+            public void handlePriceUpdate(String exchange, String symbol, double bestBid, double bestAsk) {
+                blackhole.consume(bestBid);
+                blackhole.consume(bestAsk);
+            }
+
+            @Override
+            public void handleQuote(String exchange, String symbol, double bestBid, double bestAsk,
+                                    double bidSize, double askSize, long eventTime) {
+                blackhole.consume(bestBid);
+                blackhole.consume(bestAsk);
+                blackhole.consume(bidSize);
+                blackhole.consume(askSize);
+                blackhole.consume(eventTime);
+            }
+        };
+        client = new HuobiWebSocketClient(new URI("ws://localhost/ws"), "ethusdt", handler);
+    }
+
+    @Benchmark
+    public void handleHuobiMessage() {
+        ByteBuffer frame = frames[cursor];
+        cursor = (cursor + 1) & (frames.length - 1);
+        frame.clear();
+        client.onMessage(frame);
+    }
+
+    @Benchmark
+    public String gzipUtilDecompress() {
+        byte[] frame = compressed[cursor];
+        cursor = (cursor + 1) & (compressed.length - 1);
+        return GzipUtil.decompressGzip(frame);
+    }
+}
@@ -0,0 +1,100 @@
+package co.codingnomads.bot.arbitrage.service;
+
+import co.codingnomads.bot.arbitrage.benchmark.BenchmarkContext;
+import co.codingnomads.bot.arbitrage.config.ArbitrageConfig;
+import co.codingnomads.bot.arbitrage.util.FixedPointUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 套利检测 {@link ArbitrageService#checkArbitrageOpportunity} 的开销
+ *
+ * 价差围绕阈值上下波动，覆盖区间开启/延续/关闭；区间落库使用Mapper桩。
+ *
+ * 运行：mvn -Pjmh test-compile exec:exec -Djmh.args="ArbitrageServiceBenchmark -prof gc"
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArbitrageServiceBenchmark {
+
+    private static final int QUOTE_COUNT = 1024;
+
+    private AnnotationConfigApplicationContext context;
+    private ArbitrageService arbitrageService;
+
+    private BigDecimal[][] decimalQuotes;
+    private long[][] fixedQuotes;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkContext.start(Collections.emptyMap());
+        arbitrageService = context.getBean(ArbitrageService.class);
+
+        Random random = new Random(42);
+        decimalQuotes = new BigDecimal[QUOTE_COUNT][];
+        fixedQuotes = new long[QUOTE_COUNT][];
+        for (int i = 0; i < QUOTE_COUNT; i++) {
+            double mid = 1924.37 + random.nextGaussian() * 0.5;
+            // 约5%的tick价差超过0.03%阈值
+            double skew = random.nextDouble() < 0.05 ? mid * 0.0005 : random.nextGaussian() * 0.05;
+            double bid1 = round(mid);
+            double ask1 = round(mid + 0.01);
+            double bid2 = round(mid - skew);
+            double ask2 = round(mid - skew + 0.01);
+            decimalQuotes[i] = new BigDecimal[]{
+                    BigDecimal.valueOf(bid1), BigDecimal.valueOf(ask1), BigDecimal.valueOf(bid2), BigDecimal.valueOf(ask2)};
+            int scale = ArbitrageConfig.PRICE_SCALE;
+            fixedQuotes[i] = new long[]{
+                    FixedPointUtil.toMantissa(bid1, scale), FixedPointUtil.toMantissa(ask1, scale),
+                    FixedPointUtil.toMantissa(bid2, scale), FixedPointUtil.toMantissa(ask2, scale)};
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private static double round(double price) {
+        return Math.round(price * 100) / 100.0;
+    }
+
+    @Benchmark
+    public void checkArbitrageOpportunity() {
+        BigDecimal[] quote = decimalQuotes[cursor];
+        cursor = (cursor + 1) & (QUOTE_COUNT - 1);
+        arbitrageService.checkArbitrageOpportunity("ethusdt",
+                ArbitrageConfig.BINANCE_EXCHANGE_NAME, ArbitrageConfig.HUOBI_EXCHANGE_NAME,
+                quote[0], quote[1], quote[2], quote[3]);
+    }
+
+    @Benchmark
+    public void checkArbitrageOpportunityFixedPoint() {
+        long[] quote = fixedQuotes[cursor];
+        cursor = (cursor + 1) & (QUOTE_COUNT - 1);
+        arbitrageService.checkArbitrageOpportunity("ethusdt",
+                ArbitrageConfig.BINANCE_EXCHANGE_NAME, ArbitrageConfig.HUOBI_EXCHANGE_NAME,
+                quote[0], quote[1], quote[2], quote[3], ArbitrageConfig.PRICE_SCALE);
+    }
+}
@@ -0,0 +1,100 @@
+package co.codingnomads.bot.arbitrage.service;
+
+import co.codingnomads.bot.arbitrage.benchmark.BenchmarkContext;
+import co.codingnomads.bot.arbitrage.config.ArbitrageConfig;
+import co.codingnomads.bot.arbitrage.service.pipeline.QuotePipeline;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 完整的 {@link RealTimeArbitrageService#handlePriceUpdate} 路径
+ *
+ * - publish：读线程上的开销（换算定点数并写入接入缓冲区）
+ * - endToEnd：写入后等待检测线程处理完这一条（报价表、最优报价堆、区间跟踪、三角检测、转交持久化）
+ *
+ * 持久化使用Mapper桩，不连接数据库和交易所。
+ *
+ * 运行：mvn -Pjmh test-compile exec:exec -Djmh.args="RealTimeArbitrageServiceBenchmark -prof gc"
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RealTimeArbitrageServiceBenchmark {
+
+    private static final int QUOTE_COUNT = 1024;
+
+    /** 检测线程等待策略 */
+    @Param({"BLOCKING", "BUSY_SPIN"})
+    private String waitStrategy;
+
+    private AnnotationConfigApplicationContext context;
+    private RealTimeArbitrageService realTimeArbitrageService;
+    private QuotePipeline pipeline;
+
+    private String[] exchanges;
+    private double[] bids;
+    private double[] asks;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkContext.start(Collections.singletonMap("arbitrage.pipeline.wait-strategy", waitStrategy));
+        realTimeArbitrageService = context.getBean(RealTimeArbitrageService.class);
+        pipeline = realTimeArbitrageService.getQuotePipeline();
+
+        Random random = new Random(42);
+        exchanges = new String[QUOTE_COUNT];
+        bids = new double[QUOTE_COUNT];
+        asks = new double[QUOTE_COUNT];
+        for (int i = 0; i < QUOTE_COUNT; i++) {
+            exchanges[i] = (i & 1) == 0 ? ArbitrageConfig.BINANCE_EXCHANGE_NAME : ArbitrageConfig.HUOBI_EXCHANGE_NAME;
+            double mid = 1924.37 + random.nextGaussian() * 0.5;
+            bids[i] = Math.round(mid * 100) / 100.0;
+            asks[i] = bids[i] + 0.01;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void publish() {
+        int i = cursor;
+        cursor = (i + 1) & (QUOTE_COUNT - 1);
+        realTimeArbitrageService.handlePriceUpdate(exchanges[i], "ethusdt", bids[i], asks[i]);
+    }
+
+    @Benchmark
+    public void endToEnd() {
+        int i = cursor;
+        cursor = (i + 1) & (QUOTE_COUNT - 1);
+        long target = pipeline.getDetectedCount() + 1;
+        long dropped = pipeline.getIngestDroppedCount();
+        realTimeArbitrageService.handlePriceUpdate(exchanges[i], "ethusdt", bids[i], asks[i]);
+        while (pipeline.getDetectedCount() < target && pipeline.getIngestDroppedCount() == dropped) {
+            // 让出CPU，避免在核数较少的机器上饿死检测线程
+            Thread.yield();
+        }
+    }
+}
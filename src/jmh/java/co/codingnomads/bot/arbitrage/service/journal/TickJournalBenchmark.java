@@ -0,0 +1,64 @@
+package co.codingnomads.bot.arbitrage.service.journal;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 行情日志单线程追加一条记录的开销（含段文件滚动）
+ *
+ * 运行：mvn -Pjmh test-compile exec:exec -Djmh.args="TickJournalBenchmark -prof gc"
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TickJournalBenchmark {
+
+    private static final long SEGMENT_BYTES = 64L * 1024 * 1024;
+
+    private File directory;
+    private TickJournal journal;
+    private long tick;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("tick-journal-bench").toFile();
+        journal = new TickJournal(directory, SEGMENT_BYTES);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        journal.close();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public long append() throws IOException {
+        long i = tick++;
+        return journal.append(0, 0, 8, 6, 192437000000L + (i & 1023), 192438000000L + (i & 1023),
+                1500000L, 2300000L, 1700000000000L + (i >> 4), 1700000000020L + (i >> 4));
+    }
+}
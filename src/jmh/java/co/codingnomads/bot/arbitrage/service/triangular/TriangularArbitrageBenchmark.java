@@ -0,0 +1,125 @@
+package co.codingnomads.bot.arbitrage.service.triangular;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 三角套利检测器单次报价更新的开销
+ *
+ * 合成的币种图：每个币种 c{i} 都有 c{i}usdt、c{i}btc、c{i}eth 三个交易对，
+ * 另有 btcusdt、ethusdt、ethbtc。交易对越多，经过 c{i}btc 这类边的4腿环越多，
+ * 用来观察每次更新的开销随交易对数量的增长。
+ *
+ * 运行：mvn -Pjmh test-compile exec:exec -Djmh.args="TriangularArbitrageBenchmark -prof gc"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TriangularArbitrageBenchmark {
+
+    private static final int SCALE = 8;
+    private static final int EXCHANGES = 2;
+    private static final int QUOTE_COUNT = 1024;
+
+    /** 交易对数量 */
+    @Param({"100", "300", "600"})
+    private int pairs;
+
+    private TriangularArbitrageDetector detector;
+    private int symbolCount;
+    private long[] bids;
+    private long[] asks;
+    private int[] quoteSymbols;
+    private int[] quoteExchanges;
+    private int cursor;
+    private long now;
+    private long openedEpisodes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<String> bases = new ArrayList<>();
+        List<String> quotes = new ArrayList<>();
+        List<Double> mids = new ArrayList<>();
+        addPair(bases, quotes, mids, "btc", "usdt", 30000);
+        addPair(bases, quotes, mids, "eth", "usdt", 2000);
+        addPair(bases, quotes, mids, "eth", "btc", 2000.0 / 30000);
+        Random random = new Random(42);
+        for (int i = 0; bases.size() + 3 <= pairs; i++) {
+            double usdtPrice = 0.1 + random.nextDouble() * 100;
+            addPair(bases, quotes, mids, "c" + i, "usdt", usdtPrice);
+            addPair(bases, quotes, mids, "c" + i, "btc", usdtPrice / 30000);
+            addPair(bases, quotes, mids, "c" + i, "eth", usdtPrice / 2000);
+        }
+        symbolCount = bases.size();
+        int[] scales = new int[symbolCount];
+        Arrays.fill(scales, SCALE);
+
+        detector = new TriangularArbitrageDetector(bases.toArray(new String[0]), quotes.toArray(new String[0]),
+                scales, EXCHANGES, 4, 0.001, 0.03, Long.MAX_VALUE / 4, 60_000,
+                new TriangularArbitrageDetector.EpisodeListener() {
+                    @Override
+                    public void onEpisodeOpened(int cycleId, int exchangeId, double marginPercent, long now) {
+                        openedEpisodes++;
+                    }
+
+                    @Override
+                    public void onEpisodeClosed(int cycleId, int exchangeId, long startMillis, long endMillis,
+                                                double peakMarginPercent, double avgMarginPercent, int tickCount) {
+                    }
+                });
+
+        // 预先填满所有边，使被测的每次更新都要完整计算经过它的环
+        bids = new long[QUOTE_COUNT];
+        asks = new long[QUOTE_COUNT];
+        quoteSymbols = new int[QUOTE_COUNT];
+        quoteExchanges = new int[QUOTE_COUNT];
+        now = 1;
+        for (int symbolId = 0; symbolId < symbolCount; symbolId++) {
+            for (int exchangeId = 0; exchangeId < EXCHANGES; exchangeId++) {
+                long mid = Math.round(mids.get(symbolId) * 1e8);
+                detector.onQuote(symbolId, exchangeId, mid - 1, mid + 1, now);
+            }
+        }
+        for (int i = 0; i < QUOTE_COUNT; i++) {
+            int symbolId = random.nextInt(symbolCount);
+            long mid = Math.round(mids.get(symbolId) * (1 + (random.nextDouble() - 0.5) * 0.002) * 1e8);
+            quoteSymbols[i] = symbolId;
+            quoteExchanges[i] = random.nextInt(EXCHANGES);
+            bids[i] = mid - 1;
+            asks[i] = mid + 1;
+        }
+    }
+
+    private static void addPair(List<String> bases, List<String> quotes, List<Double> mids,
+                                String base, String quote, double mid) {
+        bases.add(base);
+        quotes.add(quote);
+        mids.add(mid);
+    }
+
+    @Benchmark
+    public void onQuote() {
+        int i = cursor;
+        cursor = (i + 1) & (QUOTE_COUNT - 1);
+        detector.onQuote(quoteSymbols[i], quoteExchanges[i], bids[i], asks[i], ++now);
+    }
+}
@@ -0,0 +1,531 @@
+package co.codingnomads.bot.arbitrage.simulator;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.WebSocketImpl;
+import org.java_websocket.exceptions.WebsocketNotConnectedException;
+import org.java_websocket.framing.CloseFrame;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 本地模拟交易所
+ *
+ * 在一个端口上同时模拟币安和火币的行情推送，供压测使用，不访问真实交易所：
+ * <ul>
+ *   <li>币安：连接 /ws/{symbol}@ticker 或 /ws/{symbol}@bookTicker 后直接推送JSON文本帧；
+ *       连接组合流 /stream?streams={symbol}@ticker/... 时以 {"stream":..,"data":{..}} 包装</li>
+ *   <li>火币：一个连接上可以发送多个 sub，每个交易对各自推送</li>
+ *   <li>火币：连接 /ws，发送 {"sub":"market.{symbol}.bbo","id":...} 后回复订阅确认并推送GZIP压缩的二进制帧；
+ *       服务端定时发送 {"ping":ts}，连续两次未收到pong时断开连接；客户端的ping回复pong</li>
+ * </ul>
+ *
+ * 所有行情由一个推送线程按 {@link SimulatorSettings#getRatePerStream()} 均匀推送，
+ * 事件时间为推送时的本地时间，可用于计算端到端延迟。可配置周期性突发和随机断开连接。
+ */
+public class ExchangeSimulator extends WebSocketServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExchangeSimulator.class);
+
+    private static final String BINANCE_PATH = "/ws/";
+    private static final String BINANCE_COMBINED_PATH = "/stream?streams=";
+    private static final String HUOBI_PATH = "/ws";
+
+    /** 价格以分为单位，挂单量以万分之一为单位 */
+    private static final long PRICE_UNIT = 100;
+    private static final long SIZE_UNIT = 10_000;
+
+    private final SimulatorSettings settings;
+    private final List<Stream> streams = new CopyOnWriteArrayList<>();
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    // ==================== 推送线程状态 ====================
+    private final Thread emitter;
+    private volatile boolean running;
+    private final Random random = new Random(42);
+    private final long[] mids;
+    private final StringBuilder text = new StringBuilder(512);
+    private final GzipEncoder gzip = new GzipEncoder();
+
+    // ==================== 指标 ====================
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong disconnects = new AtomicLong();
+    private final AtomicLong pingTimeouts = new AtomicLong();
+
+    public ExchangeSimulator(SimulatorSettings settings) {
+        super(new InetSocketAddress("127.0.0.1", settings.getPort()));
+        this.settings = settings;
+        this.mids = new long[settings.getSymbols().size()];
+        for (int i = 0; i < mids.length; i++) {
+            mids[i] = Math.round(settings.getBasePrice() * PRICE_UNIT) + i * PRICE_UNIT;
+        }
+        setReuseAddr(true);
+        setTcpNoDelay(true);
+        this.emitter = new Thread(this::emitLoop, "Simulator-Emitter");
+        this.emitter.setDaemon(true);
+    }
+
+    /**
+     * 启动服务端和推送线程，等待端口开始监听
+     */
+    public void startAndWait() throws InterruptedException {
+        start();
+        if (!started.await(10, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("模拟交易所启动超时");
+        }
+        running = true;
+        emitter.start();
+    }
+
+    /**
+     * 停止推送并关闭所有连接
+     */
+    public void shutdown() throws InterruptedException {
+        running = false;
+        emitter.join(1000);
+        stop(1000);
+    }
+
+    /**
+     * @return 币安地址前缀（后接 symbol@ticker）
+     */
+    public String binanceUrl() {
+        return "ws://127.0.0.1:" + getPort() + BINANCE_PATH;
+    }
+
+    /**
+     * @return 币安组合流地址前缀（后接 symbol@ticker/symbol@ticker）
+     */
+    public String binanceStreamUrl() {
+        return "ws://127.0.0.1:" + getPort() + BINANCE_COMBINED_PATH;
+    }
+
+    /**
+     * @return 火币地址
+     */
+    public String huobiUrl() {
+        return "ws://127.0.0.1:" + getPort() + HUOBI_PATH;
+    }
+
+    // ==================== 连接处理 ====================
+
+    @Override
+    public void onStart() {
+        logger.info("[ExchangeSimulator] 模拟交易所已启动: 端口{}，交易对{}个", getPort(), settings.getSymbols().size());
+        started.countDown();
+    }
+
+    @Override
+    public void onOpen(WebSocket conn, ClientHandshake handshake) {
+        String path = handshake.getResourceDescriptor();
+        if (path.startsWith(BINANCE_PATH) && path.length() > BINANCE_PATH.length()) {
+            addBinanceStreams(conn, new String[]{path.substring(BINANCE_PATH.length())}, false);
+        } else if (path.startsWith(BINANCE_COMBINED_PATH) && path.length() > BINANCE_COMBINED_PATH.length()) {
+            addBinanceStreams(conn, path.substring(BINANCE_COMBINED_PATH.length()).split("/"), true);
+        } else if (path.equals(HUOBI_PATH)) {
+            conn.setAttachment(new HuobiSession());
+        } else {
+            conn.close(CloseFrame.POLICY_VALIDATION, "unknown path " + path);
+        }
+    }
+
+    private void addBinanceStreams(WebSocket conn, String[] names, boolean combined) {
+        List<Stream> added = new ArrayList<>(names.length);
+        for (String name : names) {
+            int at = name.indexOf('@');
+            String symbol = at < 0 ? name : name.substring(0, at);
+            int symbolIndex = settings.getSymbols().indexOf(symbol);
+            if (symbolIndex < 0) {
+                conn.close(CloseFrame.POLICY_VALIDATION, "unknown stream " + name);
+                return;
+            }
+            boolean bookTicker = at >= 0 && name.endsWith("@bookTicker");
+            added.add(new Stream(conn, bookTicker ? Venue.BINANCE_BOOK_TICKER : Venue.BINANCE_TICKER, symbol,
+                    symbolIndex, combined ? name : null));
+        }
+        streams.addAll(added);
+    }
+
+    @Override
+    public void onClose(WebSocket conn, int code, String reason, boolean remote) {
+        streams.removeIf(stream -> stream.conn == conn);
+    }
+
+    @Override
+    public void onMessage(WebSocket conn, String message) {
+        HuobiSession session = conn.getAttachment();
+        if (session == null) {
+            return;
+        }
+        if (message.startsWith("{\"pong\":")) {
+            session.missedPings = 0;
+        } else if (message.startsWith("{\"ping\":")) {
+            sendGzip(conn, "{\"pong\":" + message.substring(8, message.length() - 1).trim() + "}");
+        } else if (message.contains("\"sub\"")) {
+            subscribe(conn, message);
+        }
+    }
+
+    @Override
+    public void onMessage(WebSocket conn, ByteBuffer message) {
+        // 客户端不发送二进制帧
+    }
+
+    @Override
+    public void onError(WebSocket conn, Exception ex) {
+        logger.warn("[ExchangeSimulator] 连接错误: {}", ex.getMessage());
+    }
+
+    /**
+     * 处理火币订阅请求 {"sub":"market.{symbol}.bbo","id":"..."}
+     */
+    private void subscribe(WebSocket conn, String message) {
+        String channel = stringField(message, "sub");
+        String id = stringField(message, "id");
+        String symbol = channel != null && channel.startsWith("market.") && channel.endsWith(".bbo")
+                ? channel.substring(7, channel.length() - 4) : null;
+        int symbolIndex = symbol == null ? -1 : settings.getSymbols().indexOf(symbol);
+        if (symbolIndex < 0) {
+            sendGzip(conn, "{\"status\":\"error\",\"ts\":" + System.currentTimeMillis()
+                    + ",\"id\":\"" + id + "\",\"err-code\":\"bad-request\",\"err-msg\":\"invalid topic " + channel + "\"}");
+            return;
+        }
+        sendGzip(conn, "{\"id\":\"" + id + "\",\"status\":\"ok\",\"subbed\":\"" + channel
+                + "\",\"ts\":" + System.currentTimeMillis() + "}");
+        streams.add(new Stream(conn, Venue.HUOBI, symbol, symbolIndex, null));
+    }
+
+    private static String stringField(String json, String name) {
+        String key = "\"" + name + "\":";
+        int start = json.indexOf(key);
+        if (start < 0) {
+            return null;
+        }
+        start += key.length();
+        if (start < json.length() && json.charAt(start) == '"') {
+            int end = json.indexOf('"', start + 1);
+            return end < 0 ? null : json.substring(start + 1, end);
+        }
+        int end = start;
+        while (end < json.length() && json.charAt(end) != ',' && json.charAt(end) != '}') {
+            end++;
+        }
+        return json.substring(start, end).trim();
+    }
+
+    private void sendGzip(WebSocket conn, String message) {
+        synchronized (gzip) {
+            if (conn.isOpen()) {
+                conn.send(gzip.encode(message));
+            }
+        }
+    }
+
+    // ==================== 推送线程 ====================
+
+    private void emitLoop() {
+        long last = System.nanoTime();
+        double carry = 0;
+        long nextBurst = settings.getBurstIntervalMs() > 0 ? last + settings.getBurstIntervalMs() * 1_000_000L : Long.MAX_VALUE;
+        long nextDisconnect = settings.getDisconnectIntervalMs() > 0
+                ? last + settings.getDisconnectIntervalMs() * 1_000_000L : Long.MAX_VALUE;
+        long nextPing = last + settings.getHuobiPingIntervalMs() * 1_000_000L;
+        while (running) {
+            long now = System.nanoTime();
+            carry += settings.getRatePerStream() * (now - last) / 1e9;
+            last = now;
+            int perStream = (int) carry;
+            carry -= perStream;
+            if (now >= nextBurst) {
+                perStream += settings.getBurstSize();
+                nextBurst = now + settings.getBurstIntervalMs() * 1_000_000L;
+            }
+            if (perStream > 0) {
+                emit(perStream);
+            }
+            if (now >= nextDisconnect) {
+                disconnectRandom();
+                nextDisconnect = now + settings.getDisconnectIntervalMs() * 1_000_000L;
+            }
+            if (now >= nextPing) {
+                pingHuobiSessions();
+                nextPing = now + settings.getHuobiPingIntervalMs() * 1_000_000L;
+            }
+            LockSupport.parkNanos(200_000L);
+        }
+    }
+
+    /**
+     * 每个连接推送 count 条行情，各连接交替推送
+     */
+    private void emit(int count) {
+        for (int i = 0; i < count; i++) {
+            for (Stream stream : streams) {
+                if (!stream.conn.isOpen()) {
+                    continue;
+                }
+                long mid = nextMid(stream.symbolIndex);
+                // 两个交易所围绕同一中间价各自波动，偶尔出现跨交易所价差
+                long offset = random.nextInt(1000) == 0 ? mid / 300 : Math.round(random.nextGaussian() * 2);
+                long bid = mid + (stream.venue == Venue.HUOBI ? offset : -offset) - 1;
+                long ask = bid + 1;
+                long bidSize = 1 + random.nextInt(50 * (int) SIZE_UNIT);
+                long askSize = 1 + random.nextInt(50 * (int) SIZE_UNIT);
+                long eventTime = System.currentTimeMillis();
+                try {
+                    if (stream.venue == Venue.HUOBI) {
+                        sendGzip(stream.conn, huobiBbo(stream, bid, ask, bidSize, askSize, eventTime));
+                    } else {
+                        stream.conn.send(binance(stream, bid, ask, bidSize, askSize, eventTime));
+                    }
+                } catch (WebsocketNotConnectedException e) {
+                    // 检查之后连接被关闭
+                    continue;
+                }
+                stream.sequence++;
+                sent.incrementAndGet();
+            }
+        }
+    }
+
+    private long nextMid(int symbolIndex) {
+        long mid = mids[symbolIndex] + random.nextInt(3) - 1;
+        mids[symbolIndex] = Math.max(mid, PRICE_UNIT);
+        return mids[symbolIndex];
+    }
+
+    private String binance(Stream stream, long bid, long ask, long bidSize, long askSize, long eventTime) {
+        StringBuilder sb = text;
+        sb.setLength(0);
+        if (stream.combinedName != null) {
+            sb.append("{\"stream\":\"").append(stream.combinedName).append("\",\"data\":");
+        }
+        if (stream.venue == Venue.BINANCE_BOOK_TICKER) {
+            sb.append("{\"u\":").append(stream.sequence).append(",\"s\":\"").append(stream.upperSymbol).append('"');
+        } else {
+            sb.append("{\"e\":\"24hrTicker\",\"E\":").append(eventTime)
+                    .append(",\"s\":\"").append(stream.upperSymbol)
+                    .append("\",\"p\":\"12.35000000\",\"P\":\"0.646\",\"w\":\"1915.43871220\",\"x\":\"1912.05000000\",\"c\":\"");
+            decimal(sb, ask, PRICE_UNIT, 8);
+            sb.append("\",\"Q\":\"1.16600000\"");
+        }
+        sb.append(",\"b\":\"");
+        decimal(sb, bid, PRICE_UNIT, 8);
+        sb.append("\",\"B\":\"");
+        decimal(sb, bidSize, SIZE_UNIT, 8);
+        sb.append("\",\"a\":\"");
+        decimal(sb, ask, PRICE_UNIT, 8);
+        sb.append("\",\"A\":\"");
+        decimal(sb, askSize, SIZE_UNIT, 8);
+        sb.append('"');
+        if (stream.venue == Venue.BINANCE_TICKER) {
+            sb.append(",\"o\":\"1912.04000000\",\"h\":\"1931.00000000\",\"l\":\"1898.81000000\",")
+                    .append("\"v\":\"312543.33174601\",\"q\":\"598657596.86628032\",\"O\":").append(eventTime - 86_400_000L)
+                    .append(",\"C\":").append(eventTime)
+                    .append(",\"F\":1018265127,\"L\":").append(1018265127 + stream.sequence)
+                    .append(",\"n\":").append(stream.sequence + 1);
+        }
+        sb.append('}');
+        if (stream.combinedName != null) {
+            sb.append('}');
+        }
+        return sb.toString();
+    }
+
+    private String huobiBbo(Stream stream, long bid, long ask, long bidSize, long askSize, long eventTime) {
+        StringBuilder sb = text;
+        sb.setLength(0);
+        sb.append("{\"ch\":\"market.").append(stream.symbol).append(".bbo\",\"ts\":").append(eventTime + 1)
+                .append(",\"tick\":{\"seqId\":").append(stream.sequence).append(",\"ask\":");
+        decimal(sb, ask, PRICE_UNIT, 2);
+        sb.append(",\"askSize\":");
+        decimal(sb, askSize, SIZE_UNIT, 4);
+        sb.append(",\"bid\":");
+        decimal(sb, bid, PRICE_UNIT, 2);
+        sb.append(",\"bidSize\":");
+        decimal(sb, bidSize, SIZE_UNIT, 4);
+        sb.append(",\"quoteTime\":").append(eventTime).append(",\"symbol\":\"").append(stream.symbol).append("\"}}");
+        return sb.toString();
+    }
+
+    /**
+     * 以 digits 位小数输出 value/unit
+     */
+    private static void decimal(StringBuilder sb, long value, long unit, int digits) {
+        sb.append(value / unit).append('.');
+        long fraction = value % unit;
+        int unitDigits = Long.toString(unit).length() - 1;
+        String text = Long.toString(fraction);
+        for (int i = text.length(); i < unitDigits; i++) {
+            sb.append('0');
+        }
+        sb.append(text);
+        for (int i = unitDigits; i < digits; i++) {
+            sb.append('0');
+        }
+    }
+
+    private void disconnectRandom() {
+        List<WebSocket> open = new ArrayList<>(getConnections());
+        if (open.isEmpty()) {
+            return;
+        }
+        WebSocket victim = open.get(random.nextInt(open.size()));
+        // 不发送关闭帧，模拟网络中断
+        victim.closeConnection(CloseFrame.ABNORMAL_CLOSE, "simulated disconnect");
+        disconnects.incrementAndGet();
+    }
+
+    private void pingHuobiSessions() {
+        for (WebSocket conn : getConnections()) {
+            HuobiSession session = conn.getAttachment();
+            if (session == null || !conn.isOpen()) {
+                continue;
+            }
+            if (session.missedPings >= 2) {
+                pingTimeouts.incrementAndGet();
+                conn.close(CloseFrame.NORMAL, "heartbeat timeout");
+                continue;
+            }
+            session.missedPings++;
+            sendGzip(conn, "{\"ping\":" + System.currentTimeMillis() + "}");
+        }
+    }
+
+    // ==================== 指标 ====================
+
+    /**
+     * @return 已推送的行情条数
+     */
+    public long getSentCount() {
+        return sent.get();
+    }
+
+    /**
+     * @return 主动断开的连接数
+     */
+    public long getDisconnectCount() {
+        return disconnects.get();
+    }
+
+    /**
+     * @return 因心跳超时断开的火币连接数
+     */
+    public long getPingTimeoutCount() {
+        return pingTimeouts.get();
+    }
+
+    /**
+     * @return 当前推送中的行情流数（每个交易所×交易对一个，多个流可以共用一个连接）
+     */
+    public int getStreamCount() {
+        return streams.size();
+    }
+
+    /**
+     * 服务端尚未写出的帧数；客户端读取跟不上时持续增长
+     */
+    public long getSendBacklog() {
+        long backlog = 0;
+        for (WebSocket conn : getConnections()) {
+            if (conn instanceof WebSocketImpl) {
+                backlog += ((WebSocketImpl) conn).outQueue.size();
+            }
+        }
+        return backlog;
+    }
+
+    // ==================== 内部类 ====================
+
+    private enum Venue {
+        BINANCE_TICKER,
+        BINANCE_BOOK_TICKER,
+        HUOBI
+    }
+
+    /**
+     * 一个连接上的一个交易对的行情流
+     */
+    private static final class Stream {
+        final WebSocket conn;
+        final Venue venue;
+        final String symbol;
+        final String upperSymbol;
+        final int symbolIndex;
+        /** 组合流中的流名称（如 ethusdt@ticker），不是组合流时为null */
+        final String combinedName;
+        long sequence;
+
+        Stream(WebSocket conn, Venue venue, String symbol, int symbolIndex, String combinedName) {
+            this.conn = conn;
+            this.venue = venue;
+            this.symbol = symbol;
+            this.upperSymbol = symbol.toUpperCase();
+            this.symbolIndex = symbolIndex;
+            this.combinedName = combinedName;
+        }
+    }
+
+    /**
+     * 火币连接的心跳状态
+     */
+    private static final class HuobiSession {
+        volatile int missedPings;
+    }
+
+    /**
+     * GZIP编码，复用Deflater（调用方负责同步）
+     */
+    private static final class GzipEncoder {
+        private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+        private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        private final CRC32 crc = new CRC32();
+        private byte[] buffer = new byte[4096];
+
+        byte[] encode(String text) {
+            byte[] input = text.getBytes(StandardCharsets.UTF_8);
+            deflater.reset();
+            deflater.setInput(input);
+            deflater.finish();
+            System.arraycopy(HEADER, 0, buffer, 0, HEADER.length);
+            int length = HEADER.length;
+            while (!deflater.finished()) {
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            crc.reset();
+            crc.update(input, 0, input.length);
+            byte[] frame = new byte[length + 8];
+            System.arraycopy(buffer, 0, frame, 0, length);
+            writeIntLE(frame, length, (int) crc.getValue());
+            writeIntLE(frame, length + 4, input.length);
+            return frame;
+        }
+
+        private static void writeIntLE(byte[] target, int offset, int value) {
+            target[offset] = (byte) value;
+            target[offset + 1] = (byte) (value >>> 8);
+            target[offset + 2] = (byte) (value >>> 16);
+            target[offset + 3] = (byte) (value >>> 24);
+        }
+    }
+}
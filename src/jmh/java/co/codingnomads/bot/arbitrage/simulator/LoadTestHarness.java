@@ -0,0 +1,232 @@
+package co.codingnomads.bot.arbitrage.simulator;
+
+import co.codingnomads.bot.arbitrage.benchmark.BenchmarkContext;
+import co.codingnomads.bot.arbitrage.config.ArbitrageConfig;
+import co.codingnomads.bot.arbitrage.service.ArbitrageService;
+import co.codingnomads.bot.arbitrage.service.RealTimeArbitrageService;
+import co.codingnomads.bot.arbitrage.service.metrics.LatencyHistogram;
+import co.codingnomads.bot.arbitrage.service.metrics.LatencyMonitor;
+import co.codingnomads.bot.arbitrage.service.metrics.LatencyStage;
+import co.codingnomads.bot.arbitrage.service.pipeline.QuotePipeline;
+import co.codingnomads.bot.arbitrage.service.quote.InstrumentRegistry;
+import co.codingnomads.bot.arbitrage.service.websocket.ConnectionSupervisor;
+import co.codingnomads.bot.arbitrage.service.websocket.SupervisedFeed;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 端到端压测
+ *
+ * 启动 {@link ExchangeSimulator}，再启动只扫描 service 包的Spring上下文（Mapper使用桩，见 {@link BenchmarkContext}），
+ * 把 arbitrage.binance.stream-url / arbitrage.huobi.ws-url 指向模拟交易所，由 RealTimeArbitrageService
+ * 按正常流程建立 BinanceWebSocketClient / HuobiWebSocketClient 连接。
+ *
+ * 按 --rates 逐级提高每路行情（交易所×交易对）的推送速率，每级统计：
+ * <ul>
+ *   <li>推送速率和检测线程实际处理的速率（条/秒）</li>
+ *   <li>端到端延迟（推送时的事件时间 → 检测完成）和排队延迟的 p50/p99/max，取两个交易所中较差的一个</li>
+ *   <li>接入缓冲区丢弃数、模拟交易所未写出的帧数</li>
+ * </ul>
+ * 结束时打印检测线程合并掉的报价数和最优价未变跳过评估的次数（--conflate=false 关闭合并对比）。
+ * 出现丢弃、处理速率低于推送速率的95%、或服务端积压持续增长时判定为跟不上，之后再测一级后停止；
+ * 推送速率达不到目标的90%时标记为推送端饱和（模拟交易所本身成为瓶颈）。
+ *
+ * 运行：mvn -Pjmh test-compile exec:exec -Djmh.main=co.codingnomads.bot.arbitrage.simulator.LoadTestHarness
+ *      -Djmh.args="--symbols=4 --rates=100,1000,5000,20000 --step-seconds=10"
+ *
+ * 其他参数：--binance-stream=ticker|bookTicker --wait-strategy=BLOCKING|YIELDING|BUSY_SPIN
+ *          --burst-interval-ms=0 --burst-size=0 --disconnect-interval-ms=0
+ *          --symbols-per-connection=N（每个交易所的连接承载的交易对上限，默认使用配置文件中的值）
+ *
+ * 注意：模拟交易所和被测程序在同一台机器上，推送线程本身会占用CPU；统计线程每分钟打印并清零一次延迟，
+ * 与某一级重叠时该级的延迟样本会偏少。断线后由 ConnectionSupervisor 重连，断流时长见其统计日志。
+ */
+public final class LoadTestHarness {
+
+    private LoadTestHarness() {
+    }
+
+    public static void main(String[] args) {
+        try {
+            run(parse(args));
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+        // WebSocket客户端的读线程不是守护线程
+        System.exit(0);
+    }
+
+    private static void run(Map<String, String> options) throws Exception {
+        int symbolCount = Integer.parseInt(options.getOrDefault("symbols", "1"));
+        long stepSeconds = Long.parseLong(options.getOrDefault("step-seconds", "10"));
+        List<Integer> rates = new ArrayList<>();
+        for (String rate : options.getOrDefault("rates", "100,500,1000,2000,5000,10000,20000").split(",")) {
+            rates.add(Integer.parseInt(rate.trim()));
+        }
+
+        SimulatorSettings settings = new SimulatorSettings()
+                .setSymbols(SimulatorSettings.generateSymbols(symbolCount))
+                .setRatePerStream(0)
+                .setBurst(Long.parseLong(options.getOrDefault("burst-interval-ms", "0")),
+                        Integer.parseInt(options.getOrDefault("burst-size", "0")))
+                .setDisconnectIntervalMs(Long.parseLong(options.getOrDefault("disconnect-interval-ms", "0")));
+        ExchangeSimulator simulator = new ExchangeSimulator(settings);
+        simulator.startAndWait();
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("arbitrage.symbols", String.join(",", settings.getSymbols()));
+        properties.put("arbitrage.websocket.enabled", "true");
+        properties.put("arbitrage.binance.stream-url", simulator.binanceStreamUrl());
+        properties.put("arbitrage.huobi.ws-url", simulator.huobiUrl());
+        properties.put("arbitrage.binance.stream", options.getOrDefault("binance-stream", "ticker"));
+        properties.put("arbitrage.pipeline.wait-strategy", options.getOrDefault("wait-strategy", "BLOCKING"));
+        properties.put("arbitrage.latency.enabled", "true");
+        properties.put("arbitrage.pipeline.conflate", options.getOrDefault("conflate", "true"));
+        if (options.containsKey("symbols-per-connection")) {
+            properties.put("arbitrage.binance.streams-per-connection", options.get("symbols-per-connection"));
+            properties.put("arbitrage.huobi.subscriptions-per-connection", options.get("symbols-per-connection"));
+        }
+        AnnotationConfigApplicationContext context = BenchmarkContext.start(properties);
+
+        try {
+            awaitStreams(simulator, symbolCount * 2);
+            runSteps(simulator, settings, context, rates, stepSeconds);
+        } finally {
+            context.close();
+            simulator.shutdown();
+        }
+    }
+
+    private static void runSteps(ExchangeSimulator simulator, SimulatorSettings settings,
+                                 AnnotationConfigApplicationContext context, List<Integer> rates, long stepSeconds)
+            throws InterruptedException {
+        QuotePipeline pipeline = context.getBean(RealTimeArbitrageService.class).getQuotePipeline();
+        LatencyMonitor latencyMonitor = context.getBean(LatencyMonitor.class);
+        InstrumentRegistry registry = context.getBean(InstrumentRegistry.class);
+        int[] exchanges = {
+                registry.exchangeId(ArbitrageConfig.BINANCE_EXCHANGE_NAME),
+                registry.exchangeId(ArbitrageConfig.HUOBI_EXCHANGE_NAME)
+        };
+        LatencyHistogram.Window window = new LatencyHistogram.Window();
+
+        System.out.printf("%n行情流数=%d，每级%d秒%n", simulator.getStreamCount(), stepSeconds);
+        System.out.printf("%10s %12s %12s %12s %10s %10s %10s %10s %10s %10s  %s%n",
+                "速率/流", "目标/秒", "推送/秒", "处理/秒", "丢弃", "积压", "E2E p50", "E2E p99", "E2E max", "排队p99", "状态");
+
+        double sustained = 0;
+        boolean behind = false;
+        for (int rate : rates) {
+            settings.setRatePerStream(rate);
+            Thread.sleep(1000);
+            for (int exchange : exchanges) {
+                for (LatencyStage stage : LatencyStage.values()) {
+                    latencyMonitor.drain(stage, exchange, window);
+                }
+            }
+            long sent = simulator.getSentCount();
+            long detected = pipeline.getDetectedCount();
+            long dropped = pipeline.getIngestDroppedCount();
+            long backlogStart = simulator.getSendBacklog();
+            double target = (double) rate * simulator.getStreamCount();
+            long start = System.nanoTime();
+            Thread.sleep(stepSeconds * 1000);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            double offered = (simulator.getSentCount() - sent) / seconds;
+            double processed = (pipeline.getDetectedCount() - detected) / seconds;
+            long droppedDelta = pipeline.getIngestDroppedCount() - dropped;
+            long backlog = simulator.getSendBacklog();
+
+            long e2eP50 = 0;
+            long e2eP99 = 0;
+            long e2eMax = 0;
+            long queueP99 = 0;
+            for (int exchange : exchanges) {
+                latencyMonitor.drain(LatencyStage.END_TO_END, exchange, window);
+                e2eP50 = Math.max(e2eP50, window.valueAtPercentile(50));
+                e2eP99 = Math.max(e2eP99, window.valueAtPercentile(99));
+                e2eMax = Math.max(e2eMax, window.getMax());
+                latencyMonitor.drain(LatencyStage.QUEUE, exchange, window);
+                queueP99 = Math.max(queueP99, window.valueAtPercentile(99));
+            }
+
+            String status = "正常";
+            if (droppedDelta > 0) {
+                status = "跟不上: 接入缓冲区丢弃";
+            } else if (processed < offered * 0.95) {
+                status = "跟不上: 处理速率低于推送速率";
+            } else if (backlog > backlogStart && backlog > 1000) {
+                status = "跟不上: 服务端积压增长";
+            } else if (offered < target * 0.9) {
+                // 推送线程与被测程序争用CPU，推送速率本身达不到目标，无法判断上限
+                status = "推送端饱和";
+            }
+            System.out.printf("%10d %12.0f %12.0f %12.0f %10d %10d %10s %10s %10s %10s  %s%n",
+                    rate, target, offered, processed, droppedDelta, backlog,
+                    millis(e2eP50), millis(e2eP99), millis(e2eMax), micros(queueP99), status);
+
+            if (behind) {
+                break;
+            }
+            if (status.startsWith("跟不上")) {
+                behind = true;
+            } else {
+                sustained = processed;
+            }
+        }
+        System.out.printf("%n可持续处理速率: %.0f 条/秒%s，主动断开%d次，心跳超时%d次%n", sustained,
+                behind ? "" : "（未达到上限，可提高 --rates）",
+                simulator.getDisconnectCount(), simulator.getPingTimeoutCount());
+        System.out.printf("突发合并未单独检测%d条，最优价未变只刷新时间%d次%n", pipeline.getConflatedCount(),
+                context.getBean(ArbitrageService.class).getDetector().getUnchangedCount());
+
+        long reconnects = 0;
+        long gaps = 0;
+        long gapTotalNanos = 0;
+        long gapMaxNanos = 0;
+        for (SupervisedFeed feed : context.getBean(ConnectionSupervisor.class).getFeeds()) {
+            reconnects += feed.getReconnectCount();
+            gaps += feed.getGapCount();
+            gapTotalNanos += feed.getGapTotalNanos();
+            gapMaxNanos = Math.max(gapMaxNanos, feed.getGapMaxNanos());
+        }
+        if (gaps > 0) {
+            System.out.printf("重连%d次，断流%d次，平均%.1fms，最长%.1fms%n", reconnects, gaps,
+                    gapTotalNanos / 1e6 / gaps, gapMaxNanos / 1e6);
+        }
+    }
+
+    private static void awaitStreams(ExchangeSimulator simulator, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 15_000;
+        while (simulator.getStreamCount() < expected) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("等待客户端连接超时: " + simulator.getStreamCount() + "/" + expected);
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                throw new IllegalArgumentException("参数格式应为 --name=value: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2fms", nanos / 1_000_000.0);
+    }
+
+    private static String micros(long nanos) {
+        return String.format("%.1fus", nanos / 1_000.0);
+    }
+}
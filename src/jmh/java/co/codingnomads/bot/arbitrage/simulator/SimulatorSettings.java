@@ -0,0 +1,93 @@
+package co.codingnomads.bot.arbitrage.simulator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 模拟交易所的配置
+ *
+ * 推送速率可在运行期修改（压测时逐级加压），其余配置在启动前设置
+ */
+public class SimulatorSettings {
+
+    private int port = 0;
+    private List<String> symbols = Collections.singletonList("ethusdt");
+    private volatile int ratePerStream = 100;
+    private long burstIntervalMs = 0;
+    private int burstSize = 0;
+    private long disconnectIntervalMs = 0;
+    private long huobiPingIntervalMs = 5000;
+    private double basePrice = 1924.37;
+
+    /**
+     * 生成 s0usdt, s1usdt, ... 形式的交易对
+     */
+    public static List<String> generateSymbols(int count) {
+        List<String> symbols = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            symbols.add("s" + i + "usdt");
+        }
+        return symbols;
+    }
+
+    /** 监听端口，0表示随机分配 */
+    public int getPort() { return port; }
+
+    public SimulatorSettings setPort(int port) {
+        this.port = port;
+        return this;
+    }
+
+    /** 可订阅的交易对（小写） */
+    public List<String> getSymbols() { return symbols; }
+
+    public SimulatorSettings setSymbols(List<String> symbols) {
+        this.symbols = symbols;
+        return this;
+    }
+
+    /** 每个连接（每个交易所×交易对）每秒推送的行情条数 */
+    public int getRatePerStream() { return ratePerStream; }
+
+    public SimulatorSettings setRatePerStream(int ratePerStream) {
+        this.ratePerStream = ratePerStream;
+        return this;
+    }
+
+    /** 突发间隔（毫秒），0表示不产生突发 */
+    public long getBurstIntervalMs() { return burstIntervalMs; }
+
+    /** 每次突发在正常速率之外额外推送的条数（每个连接） */
+    public int getBurstSize() { return burstSize; }
+
+    public SimulatorSettings setBurst(long intervalMs, int size) {
+        this.burstIntervalMs = intervalMs;
+        this.burstSize = size;
+        return this;
+    }
+
+    /** 主动断开一个随机连接的间隔（毫秒），0表示不断开 */
+    public long getDisconnectIntervalMs() { return disconnectIntervalMs; }
+
+    public SimulatorSettings setDisconnectIntervalMs(long disconnectIntervalMs) {
+        this.disconnectIntervalMs = disconnectIntervalMs;
+        return this;
+    }
+
+    /** 火币服务端心跳间隔（毫秒），连续两次未收到pong时断开连接 */
+    public long getHuobiPingIntervalMs() { return huobiPingIntervalMs; }
+
+    public SimulatorSettings setHuobiPingIntervalMs(long huobiPingIntervalMs) {
+        this.huobiPingIntervalMs = huobiPingIntervalMs;
+        return this;
+    }
+
+    /** 起始中间价 */
+    public double getBasePrice() { return basePrice; }
+
+    public SimulatorSettings setBasePrice(double basePrice) {
+        this.basePrice = basePrice;
+        return this;
+    }
+}
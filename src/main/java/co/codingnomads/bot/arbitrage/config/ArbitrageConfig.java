@@ -9,11 +9,19 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class ArbitrageConfig {
     // ==================== 交易配置 ====================
-    /** 监控的交易对 */
-    public static final String SYMBOL = "ethusdt";
-    
+    // 监控的交易对列表见 application.properties 中的 arbitrage.symbols
+
     /** 最小套利利润率（百分比） */
     public static final double MIN_ARBITRAGE_MARGIN = 0.03;
+
+    /** 价格定点精度（小数位数），检测路径上价格以 long 尾数表示 */
+    public static final int PRICE_SCALE = 8;
+
+    /**
+     * 挂单量定点精度（小数位数），与价格精度分开配置：
+     * 8位价格精度下 long 尾数只能表示约 9.2e10，供应量大的代币挂单量会溢出
+     */
+    public static final int QUANTITY_SCALE = 6;
     
     // ==================== 时间配置 ====================
     /** 价格数据过期时间（毫秒） */
@@ -39,12 +47,21 @@ public class ArbitrageConfig {
     public static final double TIME_DIFF_THRESHOLD_MULTIPLIER = 1.5;
     
     // ==================== WebSocket配置 ====================
-    /** 币安WebSocket URL */
-    public static final String BINANCE_WS_URL = "wss://stream.binance.com:9443/ws/" + SYMBOL + "@ticker";
+    /** 币安WebSocket URL前缀，后接 &lt;symbol&gt;@ticker */
+    public static final String BINANCE_WS_URL = "wss://stream.binance.com:9443/ws/";
+
+    /** 币安组合流URL前缀，后接 &lt;symbol&gt;@ticker/&lt;symbol&gt;@ticker/... */
+    public static final String BINANCE_STREAM_URL = "wss://stream.binance.com:9443/stream?streams=";
     
     /** 火币WebSocket URL */
     public static final String HUOBI_WS_URL = "wss://api.huobi.pro/ws";
 
+    /** 币安深度快照REST地址 */
+    public static final String BINANCE_DEPTH_REST_URL = "https://api.binance.com/api/v3/depth";
+
+    /** 火币增量深度（mbp）WebSocket URL */
+    public static final String HUOBI_MBP_WS_URL = "wss://api.huobi.pro/feed";
+
     // ==================== 交易所名称 ====================
     public static final String BINANCE_EXCHANGE_NAME = "Binance";
     public static final String HUOBI_EXCHANGE_NAME = "Huobi";
@@ -0,0 +1,389 @@
+package co.codingnomads.bot.arbitrage.exchange.binance;
+
+import co.codingnomads.bot.arbitrage.service.book.DepthUpdate;
+
+/**
+ * 币安深度数据的流式解码器
+ *
+ * 同时支持两种格式：
+ * - 增量深度流 {symbol}@depth@100ms：{"e":"depthUpdate","E":..,"s":..,"U":..,"u":..,"b":[[p,q],..],"a":[[p,q],..]}
+ * - REST快照 /api/v3/depth：{"lastUpdateId":..,"bids":[[p,q],..],"asks":[[p,q],..]}
+ *
+ * 以及组合流的 {"stream":..,"data":{..}} 外层包装；一个连接订阅多个交易对时用 {@link #symbolIndex} 分发。与 {@link BinanceTickerDecoder} 一样直接在文本上扫描，
+ * 价位写入调用方提供的 {@link DepthUpdate}，不构建 JsonNode 树。
+ *
+ * 本类不是线程安全的，每个连接持有一个实例。
+ */
+public final class BinanceDepthDecoder {
+
+    private static final int MAX_EXACT_DIGITS = 18;
+
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final long MAX_SAFE_MANTISSA = 1L << 53;
+
+    private CharSequence message;
+    private int position;
+    private DepthUpdate target;
+    private boolean hasId;
+    /** s 字段值的位置，没有时为-1 */
+    private int symbolStart;
+    private int symbolEnd;
+    /** 流名称中交易对部分（'@' 之前）的位置，不是组合流时为-1 */
+    private int streamStart;
+    private int streamEnd;
+
+    /**
+     * 解码一帧增量或一份快照
+     *
+     * @param text   消息文本
+     * @param update 接收价位的对象（先被清空）
+     * @return 是否为深度数据（订阅回执等消息返回false）
+     * @throws IllegalArgumentException 消息不是合法的JSON对象
+     */
+    public boolean decode(CharSequence text, DepthUpdate update) {
+        message = text;
+        position = 0;
+        target = update;
+        hasId = false;
+        symbolStart = -1;
+        symbolEnd = -1;
+        streamStart = -1;
+        streamEnd = -1;
+        update.reset();
+        try {
+            skipWhitespace();
+            parseObject();
+        } finally {
+            message = null;
+            target = null;
+        }
+        return hasId;
+    }
+
+    /**
+     * 确定上一帧增量属于哪个交易对
+     *
+     * 组合流按流名称（stream 字段 '@' 之前的部分）匹配，否则按 s 字段匹配（均忽略大小写）；
+     * 两者都没有时，只有一个候选交易对则认为属于它。
+     *
+     * @param text    上一次解码的消息文本
+     * @param symbols 本连接订阅的交易对
+     * @return 交易对在 symbols 中的下标，不属于其中任何一个时返回-1
+     */
+    public int symbolIndex(CharSequence text, String[] symbols) {
+        int start = streamStart >= 0 ? streamStart : symbolStart;
+        int end = streamStart >= 0 ? streamEnd : symbolEnd;
+        if (start < 0) {
+            return symbols.length == 1 ? 0 : -1;
+        }
+        for (int i = 0; i < symbols.length; i++) {
+            if (regionEqualsIgnoreCase(text, start, end, symbols[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean regionEqualsIgnoreCase(CharSequence text, int start, int end, String expected) {
+        if (end - start != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (Character.toLowerCase(text.charAt(start + i)) != Character.toLowerCase(expected.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ==================== 扫描 ====================
+
+    private void parseObject() {
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+            return;
+        }
+        while (true) {
+            skipWhitespace();
+            expect('"');
+            int keyStart = position;
+            int keyEnd = skipStringBody();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            parseValue(keyStart, keyEnd);
+            skipWhitespace();
+            char c = next();
+            if (c == '}') {
+                return;
+            }
+            if (c != ',') {
+                throw error("期望 ',' 或 '}'");
+            }
+        }
+    }
+
+    private void parseValue(int keyStart, int keyEnd) {
+        char c = peek();
+        if (keyEnd - keyStart == 1) {
+            switch (message.charAt(keyStart)) {
+                case 'U':
+                    target.setFirstId((long) parseNumberValue());
+                    return;
+                case 'u':
+                    target.setLastId((long) parseNumberValue());
+                    hasId = true;
+                    return;
+                case 'E':
+                    target.setEventTime((long) parseNumberValue());
+                    return;
+                case 'b':
+                    if (c == '[') {
+                        parseLevels(true);
+                        return;
+                    }
+                    break;
+                case 'a':
+                    if (c == '[') {
+                        parseLevels(false);
+                        return;
+                    }
+                    break;
+                case 's':
+                    if (c == '"') {
+                        position++;
+                        symbolStart = position;
+                        symbolEnd = skipStringBody();
+                        return;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        } else if (isKey(keyStart, keyEnd, "lastUpdateId")) {
+            long id = (long) parseNumberValue();
+            target.setFirstId(id);
+            target.setLastId(id);
+            hasId = true;
+            return;
+        } else if (c == '[' && isKey(keyStart, keyEnd, "bids")) {
+            parseLevels(true);
+            return;
+        } else if (c == '[' && isKey(keyStart, keyEnd, "asks")) {
+            parseLevels(false);
+            return;
+        } else if (c == '{' && isKey(keyStart, keyEnd, "data")) {
+            // 组合流外层包装
+            parseObject();
+            return;
+        } else if (c == '"' && isKey(keyStart, keyEnd, "stream")) {
+            position++;
+            streamStart = position;
+            int end = skipStringBody();
+            streamEnd = end;
+            for (int i = streamStart; i < end; i++) {
+                if (message.charAt(i) == '@') {
+                    streamEnd = i;
+                    break;
+                }
+            }
+            return;
+        }
+        skipValue();
+    }
+
+    /**
+     * 解析价位列表 [["price","qty"],...]
+     */
+    private void parseLevels(boolean bids) {
+        expect('[');
+        skipWhitespace();
+        if (peek() == ']') {
+            position++;
+            return;
+        }
+        while (true) {
+            skipWhitespace();
+            expect('[');
+            skipWhitespace();
+            double price = parseNumberValue();
+            skipWhitespace();
+            expect(',');
+            skipWhitespace();
+            double size = parseNumberValue();
+            skipWhitespace();
+            expect(']');
+            if (bids) {
+                target.addBid(price, size);
+            } else {
+                target.addAsk(price, size);
+            }
+            skipWhitespace();
+            char c = next();
+            if (c == ']') {
+                return;
+            }
+            if (c != ',') {
+                throw error("期望 ',' 或 ']'");
+            }
+        }
+    }
+
+    /**
+     * 解析数字值；币安的价格和数量以字符串形式给出，也兼容裸数字
+     */
+    private double parseNumberValue() {
+        boolean quoted = peek() == '"';
+        if (quoted) {
+            position++;
+        }
+        int start = position;
+        boolean negative = false;
+        if (peek() == '-') {
+            negative = true;
+            position++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean fraction = false;
+        while (position < message.length()) {
+            char c = message.charAt(position);
+            if (c >= '0' && c <= '9') {
+                if (digits < MAX_EXACT_DIGITS) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                    if (fraction) {
+                        fractionDigits++;
+                    }
+                } else if (!fraction) {
+                    return parseSlow(start, quoted);
+                }
+                position++;
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+                position++;
+            } else if (c == 'e' || c == 'E') {
+                return parseSlow(start, quoted);
+            } else {
+                break;
+            }
+        }
+        if (position == start) {
+            throw error("期望数字");
+        }
+        if (mantissa >= MAX_SAFE_MANTISSA || fractionDigits >= POW10.length) {
+            return parseSlow(start, quoted);
+        }
+        if (quoted) {
+            expect('"');
+        }
+        double value = mantissa / POW10[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    private double parseSlow(int start, boolean quoted) {
+        while (position < message.length()) {
+            char c = message.charAt(position);
+            if (c == '"' || c == ',' || c == '}' || c == ']' || Character.isWhitespace(c)) {
+                break;
+            }
+            position++;
+        }
+        double value = Double.parseDouble(message.subSequence(start, position).toString());
+        if (quoted) {
+            expect('"');
+        }
+        return value;
+    }
+
+    private void skipValue() {
+        char c = peek();
+        if (c == '"') {
+            position++;
+            skipStringBody();
+        } else if (c == '{' || c == '[') {
+            int depth = 0;
+            while (position < message.length()) {
+                c = message.charAt(position++);
+                if (c == '"') {
+                    skipStringBody();
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if ((c == '}' || c == ']') && --depth == 0) {
+                    return;
+                }
+            }
+            throw error("嵌套结构未闭合");
+        } else {
+            while (position < message.length()) {
+                c = message.charAt(position);
+                if (c == ',' || c == '}' || c == ']' || Character.isWhitespace(c)) {
+                    break;
+                }
+                position++;
+            }
+        }
+    }
+
+    private int skipStringBody() {
+        while (position < message.length()) {
+            char c = message.charAt(position);
+            if (c == '"') {
+                position++;
+                return position - 1;
+            }
+            position += c == '\\' ? 2 : 1;
+        }
+        throw error("字符串未闭合");
+    }
+
+    private boolean isKey(int keyStart, int keyEnd, String key) {
+        if (keyEnd - keyStart != key.length()) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (message.charAt(keyStart + i) != key.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void skipWhitespace() {
+        while (position < message.length() && message.charAt(position) <= ' ') {
+            position++;
+        }
+    }
+
+    private char peek() {
+        if (position >= message.length()) {
+            throw error("消息意外结束");
+        }
+        return message.charAt(position);
+    }
+
+    private char next() {
+        char c = peek();
+        position++;
+        return c;
+    }
+
+    private void expect(char expected) {
+        if (next() != expected) {
+            throw error("期望 '" + expected + "'");
+        }
+    }
+
+    private IllegalArgumentException error(String reason) {
+        return new IllegalArgumentException("币安深度解析失败: " + reason + "，位置 " + position);
+    }
+}
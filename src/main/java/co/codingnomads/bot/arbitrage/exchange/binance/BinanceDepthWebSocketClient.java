@@ -0,0 +1,227 @@
+package co.codingnomads.bot.arbitrage.exchange.binance;
+
+import co.codingnomads.bot.arbitrage.service.book.DepthListener;
+import co.codingnomads.bot.arbitrage.service.book.DepthUpdate;
+import co.codingnomads.bot.arbitrage.service.book.OrderBook;
+import co.codingnomads.bot.arbitrage.service.websocket.SupervisedFeed;
+import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.handshake.ServerHandshake;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 币安增量深度客户端（组合流 {symbol}@depth@100ms，一个连接接收多个交易对）
+ *
+ * 按币安文档的方式为每个交易对维护本地订单簿：
+ * 1. 收到该交易对的第一帧增量后通过REST获取深度快照（lastUpdateId）
+ * 2. 丢弃 u &lt;= lastUpdateId 的增量；第一帧应用的增量须满足 U &lt;= lastUpdateId+1 &lt;= u
+ * 3. 之后每帧的 U 必须等于上一帧的 u + 1，否则清空该交易对的订单簿并重新获取快照
+ *
+ * 快照请求在读线程上同步执行，期间到达的增量由套接字缓冲，请求完成后按顺序处理，不会丢失。
+ * 同一连接的交易对共用价格/数量精度（由调用方按精度分组）。
+ */
+public class BinanceDepthWebSocketClient extends WebSocketClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(BinanceDepthWebSocketClient.class);
+
+    /** 两次快照请求的最小间隔，避免反复失败时触发REST限频 */
+    private static final long SNAPSHOT_RETRY_INTERVAL_MS = 1000;
+
+    /** 深度流名称 */
+    public static final String DEPTH_STREAM = "depth@100ms";
+
+    private final BinanceDepthDecoder decoder = new BinanceDepthDecoder();
+    private final DepthUpdate update;
+    private final DepthUpdate snapshot;
+    private final DepthListener listener;
+    private final SupervisedFeed feed;
+    private final int exchangeId;
+    /** 本连接的交易对，下标与组合流中的顺序一致 */
+    private final String[] symbols;
+    private final SymbolBook[] symbolBooks;
+
+    /**
+     * @param serverUri     组合流地址（见 {@link BinanceWebSocketClient#combinedStreamUri}，流名称为 {@link #DEPTH_STREAM}）
+     * @param restUrl       深度快照REST地址（/api/v3/depth）
+     * @param symbols       本连接的交易对（小写）
+     * @param symbolIds     交易对id，与 symbols 一一对应
+     * @param exchangeId    交易所id
+     * @param scale         价格的定点精度
+     * @param quantityScale 数量的定点精度
+     * @param snapshotLimit 快照档数（币安允许的取值，不小于订单簿容量）
+     * @param books         各交易对的订单簿，与 symbols 一一对应
+     * @param listener      深度回调
+     * @param feed          监督器句柄（断线重连由监督器负责）
+     */
+    public BinanceDepthWebSocketClient(URI serverUri, String restUrl, List<String> symbols, int[] symbolIds,
+                                       int exchangeId, int scale, int quantityScale, int snapshotLimit,
+                                       OrderBook[] books, DepthListener listener, SupervisedFeed feed) {
+        super(serverUri);
+        this.exchangeId = exchangeId;
+        this.listener = listener;
+        this.update = new DepthUpdate(scale, quantityScale);
+        this.snapshot = new DepthUpdate(scale, quantityScale);
+        this.feed = feed;
+        this.symbols = symbols.toArray(new String[0]);
+        this.symbolBooks = new SymbolBook[this.symbols.length];
+        for (int i = 0; i < this.symbols.length; i++) {
+            symbolBooks[i] = new SymbolBook(this.symbols[i], symbolIds[i], books[i],
+                    restUrl + "?symbol=" + this.symbols[i].toUpperCase(Locale.ROOT) + "&limit=" + snapshotLimit);
+        }
+        this.setConnectionLostTimeout(60);
+    }
+
+    @Override
+    public void onOpen(ServerHandshake handshakedata) {
+        logger.info("[BinanceDepth] {} 连接已建立，{}个交易对", feed.getName(), symbols.length);
+        feed.onOpen();
+    }
+
+    @Override
+    public void onMessage(String message) {
+        SymbolBook symbolBook = null;
+        try {
+            if (!decoder.decode(message, update)) {
+                logger.debug("[BinanceDepth] 忽略非深度消息: {}", message);
+                return;
+            }
+            int index = decoder.symbolIndex(message, symbols);
+            if (index < 0) {
+                logger.debug("[BinanceDepth] 忽略其他交易对的消息: {}", message);
+                return;
+            }
+            symbolBook = symbolBooks[index];
+            feed.onData(System.nanoTime());
+            onDepthUpdate(symbolBook, System.currentTimeMillis());
+        } catch (Exception e) {
+            logger.error("[BinanceDepth] 处理深度消息时出错: {}", e.getMessage(), e);
+            // 无法确定交易对时不处理：丢失的增量会使该交易对的下一帧更新id不连续，届时重新同步
+            if (symbolBook != null) {
+                resync(symbolBook, "解析失败");
+            }
+        }
+    }
+
+    private void onDepthUpdate(SymbolBook symbolBook, long now) {
+        OrderBook book = symbolBook.book;
+        if (!book.isSynced() && !loadSnapshot(symbolBook, now)) {
+            return;
+        }
+        long lastUpdateId = book.getLastUpdateId();
+        if (update.getLastId() <= lastUpdateId) {
+            // 快照之前的增量
+            return;
+        }
+        if (symbolBook.awaitingFirstUpdate ? update.getFirstId() > lastUpdateId + 1
+                : update.getFirstId() != lastUpdateId + 1) {
+            resync(symbolBook, "更新id不连续: 期望" + (lastUpdateId + 1) + "，收到" + update.getFirstId());
+            return;
+        }
+        symbolBook.awaitingFirstUpdate = false;
+        if (!book.apply(update, now)) {
+            resync(symbolBook, "订单簿交叉");
+            return;
+        }
+        listener.onBookUpdated(symbolBook.symbolId, exchangeId);
+    }
+
+    /**
+     * 通过REST获取快照并替换订单簿
+     *
+     * @return 是否成功
+     */
+    private boolean loadSnapshot(SymbolBook symbolBook, long now) {
+        if (now - symbolBook.lastSnapshotAttempt < SNAPSHOT_RETRY_INTERVAL_MS) {
+            return false;
+        }
+        symbolBook.lastSnapshotAttempt = now;
+        try {
+            String body = httpGet(symbolBook.snapshotUrl);
+            if (!decoder.decode(body, snapshot)) {
+                logger.warn("[BinanceDepth] {} 快照格式不正确: {}", symbolBook.symbol, body);
+                return false;
+            }
+            symbolBook.book.applySnapshot(snapshot, System.currentTimeMillis());
+            symbolBook.awaitingFirstUpdate = true;
+            logger.info("[BinanceDepth] {} 已加载深度快照 lastUpdateId={}", symbolBook.symbol, snapshot.getLastId());
+            listener.onBookUpdated(symbolBook.symbolId, exchangeId);
+            return true;
+        } catch (Exception e) {
+            logger.warn("[BinanceDepth] {} 获取深度快照失败: {}", symbolBook.symbol, e.getMessage());
+            return false;
+        }
+    }
+
+    private void resync(SymbolBook symbolBook, String reason) {
+        symbolBook.book.invalidate();
+        symbolBook.awaitingFirstUpdate = false;
+        listener.onResync(symbolBook.symbolId, exchangeId, reason);
+    }
+
+    private static String httpGet(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(5000);
+        connection.setReadTimeout(5000);
+        try {
+            int status = connection.getResponseCode();
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new IOException("HTTP " + status);
+            }
+            try (InputStream in = connection.getInputStream()) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    out.write(buffer, 0, read);
+                }
+                return new String(out.toByteArray(), StandardCharsets.UTF_8);
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Override
+    public void onClose(int code, String reason, boolean remote) {
+        logger.warn("[BinanceDepth] {} 连接已关闭: {} (code: {})", feed.getName(), reason, code);
+        for (SymbolBook symbolBook : symbolBooks) {
+            resync(symbolBook, "连接关闭");
+        }
+        feed.onClose();
+    }
+
+    @Override
+    public void onError(Exception ex) {
+        logger.error("[BinanceDepth] {} 连接错误: {}", feed.getName(), ex.getMessage(), ex);
+    }
+
+    /**
+     * 一个交易对的订单簿和同步状态（只在读线程上访问）
+     */
+    private static final class SymbolBook {
+        final String symbol;
+        final int symbolId;
+        final OrderBook book;
+        final String snapshotUrl;
+        /** 快照之后还没有应用过增量 */
+        boolean awaitingFirstUpdate;
+        long lastSnapshotAttempt;
+
+        SymbolBook(String symbol, int symbolId, OrderBook book, String snapshotUrl) {
+            this.symbol = symbol;
+            this.symbolId = symbolId;
+            this.book = book;
+            this.snapshotUrl = snapshotUrl;
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package co.codingnomads.bot.arbitrage.exchange.binance;
+
+/**
+ * 币安行情帧的流式解码器
+ *
+ * 直接在消息文本上逐字符扫描，只提取需要的字段，不构建 JsonNode 树：
+ * - b / B：买一价 / 买一量
+ * - a / A：卖一价 / 卖一量
+ * - E：事件时间（@bookTicker 流没有该字段，此时为0）
+ * - s：交易对（只记录在原文中的位置，不创建字符串）
+ * - stream：组合流的流名称，如 ethusdt@ticker（同样只记录位置），用于在一个连接上按交易对分发
+ *
+ * 同时支持 @ticker 与 @bookTicker 两种流，以及组合流的 {"stream":..,"data":{..}} 外层包装。
+ * 数字直接解析为 double/long，解码结果保存在本对象的字段中，每次解码不产生额外对象。
+ *
+ * 本类不是线程安全的，每个连接持有一个实例。
+ */
+public final class BinanceTickerDecoder {
+
+    /** 可以用 long 精确表示的最大十进制位数 */
+    private static final int MAX_EXACT_DIGITS = 18;
+
+    /** 10的整数次幂，在 double 中都是精确值 */
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final long MAX_SAFE_MANTISSA = 1L << 53;
+
+    private CharSequence message;
+    private int position;
+
+    private double bestBid;
+    private double bestAsk;
+    private double bidSize;
+    private double askSize;
+    private long eventTime;
+    private int symbolStart;
+    private int symbolEnd;
+    /** 流名称中交易对部分（'@' 之前）的位置，不是组合流时为-1 */
+    private int streamStart;
+    private int streamEnd;
+    private boolean hasBid;
+    private boolean hasAsk;
+
+    /**
+     * 解码一帧消息
+     *
+     * @param text 消息文本
+     * @return 是否包含买一价和卖一价（订阅回执等消息返回false）
+     * @throws IllegalArgumentException 消息不是合法的JSON对象
+     */
+    public boolean decode(CharSequence text) {
+        message = text;
+        position = 0;
+        bestBid = 0;
+        bestAsk = 0;
+        bidSize = 0;
+        askSize = 0;
+        eventTime = 0;
+        symbolStart = -1;
+        symbolEnd = -1;
+        streamStart = -1;
+        streamEnd = -1;
+        hasBid = false;
+        hasAsk = false;
+        try {
+            skipWhitespace();
+            parseObject();
+        } finally {
+            message = null;
+        }
+        return hasBid && hasAsk;
+    }
+
+    // ==================== 解码结果 ====================
+
+    public double getBestBid() {
+        return bestBid;
+    }
+
+    public double getBestAsk() {
+        return bestAsk;
+    }
+
+    /**
+     * @return 买一量，消息中没有时为0
+     */
+    public double getBidSize() {
+        return bidSize;
+    }
+
+    /**
+     * @return 卖一量，消息中没有时为0
+     */
+    public double getAskSize() {
+        return askSize;
+    }
+
+    /**
+     * @return 交易所事件时间（毫秒），消息中没有时为0
+     */
+    public long getEventTime() {
+        return eventTime;
+    }
+
+    /**
+     * 判断上一帧的交易对是否为指定交易对（忽略大小写）
+     *
+     * 消息中没有 s 字段时返回true
+     *
+     * @param text   上一次解码的消息文本
+     * @param symbol 期望的交易对
+     */
+    public boolean symbolMatches(CharSequence text, String symbol) {
+        return symbolStart < 0 || regionEqualsIgnoreCase(text, symbolStart, symbolEnd, symbol);
+    }
+
+    /**
+     * 确定上一帧属于哪个交易对
+     *
+     * 组合流按流名称（stream 字段 '@' 之前的部分）匹配，否则按 s 字段匹配（均忽略大小写）；
+     * 两者都没有时，只有一个候选交易对则认为属于它。
+     *
+     * @param text    上一次解码的消息文本
+     * @param symbols 本连接订阅的交易对
+     * @return 交易对在 symbols 中的下标，不属于其中任何一个时返回-1
+     */
+    public int symbolIndex(CharSequence text, String[] symbols) {
+        int start = streamStart >= 0 ? streamStart : symbolStart;
+        int end = streamStart >= 0 ? streamEnd : symbolEnd;
+        if (start < 0) {
+            return symbols.length == 1 ? 0 : -1;
+        }
+        for (int i = 0; i < symbols.length; i++) {
+            if (regionEqualsIgnoreCase(text, start, end, symbols[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean regionEqualsIgnoreCase(CharSequence text, int start, int end, String expected) {
+        if (end - start != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (Character.toLowerCase(text.charAt(start + i)) != Character.toLowerCase(expected.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ==================== 扫描 ====================
+
+    private void parseObject() {
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+            return;
+        }
+        while (true) {
+            skipWhitespace();
+            expect('"');
+            int keyStart = position;
+            int keyEnd = skipStringBody();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            parseValue(keyStart, keyEnd);
+            skipWhitespace();
+            char c = next();
+            if (c == '}') {
+                return;
+            }
+            if (c != ',') {
+                throw error("期望 ',' 或 '}'");
+            }
+        }
+    }
+
+    private void parseValue(int keyStart, int keyEnd) {
+        char c = peek();
+        if (keyEnd - keyStart == 1) {
+            char key = message.charAt(keyStart);
+            switch (key) {
+                case 'b':
+                    bestBid = parseNumberValue();
+                    hasBid = true;
+                    return;
+                case 'a':
+                    bestAsk = parseNumberValue();
+                    hasAsk = true;
+                    return;
+                case 'B':
+                    bidSize = parseNumberValue();
+                    return;
+                case 'A':
+                    askSize = parseNumberValue();
+                    return;
+                case 'E':
+                    eventTime = (long) parseNumberValue();
+                    return;
+                case 's':
+                    if (c == '"') {
+                        position++;
+                        symbolStart = position;
+                        symbolEnd = skipStringBody();
+                        return;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        } else if (c == '{' && isKey(keyStart, keyEnd, "data")) {
+            // 组合流外层包装
+            parseObject();
+            return;
+        } else if (c == '"' && isKey(keyStart, keyEnd, "stream")) {
+            position++;
+            streamStart = position;
+            int end = skipStringBody();
+            streamEnd = end;
+            for (int i = streamStart; i < end; i++) {
+                if (message.charAt(i) == '@') {
+                    streamEnd = i;
+                    break;
+                }
+            }
+            return;
+        }
+        skipValue();
+    }
+
+    /**
+     * 解析数字值；币安的价格和数量以字符串形式给出，也兼容裸数字
+     */
+    private double parseNumberValue() {
+        boolean quoted = peek() == '"';
+        if (quoted) {
+            position++;
+        }
+        int start = position;
+        boolean negative = false;
+        if (peek() == '-') {
+            negative = true;
+            position++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean fraction = false;
+        while (position < message.length()) {
+            char c = message.charAt(position);
+            if (c >= '0' && c <= '9') {
+                if (digits < MAX_EXACT_DIGITS) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                    if (fraction) {
+                        fractionDigits++;
+                    }
+                } else if (!fraction) {
+                    // 整数部分超出精确范围，交给JDK解析
+                    return parseSlow(start, quoted);
+                }
+                position++;
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+                position++;
+            } else if (c == 'e' || c == 'E') {
+                return parseSlow(start, quoted);
+            } else {
+                break;
+            }
+        }
+        if (position == start) {
+            throw error("期望数字");
+        }
+        if (mantissa >= MAX_SAFE_MANTISSA || fractionDigits >= POW10.length) {
+            return parseSlow(start, quoted);
+        }
+        if (quoted) {
+            expect('"');
+        }
+        // 尾数和10的幂都是精确的double，一次除法即得到正确舍入的结果
+        double value = mantissa / POW10[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    private double parseSlow(int start, boolean quoted) {
+        while (position < message.length()) {
+            char c = message.charAt(position);
+            if (c == '"' || c == ',' || c == '}' || c == ']' || Character.isWhitespace(c)) {
+                break;
+            }
+            position++;
+        }
+        double value = Double.parseDouble(message.subSequence(start, position).toString());
+        if (quoted) {
+            expect('"');
+        }
+        return value;
+    }
+
+    private void skipValue() {
+        char c = peek();
+        if (c == '"') {
+            position++;
+            skipStringBody();
+        } else if (c == '{' || c == '[') {
+            skipNested();
+        } else {
+            while (position < message.length()) {
+                c = message.charAt(position);
+                if (c == ',' || c == '}' || c == ']' || Character.isWhitespace(c)) {
+                    break;
+                }
+                position++;
+            }
+        }
+    }
+
+    private void skipNested() {
+        int depth = 0;
+        while (position < message.length()) {
+            char c = message.charAt(position++);
+            if (c == '"') {
+                skipStringBody();
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                if (--depth == 0) {
+                    return;
+                }
+            }
+        }
+        throw error("嵌套结构未闭合");
+    }
+
+    /**
+     * 跳过字符串内容（起始引号已消费），返回结束引号的位置
+     */
+    private int skipStringBody() {
+        while (position < message.length()) {
+            char c = message.charAt(position);
+            if (c == '"') {
+                position++;
+                return position - 1;
+            }
+            position += c == '\\' ? 2 : 1;
+        }
+        throw error("字符串未闭合");
+    }
+
+    private boolean isKey(int keyStart, int keyEnd, String key) {
+        if (keyEnd - keyStart != key.length()) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (message.charAt(keyStart + i) != key.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void skipWhitespace() {
+        while (position < message.length() && message.charAt(position) <= ' ') {
+            position++;
+        }
+    }
+
+    private char peek() {
+        if (position >= message.length()) {
+            throw error("消息意外结束");
+        }
+        return message.charAt(position);
+    }
+
+    private char next() {
+        char c = peek();
+        position++;
+        return c;
+    }
+
+    private void expect(char expected) {
+        if (next() != expected) {
+            throw error("期望 '" + expected + "'");
+        }
+    }
+
+    private IllegalArgumentException error(String reason) {
+        return new IllegalArgumentException("币安行情解析失败: " + reason + "，位置 " + position);
+    }
+}
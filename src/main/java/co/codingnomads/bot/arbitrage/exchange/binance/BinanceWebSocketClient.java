@@ -1,43 +1,89 @@
 package co.codingnomads.bot.arbitrage.exchange.binance;
 
+import co.codingnomads.bot.arbitrage.config.ArbitrageConfig;
+import co.codingnomads.bot.arbitrage.service.metrics.jfr.FrameDecodeEvent;
+import co.codingnomads.bot.arbitrage.service.metrics.jfr.JfrSupport;
+import co.codingnomads.bot.arbitrage.service.websocket.SupervisedFeed;
 import co.codingnomads.bot.arbitrage.service.websocket.WebSocketMessageHandler;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.java_websocket.client.WebSocketClient;
 import org.java_websocket.handshake.ServerHandshake;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * 币安交易所WebSocket客户端
  *
  * 负责：
- * 1. 连接到币安WebSocket API
- * 2. 处理实时行情数据
+ * 1. 连接到币安WebSocket API，一个连接通过组合流（/stream?streams=a@ticker/b@ticker）接收多个交易对
+ * 2. 处理实时行情数据，按流名称分发到对应交易对
  * 3. 解析价格信息并更新本地缓存
  * 4. 触发套利机会检查
+ *
+ * 断线重连和无数据看门狗由 {@link co.codingnomads.bot.arbitrage.service.websocket.ConnectionSupervisor} 负责
  */
 public class BinanceWebSocketClient extends WebSocketClient {
 
     private static final Logger logger = LoggerFactory.getLogger(BinanceWebSocketClient.class);
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    /** 流式解码器，只在本连接的读线程上使用 */
+    private final BinanceTickerDecoder decoder = new BinanceTickerDecoder();
     private final WebSocketMessageHandler messageHandler;
+    /** 本连接的交易对，下标与组合流中的顺序一致 */
+    private final String[] symbols;
+    private final SupervisedFeed feed;
+
+    /**
+     * 构造单个交易对、不受监督的客户端（断线后不重连）
+     *
+     * @param serverUri      币安WebSocket服务器URI（@ticker 或 @bookTicker 流）
+     * @param symbol         订阅的交易对（小写）
+     * @param messageHandler 消息处理器
+     */
+    public BinanceWebSocketClient(URI serverUri, String symbol, WebSocketMessageHandler messageHandler) {
+        this(serverUri, Collections.singletonList(symbol), messageHandler,
+                SupervisedFeed.unsupervised(ArbitrageConfig.BINANCE_EXCHANGE_NAME + " " + symbol));
+    }
 
     /**
      * 构造函数
      *
-     * @param serverUri      币安WebSocket服务器URI
+     * @param serverUri      币安WebSocket服务器URI，多个交易对时为组合流地址（见 {@link #combinedStreamUri}）
+     * @param symbols        本连接的交易对（小写）
      * @param messageHandler 消息处理器
+     * @param feed           监督器句柄
      */
-    public BinanceWebSocketClient(URI serverUri, WebSocketMessageHandler messageHandler) {
+    public BinanceWebSocketClient(URI serverUri, List<String> symbols, WebSocketMessageHandler messageHandler,
+                                  SupervisedFeed feed) {
         super(serverUri);
+        this.symbols = symbols.toArray(new String[0]);
         this.messageHandler = messageHandler;
+        this.feed = feed;
         this.setConnectionLostTimeout(60);
     }
 
+    /**
+     * 构造组合流地址；订阅写在URL里，重连后无需重新发送订阅请求
+     *
+     * @param streamUrl 组合流地址前缀，如 wss://stream.binance.com:9443/stream?streams=
+     * @param symbols   交易对（小写）
+     * @param stream    流类型（ticker / bookTicker）
+     */
+    public static URI combinedStreamUri(String streamUrl, List<String> symbols, String stream) {
+        StringBuilder uri = new StringBuilder(streamUrl);
+        for (int i = 0; i < symbols.size(); i++) {
+            if (i > 0) {
+                uri.append('/');
+            }
+            uri.append(symbols.get(i)).append('@').append(stream);
+        }
+        return URI.create(uri.toString());
+    }
+
     /**
      * 连接建立时的回调
      *
@@ -45,7 +91,8 @@ public class BinanceWebSocketClient extends WebSocketClient {
      */
     @Override
     public void onOpen(ServerHandshake handshakedata) {
-        logger.info("[Binance] 连接已建立，开始接收数据...");
+        logger.info("[Binance] {} 连接已建立，开始接收{}个交易对的数据...", feed.getName(), symbols.length);
+        feed.onOpen();
     }
 
     /**
@@ -55,8 +102,9 @@ public class BinanceWebSocketClient extends WebSocketClient {
      */
     @Override
     public void onMessage(String message) {
+        long receiveNanos = System.nanoTime();
         try {
-            handleBinanceMessage(message);
+            handleBinanceMessage(message, receiveNanos);
         } catch (Exception e) {
             logger.error("[Binance] 处理文本消息时出错: {}", e.getMessage(), e);
         }
@@ -64,7 +112,8 @@ public class BinanceWebSocketClient extends WebSocketClient {
 
     @Override
     public void onClose(int code, String reason, boolean remote) {
-        logger.warn("[Binance] 连接已关闭: {} (code: {})", reason, code);
+        logger.warn("[Binance] {} 连接已关闭: {} (code: {})", feed.getName(), reason, code);
+        feed.onClose();
     }
 
     @Override
@@ -75,15 +124,41 @@ public class BinanceWebSocketClient extends WebSocketClient {
     /**
      * 处理币安消息内容
      *
-     * @param message 解压后的消息内容
+     * 使用流式解码器只提取买卖一价/量和事件时间，不构建JSON树；按流名称（或 s 字段）确定交易对
+     *
+     * @param message      消息内容
+     * @param receiveNanos 收到该帧时的 System.nanoTime()
      */
-    private void handleBinanceMessage(String message) {
+    private void handleBinanceMessage(String message, long receiveNanos) {
         try {
-            JsonNode jsonNode = objectMapper.readTree(message);
-            double bestBid = jsonNode.get("b").asDouble();  // 买一价
-            double bestAsk = jsonNode.get("a").asDouble();  // 卖一价
-
-            messageHandler.handlePriceUpdate("币安", bestBid, bestAsk);
+            FrameDecodeEvent decodeEvent = JfrSupport.AVAILABLE ? new FrameDecodeEvent() : null;
+            if (decodeEvent != null) {
+                decodeEvent.begin();
+            }
+            boolean decoded = decoder.decode(message);
+            if (decodeEvent != null) {
+                decodeEvent.end();
+                if (decodeEvent.shouldCommit()) {
+                    decodeEvent.exchange = ArbitrageConfig.BINANCE_EXCHANGE_NAME;
+                    decodeEvent.connection = feed.getName();
+                    // 收到的是已解码的文本，按UTF-8重新编码得到帧的字节数（只在超过阈值时计算）
+                    decodeEvent.bytes = message.getBytes(StandardCharsets.UTF_8).length;
+                    decodeEvent.commit();
+                }
+            }
+            if (!decoded) {
+                logger.debug("[Binance] 忽略非行情消息: {}", message);
+                return;
+            }
+            int index = decoder.symbolIndex(message, symbols);
+            if (index < 0) {
+                logger.debug("[Binance] 忽略其他交易对的消息: {}", message);
+                return;
+            }
+            feed.onData(receiveNanos);
+            messageHandler.handleQuote(ArbitrageConfig.BINANCE_EXCHANGE_NAME, symbols[index],
+                    decoder.getBestBid(), decoder.getBestAsk(),
+                    decoder.getBidSize(), decoder.getAskSize(), decoder.getEventTime(), receiveNanos);
         } catch (Exception e) {
             logger.error("[Binance] 处理消息时出错: {}", e.getMessage(), e);
         }
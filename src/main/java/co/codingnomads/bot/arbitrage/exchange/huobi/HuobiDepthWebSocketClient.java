@@ -0,0 +1,236 @@
+package co.codingnomads.bot.arbitrage.exchange.huobi;
+
+import co.codingnomads.bot.arbitrage.service.book.DepthListener;
+import co.codingnomads.bot.arbitrage.service.book.DepthUpdate;
+import co.codingnomads.bot.arbitrage.service.book.OrderBook;
+import co.codingnomads.bot.arbitrage.service.websocket.SupervisedFeed;
+import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.handshake.ServerHandshake;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 火币增量深度客户端（market.{symbol}.mbp.{levels}，一个连接订阅多个交易对）
+ *
+ * 按火币文档的方式为每个交易对维护本地订单簿：
+ * 1. 订阅增量后缓存收到的增量，并通过同一连接的 req 请求全量快照（seqNum）
+ * 2. 丢弃 seqNum &lt;= 快照seqNum 的增量；第一帧应用的增量须满足 prevSeqNum &lt;= 快照seqNum
+ * 3. 之后每帧的 prevSeqNum 必须等于上一帧的 seqNum，否则清空该交易对的订单簿并重新请求快照
+ *
+ * 增量按 ch、快照响应按 rep 分发到交易对；同一连接的交易对共用价格/数量精度（由调用方按精度分组）。
+ * 服务端心跳 {"ping":..} 直接回复pong。
+ */
+public class HuobiDepthWebSocketClient extends WebSocketClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(HuobiDepthWebSocketClient.class);
+
+    /** 等待快照期间每个交易对最多缓存的增量帧数，超过后丢弃缓存并重新请求 */
+    private static final int MAX_PENDING_UPDATES = 1000;
+
+    private final HuobiMessageDecoder decoder = new HuobiMessageDecoder();
+    private final DepthUpdate update;
+    private final DepthListener listener;
+    private final SupervisedFeed feed;
+    private final int exchangeId;
+    private final SymbolBook[] symbolBooks;
+    /** 各交易对的频道（ASCII字节），下标与 symbolBooks 一致 */
+    private final byte[][] channels;
+
+    /**
+     * @param serverUri     深度地址（火币增量深度使用 /feed）
+     * @param symbols       本连接的交易对（小写）
+     * @param levels        订阅档数（火币支持 5 / 20 / 150 / 400）
+     * @param symbolIds     交易对id，与 symbols 一一对应
+     * @param exchangeId    交易所id
+     * @param scale         价格的定点精度
+     * @param quantityScale 数量的定点精度
+     * @param books         各交易对的订单簿，与 symbols 一一对应
+     * @param listener      深度回调
+     * @param feed          监督器句柄（断线重连由监督器负责）
+     */
+    public HuobiDepthWebSocketClient(URI serverUri, List<String> symbols, int levels, int[] symbolIds, int exchangeId,
+                                     int scale, int quantityScale, OrderBook[] books, DepthListener listener,
+                                     SupervisedFeed feed) {
+        super(serverUri);
+        this.exchangeId = exchangeId;
+        this.listener = listener;
+        this.update = new DepthUpdate(scale, quantityScale);
+        this.decoder.setDepthTarget(update);
+        this.feed = feed;
+        this.symbolBooks = new SymbolBook[symbols.size()];
+        this.channels = new byte[symbols.size()][];
+        for (int i = 0; i < symbols.size(); i++) {
+            String channel = "market." + symbols.get(i) + ".mbp." + levels;
+            symbolBooks[i] = new SymbolBook(symbols.get(i), symbolIds[i], books[i], channel);
+            channels[i] = channel.getBytes(StandardCharsets.US_ASCII);
+        }
+        this.setConnectionLostTimeout(60);
+    }
+
+    @Override
+    public void onOpen(ServerHandshake handshakedata) {
+        logger.info("[HuobiDepth] {} 连接已建立，订阅{}个交易对", feed.getName(), symbolBooks.length);
+        feed.onOpen();
+        for (SymbolBook symbolBook : symbolBooks) {
+            send("{\"sub\":\"" + symbolBook.channel + "\",\"id\":\"" + System.currentTimeMillis() + "\"}");
+        }
+    }
+
+    @Override
+    public void onMessage(String message) {
+        logger.debug("[HuobiDepth] 收到文本消息: {}", message);
+    }
+
+    @Override
+    public void onMessage(ByteBuffer bytes) {
+        SymbolBook symbolBook = null;
+        try {
+            int type = decoder.decode(bytes);
+            switch (type) {
+                case HuobiMessageDecoder.TYPE_DEPTH:
+                case HuobiMessageDecoder.TYPE_SNAPSHOT:
+                    int index = decoder.channelIndex(channels);
+                    if (index < 0) {
+                        break;
+                    }
+                    symbolBook = symbolBooks[index];
+                    if (type == HuobiMessageDecoder.TYPE_DEPTH) {
+                        feed.onData(System.nanoTime());
+                        onDepthUpdate(symbolBook, System.currentTimeMillis());
+                    } else {
+                        onSnapshot(symbolBook, System.currentTimeMillis());
+                    }
+                    break;
+                case HuobiMessageDecoder.TYPE_PING:
+                    send("{\"pong\":" + decoder.getPingValue() + "}");
+                    break;
+                case HuobiMessageDecoder.TYPE_SUBBED:
+                case HuobiMessageDecoder.TYPE_ERROR:
+                    // text() 会解码出新的字符串，只在日志级别开启时调用
+                    if (logger.isInfoEnabled()) {
+                        logger.info("[HuobiDepth] {}", decoder.text());
+                    }
+                    break;
+                default:
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("[HuobiDepth] 忽略未知消息: {}", decoder.text());
+                    }
+                    break;
+            }
+        } catch (Exception e) {
+            logger.error("[HuobiDepth] 处理深度消息时出错: {}", e.getMessage(), e);
+            // 无法确定交易对时不处理：丢失的增量会使该交易对的下一帧seqNum不连续，届时重新同步
+            if (symbolBook != null) {
+                resync(symbolBook, "解析失败");
+            }
+        }
+    }
+
+    private void onDepthUpdate(SymbolBook symbolBook, long now) {
+        if (!symbolBook.book.isSynced()) {
+            List<DepthUpdate> pending = symbolBook.pending;
+            if (pending.size() >= MAX_PENDING_UPDATES) {
+                pending.clear();
+                symbolBook.snapshotRequested = false;
+            }
+            DepthUpdate copy = new DepthUpdate(update.getScale(), update.getQuantityScale());
+            copy.copyFrom(update);
+            pending.add(copy);
+            if (!symbolBook.snapshotRequested) {
+                send("{\"req\":\"" + symbolBook.channel + "\",\"id\":\"" + System.currentTimeMillis() + "\"}");
+                symbolBook.snapshotRequested = true;
+            }
+            return;
+        }
+        applyUpdate(symbolBook, update, now);
+    }
+
+    private void onSnapshot(SymbolBook symbolBook, long now) {
+        symbolBook.book.applySnapshot(update, now);
+        symbolBook.snapshotRequested = false;
+        logger.info("[HuobiDepth] {} 已加载深度快照 seqNum={}", symbolBook.symbol, update.getLastId());
+        symbolBook.awaitingFirstUpdate = true;
+        for (DepthUpdate buffered : symbolBook.pending) {
+            if (!applyUpdate(symbolBook, buffered, now)) {
+                symbolBook.pending.clear();
+                return;
+            }
+        }
+        symbolBook.pending.clear();
+        listener.onBookUpdated(symbolBook.symbolId, exchangeId);
+    }
+
+    /**
+     * 应用一帧增量
+     *
+     * @return 是否仍保持同步
+     */
+    private boolean applyUpdate(SymbolBook symbolBook, DepthUpdate depth, long now) {
+        OrderBook book = symbolBook.book;
+        long lastSeq = book.getLastUpdateId();
+        if (depth.getLastId() <= lastSeq) {
+            return true;
+        }
+        if (symbolBook.awaitingFirstUpdate ? depth.getFirstId() > lastSeq : depth.getFirstId() != lastSeq) {
+            resync(symbolBook, "seqNum不连续: 期望prevSeqNum=" + lastSeq + "，收到" + depth.getFirstId());
+            return false;
+        }
+        symbolBook.awaitingFirstUpdate = false;
+        if (!book.apply(depth, now)) {
+            resync(symbolBook, "订单簿交叉");
+            return false;
+        }
+        listener.onBookUpdated(symbolBook.symbolId, exchangeId);
+        return true;
+    }
+
+    private void resync(SymbolBook symbolBook, String reason) {
+        symbolBook.book.invalidate();
+        symbolBook.snapshotRequested = false;
+        symbolBook.awaitingFirstUpdate = false;
+        listener.onResync(symbolBook.symbolId, exchangeId, reason);
+    }
+
+    @Override
+    public void onClose(int code, String reason, boolean remote) {
+        logger.warn("[HuobiDepth] {} 连接已关闭: {} (code: {})", feed.getName(), reason, code);
+        for (SymbolBook symbolBook : symbolBooks) {
+            symbolBook.pending.clear();
+            resync(symbolBook, "连接关闭");
+        }
+        feed.onClose();
+    }
+
+    @Override
+    public void onError(Exception ex) {
+        logger.error("[HuobiDepth] {} 连接错误: {}", feed.getName(), ex.getMessage(), ex);
+    }
+
+    /**
+     * 一个交易对的订单簿和同步状态（只在读线程上访问）
+     */
+    private static final class SymbolBook {
+        final String symbol;
+        final int symbolId;
+        final OrderBook book;
+        final String channel;
+        /** 等待快照期间缓存的增量（只在重新同步时分配） */
+        final List<DepthUpdate> pending = new ArrayList<>();
+        boolean snapshotRequested;
+        /** 快照之后还没有应用过增量 */
+        boolean awaitingFirstUpdate;
+
+        SymbolBook(String symbol, int symbolId, OrderBook book, String channel) {
+            this.symbol = symbol;
+            this.symbolId = symbolId;
+            this.book = book;
+            this.channel = channel;
+        }
+    }
+}
@@ -0,0 +1,592 @@
+package co.codingnomads.bot.arbitrage.exchange.huobi;
+
+import co.codingnomads.bot.arbitrage.service.book.DepthUpdate;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * 火币二进制消息解码器
+ *
+ * 负责：
+ * 1. 复用同一个 Inflater 和可增长的缓冲区解压GZIP帧，不创建流对象
+ * 2. 按解压后字节的前缀区分 ping / pong / 行情 / 订阅回执 / 错误消息
+ * 3. 在字节上直接解析 bbo 行情的买卖一价/量，不创建中间字符串
+ * 4. 设置了深度目标时，解析 mbp 增量深度和 req 快照响应的价位列表
+ *
+ * 本类不是线程安全的，每个连接持有一个实例。
+ */
+public final class HuobiMessageDecoder {
+
+    /** 无法识别的消息 */
+    public static final int TYPE_OTHER = 0;
+    /** 服务端心跳 {"ping":...}，需要回复pong */
+    public static final int TYPE_PING = 1;
+    /** 对客户端心跳的响应 {"pong":...} */
+    public static final int TYPE_PONG = 2;
+    /** 行情推送 {"ch":...,"tick":{...}} */
+    public static final int TYPE_TICK = 3;
+    /** 订阅回执 */
+    public static final int TYPE_SUBBED = 4;
+    /** 错误消息 */
+    public static final int TYPE_ERROR = 5;
+    /** 增量深度 {"ch":"market.xxx.mbp.N","tick":{"seqNum":..,"prevSeqNum":..,"bids":..,"asks":..}} */
+    public static final int TYPE_DEPTH = 6;
+    /** 深度快照（req的响应） {"id":..,"rep":..,"status":"ok","data":{"seqNum":..,"bids":..,"asks":..}} */
+    public static final int TYPE_SNAPSHOT = 7;
+
+    private static final byte[] PING_PREFIX = ascii("{\"ping\":");
+    private static final byte[] PONG_PREFIX = ascii("{\"pong\":");
+    private static final byte[] CH_PREFIX = ascii("{\"ch\":");
+    private static final byte[] SUBBED = ascii("\"subbed\"");
+    private static final byte[] ERROR_STATUS = ascii("\"status\":\"error\"");
+    private static final byte[] ERR_MSG = ascii("\"err-msg\"");
+    private static final byte[] REP = ascii("\"rep\"");
+
+    private static final int GZIP_MAGIC_1 = 0x1f;
+    private static final int GZIP_MAGIC_2 = 0x8b;
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+    /** GZIP尾部：CRC32 + 原始长度 */
+    private static final int GZIP_TRAILER_LENGTH = 8;
+
+    private static final int MAX_EXACT_DIGITS = 18;
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_SAFE_MANTISSA = 1L << 53;
+
+    private final Inflater inflater = new Inflater(true);
+    private byte[] input = new byte[1024];
+    private byte[] output = new byte[4096];
+    private int length;
+    private int position;
+
+    // ==================== 解码结果 ====================
+    private long pingValue;
+    private int channelStart;
+    private int channelEnd;
+    private double bestBid;
+    private double bestAsk;
+    private double bidSize;
+    private double askSize;
+    private long eventTime;
+    private boolean hasBid;
+    private boolean hasAsk;
+    /** 深度解析目标，为null时不解析深度 */
+    private DepthUpdate depth;
+    private boolean hasDepth;
+
+    /**
+     * 解压并识别一帧消息
+     *
+     * @param compressed GZIP压缩的消息，读取后position移到limit
+     * @return 消息类型（TYPE_*）
+     * @throws IllegalArgumentException 数据不是合法的GZIP或JSON
+     */
+    public int decode(ByteBuffer compressed) {
+        inflate(compressed);
+        position = 0;
+
+        if (startsWith(PING_PREFIX)) {
+            position = PING_PREFIX.length;
+            pingValue = (long) parseNumber();
+            return TYPE_PING;
+        }
+        if (startsWith(PONG_PREFIX)) {
+            return TYPE_PONG;
+        }
+        if (startsWith(CH_PREFIX)) {
+            parseTick();
+            if (hasDepth) {
+                return TYPE_DEPTH;
+            }
+            return hasBid && hasAsk ? TYPE_TICK : TYPE_OTHER;
+        }
+        if (depth != null && indexOf(REP) >= 0 && indexOf(ERROR_STATUS) < 0) {
+            parseTick();
+            return hasDepth ? TYPE_SNAPSHOT : TYPE_OTHER;
+        }
+        // 订阅回执和错误消息很少出现，直接搜索即可
+        if (indexOf(SUBBED) >= 0) {
+            return TYPE_SUBBED;
+        }
+        if (indexOf(ERROR_STATUS) >= 0 || indexOf(ERR_MSG) >= 0) {
+            return TYPE_ERROR;
+        }
+        return TYPE_OTHER;
+    }
+
+    /**
+     * 设置深度解析目标；之后 mbp 增量和快照响应的价位写入该对象
+     *
+     * @param target 深度数据，价格按其精度换算
+     */
+    public void setDepthTarget(DepthUpdate target) {
+        this.depth = target;
+    }
+
+    /**
+     * @return 上一帧ping的值，回复pong时原样带回
+     */
+    public long getPingValue() {
+        return pingValue;
+    }
+
+    public double getBestBid() {
+        return bestBid;
+    }
+
+    public double getBestAsk() {
+        return bestAsk;
+    }
+
+    public double getBidSize() {
+        return bidSize;
+    }
+
+    public double getAskSize() {
+        return askSize;
+    }
+
+    /**
+     * @return 交易所报价时间（tick.quoteTime，缺失时取外层ts），都没有时为0
+     */
+    public long getEventTime() {
+        return eventTime;
+    }
+
+    /**
+     * 判断上一帧行情的频道是否为指定频道
+     *
+     * @param channel 期望的频道（ASCII字节，如 market.ethusdt.bbo）
+     */
+    public boolean channelEquals(byte[] channel) {
+        if (channelStart < 0 || channelEnd - channelStart != channel.length) {
+            return false;
+        }
+        for (int i = 0; i < channel.length; i++) {
+            if (output[channelStart + i] != channel[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 在多个频道中查找上一帧行情所属的频道，用于一个连接订阅多个交易对时分发
+     *
+     * @param channels 候选频道（ASCII字节）
+     * @return 匹配的下标，没有匹配时返回-1
+     */
+    public int channelIndex(byte[][] channels) {
+        for (int i = 0; i < channels.length; i++) {
+            if (channelEquals(channels[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return 上一帧解压后的文本，只用于日志等低频场景
+     */
+    public String text() {
+        return new String(output, 0, length, StandardCharsets.UTF_8);
+    }
+
+    // ==================== 解压 ====================
+
+    private void inflate(ByteBuffer compressed) {
+        int size = compressed.remaining();
+        byte[] source;
+        int offset;
+        if (compressed.hasArray()) {
+            source = compressed.array();
+            offset = compressed.arrayOffset() + compressed.position();
+            compressed.position(compressed.limit());
+        } else {
+            // Java 8 的 Inflater 只接受数组，直接缓冲区需复制到复用的输入缓冲区
+            if (input.length < size) {
+                input = new byte[Math.max(size, input.length * 2)];
+            }
+            compressed.get(input, 0, size);
+            source = input;
+            offset = 0;
+        }
+
+        int headerLength = gzipHeaderLength(source, offset, size);
+        inflater.reset();
+        inflater.setInput(source, offset + headerLength, size - headerLength - GZIP_TRAILER_LENGTH);
+        length = 0;
+        try {
+            while (!inflater.finished()) {
+                if (length == output.length) {
+                    byte[] grown = new byte[output.length * 2];
+                    System.arraycopy(output, 0, grown, 0, length);
+                    output = grown;
+                }
+                int inflated = inflater.inflate(output, length, output.length - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("火币消息GZIP数据不完整");
+                }
+                length += inflated;
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("火币消息GZIP数据损坏: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 解析GZIP头部（RFC 1952），返回头部长度
+     */
+    private static int gzipHeaderLength(byte[] data, int offset, int size) {
+        if (size < 10 + GZIP_TRAILER_LENGTH
+                || (data[offset] & 0xff) != GZIP_MAGIC_1 || (data[offset + 1] & 0xff) != GZIP_MAGIC_2) {
+            throw new IllegalArgumentException("火币消息不是GZIP格式");
+        }
+        int flags = data[offset + 3] & 0xff;
+        int index = 10;
+        if ((flags & FEXTRA) != 0) {
+            index += 2 + ((data[offset + index] & 0xff) | (data[offset + index + 1] & 0xff) << 8);
+        }
+        if ((flags & FNAME) != 0) {
+            while (data[offset + index++] != 0) {
+                // 跳过以0结尾的文件名
+            }
+        }
+        if ((flags & FCOMMENT) != 0) {
+            while (data[offset + index++] != 0) {
+                // 跳过以0结尾的注释
+            }
+        }
+        if ((flags & FHCRC) != 0) {
+            index += 2;
+        }
+        return index;
+    }
+
+    // ==================== 行情解析 ====================
+
+    /**
+     * 解析 {"ch":"market.xxx.bbo","ts":...,"tick":{"bid":..,"bidSize":..,"ask":..,"askSize":..,"quoteTime":..}}
+     */
+    private void parseTick() {
+        channelStart = -1;
+        channelEnd = -1;
+        bestBid = 0;
+        bestAsk = 0;
+        bidSize = 0;
+        askSize = 0;
+        eventTime = 0;
+        hasBid = false;
+        hasAsk = false;
+        hasDepth = false;
+        if (depth != null) {
+            depth.reset();
+        }
+        parseObject(false);
+        if (hasDepth) {
+            depth.setEventTime(eventTime);
+        }
+    }
+
+    private void parseObject(boolean inTick) {
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+            return;
+        }
+        while (true) {
+            skipWhitespace();
+            expect('"');
+            int keyStart = position;
+            int keyEnd = skipStringBody();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            parseValue(keyStart, keyEnd, inTick);
+            skipWhitespace();
+            byte c = next();
+            if (c == '}') {
+                return;
+            }
+            if (c != ',') {
+                throw error("期望 ',' 或 '}'");
+            }
+        }
+    }
+
+    private void parseValue(int keyStart, int keyEnd, boolean inTick) {
+        byte c = peek();
+        if (inTick) {
+            if (isKey(keyStart, keyEnd, "bid")) {
+                bestBid = parseNumber();
+                hasBid = true;
+                return;
+            }
+            if (isKey(keyStart, keyEnd, "ask")) {
+                bestAsk = parseNumber();
+                hasAsk = true;
+                return;
+            }
+            if (isKey(keyStart, keyEnd, "bidSize")) {
+                bidSize = parseNumber();
+                return;
+            }
+            if (isKey(keyStart, keyEnd, "askSize")) {
+                askSize = parseNumber();
+                return;
+            }
+            if (isKey(keyStart, keyEnd, "quoteTime")) {
+                eventTime = (long) parseNumber();
+                return;
+            }
+            if (depth != null) {
+                if (isKey(keyStart, keyEnd, "seqNum")) {
+                    depth.setLastId((long) parseNumber());
+                    hasDepth = true;
+                    return;
+                }
+                if (isKey(keyStart, keyEnd, "prevSeqNum")) {
+                    depth.setFirstId((long) parseNumber());
+                    return;
+                }
+                if (c == '[' && isKey(keyStart, keyEnd, "bids")) {
+                    parseLevels(true);
+                    return;
+                }
+                if (c == '[' && isKey(keyStart, keyEnd, "asks")) {
+                    parseLevels(false);
+                    return;
+                }
+            }
+        } else {
+            // 增量为 ch，快照响应为 rep，都用于按频道分发
+            if (c == '"' && (isKey(keyStart, keyEnd, "ch") || isKey(keyStart, keyEnd, "rep"))) {
+                position++;
+                channelStart = position;
+                channelEnd = skipStringBody();
+                return;
+            }
+            if (c == '{' && (isKey(keyStart, keyEnd, "tick") || isKey(keyStart, keyEnd, "data"))) {
+                parseObject(true);
+                return;
+            }
+            if (isKey(keyStart, keyEnd, "ts") && eventTime == 0) {
+                eventTime = (long) parseNumber();
+                return;
+            }
+        }
+        skipValue();
+    }
+
+    /**
+     * 解析价位列表 [[price,size],...]
+     */
+    private void parseLevels(boolean bids) {
+        expect('[');
+        skipWhitespace();
+        if (peek() == ']') {
+            position++;
+            return;
+        }
+        while (true) {
+            skipWhitespace();
+            expect('[');
+            skipWhitespace();
+            double price = parseNumber();
+            skipWhitespace();
+            expect(',');
+            skipWhitespace();
+            double size = parseNumber();
+            skipWhitespace();
+            expect(']');
+            if (bids) {
+                depth.addBid(price, size);
+            } else {
+                depth.addAsk(price, size);
+            }
+            skipWhitespace();
+            byte c = next();
+            if (c == ']') {
+                return;
+            }
+            if (c != ',') {
+                throw error("期望 ',' 或 ']'");
+            }
+        }
+    }
+
+    private double parseNumber() {
+        int start = position;
+        boolean negative = false;
+        if (peek() == '-') {
+            negative = true;
+            position++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean fraction = false;
+        while (position < length) {
+            byte c = output[position];
+            if (c >= '0' && c <= '9') {
+                if (digits < MAX_EXACT_DIGITS) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                    if (fraction) {
+                        fractionDigits++;
+                    }
+                } else if (!fraction) {
+                    return parseSlow(start);
+                }
+                position++;
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+                position++;
+            } else if (c == 'e' || c == 'E') {
+                return parseSlow(start);
+            } else {
+                break;
+            }
+        }
+        if (position == start) {
+            throw error("期望数字");
+        }
+        if (mantissa >= MAX_SAFE_MANTISSA || fractionDigits >= POW10.length) {
+            return parseSlow(start);
+        }
+        double value = mantissa / POW10[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    private double parseSlow(int start) {
+        while (position < length) {
+            byte c = output[position];
+            if (c == ',' || c == '}' || c == ']' || c <= ' ') {
+                break;
+            }
+            position++;
+        }
+        return Double.parseDouble(new String(output, start, position - start, StandardCharsets.US_ASCII));
+    }
+
+    private void skipValue() {
+        byte c = peek();
+        if (c == '"') {
+            position++;
+            skipStringBody();
+        } else if (c == '{' || c == '[') {
+            int depth = 0;
+            while (position < length) {
+                c = output[position++];
+                if (c == '"') {
+                    skipStringBody();
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if ((c == '}' || c == ']') && --depth == 0) {
+                    return;
+                }
+            }
+            throw error("嵌套结构未闭合");
+        } else {
+            while (position < length) {
+                c = output[position];
+                if (c == ',' || c == '}' || c == ']' || c <= ' ') {
+                    break;
+                }
+                position++;
+            }
+        }
+    }
+
+    private int skipStringBody() {
+        while (position < length) {
+            byte c = output[position];
+            if (c == '"') {
+                position++;
+                return position - 1;
+            }
+            position += c == '\\' ? 2 : 1;
+        }
+        throw error("字符串未闭合");
+    }
+
+    private boolean isKey(int keyStart, int keyEnd, String key) {
+        if (keyEnd - keyStart != key.length()) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (output[keyStart + i] != key.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean startsWith(byte[] prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (output[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int indexOf(byte[] pattern) {
+        outer:
+        for (int i = 0; i <= length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (output[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private void skipWhitespace() {
+        while (position < length && output[position] <= ' ' && output[position] >= 0) {
+            position++;
+        }
+    }
+
+    private byte peek() {
+        if (position >= length) {
+            throw error("消息意外结束");
+        }
+        return output[position];
+    }
+
+    private byte next() {
+        byte c = peek();
+        position++;
+        return c;
+    }
+
+    private void expect(char expected) {
+        if (next() != expected) {
+            throw error("期望 '" + expected + "'");
+        }
+    }
+
+    private IllegalArgumentException error(String reason) {
+        return new IllegalArgumentException("火币行情解析失败: " + reason + "，位置 " + position);
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -1,9 +1,10 @@
 package co.codingnomads.bot.arbitrage.exchange.huobi;
 
+import co.codingnomads.bot.arbitrage.config.ArbitrageConfig;
+import co.codingnomads.bot.arbitrage.service.metrics.jfr.FrameDecodeEvent;
+import co.codingnomads.bot.arbitrage.service.metrics.jfr.JfrSupport;
+import co.codingnomads.bot.arbitrage.service.websocket.SupervisedFeed;
 import co.codingnomads.bot.arbitrage.service.websocket.WebSocketMessageHandler;
-import co.codingnomads.bot.arbitrage.util.GzipUtil;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.java_websocket.client.WebSocketClient;
 import org.java_websocket.handshake.ServerHandshake;
 import org.slf4j.Logger;
@@ -11,40 +12,71 @@ import org.slf4j.LoggerFactory;
 
 import java.net.URI;
 import java.nio.ByteBuffer;
-import java.util.Timer;
-import java.util.TimerTask;
-
-import static co.codingnomads.bot.arbitrage.config.ArbitrageConfig.SYMBOL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * 火币交易所WebSocket客户端
  *
  * 负责：
- * 1. 连接到火币WebSocket API
- * 2. 处理实时行情数据（GZIP压缩）
+ * 1. 连接到火币WebSocket API，在一个连接上为多个交易对分别发送 sub
+ * 2. 处理实时行情数据（GZIP压缩），按频道名称分发到对应交易对
  * 3. 维护心跳连接（Ping/Pong）
  * 4. 解析价格信息并更新本地缓存
  * 5. 触发套利机会检查
+ *
+ * 断线重连、无数据看门狗和客户端ping由 {@link co.codingnomads.bot.arbitrage.service.websocket.ConnectionSupervisor}
+ * 在共享的调度线程上执行
  */
 public class HuobiWebSocketClient extends WebSocketClient {
 
     private static final Logger logger = LoggerFactory.getLogger(HuobiWebSocketClient.class);
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    /** 解码器，只在本连接的读线程上使用 */
+    private final HuobiMessageDecoder decoder = new HuobiMessageDecoder();
     private final WebSocketMessageHandler messageHandler;
-    private Timer pingTimer;
-    private final Object pingLock = new Object();
+    /** 本连接的交易对，下标与 bboChannels 一致 */
+    private final String[] symbols;
+    /** 订阅的bbo频道（ASCII字节），用于在字节上确定行情所属频道 */
+    private final byte[][] bboChannels;
+    private final SupervisedFeed feed;
+
+    /** 客户端ping间隔（毫秒） */
+    private static final long PING_INTERVAL_MS = 20000;
+
+    /**
+     * 构造单个交易对、不受监督的客户端（断线后不重连）
+     *
+     * @param serverUri      火币WebSocket服务器URI
+     * @param symbol         订阅的交易对（小写）
+     * @param messageHandler 消息处理器
+     */
+    public HuobiWebSocketClient(URI serverUri, String symbol, WebSocketMessageHandler messageHandler) {
+        this(serverUri, Collections.singletonList(symbol), messageHandler,
+                SupervisedFeed.unsupervised(ArbitrageConfig.HUOBI_EXCHANGE_NAME + " " + symbol));
+    }
 
     /**
      * 构造函数
      *
      * @param serverUri      火币WebSocket服务器URI
+     * @param symbols        本连接订阅的交易对（小写）
      * @param messageHandler 消息处理器
+     * @param feed           监督器句柄
      */
-    public HuobiWebSocketClient(URI serverUri, WebSocketMessageHandler messageHandler) {
+    public HuobiWebSocketClient(URI serverUri, List<String> symbols, WebSocketMessageHandler messageHandler,
+                                SupervisedFeed feed) {
         super(serverUri);
+        this.symbols = symbols.toArray(new String[0]);
         this.messageHandler = messageHandler;
+        this.bboChannels = new byte[this.symbols.length][];
+        for (int i = 0; i < this.symbols.length; i++) {
+            bboChannels[i] = ("market." + this.symbols[i] + ".bbo").getBytes(StandardCharsets.US_ASCII);
+        }
+        this.feed = feed;
         this.setConnectionLostTimeout(60);
+        feed.setHeartbeat(this::sendPingMessage, PING_INTERVAL_MS);
     }
 
     @Override
@@ -54,10 +86,9 @@ public class HuobiWebSocketClient extends WebSocketClient {
 
     @Override
     public void onMessage(ByteBuffer bytes) {
+        long receiveNanos = System.nanoTime();
         try {
-            byte[] byteArray = new byte[bytes.remaining()];
-            bytes.get(byteArray);
-            handleHuobiMessage(byteArray);
+            handleHuobiMessage(bytes, receiveNanos);
         } catch (Exception e) {
             logger.error("[Huobi] 处理二进制消息时出错: {}", e.getMessage(), e);
         }
@@ -65,111 +96,107 @@ public class HuobiWebSocketClient extends WebSocketClient {
 
     @Override
     public void onOpen(ServerHandshake handshakedata) {
-        logger.info("[Huobi] 连接已建立，发送订阅请求...");
-        sendSubscriptionMessage();
-        startPingTimer();
+        logger.info("[Huobi] {} 连接已建立，发送{}个订阅请求...", feed.getName(), symbols.length);
+        sendSubscriptionMessages();
+        feed.onOpen();
     }
 
     @Override
     public void onClose(int code, String reason, boolean remote) {
-        logger.warn("[Huobi] 连接已关闭: {} (code: {})", reason, code);
-        stopPingTimer();
-        scheduleReconnect();
+        logger.warn("[Huobi] {} 连接已关闭: {} (code: {})", feed.getName(), reason, code);
+        feed.onClose();
     }
 
     @Override
     public void onError(Exception ex) {
         logger.error("[Huobi] 连接错误: {}", ex.getMessage(), ex);
-        stopPingTimer();
     }
 
-    private void sendSubscriptionMessage() {
-        String subscribeMsg = String.format("{\"sub\":\"market.%s.bbo\",\"id\":\"%d\"}",
-                SYMBOL, System.currentTimeMillis());
-        this.send(subscribeMsg);
-    }
-
-    private void scheduleReconnect() {
-        new Thread(() -> {
-            try {
-                logger.info("[Huobi] 5秒后尝试重新连接...");
-                Thread.sleep(5000);
-                logger.info("[Huobi] 正在重新连接...");
-                this.reconnectBlocking();
-                logger.info("[Huobi] 重新连接成功");
-            } catch (Exception e) {
-                logger.error("[Huobi] 重连失败: {}", e.getMessage(), e);
-                this.onClose(0, "重连失败", false);
-            }
-        }).start();
-    }
-
-    private void startPingTimer() {
-        stopPingTimer();
-        synchronized (pingLock) {
-            pingTimer = new Timer("Huobi-Ping-Timer", true);
-            pingTimer.scheduleAtFixedRate(new TimerTask() {
-                @Override
-                public void run() {
-                    if (isOpen()) {
-                        try {
-                            sendPingMessage();
-                        } catch (Exception e) {
-                            logger.error("[Huobi] 发送Ping失败: {}", e.getMessage(), e);
-                            reconnect();
-                        }
-                    }
-                }
-            }, 10000, 20000); // 10秒后开始，每20秒执行一次
-        }
-    }
-
-    private void stopPingTimer() {
-        synchronized (pingLock) {
-            if (pingTimer != null) {
-                pingTimer.cancel();
-                pingTimer = null;
-            }
+    private void sendSubscriptionMessages() {
+        long id = System.currentTimeMillis();
+        for (String symbol : symbols) {
+            String subscribeMsg = String.format("{\"sub\":\"market.%s.bbo\",\"id\":\"%d\"}", symbol, id++);
+            this.send(subscribeMsg);
         }
     }
 
     private void sendPingMessage() {
+        if (!isOpen()) {
+            return;
+        }
         String pingMsg = "{\"ping\":" + System.currentTimeMillis() + "}";
         send(pingMsg);
         logger.debug("[Huobi] 发送Ping...");
     }
 
-    private void handleHuobiMessage(byte[] message) {
+    /**
+     * 处理火币消息
+     *
+     * 解压后按字节前缀分发：服务端ping直接回复pong，行情在字节上解析后交给处理器
+     *
+     * @param message      GZIP压缩的消息
+     * @param receiveNanos 收到该帧时的 System.nanoTime()
+     */
+    private void handleHuobiMessage(ByteBuffer message, long receiveNanos) {
         try {
-            String decompressedMessage = GzipUtil.decompressGzip(message);
-            if (decompressedMessage == null || decompressedMessage.isEmpty()) {
-                return;
-            }
-
-            if (decompressedMessage.contains("pong")) {
-                logger.debug("[Huobi] 收到Pong响应");
-                return;
+            FrameDecodeEvent decodeEvent = JfrSupport.AVAILABLE ? new FrameDecodeEvent() : null;
+            int bytes = message.remaining();
+            if (decodeEvent != null) {
+                decodeEvent.begin();
             }
-
-            if (decompressedMessage.contains("subbed") || decompressedMessage.contains("err-msg")) {
-                logger.info("[Huobi] {}", decompressedMessage);
-                return;
+            int type = decoder.decode(message);
+            if (decodeEvent != null) {
+                decodeEvent.end();
+                if (decodeEvent.shouldCommit()) {
+                    decodeEvent.exchange = ArbitrageConfig.HUOBI_EXCHANGE_NAME;
+                    decodeEvent.connection = feed.getName();
+                    decodeEvent.bytes = bytes;
+                    decodeEvent.commit();
+                }
             }
-
-            JsonNode jsonNode = objectMapper.readTree(decompressedMessage);
-            if (jsonNode.has("ch") && jsonNode.has("tick")) {
-                String channel = jsonNode.get("ch").asText();
-                if (channel.endsWith(".bbo")) {
-                    JsonNode tick = jsonNode.get("tick");
-                    if (tick.has("bid") && tick.has("ask")) {
-                        double bestBid = tick.get("bid").asDouble();
-                        double bestAsk = tick.get("ask").asDouble();
-                        messageHandler.handlePriceUpdate("火币", bestBid, bestAsk);
+            switch (type) {
+                case HuobiMessageDecoder.TYPE_TICK:
+                    int index = decoder.channelIndex(bboChannels);
+                    if (index >= 0) {
+                        feed.onData(receiveNanos);
+                        messageHandler.handleQuote(ArbitrageConfig.HUOBI_EXCHANGE_NAME, symbols[index],
+                                decoder.getBestBid(), decoder.getBestAsk(),
+                                decoder.getBidSize(), decoder.getAskSize(), decoder.getEventTime(), receiveNanos);
                     }
-                }
+                    break;
+                case HuobiMessageDecoder.TYPE_PING:
+                    sendPongMessage(decoder.getPingValue());
+                    break;
+                case HuobiMessageDecoder.TYPE_PONG:
+                    logger.debug("[Huobi] 收到Pong响应");
+                    break;
+                case HuobiMessageDecoder.TYPE_SUBBED:
+                case HuobiMessageDecoder.TYPE_ERROR:
+                    // text() 会解码出新的字符串，只在日志级别开启时调用
+                    if (logger.isInfoEnabled()) {
+                        logger.info("[Huobi] {}", decoder.text());
+                    }
+                    break;
+                default:
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("[Huobi] 忽略未知消息: {}", decoder.text());
+                    }
+                    break;
             }
         } catch (Exception e) {
             logger.error("[Huobi] 处理消息时出错: {}", e.getMessage(), e);
         }
     }
+
+    /**
+     * 回复服务端心跳；火币在连续两次ping未收到pong后会断开连接
+     *
+     * @param ping 服务端ping的值
+     */
+    private void sendPongMessage(long ping) {
+        if (isOpen()) {
+            send("{\"pong\":" + ping + "}");
+            logger.debug("[Huobi] 回复Pong: {}", ping);
+        }
+    }
 }
\ No newline at end of file
@@ -3,8 +3,11 @@ package co.codingnomads.bot.arbitrage.mapper;
 import co.codingnomads.bot.arbitrage.model.ArbitrageOpportunity;
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultMap;
 import org.apache.ibatis.annotations.Select;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -13,16 +16,37 @@ import java.util.List;
 @Mapper
 public interface ArbitrageOpportunityMapper {
 
-    @Insert("INSERT INTO arbitrage_opportunities (symbol, buy_exchange, sell_exchange, buy_price, sell_price, profit_margin, profit_amount, detected_at) " +
-            "VALUES (#{symbol}, #{buyExchange}, #{sellExchange}, #{buyPrice}, #{sellPrice}, #{profitMargin}, #{profitAmount}, NOW())")
+    @Insert("INSERT INTO arbitrage_opportunities (symbol, buy_exchange, sell_exchange, buy_price, sell_price, profit_margin, profit_amount, " +
+            "peak_margin, avg_margin, tick_count, duration_ms, started_at, ended_at, detected_at) " +
+            "VALUES (#{symbol}, #{buyExchange}, #{sellExchange}, #{buyPrice}, #{sellPrice}, #{profitMargin}, #{profitAmount}, " +
+            "#{peakMargin}, #{avgMargin}, #{tickCount}, #{durationMs}, #{startedAt}, #{endedAt}, IFNULL(#{detectedAt}, NOW()))")
     int insertArbitrageOpportunity(ArbitrageOpportunity opportunity);
 
     @Select("SELECT * FROM arbitrage_opportunities WHERE symbol = #{symbol} ORDER BY detected_at DESC LIMIT #{limit}")
-    List<ArbitrageOpportunity> getLatestOpportunities(String symbol, int limit);
-    
+    @ResultMap("ArbitrageOpportunityResultMap")
+    List<ArbitrageOpportunity> getLatestOpportunities(@Param("symbol") String symbol, @Param("limit") int limit);
+
     @Select("SELECT * FROM arbitrage_opportunities ORDER BY detected_at DESC LIMIT #{limit}")
-    List<ArbitrageOpportunity> getAllLatestOpportunities(int limit);
+    @ResultMap("ArbitrageOpportunityResultMap")
+    List<ArbitrageOpportunity> getAllLatestOpportunities(@Param("limit") int limit);
+
+    /**
+     * 某个交易对在 before 之前最新的套利机会，用于重启后填充内存中的最近记录
+     */
+    @Select("SELECT * FROM arbitrage_opportunities WHERE symbol = #{symbol} AND detected_at < #{before} " +
+            "ORDER BY detected_at DESC LIMIT #{limit}")
+    @ResultMap("ArbitrageOpportunityResultMap")
+    List<ArbitrageOpportunity> getOpportunitiesBefore(@Param("symbol") String symbol,
+                                                      @Param("before") LocalDateTime before, @Param("limit") int limit);
+
+    @Select("SELECT * FROM arbitrage_opportunities WHERE detected_at < #{before} ORDER BY detected_at DESC LIMIT #{limit}")
+    @ResultMap("ArbitrageOpportunityResultMap")
+    List<ArbitrageOpportunity> getAllOpportunitiesBefore(@Param("before") LocalDateTime before, @Param("limit") int limit);
 
-    @Select("SELECT COUNT(*) FROM arbitrage_opportunities WHERE DATE(detected_at) = CURDATE()")
-    int getTodayOpportunityCount();
+    /**
+     * 统计 [from, to) 内的套利机会；范围条件可以使用 idx_detected_at，
+     * 只在重启当天回查启动前的部分，其余由内存计数器给出
+     */
+    @Select("SELECT COUNT(*) FROM arbitrage_opportunities WHERE detected_at >= #{from} AND detected_at < #{to}")
+    int countOpportunitiesBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
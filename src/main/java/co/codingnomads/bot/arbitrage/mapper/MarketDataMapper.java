@@ -3,8 +3,13 @@ package co.codingnomads.bot.arbitrage.mapper;
 import co.codingnomads.bot.arbitrage.model.MarketData;
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultMap;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -17,18 +22,61 @@ public interface MarketDataMapper {
             "VALUES (#{exchange}, #{symbol}, #{bidPrice}, #{askPrice}, #{bidVolume}, #{askVolume}, #{timestamp}, NOW())")
     int insertMarketData(MarketData marketData);
 
-    @Select("SELECT * FROM market_data WHERE exchange = #{exchange} AND symbol = #{symbol} ORDER BY created_at DESC LIMIT #{limit}")
-    List<MarketData> getLatestMarketData(String exchange, String symbol, int limit);
-    
-    @Select("SELECT * FROM market_data ORDER BY created_at DESC LIMIT #{limit}")
-    List<MarketData> getAllLatestMarketData(int limit);
-    
-    @Select("SELECT * FROM market_data WHERE exchange = #{exchange} ORDER BY created_at DESC LIMIT #{limit}")
-    List<MarketData> getLatestMarketDataByExchange(String exchange, int limit);
-
-    @Select("SELECT COUNT(*) FROM market_data WHERE exchange = #{exchange} AND DATE(created_at) = CURDATE()")
-    int getTodayDataCount(String exchange);
-    
-    @Select("SELECT COUNT(*) FROM market_data WHERE DATE(created_at) = CURDATE()")
-    int getAllTodayDataCount();
+    /**
+     * 多行批量插入，由写后队列按批次调用
+     */
+    @Insert({"<script>",
+            "INSERT INTO market_data (exchange, symbol, bid_price, ask_price, bid_volume, ask_volume, timestamp, created_at) VALUES ",
+            "<foreach collection='list' item='d' separator=','>",
+            "(#{d.exchange}, #{d.symbol}, #{d.bidPrice}, #{d.askPrice}, #{d.bidVolume}, #{d.askVolume}, #{d.timestamp}, NOW())",
+            "</foreach>",
+            "</script>"})
+    int insertMarketDataBatch(@Param("list") List<MarketData> marketDataList);
+
+    /**
+     * 最新N条行情
+     *
+     * 子查询只访问 (exchange, symbol, created_at) 索引（二级索引包含主键 id, created_at），
+     * 按索引顺序取出N个主键后再回表，排序和过滤都不读取数据行
+     */
+    @Select("SELECT m.* FROM market_data m JOIN (SELECT id, created_at FROM market_data " +
+            "WHERE exchange = #{exchange} AND symbol = #{symbol} ORDER BY created_at DESC LIMIT #{limit}) t " +
+            "USING (id, created_at) ORDER BY m.created_at DESC")
+    @ResultMap("MarketDataResultMap")
+    List<MarketData> getLatestMarketData(@Param("exchange") String exchange, @Param("symbol") String symbol,
+                                         @Param("limit") int limit);
+
+    @Select("SELECT m.* FROM market_data m JOIN (SELECT id, created_at FROM market_data " +
+            "ORDER BY created_at DESC LIMIT #{limit}) t USING (id, created_at) ORDER BY m.created_at DESC")
+    @ResultMap("MarketDataResultMap")
+    List<MarketData> getAllLatestMarketData(@Param("limit") int limit);
+
+    @Select("SELECT m.* FROM market_data m JOIN (SELECT id, created_at FROM market_data " +
+            "WHERE exchange = #{exchange} ORDER BY created_at DESC LIMIT #{limit}) t " +
+            "USING (id, created_at) ORDER BY m.created_at DESC")
+    @ResultMap("MarketDataResultMap")
+    List<MarketData> getLatestMarketDataByExchange(@Param("exchange") String exchange, @Param("limit") int limit);
+
+    /**
+     * 统计某个交易所 [from, to) 内写入的行情；范围条件可以使用 idx_exchange_created_at，
+     * 只在重启当天回查启动前的部分，其余由内存计数器给出
+     */
+    @Select("SELECT COUNT(*) FROM market_data WHERE exchange = #{exchange} AND created_at >= #{from} AND created_at < #{to}")
+    int countMarketDataBetween(@Param("exchange") String exchange,
+                               @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Select("SELECT COUNT(*) FROM market_data WHERE created_at >= #{from} AND created_at < #{to}")
+    int countAllMarketDataBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * 按时间顺序流式读取一个交易对在 [from, to) 内的行情，用于离线回放
+     *
+     * fetchSize=Integer.MIN_VALUE 让MySQL驱动逐行流式返回，不把结果集整体读入内存；
+     * 返回的游标只在打开它的SqlSession内有效
+     */
+    @Select("SELECT id, exchange, symbol, bid_price, ask_price, bid_volume, ask_volume, timestamp, created_at " +
+            "FROM market_data WHERE symbol = #{symbol} AND timestamp >= #{from} AND timestamp < #{to} ORDER BY timestamp, id")
+    @Options(fetchSize = Integer.MIN_VALUE)
+    @ResultMap("MarketDataResultMap")
+    Cursor<MarketData> streamMarketData(@Param("symbol") String symbol, @Param("from") long from, @Param("to") long to);
 }
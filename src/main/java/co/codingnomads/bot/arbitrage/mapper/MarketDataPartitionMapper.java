@@ -0,0 +1,68 @@
+package co.codingnomads.bot.arbitrage.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+
+/**
+ * 行情表分区维护Mapper
+ *
+ * 表名、分区名和分区定义由 MarketDataRetentionManager 按固定格式生成，以 ${} 拼入DDL，不接受外部输入
+ */
+@Mapper
+public interface MarketDataPartitionMapper {
+
+    /**
+     * 按顺序列出表的分区名，未分区的表返回空列表
+     */
+    @Select("SELECT PARTITION_NAME FROM information_schema.PARTITIONS " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = #{table} AND PARTITION_NAME IS NOT NULL " +
+            "ORDER BY PARTITION_ORDINAL_POSITION")
+    List<String> listPartitions(@Param("table") String table);
+
+    /**
+     * 数据库当前时间，与 created_at 的默认值 CURRENT_TIMESTAMP 使用同一个时区
+     *
+     * @return yyyy-MM-dd HH:mm:ss
+     */
+    @Select("SELECT DATE_FORMAT(NOW(), '%Y-%m-%d %H:%i:%s')")
+    String currentTime();
+
+    /**
+     * 把兜底分区 pmax 拆分为新的分区和新的 pmax
+     *
+     * @param partitions 以逗号分隔的分区定义，如 PARTITION p20240101 VALUES LESS THAN ('2024-01-02 00:00:00')
+     */
+    @Update("ALTER TABLE ${table} REORGANIZE PARTITION pmax INTO (${partitions}, PARTITION pmax VALUES LESS THAN (MAXVALUE))")
+    void addPartitions(@Param("table") String table, @Param("partitions") String partitions);
+
+    @Update("ALTER TABLE ${table} DROP PARTITION ${partition}")
+    void dropPartition(@Param("table") String table, @Param("partition") String partition);
+
+    // ==================== 归档 ====================
+
+    @Update("CREATE TABLE IF NOT EXISTS ${archive} LIKE ${table}")
+    void createArchiveTable(@Param("archive") String archive, @Param("table") String table);
+
+    /**
+     * @return 表中是否有数据（1/0）
+     */
+    @Select("SELECT EXISTS(SELECT 1 FROM ${table} LIMIT 1)")
+    int hasRows(@Param("table") String table);
+
+    /**
+     * EXCHANGE PARTITION 要求目标表不分区
+     */
+    @Update("ALTER TABLE ${archive} REMOVE PARTITIONING")
+    void removePartitioning(@Param("archive") String archive);
+
+    /**
+     * 把分区的数据整体换到归档表（只交换表空间，不复制数据），分区变为空
+     */
+    @Update("ALTER TABLE ${table} EXCHANGE PARTITION ${partition} WITH TABLE ${archive}")
+    void exchangePartition(@Param("table") String table, @Param("partition") String partition,
+                           @Param("archive") String archive);
+}
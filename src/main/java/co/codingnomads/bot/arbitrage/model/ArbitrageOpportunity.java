@@ -16,6 +16,13 @@ public class ArbitrageOpportunity {
     private BigDecimal profitMargin;
     private BigDecimal profitAmount;
     private LocalDateTime detectedAt;
+    // 区间聚合字段：价差持续期间合并为一条记录
+    private LocalDateTime startedAt;
+    private LocalDateTime endedAt;
+    private BigDecimal peakMargin;
+    private BigDecimal avgMargin;
+    private Integer tickCount;
+    private Long durationMs;
 
     // 构造函数
     public ArbitrageOpportunity() {}
@@ -58,6 +65,24 @@ public class ArbitrageOpportunity {
     public LocalDateTime getDetectedAt() { return detectedAt; }
     public void setDetectedAt(LocalDateTime detectedAt) { this.detectedAt = detectedAt; }
 
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+
+    public LocalDateTime getEndedAt() { return endedAt; }
+    public void setEndedAt(LocalDateTime endedAt) { this.endedAt = endedAt; }
+
+    public BigDecimal getPeakMargin() { return peakMargin; }
+    public void setPeakMargin(BigDecimal peakMargin) { this.peakMargin = peakMargin; }
+
+    public BigDecimal getAvgMargin() { return avgMargin; }
+    public void setAvgMargin(BigDecimal avgMargin) { this.avgMargin = avgMargin; }
+
+    public Integer getTickCount() { return tickCount; }
+    public void setTickCount(Integer tickCount) { this.tickCount = tickCount; }
+
+    public Long getDurationMs() { return durationMs; }
+    public void setDurationMs(Long durationMs) { this.durationMs = durationMs; }
+
     @Override
     public String toString() {
         return "ArbitrageOpportunity{" +
@@ -67,6 +92,9 @@ public class ArbitrageOpportunity {
                 ", buyPrice=" + buyPrice +
                 ", sellPrice=" + sellPrice +
                 ", profitMargin=" + profitMargin + "%" +
+                ", avgMargin=" + avgMargin + "%" +
+                ", tickCount=" + tickCount +
+                ", durationMs=" + durationMs +
                 '}';
     }
 }
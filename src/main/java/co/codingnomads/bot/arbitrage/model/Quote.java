@@ -0,0 +1,99 @@
+package co.codingnomads.bot.arbitrage.model;
+
+import co.codingnomads.bot.arbitrage.util.FixedPointUtil;
+
+/**
+ * 最优买卖报价快照（定点数表示）
+ *
+ * 检测路径上使用的可变报价对象：价格和挂单量以 long 尾数 + 各自的精度保存，
+ * 由报价表一致地填充，调用方预先分配并重复使用，不会在每个tick上创建对象。
+ * 转换为 {@link MarketData} 仅发生在持久化边界。
+ */
+public class Quote {
+    private int symbolId;
+    private int exchangeId;
+    private String symbol;
+    private String exchange;
+    private int scale;
+    private int quantityScale;
+    private long bid;
+    private long ask;
+    private long bidSize;
+    private long askSize;
+    private long timestamp;
+
+    /**
+     * 填充快照
+     */
+    public void set(int symbolId, int exchangeId, String symbol, String exchange, int scale, int quantityScale,
+                    long bid, long ask, long bidSize, long askSize, long timestamp) {
+        this.symbolId = symbolId;
+        this.exchangeId = exchangeId;
+        this.symbol = symbol;
+        this.exchange = exchange;
+        this.scale = scale;
+        this.quantityScale = quantityScale;
+        this.bid = bid;
+        this.ask = ask;
+        this.bidSize = bidSize;
+        this.askSize = askSize;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * 转换为行情数据模型，用于落库
+     *
+     * @return 行情数据对象
+     */
+    public MarketData toMarketData() {
+        MarketData marketData = new MarketData(exchange, symbol,
+                FixedPointUtil.toBigDecimal(bid, scale), FixedPointUtil.toBigDecimal(ask, scale), timestamp);
+        if (bidSize > 0) {
+            marketData.setBidVolume(FixedPointUtil.toBigDecimal(bidSize, quantityScale));
+        }
+        if (askSize > 0) {
+            marketData.setAskVolume(FixedPointUtil.toBigDecimal(askSize, quantityScale));
+        }
+        return marketData;
+    }
+
+    public int getSymbolId() { return symbolId; }
+
+    public int getExchangeId() { return exchangeId; }
+
+    public String getSymbol() { return symbol; }
+
+    public String getExchange() { return exchange; }
+
+    public int getScale() { return scale; }
+
+    public int getQuantityScale() { return quantityScale; }
+
+    public long getBid() { return bid; }
+
+    public long getAsk() { return ask; }
+
+    public long getBidSize() { return bidSize; }
+
+    public long getAskSize() { return askSize; }
+
+    public long getTimestamp() { return timestamp; }
+
+    /**
+     * @return 是否已收到过有效报价
+     */
+    public boolean isValid() {
+        return bid > 0 && ask > 0;
+    }
+
+    @Override
+    public String toString() {
+        return "Quote{" +
+                "exchange='" + exchange + '\'' +
+                ", symbol='" + symbol + '\'' +
+                ", bid=" + FixedPointUtil.toBigDecimal(bid, scale) +
+                ", ask=" + FixedPointUtil.toBigDecimal(ask, scale) +
+                ", timestamp=" + timestamp +
+                '}';
+    }
+}
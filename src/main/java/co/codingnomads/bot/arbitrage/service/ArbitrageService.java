@@ -1,16 +1,27 @@
 package co.codingnomads.bot.arbitrage.service;
 
 import co.codingnomads.bot.arbitrage.config.ArbitrageConfig;
-import co.codingnomads.bot.arbitrage.mapper.ArbitrageOpportunityMapper;
 import co.codingnomads.bot.arbitrage.model.ArbitrageOpportunity;
 import co.codingnomads.bot.arbitrage.model.MarketData;
+import co.codingnomads.bot.arbitrage.service.cross.CrossVenueArbitrageDetector;
+import co.codingnomads.bot.arbitrage.service.fanout.OpportunityFanout;
+import co.codingnomads.bot.arbitrage.service.pipeline.OpportunityNotifier;
+import co.codingnomads.bot.arbitrage.service.quote.InstrumentRegistry;
+import co.codingnomads.bot.arbitrage.service.readmodel.OpportunityReadModel;
+import co.codingnomads.bot.arbitrage.util.FixedPointUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 套利服务
@@ -18,13 +29,14 @@ import java.util.List;
  * 该服务负责：
  * 1. 检测不同交易所间的套利机会
  * 2. 计算套利利润率和利润金额
- * 3. 保存套利机会到数据库
+ * 3. 把区间结束后的套利机会交给通知线程落库（见 {@link OpportunityNotifier}）
  * 4. 提供套利机会查询功能
  *
  * 套利检测逻辑：
- * - 检查在两个交易所之间是否存在价格差异
- * - 计算买入和卖出价格之间的利润率
+ * - 检查交易所之间是否存在价格差异（实时路径由调用方给出最优的跨交易所买卖组合）
+ * - 计算买入和卖出价格之间的利润率（定点数，检测路径不分配对象）
  * - 只保存超过最小利润率阈值的套利机会
+ * - 价差持续期间的tick聚合为一个区间，区间结束时只保存一条记录
  *
  * @author CodingNomads
  * @version 1.0
@@ -38,33 +50,111 @@ public class ArbitrageService {
 
     // ==================== 依赖注入 ====================
     @Autowired
-    private ArbitrageOpportunityMapper arbitrageMapper;
+    private StatisticsService statisticsService;
 
     @Autowired
-    private StatisticsService statisticsService;
+    private InstrumentRegistry instrumentRegistry;
+
+    @Autowired
+    private OpportunityNotifier opportunityNotifier;
+
+    @Autowired
+    private OpportunityReadModel opportunityReadModel;
+
+    @Autowired
+    private OpportunityFanout opportunityFanout;
 
     // ==================== 配置常量 ====================
-    /** 利润率计算精度 */
-    private static final int PROFIT_MARGIN_SCALE = 6;
+    /** 区间最长持续时间，超过后强制落库并重新开启区间 */
+    @Value("${arbitrage.episode.max-duration-ms:60000}")
+    private long episodeMaxDurationMs;
 
-    /** 百分比转换乘数 */
-    private static final BigDecimal PERCENTAGE_MULTIPLIER = new BigDecimal("100");
+    /** 区间无更新超时时间（行情中断时关闭区间） */
+    @Value("${arbitrage.episode.idle-timeout-ms:5000}")
+    private long episodeIdleTimeoutMs;
 
-    // ==================== 套利机会管理 ====================
+    // ==================== 检测核心 ====================
+    /** 实时行情使用的检测实例（最优报价堆、时钟偏差估计、区间跟踪），只在检测线程上更新 */
+    private CrossVenueArbitrageDetector detector;
+    /**
+     * {@link #checkArbitrageOpportunity} / {@link #evaluateSpread} 使用的检测实例。
+     * 这些方法可能在任意线程上调用，不能触碰实时检测实例，调用在本实例上串行化（synchronized）
+     */
+    private CrossVenueArbitrageDetector manualDetector;
+    private final ScheduledExecutorService episodeSweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "Episode-Sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 初始化检测核心及区间超时清理任务
+     */
+    @PostConstruct
+    public void init() {
+        CrossVenueArbitrageDetector.Listener listener = new CrossVenueArbitrageDetector.Listener() {
+            @Override
+            public void onCrossOpened(int symbolId, int buyExchangeId, int sellExchangeId,
+                                      long buyPrice, long sellPrice, double margin) {
+                // 先推送给下游，再交给通知线程
+                opportunityFanout.publishCrossOpened(symbolId, buyExchangeId, sellExchangeId, buyPrice, sellPrice, margin);
+                opportunityNotifier.publishCrossOpened(instrumentRegistry.symbolName(symbolId),
+                        instrumentRegistry.exchangeName(buyExchangeId), instrumentRegistry.exchangeName(sellExchangeId),
+                        buyPrice, sellPrice, instrumentRegistry.priceScale(symbolId), margin);
+                statisticsService.incrementProcessedOpportunities(symbolId, buyExchangeId, sellExchangeId);
+            }
+
+            @Override
+            public void onEpisodeClosed(ArbitrageOpportunity opportunity) {
+                // 交给通知线程落库并记录日志，不占用检测线程
+                opportunityFanout.publishClosed(opportunity);
+                opportunityNotifier.publishClosed(opportunity);
+            }
+        };
+        detector = newDetector(listener);
+        manualDetector = newDetector(listener);
+        long sweepInterval = Math.max(episodeIdleTimeoutMs / 2, 100);
+        episodeSweeper.scheduleWithFixedDelay(() -> {
+            long now = System.currentTimeMillis();
+            detector.expireIdle(now);
+            manualDetector.expireIdle(now);
+        }, sweepInterval, sweepInterval, TimeUnit.MILLISECONDS);
+    }
 
     /**
-     * 保存套利机会到数据库
+     * 按当前配置创建一个独立的检测实例（离线回放时每个分区一个）
      *
-     * @param opportunity 套利机会对象
+     * @param listener 检测事件监听器
+     * @return 检测实例
      */
-    public void saveArbitrageOpportunity(ArbitrageOpportunity opportunity) {
-        try {
-            arbitrageMapper.insertArbitrageOpportunity(opportunity);
-        } catch (Exception e) {
-            logError("保存套利机会失败", e);
-        }
+    public CrossVenueArbitrageDetector newDetector(CrossVenueArbitrageDetector.Listener listener) {
+        return new CrossVenueArbitrageDetector(instrumentRegistry, ArbitrageConfig.MIN_ARBITRAGE_MARGIN,
+                episodeMaxDurationMs, episodeIdleTimeoutMs, listener);
+    }
+
+    /**
+     * @return 实时行情使用的检测实例
+     */
+    public CrossVenueArbitrageDetector getDetector() {
+        return detector;
+    }
+
+    public long getEpisodeIdleTimeoutMs() {
+        return episodeIdleTimeoutMs;
     }
 
+    /**
+     * 停止清理任务，并把未结束的区间落库
+     */
+    @PreDestroy
+    public void destroy() {
+        episodeSweeper.shutdown();
+        detector.closeAll();
+        manualDetector.closeAll();
+    }
+
+    // ==================== 套利机会管理 ====================
+
     /**
      * 检查两个市场数据对象之间的套利机会
      *
@@ -94,6 +184,9 @@ public class ArbitrageService {
      * 1. 在exchange2买入，在exchange1卖出
      * 2. 在exchange1买入，在exchange2卖出
      *
+     * BigDecimal价格在此按交易对的价格精度转换为定点数后走与实时行情相同的检测逻辑。
+     * 可在任意线程调用：使用独立于实时行情的检测实例，不影响检测线程上的状态
+     *
      * @param symbol 交易对符号
      * @param exchange1 第一个交易所名称
      * @param exchange2 第二个交易所名称
@@ -111,11 +204,59 @@ public class ArbitrageService {
             return;
         }
 
+        int symbolId = instrumentRegistry.symbolId(symbol);
+        if (symbolId < 0) {
+            return;
+        }
+        int scale = instrumentRegistry.priceScale(symbolId);
+        checkArbitrageOpportunity(symbol, exchange1, exchange2,
+                FixedPointUtil.fromBigDecimal(bid1, scale), FixedPointUtil.fromBigDecimal(ask1, scale),
+                FixedPointUtil.fromBigDecimal(bid2, scale), FixedPointUtil.fromBigDecimal(ask2, scale), scale);
+    }
+
+    /**
+     * 检测套利机会（定点数版本）
+     *
+     * 价格为 long 尾数，名称解析为id、尾数换算到交易对的价格精度后走与实时行情相同的检测逻辑，不创建任何对象。
+     * 未配置的交易对或交易所直接忽略。
+     * 可在任意线程调用：使用独立于实时行情的检测实例，调用之间串行化
+     *
+     * @param symbol 交易对符号
+     * @param exchange1 第一个交易所名称
+     * @param exchange2 第二个交易所名称
+     * @param bid1 第一个交易所买一价尾数
+     * @param ask1 第一个交易所卖一价尾数
+     * @param bid2 第二个交易所买一价尾数
+     * @param ask2 第二个交易所卖一价尾数
+     * @param scale 价格尾数的精度
+     */
+    public synchronized void checkArbitrageOpportunity(String symbol, String exchange1, String exchange2,
+                                        long bid1, long ask1, long bid2, long ask2, int scale) {
+        if (bid1 <= 0 || ask1 <= 0 || bid2 <= 0 || ask2 <= 0) {
+            return;
+        }
+        int symbolId = instrumentRegistry.symbolId(symbol);
+        if (symbolId < 0) {
+            return;
+        }
+        int exchangeId1 = instrumentRegistry.exchangeId(exchange1);
+        int exchangeId2 = instrumentRegistry.exchangeId(exchange2);
+        if (exchangeId1 < 0 || exchangeId2 < 0) {
+            return;
+        }
+        int symbolScale = instrumentRegistry.priceScale(symbolId);
+        bid1 = FixedPointUtil.rescale(bid1, scale, symbolScale);
+        ask1 = FixedPointUtil.rescale(ask1, scale, symbolScale);
+        bid2 = FixedPointUtil.rescale(bid2, scale, symbolScale);
+        ask2 = FixedPointUtil.rescale(ask2, scale, symbolScale);
+
+        long now = System.currentTimeMillis();
+
         // 检查套利机会1: 在exchange2买入，在exchange1卖出
-        checkArbitrageDirection(symbol, exchange2, exchange1, ask2, bid1);
+        evaluateSpread(symbolId, exchangeId2, exchangeId1, ask2, bid1, now);
 
         // 检查套利机会2: 在exchange1买入，在exchange2卖出
-        checkArbitrageDirection(symbol, exchange1, exchange2, ask1, bid2);
+        evaluateSpread(symbolId, exchangeId1, exchangeId2, ask1, bid2, now);
     }
 
     /**
@@ -142,71 +283,21 @@ public class ArbitrageService {
     }
 
     /**
-     * 检查特定方向的套利机会
-     *
-     * @param symbol 交易对符号
-     * @param buyExchange 买入交易所
-     * @param sellExchange 卖出交易所
-     * @param buyPrice 买入价格
-     * @param sellPrice 卖出价格
-     */
-    private void checkArbitrageDirection(String symbol, String buyExchange, String sellExchange,
-                                       BigDecimal buyPrice, BigDecimal sellPrice) {
-        BigDecimal profitMargin = calculateProfitMargin(buyPrice, sellPrice);
-
-        if (profitMargin.doubleValue() > ArbitrageConfig.MIN_ARBITRAGE_MARGIN) {
-            ArbitrageOpportunity opportunity = createArbitrageOpportunity(
-                symbol, buyExchange, sellExchange, buyPrice, sellPrice, profitMargin
-            );
-            saveArbitrageOpportunity(opportunity);
-            logArbitrageOpportunity(buyExchange, sellExchange, buyPrice, sellPrice, profitMargin);
-            statisticsService.incrementProcessedOpportunities();
-        }
-    }
-
-    /**
-     * 计算利润率
-     *
-     * @param buyPrice 买入价格
-     * @param sellPrice 卖出价格
-     * @return 利润率（百分比）
-     */
-    private BigDecimal calculateProfitMargin(BigDecimal buyPrice, BigDecimal sellPrice) {
-        return sellPrice.subtract(buyPrice)
-                .divide(buyPrice, PROFIT_MARGIN_SCALE, BigDecimal.ROUND_HALF_UP)
-                .multiply(PERCENTAGE_MULTIPLIER);
-    }
-
-    /**
-     * 创建套利机会对象
+     * 评估特定方向的价差
      *
-     * @param symbol 交易对符号
-     * @param buyExchange 买入交易所
-     * @param sellExchange 卖出交易所
-     * @param buyPrice 买入价格
-     * @param sellPrice 卖出价格
-     * @param profitMargin 利润率
-     * @return 套利机会对象
-     */
-    private ArbitrageOpportunity createArbitrageOpportunity(String symbol, String buyExchange,
-                                                          String sellExchange, BigDecimal buyPrice,
-                                                          BigDecimal sellPrice, BigDecimal profitMargin) {
-        return new ArbitrageOpportunity(symbol, buyExchange, sellExchange, buyPrice, sellPrice, profitMargin);
-    }
-
-    /**
-     * 记录套利机会日志
+     * 价差越过阈值时开启或延续区间，回落时关闭区间。
+     * 与 {@link #checkArbitrageOpportunity} 共用独立的检测实例，实时行情的检测在检测线程上进行
      *
-     * @param buyExchange 买入交易所
-     * @param sellExchange 卖出交易所
-     * @param buyPrice 买入价格
-     * @param sellPrice 卖出价格
-     * @param profitMargin 利润率
+     * @param symbolId 交易对id
+     * @param buyExchangeId 买入交易所id
+     * @param sellExchangeId 卖出交易所id
+     * @param buyPrice 买入价格尾数
+     * @param sellPrice 卖出价格尾数
+     * @param now 当前时间（毫秒）
      */
-    private void logArbitrageOpportunity(String buyExchange, String sellExchange,
-                                       BigDecimal buyPrice, BigDecimal sellPrice, BigDecimal profitMargin) {
-        logger.info(String.format("🚨 发现套利机会: 在%s买入(%.4f)，在%s卖出(%.4f)，利润率: %.4f%%",
-            buyExchange, buyPrice, sellExchange, sellPrice, profitMargin.doubleValue()));
+    public synchronized void evaluateSpread(int symbolId, int buyExchangeId, int sellExchangeId,
+                               long buyPrice, long sellPrice, long now) {
+        manualDetector.evaluateSpread(symbolId, buyExchangeId, sellExchangeId, buyPrice, sellPrice, now);
     }
 
     // ==================== 查询方法 ====================
@@ -214,17 +305,15 @@ public class ArbitrageService {
     /**
      * 获取最新的套利机会
      *
+     * 从内存读模型返回，重启后首次查询时回查一次数据库（见 {@link OpportunityReadModel}）
+     *
      * @param symbol 交易对符号，如果为null或空则查询所有交易对
      * @param limit 返回记录数限制
      * @return 套利机会列表，按检测时间倒序排列
      */
     public List<ArbitrageOpportunity> getLatestOpportunities(String symbol, int limit) {
         try {
-            if (symbol == null || symbol.trim().isEmpty()) {
-                return arbitrageMapper.getAllLatestOpportunities(limit);
-            } else {
-                return arbitrageMapper.getLatestOpportunities(symbol, limit);
-            }
+            return opportunityReadModel.getLatest(symbol, limit);
         } catch (Exception e) {
             logError("获取最新套利机会失败", e);
             return new java.util.ArrayList<>(); // 返回空列表而不是null
@@ -238,7 +327,7 @@ public class ArbitrageService {
      */
     public int getTodayOpportunityCount() {
         try {
-            return arbitrageMapper.getTodayOpportunityCount();
+            return (int) opportunityReadModel.getTodayCount();
         } catch (Exception e) {
             logError("获取今日套利机会统计失败", e);
             return 0;
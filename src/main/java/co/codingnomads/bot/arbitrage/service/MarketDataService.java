@@ -2,18 +2,25 @@ package co.codingnomads.bot.arbitrage.service;
 
 import co.codingnomads.bot.arbitrage.mapper.MarketDataMapper;
 import co.codingnomads.bot.arbitrage.model.MarketData;
+import co.codingnomads.bot.arbitrage.model.Quote;
+import co.codingnomads.bot.arbitrage.service.journal.TickJournalService;
+import co.codingnomads.bot.arbitrage.service.persistence.MarketDataWriteBehind;
+import co.codingnomads.bot.arbitrage.service.readmodel.MarketDataReadModel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import java.io.IOException;
 import java.util.List;
 
 /**
  * 行情数据服务
  * 
  * 该服务负责：
- * 1. 保存实时行情数据到数据库
+ * 1. 保存实时行情数据到数据库和/或本地行情日志（arbitrage.marketdata.store）
  * 2. 查询历史行情数据
  * 3. 提供行情数据统计功能
  * 4. 管理不同交易所的行情数据
@@ -32,21 +39,83 @@ public class MarketDataService {
     // ==================== 日志记录器 ====================
     private static final Logger logger = LoggerFactory.getLogger(MarketDataService.class);
 
+    /**
+     * 行情存储方式
+     */
+    public enum Store {
+        /** 只写MySQL（经写后队列批量落库） */
+        MYSQL,
+        /** 只写本地内存映射行情日志 */
+        JOURNAL,
+        /** 同时写入两者 */
+        BOTH;
+
+        public boolean usesMysql() {
+            return this != JOURNAL;
+        }
+
+        public boolean usesJournal() {
+            return this != MYSQL;
+        }
+    }
+
     // ==================== 依赖注入 ====================
     @Autowired
     private MarketDataMapper marketDataMapper;
 
+    @Autowired
+    private MarketDataWriteBehind marketDataWriteBehind;
+
+    @Autowired
+    private TickJournalService tickJournalService;
+
+    @Autowired
+    private MarketDataReadModel marketDataReadModel;
+
+    @Value("${arbitrage.marketdata.store:MYSQL}")
+    private Store store;
+
+    /**
+     * 按存储方式打开行情日志
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        if (store.usesJournal()) {
+            tickJournalService.open();
+        }
+        logger.info("[MarketDataService] 行情存储方式: {}", store);
+    }
+
     // ==================== 数据保存方法 ====================
+
+    /**
+     * 按存储方式保存一条报价（只在持久化线程上调用）
+     *
+     * 行情日志直接写入定点数尾数；只有写MySQL时才转换为BigDecimal
+     *
+     * @param quote     报价快照
+     * @param eventTime 交易所事件时间（毫秒），未知时为0
+     */
+    public void saveQuote(Quote quote, long eventTime) {
+        if (store.usesJournal()) {
+            tickJournalService.append(quote, eventTime);
+        }
+        if (store.usesMysql()) {
+            saveMarketData(quote.toMarketData());
+        }
+    }
     
     /**
      * 保存行情数据到数据库
      * 
+     * 数据只放入写后队列，由写线程异步批量落库，调用方不等待数据库往返
+     * 
      * @param marketData 行情数据对象
      */
     public void saveMarketData(MarketData marketData) {
         try {
             if (isValidMarketData(marketData)) {
-                marketDataMapper.insertMarketData(marketData);
+                marketDataWriteBehind.enqueue(marketData);
             } else {
                 logWarning("无效的行情数据，跳过保存", marketData);
             }
@@ -92,16 +161,14 @@ public class MarketDataService {
     /**
      * 获取今日数据统计
      * 
+     * 由写后队列写入成功时累加的内存计数给出，不扫描market_data表
+     * 
      * @param exchange 交易所名称，如果为null或空则统计所有交易所
      * @return 今日数据记录数量
      */
     public int getTodayDataCount(String exchange) {
         try {
-            if (exchange == null || exchange.trim().isEmpty()) {
-                return marketDataMapper.getAllTodayDataCount();
-            } else {
-                return marketDataMapper.getTodayDataCount(exchange);
-            }
+            return (int) marketDataReadModel.getTodayCount(exchange);
         } catch (Exception e) {
             logError("获取今日数据统计失败", e);
             return 0;
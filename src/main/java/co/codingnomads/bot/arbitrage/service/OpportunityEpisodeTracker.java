@@ -0,0 +1,268 @@
+package co.codingnomads.bot.arbitrage.service;
+
+import co.codingnomads.bot.arbitrage.model.ArbitrageOpportunity;
+import co.codingnomads.bot.arbitrage.service.quote.InstrumentRegistry;
+import co.codingnomads.bot.arbitrage.util.FixedPointUtil;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Consumer;
+
+/**
+ * 套利机会区间（episode）跟踪器
+ *
+ * 价差持续高于阈值期间的所有tick被聚合为一个区间：
+ * 1. 价差首次越过阈值时开启区间
+ * 2. 区间内每个tick更新峰值利润率、tick数和持续时间
+ * 3. 价差回落、区间超过最长持续时间或长时间无更新时关闭区间
+ * 4. 关闭时只输出一条包含开始/结束时间、峰值和均值的记录
+ *
+ * 区间按 (symbolId, buyExchangeId, sellExchangeId) 区分，槽位预分配、按下标寻址
+ */
+public class OpportunityEpisodeTracker {
+
+    /** 利润率精度 */
+    private static final int MARGIN_SCALE = 6;
+
+    private final InstrumentRegistry instrumentRegistry;
+    private final double minMargin;
+    private final long maxDurationMs;
+    private final long idleTimeoutMs;
+    private final Consumer<ArbitrageOpportunity> episodeSink;
+
+    /** 区间槽位，按 (symbolId, buyExchangeId, sellExchangeId) 下标寻址，实例创建后重复使用 */
+    private final Episode[] episodes;
+    private final int maxExchanges;
+    /** 每个交易对未关闭的区间数，用于快速跳过 */
+    private final AtomicIntegerArray openPerSymbol;
+    private volatile int openCount;
+
+    /**
+     * 构造函数
+     *
+     * @param instrumentRegistry 交易对/交易所注册表
+     * @param minMargin          开启区间的最小利润率（百分比）
+     * @param maxDurationMs      区间最长持续时间，超过后强制关闭并落库
+     * @param idleTimeoutMs      区间无更新的超时时间，超过后视为价差已消失
+     * @param episodeSink        区间关闭后的处理器（落库、日志等）
+     */
+    public OpportunityEpisodeTracker(InstrumentRegistry instrumentRegistry, double minMargin,
+                                     long maxDurationMs, long idleTimeoutMs,
+                                     Consumer<ArbitrageOpportunity> episodeSink) {
+        this.instrumentRegistry = instrumentRegistry;
+        this.minMargin = minMargin;
+        this.maxDurationMs = maxDurationMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.episodeSink = episodeSink;
+        this.maxExchanges = instrumentRegistry.maxExchanges();
+        this.episodes = new Episode[instrumentRegistry.symbolCount() * maxExchanges * maxExchanges];
+        this.openPerSymbol = new AtomicIntegerArray(instrumentRegistry.symbolCount());
+    }
+
+    /**
+     * 记录某个方向的一次价差观测
+     *
+     * 价差低于阈值且没有未关闭区间时（绝大多数tick）直接返回，不加锁、不查表
+     *
+     * @param symbolId       交易对id
+     * @param buyExchangeId  买入交易所id
+     * @param sellExchangeId 卖出交易所id
+     * @param buyPrice       买入价格尾数
+     * @param sellPrice      卖出价格尾数
+     * @param margin         利润率（百分比）
+     * @param now            观测时间（毫秒）
+     * @return 本次观测是否开启了新区间
+     */
+    public boolean onSpread(int symbolId, int buyExchangeId, int sellExchangeId,
+                            long buyPrice, long sellPrice, double margin, long now) {
+        if (margin <= minMargin && openCount == 0) {
+            return false;
+        }
+
+        ArbitrageOpportunity closed = null;
+        boolean opened = false;
+
+        synchronized (this) {
+            int index = index(symbolId, buyExchangeId, sellExchangeId);
+            Episode episode = episodes[index];
+            boolean isOpen = episode != null && episode.open;
+            if (margin > minMargin) {
+                if (isOpen && now - episode.startMillis >= maxDurationMs) {
+                    closed = episode.toOpportunity();
+                    episode.reset(now);
+                    opened = true;
+                }
+                if (!isOpen) {
+                    if (episode == null) {
+                        episode = new Episode(instrumentRegistry.symbolName(symbolId),
+                                instrumentRegistry.exchangeName(buyExchangeId),
+                                instrumentRegistry.exchangeName(sellExchangeId),
+                                instrumentRegistry.priceScale(symbolId));
+                        episodes[index] = episode;
+                    }
+                    episode.reset(now);
+                    episode.open = true;
+                    openPerSymbol.incrementAndGet(symbolId);
+                    openCount++;
+                    opened = true;
+                }
+                episode.update(buyPrice, sellPrice, margin, now);
+            } else if (isOpen) {
+                episode.lastMillis = now;
+                closed = close(index, symbolId);
+            }
+        }
+
+        // 在锁外落库，避免另一条行情线程等待数据库
+        if (closed != null) {
+            episodeSink.accept(closed);
+        }
+        return opened;
+    }
+
+    /**
+     * @return 指定方向当前是否有未关闭的区间
+     */
+    public boolean isOpen(int symbolId, int buyExchangeId, int sellExchangeId) {
+        Episode episode = episodes[index(symbolId, buyExchangeId, sellExchangeId)];
+        return episode != null && episode.open;
+    }
+
+    /**
+     * @return 指定交易对未关闭的区间数
+     */
+    public int openCount(int symbolId) {
+        return openPerSymbol.get(symbolId);
+    }
+
+    /**
+     * 关闭长时间没有更新的区间（例如行情中断）
+     *
+     * @param now 当前时间（毫秒）
+     */
+    public void expireIdle(long now) {
+        if (openCount == 0) {
+            return;
+        }
+        List<ArbitrageOpportunity> closed = new ArrayList<>();
+        synchronized (this) {
+            for (int i = 0; i < episodes.length; i++) {
+                Episode episode = episodes[i];
+                if (episode != null && episode.open && now - episode.lastMillis >= idleTimeoutMs) {
+                    closed.add(close(i, symbolIdOf(i)));
+                }
+            }
+        }
+        closed.forEach(episodeSink);
+    }
+
+    /**
+     * 关闭所有未结束的区间（服务停止时调用）
+     */
+    public void closeAll() {
+        List<ArbitrageOpportunity> closed = new ArrayList<>();
+        synchronized (this) {
+            for (int i = 0; i < episodes.length; i++) {
+                Episode episode = episodes[i];
+                if (episode != null && episode.open) {
+                    closed.add(close(i, symbolIdOf(i)));
+                }
+            }
+        }
+        closed.forEach(episodeSink);
+    }
+
+    /**
+     * @return 当前未关闭的区间数量
+     */
+    public int getOpenEpisodeCount() {
+        return openCount;
+    }
+
+    private ArbitrageOpportunity close(int index, int symbolId) {
+        Episode episode = episodes[index];
+        episode.open = false;
+        openPerSymbol.decrementAndGet(symbolId);
+        openCount--;
+        return episode.toOpportunity();
+    }
+
+    private int index(int symbolId, int buyExchangeId, int sellExchangeId) {
+        return (symbolId * maxExchanges + buyExchangeId) * maxExchanges + sellExchangeId;
+    }
+
+    private int symbolIdOf(int index) {
+        return index / (maxExchanges * maxExchanges);
+    }
+
+    /**
+     * 单个套利区间的聚合状态
+     */
+    private static final class Episode {
+        private final String symbol;
+        private final String buyExchange;
+        private final String sellExchange;
+        private final int scale;
+        private boolean open;
+        private long startMillis;
+        private long lastMillis;
+        private int tickCount;
+        private double marginSum;
+        private double peakMargin;
+        private long peakBuyPrice;
+        private long peakSellPrice;
+
+        private Episode(String symbol, String buyExchange, String sellExchange, int scale) {
+            this.symbol = symbol;
+            this.buyExchange = buyExchange;
+            this.sellExchange = sellExchange;
+            this.scale = scale;
+        }
+
+        /**
+         * 复用实例开启下一个区间
+         */
+        private void reset(long startMillis) {
+            this.startMillis = startMillis;
+            this.lastMillis = startMillis;
+            this.tickCount = 0;
+            this.marginSum = 0;
+            this.peakMargin = Double.NEGATIVE_INFINITY;
+        }
+
+        private void update(long buyPrice, long sellPrice, double margin, long now) {
+            tickCount++;
+            marginSum += margin;
+            lastMillis = now;
+            if (margin > peakMargin) {
+                peakMargin = margin;
+                peakBuyPrice = buyPrice;
+                peakSellPrice = sellPrice;
+            }
+        }
+
+        private ArbitrageOpportunity toOpportunity() {
+            BigDecimal peak = BigDecimal.valueOf(peakMargin).setScale(MARGIN_SCALE, RoundingMode.HALF_UP);
+            ArbitrageOpportunity opportunity = new ArbitrageOpportunity(symbol, buyExchange, sellExchange,
+                    FixedPointUtil.toBigDecimal(peakBuyPrice, scale), FixedPointUtil.toBigDecimal(peakSellPrice, scale), peak);
+            opportunity.setPeakMargin(peak);
+            opportunity.setAvgMargin(BigDecimal.valueOf(marginSum / tickCount).setScale(MARGIN_SCALE, RoundingMode.HALF_UP));
+            opportunity.setTickCount(tickCount);
+            opportunity.setDurationMs(lastMillis - startMillis);
+            opportunity.setStartedAt(toLocalDateTime(startMillis));
+            opportunity.setEndedAt(toLocalDateTime(lastMillis));
+            opportunity.setDetectedAt(opportunity.getStartedAt());
+            return opportunity;
+        }
+
+        private static LocalDateTime toLocalDateTime(long millis) {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+        }
+    }
+}
@@ -3,19 +3,41 @@ package co.codingnomads.bot.arbitrage.service;
 import co.codingnomads.bot.arbitrage.config.ArbitrageConfig;
 import co.codingnomads.bot.arbitrage.exchange.binance.BinanceWebSocketClient;
 import co.codingnomads.bot.arbitrage.exchange.huobi.HuobiWebSocketClient;
-import co.codingnomads.bot.arbitrage.model.MarketData;
+import co.codingnomads.bot.arbitrage.model.Quote;
+import co.codingnomads.bot.arbitrage.service.book.DepthBookService;
+import co.codingnomads.bot.arbitrage.service.fanout.OpportunityFanout;
+import co.codingnomads.bot.arbitrage.service.metrics.LatencyMonitor;
+import co.codingnomads.bot.arbitrage.service.metrics.LatencyStage;
+import co.codingnomads.bot.arbitrage.service.metrics.jfr.DetectionCheckEvent;
+import co.codingnomads.bot.arbitrage.service.metrics.jfr.JfrSupport;
+import co.codingnomads.bot.arbitrage.service.metrics.jfr.QuoteUpdateEvent;
+import co.codingnomads.bot.arbitrage.service.cross.CrossVenueArbitrageDetector;
+import co.codingnomads.bot.arbitrage.service.quote.CrossVenueBook;
+import co.codingnomads.bot.arbitrage.service.quote.ExchangeClockEstimator;
+import co.codingnomads.bot.arbitrage.service.quote.InstrumentRegistry;
+import co.codingnomads.bot.arbitrage.service.pipeline.ConflatingBuffer;
+import co.codingnomads.bot.arbitrage.service.pipeline.QuoteEvent;
+import co.codingnomads.bot.arbitrage.service.pipeline.QuotePipeline;
+import co.codingnomads.bot.arbitrage.service.pipeline.WaitStrategy;
+import co.codingnomads.bot.arbitrage.service.quote.QuoteTable;
+import co.codingnomads.bot.arbitrage.service.snapshot.WarmStartSnapshot;
+import co.codingnomads.bot.arbitrage.service.triangular.TriangularArbitrageService;
+import co.codingnomads.bot.arbitrage.service.websocket.ConnectionSupervisor;
+import co.codingnomads.bot.arbitrage.service.websocket.FeedShards;
+import co.codingnomads.bot.arbitrage.service.websocket.SupervisedFeed;
 import co.codingnomads.bot.arbitrage.service.websocket.WebSocketMessageHandler;
+import co.codingnomads.bot.arbitrage.util.FixedPointUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.net.URI;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -23,6 +45,9 @@ import java.util.concurrent.TimeUnit;
 /**
  * 实时套利服务
  * 负责协调WebSocket连接、处理价格数据和检测套利机会
+ *
+ * WebSocket读线程只把报价写入流水线；报价表、最优报价堆和套利检测
+ * 只在流水线的检测线程上执行，落库在持久化线程上执行（见 {@link QuotePipeline}）
  */
 @Service
 public class RealTimeArbitrageService implements WebSocketMessageHandler {
@@ -38,19 +63,109 @@ public class RealTimeArbitrageService implements WebSocketMessageHandler {
     @Autowired
     private StatisticsService statisticsService;
 
-    private final ConcurrentHashMap<String, MarketData> latestMarketData = new ConcurrentHashMap<>();
+    @Autowired
+    private InstrumentRegistry instrumentRegistry;
+
+    @Autowired
+    private QuoteTable quoteTable;
+
+    @Autowired
+    private TriangularArbitrageService triangularArbitrageService;
+
+    @Autowired
+    private LatencyMonitor latencyMonitor;
+
+    @Autowired
+    private DepthBookService depthBookService;
+
+    @Autowired
+    private OpportunityFanout opportunityFanout;
+
+    @Autowired
+    private WarmStartSnapshot warmStartSnapshot;
+
+    @Autowired
+    private ConnectionSupervisor connectionSupervisor;
+
+    /** 是否连接交易所WebSocket（基准测试等离线场景关闭） */
+    @Value("${arbitrage.websocket.enabled:true}")
+    private boolean websocketEnabled;
+
+    /** 币安行情流类型：ticker（24小时行情）或 bookTicker（仅最优挂单，更轻量） */
+    @Value("${arbitrage.binance.stream:ticker}")
+    private String binanceStream;
+
+    /** 币安组合流地址（后接 交易对@流名称/...），压测时可指向本地模拟交易所 */
+    @Value("${arbitrage.binance.stream-url:" + ArbitrageConfig.BINANCE_STREAM_URL + "}")
+    private String binanceStreamUrl;
+
+    /** 每个币安连接的最大流数（交易所上限1024，同时受URL长度和单连接读线程的吞吐限制） */
+    @Value("${arbitrage.binance.streams-per-connection:100}")
+    private int binanceStreamsPerConnection;
+
+    /** 火币WebSocket地址 */
+    @Value("${arbitrage.huobi.ws-url:" + ArbitrageConfig.HUOBI_WS_URL + "}")
+    private String huobiWsUrl;
+
+    /** 每个火币连接订阅的最大交易对数 */
+    @Value("${arbitrage.huobi.subscriptions-per-connection:50}")
+    private int huobiSubscriptionsPerConnection;
+
+    // ==================== 流水线配置 ====================
+    @Value("${arbitrage.pipeline.ingest-capacity:65536}")
+    private int ingestCapacity;
+
+    @Value("${arbitrage.pipeline.persist-capacity:65536}")
+    private int persistCapacity;
+
+    /** 检测线程的等待策略 */
+    @Value("${arbitrage.pipeline.wait-strategy:BLOCKING}")
+    private WaitStrategy.Type waitStrategy;
+
+    /** 同一批内同一个 交易对×交易所 的报价只检测最新的一条 */
+    @Value("${arbitrage.pipeline.conflate:true}")
+    private boolean conflate;
+
+    private QuotePipeline quotePipeline;
+
+    /** 落库用的报价快照，只在持久化线程上使用 */
+    private final Quote persistSnapshot = new Quote();
+
+    /** 跨交易所检测核心（由 ArbitrageService 持有），只在检测线程上更新 */
+    private CrossVenueArbitrageDetector crossDetector;
+
     private final ScheduledExecutorService scheduledExecutorService = Executors.newSingleThreadScheduledExecutor();
 
-    private BinanceWebSocketClient binanceWebSocketClient;
-    private HuobiWebSocketClient huobiWebSocketClient;
+    /** 本服务的最优报价连接（由连接监督器负责重连） */
+    private final List<SupervisedFeed> feeds = new ArrayList<>();
 
     /**
      * 初始化WebSocket连接
      */
     @PostConstruct
     public void init() {
-        initializeWebSocketConnections();
-        scheduledExecutorService.scheduleAtFixedRate(statisticsService::printStats, 0, ArbitrageConfig.STATS_PRINT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        crossDetector = arbitrageService.getDetector();
+        // 在检测线程启动、交易所连接建立之前恢复上次的报价和计数
+        warmStartSnapshot.restore();
+        quotePipeline = new QuotePipeline(ingestCapacity, persistCapacity, waitStrategy,
+                this::admitQuote, this::onQuoteEvent, this::persistQuoteEvent,
+                conflate ? new ConflatingBuffer(instrumentRegistry.symbolCount(), instrumentRegistry.maxExchanges()) : null);
+        quotePipeline.start();
+        if (websocketEnabled) {
+            initializeWebSocketConnections();
+        } else {
+            logger.info("[RealTimeArbitrageService] 未启用WebSocket连接 (arbitrage.websocket.enabled=false)");
+        }
+        scheduledExecutorService.scheduleAtFixedRate(() -> {
+            statisticsService.printStats();
+            quotePipeline.logStats();
+            logClockStats();
+            logger.info("[RealTimeArbitrageService] 最优价未变、只刷新报价时间{}次", crossDetector.getUnchangedCount());
+            latencyMonitor.report();
+            depthBookService.logStats();
+            connectionSupervisor.logStats();
+            opportunityFanout.logStats();
+        }, 0, ArbitrageConfig.STATS_PRINT_INTERVAL_MS, TimeUnit.MILLISECONDS);
     }
 
     /**
@@ -58,81 +173,243 @@ public class RealTimeArbitrageService implements WebSocketMessageHandler {
      */
     @PreDestroy
     public void destroy() {
-        if (binanceWebSocketClient != null) {
-            binanceWebSocketClient.close();
-        }
-        if (huobiWebSocketClient != null) {
-            huobiWebSocketClient.close();
-        }
+        feeds.forEach(connectionSupervisor::close);
+        quotePipeline.stop();
         scheduledExecutorService.shutdown();
         statisticsService.printFinalStats();
     }
 
     /**
      * 初始化WebSocket连接
+     *
+     * 交易对按每个交易所的单连接上限分片，每片一个连接（币安组合流 / 火币多个sub），
+     * 连接数和读线程数随交易对数量按分片增长，而不是每个交易对各一个
      */
     private void initializeWebSocketConnections() {
-        try {
-            binanceWebSocketClient = new BinanceWebSocketClient(new URI(ArbitrageConfig.BINANCE_WS_URL), this);
-            binanceWebSocketClient.connect();
-
-            huobiWebSocketClient = new HuobiWebSocketClient(new URI(ArbitrageConfig.HUOBI_WS_URL), this);
-            huobiWebSocketClient.connect();
-        } catch (Exception e) {
-            logger.error("初始化WebSocket连接时出错", e);
+        List<String> symbols = instrumentRegistry.getSymbols();
+        List<List<String>> binanceShards = FeedShards.split(symbols, binanceStreamsPerConnection);
+        for (int i = 0; i < binanceShards.size(); i++) {
+            List<String> shard = binanceShards.get(i);
+            try {
+                SupervisedFeed feed = connectionSupervisor.newFeed(
+                        FeedShards.feedName(ArbitrageConfig.BINANCE_EXCHANGE_NAME, i, binanceShards.size(), shard));
+                connectionSupervisor.start(feed, new BinanceWebSocketClient(
+                        BinanceWebSocketClient.combinedStreamUri(binanceStreamUrl, shard, binanceStream),
+                        shard, this, feed));
+                feeds.add(feed);
+            } catch (Exception e) {
+                logger.error("[RealTimeArbitrageService] 初始化币安WebSocket连接{}时出错: {}", shard, e.getMessage(), e);
+            }
         }
+
+        List<List<String>> huobiShards = FeedShards.split(symbols, huobiSubscriptionsPerConnection);
+        for (int i = 0; i < huobiShards.size(); i++) {
+            List<String> shard = huobiShards.get(i);
+            try {
+                SupervisedFeed feed = connectionSupervisor.newFeed(
+                        FeedShards.feedName(ArbitrageConfig.HUOBI_EXCHANGE_NAME, i, huobiShards.size(), shard));
+                connectionSupervisor.start(feed, new HuobiWebSocketClient(new URI(huobiWsUrl), shard, this, feed));
+                feeds.add(feed);
+            } catch (Exception e) {
+                logger.error("[RealTimeArbitrageService] 初始化火币WebSocket连接{}时出错: {}", shard, e.getMessage(), e);
+            }
+        }
+        logger.info("[RealTimeArbitrageService] {}个交易对使用币安连接{}个、火币连接{}个", symbols.size(), binanceShards.size(), huobiShards.size());
     }
 
     /**
      * 处理价格更新
      *
      * @param exchange  交易所名称
+     * @param symbol    交易对
      * @param bestBid   最优买价
      * @param bestAsk   最优卖价
      */
     @Override
-    public void handlePriceUpdate(String exchange, double bestBid, double bestAsk) {
-        updateLatestPrice(exchange, bestBid, bestAsk);
-        checkForArbitrageOpportunity();
+    public void handlePriceUpdate(String exchange, String symbol, double bestBid, double bestAsk) {
+        handleQuote(exchange, symbol, bestBid, bestAsk, 0, 0, 0);
     }
 
     /**
-     * 更新最新价格
+     * 处理带挂单量的价格更新
      *
      * @param exchange  交易所名称
+     * @param symbol    交易对
      * @param bestBid   最优买价
      * @param bestAsk   最优卖价
+     * @param bidSize   买一量，未知时为0
+     * @param askSize   卖一量，未知时为0
+     * @param eventTime 交易所事件时间（毫秒），未知时为0
+     */
+    @Override
+    public void handleQuote(String exchange, String symbol, double bestBid, double bestAsk,
+                            double bidSize, double askSize, long eventTime) {
+        handleQuote(exchange, symbol, bestBid, bestAsk, bidSize, askSize, eventTime, System.nanoTime());
+    }
+
+    /**
+     * 处理带收帧时间的价格更新
+     *
+     * @param receiveNanos 收到该帧时的 System.nanoTime()
+     */
+    @Override
+    public void handleQuote(String exchange, String symbol, double bestBid, double bestAsk,
+                            double bidSize, double askSize, long eventTime, long receiveNanos) {
+        int exchangeId = instrumentRegistry.exchangeId(exchange);
+        int symbolId = instrumentRegistry.symbolId(symbol);
+        if (exchangeId < 0 || symbolId < 0) {
+            logger.debug("忽略未注册的行情: {} {}", exchange, symbol);
+            return;
+        }
+        statisticsService.recordMessage(symbolId, exchangeId);
+        QuoteUpdateEvent updateEvent = JfrSupport.AVAILABLE ? new QuoteUpdateEvent() : null;
+        if (updateEvent != null) {
+            updateEvent.begin();
+        }
+        int scale = instrumentRegistry.priceScale(symbolId);
+        int quantityScale = instrumentRegistry.quantityScale(symbolId);
+        long receiveTime = System.currentTimeMillis();
+        // 检测线程跟不上时直接丢弃，读线程不等待；丢弃数见流水线指标
+        boolean published = quotePipeline.publish(symbolId, exchangeId,
+                FixedPointUtil.toMantissa(bestBid, scale), FixedPointUtil.toMantissa(bestAsk, scale),
+                FixedPointUtil.toMantissa(bidSize, quantityScale), FixedPointUtil.toMantissa(askSize, quantityScale),
+                eventTime, receiveTime, receiveNanos, System.nanoTime());
+        if (updateEvent != null) {
+            updateEvent.end();
+            if (updateEvent.shouldCommit()) {
+                updateEvent.exchange = exchange;
+                updateEvent.symbol = symbol;
+                updateEvent.bid = bestBid;
+                updateEvent.ask = bestAsk;
+                updateEvent.exchangeLatency = eventTime > 0 ? receiveTime - eventTime : 0;
+                updateEvent.dropped = !published;
+                updateEvent.commit();
+            }
+        }
+    }
+
+    /**
+     * @return 行情处理流水线（用于读取指标）
+     */
+    public QuotePipeline getQuotePipeline() {
+        return quotePipeline;
+    }
+
+    /**
+     * 准入检查：记录时间样本，推送延迟超过阈值的报价已不可交易，在检测和落库之前丢弃（只在检测线程上调用）
+     *
+     * @param event 报价事件
+     * @return 是否继续检测和落库
      */
-    private void updateLatestPrice(String exchange, double bestBid, double bestAsk) {
-        MarketData marketData = new MarketData(exchange, ArbitrageConfig.SYMBOL, BigDecimal.valueOf(bestBid), BigDecimal.valueOf(bestAsk), System.currentTimeMillis());
-        latestMarketData.put(exchange, marketData);
-        marketDataService.saveMarketData(marketData);
+    private boolean admitQuote(QuoteEvent event) {
+        int exchangeId = event.getExchangeId();
+        if (!crossDetector.admit(exchangeId, event.getEventTime(), event.getReceiveTime())) {
+            logger.debug("[RealTimeArbitrageService] 丢弃推送延迟过大的报价: {}", instrumentRegistry.exchangeName(exchangeId));
+            return false;
+        }
+        return true;
     }
 
     /**
-     * 检查套利机会
+     * 检测阶段：更新报价表并检查套利机会（只在检测线程上调用）
+     *
+     * @param event 报价事件
      */
-    private void checkForArbitrageOpportunity() {
-        MarketData binanceData = latestMarketData.get(ArbitrageConfig.BINANCE_EXCHANGE_NAME);
-        MarketData huobiData = latestMarketData.get(ArbitrageConfig.HUOBI_EXCHANGE_NAME);
-
-        if (binanceData != null && huobiData != null) {
-            statisticsService.incrementCheckCount();
-            if (isDataFresh(binanceData) && isDataFresh(huobiData)) {
-                arbitrageService.checkForArbitrage(binanceData, huobiData);
-            } else {
-                statisticsService.incrementSkippedOpportunities();
+    private void onQuoteEvent(QuoteEvent event, long sequence, boolean endOfBatch) {
+        boolean timed = latencyMonitor.isEnabled();
+        long detectStart = timed ? System.nanoTime() : 0;
+        int symbolId = event.getSymbolId();
+        int exchangeId = event.getExchangeId();
+        long now = event.getReceiveTime();
+        DetectionCheckEvent checkEvent = JfrSupport.AVAILABLE ? new DetectionCheckEvent() : null;
+        if (checkEvent != null) {
+            checkEvent.begin();
+        }
+        quoteTable.update(symbolId, exchangeId, event.getBid(), event.getAsk(),
+                event.getBidSize(), event.getAskSize(), now);
+        boolean crossed = crossDetector.onQuote(symbolId, exchangeId, event.getBid(), event.getAsk(),
+                event.getEventTime(), now);
+        if (checkEvent != null) {
+            checkEvent.end();
+            // 超过阈值时才填写字段（事件类型不出现在方法签名中，见 JfrSupport）
+            if (checkEvent.shouldCommit()) {
+                checkEvent.symbol = instrumentRegistry.symbolName(symbolId);
+                checkEvent.exchange = instrumentRegistry.exchangeName(exchangeId);
+                checkEvent.crossed = crossed;
+                if (crossed) {
+                    CrossVenueBook.Cross cross = crossDetector.getLastCross();
+                    checkEvent.buyExchange = instrumentRegistry.exchangeName(cross.getBuyExchangeId());
+                    checkEvent.sellExchange = instrumentRegistry.exchangeName(cross.getSellExchangeId());
+                    checkEvent.margin = FixedPointUtil.marginPercent(cross.getBuyPrice(), cross.getSellPrice()) / 100;
+                    checkEvent.episodeOpen = crossDetector.isEpisodeOpen(symbolId,
+                            cross.getBuyExchangeId(), cross.getSellExchangeId());
+                }
+                checkEvent.commit();
             }
         }
+        if (crossed) {
+            statisticsService.incrementCheckCount(symbolId, exchangeId);
+        } else {
+            statisticsService.incrementSkippedOpportunities(symbolId, exchangeId);
+        }
+        triangularArbitrageService.onQuote(symbolId, exchangeId, event.getBid(), event.getAsk(), now);
+        if (opportunityFanout.hasQuoteSubscribers()) {
+            opportunityFanout.publishQuote(event);
+        }
+        if (timed) {
+            recordDetectLatency(event, detectStart, System.nanoTime());
+        }
     }
 
     /**
-     * 检查数据是否新鲜
+     * 记录读线程和检测线程上各阶段的延迟
      *
-     * @param marketData 市场数据
-     * @return 如果数据新鲜则返回true，否则返回false
+     * 交易所事件时间和本地接收时间是毫秒级墙钟，之后的阶段使用单调时钟，
+     * 端到端延迟由两段拼接：事件时间 → 收帧（墙钟） + 收帧 → 检测完成（单调时钟）
      */
-    private boolean isDataFresh(MarketData marketData) {
-        return (System.currentTimeMillis() - marketData.getTimestamp()) < ArbitrageConfig.PRICE_EXPIRY_MS;
+    private void recordDetectLatency(QuoteEvent event, long detectStart, long detectDone) {
+        int exchangeId = event.getExchangeId();
+        latencyMonitor.record(LatencyStage.DECODE, exchangeId, event.getDecodedNanos() - event.getReceiveNanos());
+        latencyMonitor.record(LatencyStage.QUEUE, exchangeId, detectStart - event.getDecodedNanos());
+        latencyMonitor.record(LatencyStage.DETECT, exchangeId, detectDone - detectStart);
+        if (event.getEventTime() > 0) {
+            long networkNanos = TimeUnit.MILLISECONDS.toNanos(event.getReceiveTime() - event.getEventTime());
+            latencyMonitor.record(LatencyStage.NETWORK, exchangeId, networkNanos);
+            latencyMonitor.record(LatencyStage.END_TO_END, exchangeId,
+                    networkNanos + (detectDone - event.getReceiveNanos()));
+        }
+    }
+
+    /**
+     * 持久化阶段：报价以定点数在流水线中传递，按存储方式写入行情日志和/或MySQL（只在持久化线程上调用）
+     *
+     * @param event 报价事件
+     */
+    private void persistQuoteEvent(QuoteEvent event, long sequence, boolean endOfBatch) {
+        int symbolId = event.getSymbolId();
+        int exchangeId = event.getExchangeId();
+        persistSnapshot.set(symbolId, exchangeId, instrumentRegistry.symbolName(symbolId),
+                instrumentRegistry.exchangeName(exchangeId), instrumentRegistry.priceScale(symbolId),
+                instrumentRegistry.quantityScale(symbolId), event.getBid(), event.getAsk(), event.getBidSize(), event.getAskSize(), event.getReceiveTime());
+        marketDataService.saveQuote(persistSnapshot, event.getEventTime());
+        if (latencyMonitor.isEnabled()) {
+            latencyMonitor.record(LatencyStage.PERSIST, exchangeId, System.nanoTime() - event.getDecodedNanos());
+        }
+    }
+
+    /**
+     * 打印各交易所的时钟偏差和平均推送延迟（统计线程调用）
+     */
+    private void logClockStats() {
+        ExchangeClockEstimator clockEstimator = crossDetector.getClockEstimator();
+        int exchangeCount = instrumentRegistry.exchangeCount();
+        for (int exchangeId = 0; exchangeId < exchangeCount; exchangeId++) {
+            if (!clockEstimator.isWarmedUp(exchangeId)) {
+                continue;
+            }
+            logger.info("[RealTimeArbitrageService] {} 时钟偏差={}ms 平均推送延迟={}ms 延迟阈值={}ms",
+                    instrumentRegistry.exchangeName(exchangeId), clockEstimator.offset(exchangeId),
+                    clockEstimator.meanDelay(exchangeId), clockEstimator.maxDelayMs(exchangeId));
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,49 +1,294 @@
 package co.codingnomads.bot.arbitrage.service;
 
 import co.codingnomads.bot.arbitrage.config.ArbitrageConfig;
+import co.codingnomads.bot.arbitrage.service.metrics.WindowedCounter;
+import co.codingnomads.bot.arbitrage.service.metrics.WindowedCounter.Window;
+import co.codingnomads.bot.arbitrage.service.quote.InstrumentRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 统计服务
  * 负责收集和打印套利操作的性能指标
+ *
+ * 计数按维度拆分（行情消息/检查/跳过按 交易对×交易所，跨交易所机会按 交易对×买入×卖出，
+ * 三角套利机会按交易所），每个键一个 {@link WindowedCounter}，写线程之间不争用同一个计数单元。
+ * 采样线程每秒采样一次，得到1秒/1分钟/1小时的滑动窗口；{@link #snapshot()} 读取最近一次采样，
+ * 不加锁，不会阻塞写线程。
  */
 @Service
 public class StatisticsService {
 
     private static final Logger logger = LoggerFactory.getLogger(StatisticsService.class);
 
-    private final AtomicInteger checkCount = new AtomicInteger(0);
-    private final AtomicInteger skippedOpportunities = new AtomicInteger(0);
-    private final AtomicInteger processedOpportunities = new AtomicInteger(0);
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    /**
+     * 统计指标
+     */
+    public enum Metric {
+        MESSAGES("行情消息"),
+        CHECKS("套利检查"),
+        SKIPS("跳过的套利机会"),
+        OPPORTUNITIES("已处理的套利机会");
+
+        private final String label;
+
+        Metric(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    @Autowired
+    private InstrumentRegistry instrumentRegistry;
+
+    private int maxExchanges;
+
+    // ==================== 计数器 ====================
+    /** 键 = 交易对id * maxExchanges + 交易所id */
+    private WindowedCounter messages;
+    private WindowedCounter checks;
+    private WindowedCounter skips;
+    /** 键 = (交易对id * maxExchanges + 买入交易所id) * maxExchanges + 卖出交易所id */
+    private WindowedCounter crossOpportunities;
+    /** 键 = 交易所id */
+    private WindowedCounter triangularOpportunities;
+
+    /** 热启动快照恢复的累计值，只计入总数，不计入窗口速率 */
+    private volatile long restoredChecks;
+    private volatile long restoredSkipped;
+    private volatile long restoredProcessed;
+
     private volatile long lastStatsPrintTime = System.currentTimeMillis();
 
+    private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "Statistics-Sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        maxExchanges = instrumentRegistry.maxExchanges();
+        int symbolCount = instrumentRegistry.symbolCount();
+        messages = new WindowedCounter(symbolCount * maxExchanges);
+        checks = new WindowedCounter(symbolCount * maxExchanges);
+        skips = new WindowedCounter(symbolCount * maxExchanges);
+        crossOpportunities = new WindowedCounter(symbolCount * maxExchanges * maxExchanges);
+        triangularOpportunities = new WindowedCounter(maxExchanges);
+        sampler.scheduleAtFixedRate(this::sample, 1, 1, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        sampler.shutdownNow();
+    }
+
+    private void sample() {
+        try {
+            messages.tick();
+            checks.tick();
+            skips.tick();
+            crossOpportunities.tick();
+            triangularOpportunities.tick();
+        } catch (Exception e) {
+            logger.error("[StatisticsService] 采样失败: {}", e.getMessage(), e);
+        }
+    }
+
+    // ==================== 计数（热路径） ====================
+
+    /**
+     * 记录一条已识别交易对的行情消息（WebSocket读线程调用）
+     */
+    public void recordMessage(int symbolId, int exchangeId) {
+        messages.increment(symbolId * maxExchanges + exchangeId);
+    }
+
     /**
      * 增加套利检查次数
      */
-    public void incrementCheckCount() {
-        checkCount.incrementAndGet();
+    public void incrementCheckCount(int symbolId, int exchangeId) {
+        checks.increment(symbolId * maxExchanges + exchangeId);
     }
 
     /**
      * 增加跳过的套利机会次数
      */
-    public void incrementSkippedOpportunities() {
-        skippedOpportunities.incrementAndGet();
+    public void incrementSkippedOpportunities(int symbolId, int exchangeId) {
+        skips.increment(symbolId * maxExchanges + exchangeId);
+    }
+
+    /**
+     * 增加处理的跨交易所套利机会次数
+     */
+    public void incrementProcessedOpportunities(int symbolId, int buyExchangeId, int sellExchangeId) {
+        crossOpportunities.increment((symbolId * maxExchanges + buyExchangeId) * maxExchanges + sellExchangeId);
+    }
+
+    /**
+     * 增加处理的三角套利机会次数
+     */
+    public void incrementTriangularOpportunities(int exchangeId) {
+        triangularOpportunities.increment(exchangeId);
+    }
+
+    /**
+     * 从热启动快照恢复上次运行的累计值（在开始计数之前调用）
+     */
+    public void restore(long checks, long skipped, long processed) {
+        restoredChecks += checks;
+        restoredSkipped += skipped;
+        restoredProcessed += processed;
+    }
+
+    // ==================== 读取 ====================
+
+    public long getCheckCount() {
+        return restoredChecks + checks.sum();
+    }
+
+    public long getSkippedOpportunities() {
+        return restoredSkipped + skips.sum();
     }
 
     /**
-     * 增加处理的套利机会次数
+     * @return 已处理的套利机会总数（跨交易所 + 三角套利）
      */
-    public void incrementProcessedOpportunities() {
-        processedOpportunities.incrementAndGet();
+    public long getProcessedOpportunities() {
+        return restoredProcessed + crossOpportunities.sum() + triangularOpportunities.sum();
+    }
+
+    public long getMessageCount() {
+        return messages.sum();
     }
 
+    /**
+     * @return 最近一次采样的统计快照（不加锁，最多滞后一秒）
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(messages.getValues(), checks.getValues(), skips.getValues(),
+                crossOpportunities.getValues(), triangularOpportunities.getValues());
+    }
+
+    /**
+     * 某次采样时各指标的窗口计数，可按交易对/交易所聚合
+     *
+     * 聚合参数为-1时表示不限；跨交易所机会按交易所聚合时买入或卖出任一侧匹配即计入，
+     * 三角套利机会没有交易对维度，只在不限交易对时计入
+     */
+    public final class Snapshot {
+        private final WindowedCounter.Values messages;
+        private final WindowedCounter.Values checks;
+        private final WindowedCounter.Values skips;
+        private final WindowedCounter.Values cross;
+        private final WindowedCounter.Values triangular;
+
+        private Snapshot(WindowedCounter.Values messages, WindowedCounter.Values checks, WindowedCounter.Values skips,
+                         WindowedCounter.Values cross, WindowedCounter.Values triangular) {
+            this.messages = messages;
+            this.checks = checks;
+            this.skips = skips;
+            this.cross = cross;
+            this.triangular = triangular;
+        }
+
+        /**
+         * @param window 窗口，为null时返回采样时的累计值（不含热启动恢复的部分）
+         * @return 指标在窗口内的计数
+         */
+        public long count(Metric metric, Window window, int symbolId, int exchangeId) {
+            if (metric != Metric.OPPORTUNITIES) {
+                return sumBySymbolExchange(values(metric), window, symbolId, exchangeId);
+            }
+            long sum = 0;
+            int symbolCount = instrumentRegistry.symbolCount();
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                if (symbolId >= 0 && symbol != symbolId) {
+                    continue;
+                }
+                for (int buy = 0; buy < maxExchanges; buy++) {
+                    for (int sell = 0; sell < maxExchanges; sell++) {
+                        if (exchangeId < 0 || buy == exchangeId || sell == exchangeId) {
+                            sum += read(cross, (symbol * maxExchanges + buy) * maxExchanges + sell, window);
+                        }
+                    }
+                }
+            }
+            if (symbolId < 0) {
+                for (int exchange = 0; exchange < maxExchanges; exchange++) {
+                    if (exchangeId < 0 || exchange == exchangeId) {
+                        sum += read(triangular, exchange, window);
+                    }
+                }
+            }
+            return sum;
+        }
+
+        /**
+         * @return 指标在窗口内的每秒速率（窗口未填满时按已采样的时长计算）
+         */
+        public double rate(Metric metric, Window window, int symbolId, int exchangeId) {
+            return values(metric).rate(count(metric, window, symbolId, exchangeId), window);
+        }
+
+        /**
+         * @return 指定方向的跨交易所套利机会在窗口内的计数
+         */
+        public long pairCount(int symbolId, int buyExchangeId, int sellExchangeId, Window window) {
+            return read(cross, (symbolId * maxExchanges + buyExchangeId) * maxExchanges + sellExchangeId, window);
+        }
+
+        private WindowedCounter.Values values(Metric metric) {
+            switch (metric) {
+                case MESSAGES:
+                    return messages;
+                case CHECKS:
+                    return checks;
+                case SKIPS:
+                    return skips;
+                default:
+                    return cross;
+            }
+        }
+
+        private long sumBySymbolExchange(WindowedCounter.Values values, Window window, int symbolId, int exchangeId) {
+            long sum = 0;
+            int symbolCount = instrumentRegistry.symbolCount();
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                if (symbolId >= 0 && symbol != symbolId) {
+                    continue;
+                }
+                for (int exchange = 0; exchange < maxExchanges; exchange++) {
+                    if (exchangeId < 0 || exchange == exchangeId) {
+                        sum += read(values, symbol * maxExchanges + exchange, window);
+                    }
+                }
+            }
+            return sum;
+        }
+
+        private long read(WindowedCounter.Values values, int key, Window window) {
+            return window == null ? values.total(key) : values.count(key, window);
+        }
+    }
+
+    // ==================== 打印 ====================
+
     /**
      * 定期打印统计信息
      */
@@ -51,20 +296,40 @@ public class StatisticsService {
         long now = System.currentTimeMillis();
         if (now - lastStatsPrintTime > ArbitrageConfig.STATS_PRINT_INTERVAL_MS) {
             lastStatsPrintTime = now;
-            String formattedTime = new SimpleDateFormat("HH:mm:ss").format(new Date());
+            print();
+        }
+    }
+
+    private void print() {
+        Snapshot snapshot = snapshot();
+        logger.info("==================== 统计信息 ({}) ====================", LocalTime.now().format(TIME_FORMAT));
+        logger.info("行情消息总数: {} {}", getMessageCount(), rates(snapshot, Metric.MESSAGES, -1));
+        logger.info("套利检查总次数: {} {}", getCheckCount(), rates(snapshot, Metric.CHECKS, -1));
+        logger.info("跳过的套利机会: {} {}", getSkippedOpportunities(), rates(snapshot, Metric.SKIPS, -1));
+        logger.info("已处理的套利机会: {} {}", getProcessedOpportunities(), rates(snapshot, Metric.OPPORTUNITIES, -1));
+        for (int exchangeId = 0; exchangeId < instrumentRegistry.exchangeCount(); exchangeId++) {
+            logger.info("  {} 行情消息 {}", instrumentRegistry.exchangeName(exchangeId),
+                    rates(snapshot, Metric.MESSAGES, exchangeId));
+        }
+        logger.info("===============================================================");
+    }
 
-            logger.info("==================== 统计信息 ({}) ====================", formattedTime);
-            logger.info("套利检查总次数: {}", checkCount.get());
-            logger.info("跳过的套利机会: {}", skippedOpportunities.get());
-            logger.info("已处理的套利机会: {}", processedOpportunities.get());
-            logger.info("===============================================================");
+    private static String rates(Snapshot snapshot, Metric metric, int exchangeId) {
+        StringBuilder sb = new StringBuilder("(");
+        for (Window window : Window.values()) {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(window.getLabel()).append(' ')
+                    .append(String.format("%.2f", snapshot.rate(metric, window, -1, exchangeId))).append("/秒");
         }
+        return sb.append(')').toString();
     }
 
     /**
      * 打印最终统计信息
      */
     public void printFinalStats() {
-        printStats(); // 强制打印一次
+        print(); // 强制打印一次
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,340 @@
+package co.codingnomads.bot.arbitrage.service.book;
+
+import co.codingnomads.bot.arbitrage.config.ArbitrageConfig;
+import co.codingnomads.bot.arbitrage.exchange.binance.BinanceDepthWebSocketClient;
+import co.codingnomads.bot.arbitrage.exchange.binance.BinanceWebSocketClient;
+import co.codingnomads.bot.arbitrage.exchange.huobi.HuobiDepthWebSocketClient;
+import co.codingnomads.bot.arbitrage.service.quote.InstrumentRegistry;
+import co.codingnomads.bot.arbitrage.service.websocket.ConnectionSupervisor;
+import co.codingnomads.bot.arbitrage.service.websocket.FeedShards;
+import co.codingnomads.bot.arbitrage.service.websocket.SupervisedFeed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 深度订单簿服务
+ *
+ * 负责：
+ * 1. 建立币安 / 火币的增量深度连接，维护每个交易对的本地L2订单簿（见 {@link OrderBook}）。
+ *    与最优报价连接一样按单连接上限分片（见 {@link FeedShards}），一个连接承载多个交易对；
+ *    同一连接的交易对共用一个解码缓冲区，因此先按价格/数量精度分组再分片
+ * 2. 任一订单簿更新后，与其他交易所已同步且未过期的订单簿两两计算可成交价差（见 {@link ExecutableSpread}）
+ * 3. 价差从不可成交变为可成交时打印可成交数量、两边均价和扣费后的利润
+ *
+ * 最优报价路径（ticker / bbo）不受影响；本服务只补充"按深度能成交多少"的信息。
+ * 回调发生在各连接的读线程上，订单簿自带锁，计算用的价位数组按线程复用。
+ */
+@Service
+public class DepthBookService implements DepthListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(DepthBookService.class);
+
+    /** 币安深度快照允许的档数 */
+    private static final int[] BINANCE_SNAPSHOT_LIMITS = {5, 10, 20, 50, 100, 500, 1000, 5000};
+
+    /** 火币 mbp 频道允许的档数 */
+    private static final int[] HUOBI_MBP_LEVELS = {5, 20, 150, 400};
+
+    @Autowired
+    private InstrumentRegistry instrumentRegistry;
+
+    @Autowired
+    private ConnectionSupervisor connectionSupervisor;
+
+    // ==================== 配置 ====================
+    @Value("${arbitrage.depth.enabled:false}")
+    private boolean enabled;
+
+    /** 计算可成交价差时每侧最多遍历的档数 */
+    @Value("${arbitrage.depth.levels:20}")
+    private int levels;
+
+    /** 本地订单簿每侧保留的档数 */
+    @Value("${arbitrage.depth.book-levels:100}")
+    private int bookLevels;
+
+    /** 每边的手续费率 */
+    @Value("${arbitrage.depth.fee-rate:0.001}")
+    private double feeRate;
+
+    /** 币安组合流地址（后接 交易对@depth@100ms/...） */
+    @Value("${arbitrage.depth.binance.stream-url:" + ArbitrageConfig.BINANCE_STREAM_URL + "}")
+    private String binanceStreamUrl;
+
+    /** 每个币安深度连接的最大流数（深度流比最优报价流大得多，上限应比行情连接小） */
+    @Value("${arbitrage.depth.binance.streams-per-connection:50}")
+    private int binanceStreamsPerConnection;
+
+    @Value("${arbitrage.depth.binance.rest-url:" + ArbitrageConfig.BINANCE_DEPTH_REST_URL + "}")
+    private String binanceRestUrl;
+
+    @Value("${arbitrage.depth.huobi.ws-url:" + ArbitrageConfig.HUOBI_MBP_WS_URL + "}")
+    private String huobiWsUrl;
+
+    /** 每个火币深度连接订阅的最大交易对数 */
+    @Value("${arbitrage.depth.huobi.subscriptions-per-connection:20}")
+    private int huobiSubscriptionsPerConnection;
+
+    /** 订单簿 [symbolId][exchangeId] */
+    private OrderBook[][] books;
+
+    /** 每个 交易对×买入所×卖出所 当前是否可成交（1为可成交），用于只在状态变化时打印 */
+    private AtomicIntegerArray executable;
+
+    private int maxExchanges;
+
+    private final List<SupervisedFeed> feeds = new ArrayList<>();
+
+    /** 按读线程复用的计算缓冲区 */
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(() -> new Scratch(levels));
+
+    // ==================== 统计 ====================
+    private final AtomicLong updateCount = new AtomicLong();
+    private final AtomicLong evaluationCount = new AtomicLong();
+    private final AtomicLong executableCount = new AtomicLong();
+    private final AtomicLong resyncCount = new AtomicLong();
+
+    /**
+     * 创建订单簿并建立深度连接
+     */
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        int symbolCount = instrumentRegistry.symbolCount();
+        maxExchanges = instrumentRegistry.maxExchanges();
+        books = new OrderBook[symbolCount][maxExchanges];
+        executable = new AtomicIntegerArray(symbolCount * maxExchanges * maxExchanges);
+
+        int binanceId = instrumentRegistry.exchangeId(ArbitrageConfig.BINANCE_EXCHANGE_NAME);
+        int huobiId = instrumentRegistry.exchangeId(ArbitrageConfig.HUOBI_EXCHANGE_NAME);
+        int snapshotLimit = allowedLevels(BINANCE_SNAPSHOT_LIMITS, bookLevels);
+        int mbpLevels = allowedLevels(HUOBI_MBP_LEVELS, bookLevels);
+
+        // 按 价格精度/数量精度 分组，组内再按单连接上限分片
+        Map<Long, List<String>> groups = new LinkedHashMap<>();
+        for (int symbolId = 0; symbolId < symbolCount; symbolId++) {
+            books[symbolId][binanceId] = new OrderBook(bookLevels);
+            books[symbolId][huobiId] = new OrderBook(bookLevels);
+            long key = (long) instrumentRegistry.priceScale(symbolId) << 32 | instrumentRegistry.quantityScale(symbolId);
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(instrumentRegistry.symbolName(symbolId));
+        }
+        List<List<String>> binanceShards = new ArrayList<>();
+        List<List<String>> huobiShards = new ArrayList<>();
+        for (List<String> group : groups.values()) {
+            binanceShards.addAll(FeedShards.split(group, binanceStreamsPerConnection));
+            huobiShards.addAll(FeedShards.split(group, huobiSubscriptionsPerConnection));
+        }
+
+        for (int i = 0; i < binanceShards.size(); i++) {
+            List<String> shard = binanceShards.get(i);
+            int firstId = instrumentRegistry.symbolId(shard.get(0));
+            try {
+                SupervisedFeed feed = connectionSupervisor.newFeed(
+                        FeedShards.feedName("BinanceDepth", i, binanceShards.size(), shard));
+                connectionSupervisor.start(feed, new BinanceDepthWebSocketClient(
+                        BinanceWebSocketClient.combinedStreamUri(binanceStreamUrl, shard, BinanceDepthWebSocketClient.DEPTH_STREAM),
+                        binanceRestUrl, shard, symbolIds(shard), binanceId,
+                        instrumentRegistry.priceScale(firstId), instrumentRegistry.quantityScale(firstId), snapshotLimit,
+                        books(shard, binanceId), this, feed));
+                feeds.add(feed);
+            } catch (Exception e) {
+                logger.error("[DepthBookService] 建立币安深度连接{}失败: {}", shard, e.getMessage(), e);
+            }
+        }
+
+        for (int i = 0; i < huobiShards.size(); i++) {
+            List<String> shard = huobiShards.get(i);
+            int firstId = instrumentRegistry.symbolId(shard.get(0));
+            try {
+                SupervisedFeed feed = connectionSupervisor.newFeed(
+                        FeedShards.feedName("HuobiDepth", i, huobiShards.size(), shard));
+                connectionSupervisor.start(feed, new HuobiDepthWebSocketClient(
+                        new URI(huobiWsUrl), shard, mbpLevels, symbolIds(shard), huobiId,
+                        instrumentRegistry.priceScale(firstId), instrumentRegistry.quantityScale(firstId),
+                        books(shard, huobiId), this, feed));
+                feeds.add(feed);
+            } catch (Exception e) {
+                logger.error("[DepthBookService] 建立火币深度连接{}失败: {}", shard, e.getMessage(), e);
+            }
+        }
+        logger.info("[DepthBookService] {}个交易对使用币安深度连接{}个、火币深度连接{}个，订单簿{}档，计算{}档",
+                symbolCount, binanceShards.size(), huobiShards.size(), bookLevels, levels);
+    }
+
+    /**
+     * 关闭深度连接
+     */
+    @PreDestroy
+    public void destroy() {
+        feeds.forEach(connectionSupervisor::close);
+    }
+
+    // ==================== 深度回调 ====================
+
+    @Override
+    public void onBookUpdated(int symbolId, int exchangeId) {
+        updateCount.incrementAndGet();
+        OrderBook updated = books[symbolId][exchangeId];
+        long now = System.currentTimeMillis();
+        if (!updated.isSynced()) {
+            return;
+        }
+        Scratch buffers = scratch.get();
+        buffers.bidCount = updated.copyBids(buffers.bidPrices, buffers.bidSizes, levels);
+        buffers.askCount = updated.copyAsks(buffers.askPrices, buffers.askSizes, levels);
+        int scale = instrumentRegistry.priceScale(symbolId);
+        int quantityScale = instrumentRegistry.quantityScale(symbolId);
+
+        for (int other = 0; other < maxExchanges; other++) {
+            OrderBook book = books[symbolId][other];
+            if (other == exchangeId || book == null || !book.isSynced()
+                    || now - book.getUpdateTime() > ArbitrageConfig.PRICE_EXPIRY_MS) {
+                continue;
+            }
+            // 逐个复制，避免同时持有两个订单簿的锁
+            int otherBidCount = book.copyBids(buffers.otherBidPrices, buffers.otherBidSizes, levels);
+            int otherAskCount = book.copyAsks(buffers.otherAskPrices, buffers.otherAskSizes, levels);
+
+            // 在本交易所买入、在另一交易所卖出
+            evaluate(symbolId, exchangeId, other, buffers.spread.compute(
+                    buffers.askPrices, buffers.askSizes, buffers.askCount,
+                    buffers.otherBidPrices, buffers.otherBidSizes, otherBidCount, scale, quantityScale, feeRate), buffers.spread);
+            // 在另一交易所买入、在本交易所卖出
+            evaluate(symbolId, other, exchangeId, buffers.spread.compute(
+                    buffers.otherAskPrices, buffers.otherAskSizes, otherAskCount,
+                    buffers.bidPrices, buffers.bidSizes, buffers.bidCount, scale, quantityScale, feeRate), buffers.spread);
+        }
+    }
+
+    @Override
+    public void onResync(int symbolId, int exchangeId, String reason) {
+        resyncCount.incrementAndGet();
+        logger.warn("[DepthBookService] {} {} 订单簿重新同步: {}", instrumentRegistry.symbolName(symbolId),
+                instrumentRegistry.exchangeName(exchangeId), reason);
+    }
+
+    private void evaluate(int symbolId, int buyExchangeId, int sellExchangeId, boolean found, ExecutableSpread spread) {
+        evaluationCount.incrementAndGet();
+        int slot = (symbolId * maxExchanges + buyExchangeId) * maxExchanges + sellExchangeId;
+        if (!found) {
+            executable.set(slot, 0);
+            return;
+        }
+        if (executable.getAndSet(slot, 1) == 0) {
+            executableCount.incrementAndGet();
+            logger.info("[DepthBookService] {} 可成交套利: {}买入 均价{} ({}档) -> {}卖出 均价{} ({}档)，数量{}，"
+                            + "扣费后利润{}，利润率{}%",
+                    instrumentRegistry.symbolName(symbolId),
+                    instrumentRegistry.exchangeName(buyExchangeId), format(spread.getBuyVwap()), spread.getBuyLevels(),
+                    instrumentRegistry.exchangeName(sellExchangeId), format(spread.getSellVwap()), spread.getSellLevels(),
+                    format(spread.getQuantityValue()), format(spread.getProfit()),
+                    String.format("%.4f", spread.getMarginPercent()));
+        }
+    }
+
+    // ==================== 查询 ====================
+
+    /**
+     * 获取订单簿
+     *
+     * @return 订单簿，未启用或该交易所没有深度连接时为null
+     */
+    public OrderBook getBook(int symbolId, int exchangeId) {
+        return books == null ? null : books[symbolId][exchangeId];
+    }
+
+    /**
+     * 打印深度统计
+     */
+    public void logStats() {
+        if (!enabled) {
+            return;
+        }
+        int synced = 0;
+        int total = 0;
+        for (OrderBook[] symbolBooks : books) {
+            for (OrderBook book : symbolBooks) {
+                if (book != null) {
+                    total++;
+                    if (book.isSynced()) {
+                        synced++;
+                    }
+                }
+            }
+        }
+        logger.info("[DepthBookService] 订单簿已同步{}/{}，深度更新{}次，价差计算{}次，出现可成交套利{}次，重新同步{}次",
+                synced, total, updateCount.get(), evaluationCount.get(), executableCount.get(), resyncCount.get());
+    }
+
+    private int[] symbolIds(List<String> shard) {
+        int[] ids = new int[shard.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = instrumentRegistry.symbolId(shard.get(i));
+        }
+        return ids;
+    }
+
+    private OrderBook[] books(List<String> shard, int exchangeId) {
+        OrderBook[] shardBooks = new OrderBook[shard.size()];
+        for (int i = 0; i < shardBooks.length; i++) {
+            shardBooks[i] = books[instrumentRegistry.symbolId(shard.get(i))][exchangeId];
+        }
+        return shardBooks;
+    }
+
+    private static int allowedLevels(int[] allowed, int wanted) {
+        for (int value : allowed) {
+            if (value >= wanted) {
+                return value;
+            }
+        }
+        return allowed[allowed.length - 1];
+    }
+
+    private static String format(double value) {
+        return String.format("%.8f", value);
+    }
+
+    /**
+     * 每个读线程一份的计算缓冲区
+     */
+    private static final class Scratch {
+        final long[] bidPrices;
+        final long[] bidSizes;
+        final long[] askPrices;
+        final long[] askSizes;
+        final long[] otherBidPrices;
+        final long[] otherBidSizes;
+        final long[] otherAskPrices;
+        final long[] otherAskSizes;
+        final ExecutableSpread spread = new ExecutableSpread();
+        int bidCount;
+        int askCount;
+
+        Scratch(int levels) {
+            bidPrices = new long[levels];
+            bidSizes = new long[levels];
+            askPrices = new long[levels];
+            askSizes = new long[levels];
+            otherBidPrices = new long[levels];
+            otherBidSizes = new long[levels];
+            otherAskPrices = new long[levels];
+            otherAskSizes = new long[levels];
+        }
+    }
+}
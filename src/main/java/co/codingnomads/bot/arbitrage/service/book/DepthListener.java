@@ -0,0 +1,24 @@
+package co.codingnomads.bot.arbitrage.service.book;
+
+/**
+ * 深度连接的回调（在连接的读线程上调用）
+ */
+public interface DepthListener {
+
+    /**
+     * 订单簿已应用一帧快照或增量
+     *
+     * @param symbolId   交易对id
+     * @param exchangeId 交易所id
+     */
+    void onBookUpdated(int symbolId, int exchangeId);
+
+    /**
+     * 订单簿失去同步（序号不连续、订单簿交叉、断线），已清空并等待重新同步
+     *
+     * @param symbolId   交易对id
+     * @param exchangeId 交易所id
+     * @param reason     原因
+     */
+    void onResync(int symbolId, int exchangeId, String reason);
+}
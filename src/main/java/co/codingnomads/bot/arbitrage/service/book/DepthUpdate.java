@@ -0,0 +1,117 @@
+package co.codingnomads.bot.arbitrage.service.book;
+
+import co.codingnomads.bot.arbitrage.util.FixedPointUtil;
+
+import java.util.Arrays;
+
+/**
+ * 一帧解码后的深度数据（全量快照或增量更新），由解码器填充，各连接重复使用
+ *
+ * 价格和数量分别按交易对的价格精度和挂单量精度换算为定点尾数；数量为0表示删除该价位。
+ * 序号字段的含义随交易所而不同：
+ * <ul>
+ *   <li>币安：firstId = U（本帧第一个更新id），lastId = u（最后一个更新id），快照时两者都为 lastUpdateId</li>
+ *   <li>火币：firstId = prevSeqNum，lastId = seqNum，快照时 firstId 为0</li>
+ * </ul>
+ */
+public final class DepthUpdate {
+
+    private int scale;
+    private int quantityScale;
+    private long firstId;
+    private long lastId;
+    private long eventTime;
+
+    private long[] bidPrices = new long[64];
+    private long[] bidSizes = new long[64];
+    private int bidCount;
+    private long[] askPrices = new long[64];
+    private long[] askSizes = new long[64];
+    private int askCount;
+
+    /**
+     * @param scale         价格的定点精度
+     * @param quantityScale 数量的定点精度
+     */
+    public DepthUpdate(int scale, int quantityScale) {
+        this.scale = scale;
+        this.quantityScale = quantityScale;
+    }
+
+    /**
+     * 清空，准备解码下一帧
+     */
+    public void reset() {
+        firstId = 0;
+        lastId = 0;
+        eventTime = 0;
+        bidCount = 0;
+        askCount = 0;
+    }
+
+    public void addBid(double price, double size) {
+        if (bidCount == bidPrices.length) {
+            bidPrices = Arrays.copyOf(bidPrices, bidCount * 2);
+            bidSizes = Arrays.copyOf(bidSizes, bidCount * 2);
+        }
+        bidPrices[bidCount] = FixedPointUtil.toMantissa(price, scale);
+        bidSizes[bidCount] = FixedPointUtil.toMantissa(size, quantityScale);
+        bidCount++;
+    }
+
+    public void addAsk(double price, double size) {
+        if (askCount == askPrices.length) {
+            askPrices = Arrays.copyOf(askPrices, askCount * 2);
+            askSizes = Arrays.copyOf(askSizes, askCount * 2);
+        }
+        askPrices[askCount] = FixedPointUtil.toMantissa(price, scale);
+        askSizes[askCount] = FixedPointUtil.toMantissa(size, quantityScale);
+        askCount++;
+    }
+
+    /**
+     * 复制另一帧的全部内容（缓存同步期间到达的增量时使用）
+     */
+    public void copyFrom(DepthUpdate other) {
+        scale = other.scale;
+        quantityScale = other.quantityScale;
+        firstId = other.firstId;
+        lastId = other.lastId;
+        eventTime = other.eventTime;
+        bidPrices = Arrays.copyOf(other.bidPrices, Math.max(other.bidCount, 1));
+        bidSizes = Arrays.copyOf(other.bidSizes, Math.max(other.bidCount, 1));
+        bidCount = other.bidCount;
+        askPrices = Arrays.copyOf(other.askPrices, Math.max(other.askCount, 1));
+        askSizes = Arrays.copyOf(other.askSizes, Math.max(other.askCount, 1));
+        askCount = other.askCount;
+    }
+
+    public int getScale() { return scale; }
+
+    public int getQuantityScale() { return quantityScale; }
+
+    public long getFirstId() { return firstId; }
+
+    public void setFirstId(long firstId) { this.firstId = firstId; }
+
+    public long getLastId() { return lastId; }
+
+    public void setLastId(long lastId) { this.lastId = lastId; }
+
+    /** @return 交易所事件时间（毫秒），未知时为0 */
+    public long getEventTime() { return eventTime; }
+
+    public void setEventTime(long eventTime) { this.eventTime = eventTime; }
+
+    public int getBidCount() { return bidCount; }
+
+    public long getBidPrice(int i) { return bidPrices[i]; }
+
+    public long getBidSize(int i) { return bidSizes[i]; }
+
+    public int getAskCount() { return askCount; }
+
+    public long getAskPrice(int i) { return askPrices[i]; }
+
+    public long getAskSize(int i) { return askSizes[i]; }
+}
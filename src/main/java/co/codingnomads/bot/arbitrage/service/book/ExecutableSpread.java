@@ -0,0 +1,112 @@
+package co.codingnomads.bot.arbitrage.service.book;
+
+import co.codingnomads.bot.arbitrage.util.FixedPointUtil;
+
+/**
+ * 跨交易所可成交价差：在买入所的卖盘吃单、同时在卖出所的买盘吃单，
+ * 逐档累加直到扣除双边手续费后不再盈利，得到可成交数量、两边的成交均价（VWAP）和利润。
+ *
+ * 每次计算最多遍历两侧各 levels 档，开销有上界；结果对象由调用方重复使用。
+ */
+public final class ExecutableSpread {
+
+    private int quantityScale;
+    private long quantity;
+    private double buyNotional;
+    private double sellNotional;
+    private double feeRate;
+    private int buyLevels;
+    private int sellLevels;
+
+    /**
+     * 计算可成交价差
+     *
+     * @param askPrices 买入所卖盘价格（从低到高）
+     * @param askSizes  买入所卖盘数量
+     * @param askCount  卖盘档数
+     * @param bidPrices 卖出所买盘价格（从高到低）
+     * @param bidSizes  卖出所买盘数量
+     * @param bidCount  买盘档数
+     * @param scale         价格的定点精度
+     * @param quantityScale 数量的定点精度
+     * @param feeRate       每边的手续费率
+     * @return 是否存在可盈利成交的数量
+     */
+    public boolean compute(long[] askPrices, long[] askSizes, int askCount,
+                           long[] bidPrices, long[] bidSizes, int bidCount, int scale, int quantityScale,
+                           double feeRate) {
+        this.quantityScale = quantityScale;
+        this.feeRate = feeRate;
+        quantity = 0;
+        buyNotional = 0;
+        sellNotional = 0;
+        buyLevels = 0;
+        sellLevels = 0;
+        if (askCount == 0 || bidCount == 0) {
+            return false;
+        }
+        double buyFactor = 1 + feeRate;
+        double sellFactor = 1 - feeRate;
+        int i = 0;
+        int j = 0;
+        long askRemaining = askSizes[0];
+        long bidRemaining = bidSizes[0];
+        while (i < askCount && j < bidCount && bidPrices[j] * sellFactor > askPrices[i] * buyFactor) {
+            long fill = Math.min(askRemaining, bidRemaining);
+            double fillQuantity = FixedPointUtil.toDouble(fill, quantityScale);
+            buyNotional += fillQuantity * FixedPointUtil.toDouble(askPrices[i], scale);
+            sellNotional += fillQuantity * FixedPointUtil.toDouble(bidPrices[j], scale);
+            quantity += fill;
+            buyLevels = i + 1;
+            sellLevels = j + 1;
+            askRemaining -= fill;
+            bidRemaining -= fill;
+            if (askRemaining == 0 && ++i < askCount) {
+                askRemaining = askSizes[i];
+            }
+            if (bidRemaining == 0 && ++j < bidCount) {
+                bidRemaining = bidSizes[j];
+            }
+        }
+        return quantity > 0;
+    }
+
+    /** @return 可成交数量尾数 */
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public double getQuantityValue() {
+        return FixedPointUtil.toDouble(quantity, quantityScale);
+    }
+
+    /** @return 买入成交均价 */
+    public double getBuyVwap() {
+        return quantity == 0 ? 0 : buyNotional / getQuantityValue();
+    }
+
+    /** @return 卖出成交均价 */
+    public double getSellVwap() {
+        return quantity == 0 ? 0 : sellNotional / getQuantityValue();
+    }
+
+    /** @return 扣除双边手续费后的利润（计价币种） */
+    public double getProfit() {
+        return sellNotional * (1 - feeRate) - buyNotional * (1 + feeRate);
+    }
+
+    /** @return 扣除手续费后的利润率（百分比） */
+    public double getMarginPercent() {
+        return buyNotional == 0 ? 0 : getProfit() * 100.0 / buyNotional;
+    }
+
+    /** @return 吃掉的买入所卖盘档数 */
+    public int getBuyLevels() {
+        return buyLevels;
+    }
+
+    /** @return 吃掉的卖出所买盘档数 */
+    public int getSellLevels() {
+        return sellLevels;
+    }
+}
@@ -0,0 +1,110 @@
+package co.codingnomads.bot.arbitrage.service.book;
+
+/**
+ * 一个交易所、一个交易对的L2订单簿
+ *
+ * 由该交易所深度连接的读线程写入（快照和增量），检测时其他读线程只复制前若干档，
+ * 读写都在本对象的锁内完成，每次持锁的时间与档数成正比。
+ * synced 表示订单簿已与交易所的快照对齐、之后的增量都已连续应用，未对齐时不参与检测。
+ */
+public final class OrderBook {
+
+    private final OrderBookSide bids;
+    private final OrderBookSide asks;
+
+    private long lastUpdateId;
+    private volatile boolean synced;
+    private volatile long updateTime;
+
+    /**
+     * @param capacity 每侧最多保留的档数
+     */
+    public OrderBook(int capacity) {
+        this.bids = new OrderBookSide(capacity, true);
+        this.asks = new OrderBookSide(capacity, false);
+    }
+
+    /**
+     * 用全量快照替换订单簿
+     *
+     * @param snapshot 快照，lastId 为快照对应的更新id
+     * @param now      本地接收时间（毫秒）
+     */
+    public synchronized void applySnapshot(DepthUpdate snapshot, long now) {
+        bids.clear();
+        asks.clear();
+        applyLevels(snapshot);
+        lastUpdateId = snapshot.getLastId();
+        updateTime = now;
+        synced = true;
+    }
+
+    /**
+     * 应用一帧增量（调用方已检查序号连续）
+     *
+     * @param update 增量
+     * @param now    本地接收时间（毫秒）
+     * @return 应用后买一价仍低于卖一价；否则说明订单簿已错乱，需要重新同步
+     */
+    public synchronized boolean apply(DepthUpdate update, long now) {
+        applyLevels(update);
+        lastUpdateId = update.getLastId();
+        updateTime = now;
+        return bids.count() == 0 || asks.count() == 0 || bids.price(0) < asks.price(0);
+    }
+
+    private void applyLevels(DepthUpdate update) {
+        for (int i = 0; i < update.getBidCount(); i++) {
+            bids.set(update.getBidPrice(i), update.getBidSize(i));
+        }
+        for (int i = 0; i < update.getAskCount(); i++) {
+            asks.set(update.getAskPrice(i), update.getAskSize(i));
+        }
+    }
+
+    /**
+     * 清空并标记为未同步（序号不连续、断线等情况）
+     */
+    public synchronized void invalidate() {
+        bids.clear();
+        asks.clear();
+        lastUpdateId = 0;
+        synced = false;
+    }
+
+    /**
+     * 复制买盘前 levels 档
+     *
+     * @return 复制的档数
+     */
+    public synchronized int copyBids(long[] prices, long[] sizes, int levels) {
+        return bids.copyTo(prices, sizes, levels);
+    }
+
+    /**
+     * 复制卖盘前 levels 档
+     *
+     * @return 复制的档数
+     */
+    public synchronized int copyAsks(long[] prices, long[] sizes, int levels) {
+        return asks.copyTo(prices, sizes, levels);
+    }
+
+    /**
+     * @return 最后应用的更新id（只在写线程上读取）
+     */
+    public synchronized long getLastUpdateId() {
+        return lastUpdateId;
+    }
+
+    public boolean isSynced() {
+        return synced;
+    }
+
+    /**
+     * @return 最后一次更新的本地时间（毫秒）
+     */
+    public long getUpdateTime() {
+        return updateTime;
+    }
+}
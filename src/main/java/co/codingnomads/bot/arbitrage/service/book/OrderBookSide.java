@@ -0,0 +1,114 @@
+package co.codingnomads.bot.arbitrage.service.book;
+
+/**
+ * 订单簿的一侧：按价格排序的定长价位数组
+ *
+ * 价格和数量（分别为价格精度和挂单量精度的尾数）是两个平行的 long 数组，买盘按价格从高到低、卖盘从低到高排列，最多保留 capacity 档。
+ * 更新时二分查找价位，插入/删除用 System.arraycopy 移动其后的价位，每次更新的开销与档数成正比且有上界，
+ * 不创建任何对象。超出 capacity 的远端价位直接丢弃：之后近端价位被删除时远端会暂时缺档，
+ * 因此订阅的深度应大于参与计算的档数，并依靠定期的快照同步补齐。
+ *
+ * 本类不是线程安全的，由 {@link OrderBook} 负责同步。
+ */
+final class OrderBookSide {
+
+    private final boolean descending;
+    private final long[] prices;
+    private final long[] sizes;
+    private int count;
+
+    OrderBookSide(int capacity, boolean descending) {
+        this.descending = descending;
+        this.prices = new long[capacity];
+        this.sizes = new long[capacity];
+    }
+
+    /**
+     * 设置一个价位的数量
+     *
+     * @param price 价格尾数
+     * @param size  数量尾数（挂单量精度），0表示删除该价位
+     */
+    void set(long price, long size) {
+        int index = search(price);
+        if (index >= 0) {
+            if (size == 0) {
+                System.arraycopy(prices, index + 1, prices, index, count - index - 1);
+                System.arraycopy(sizes, index + 1, sizes, index, count - index - 1);
+                count--;
+            } else {
+                sizes[index] = size;
+            }
+            return;
+        }
+        if (size == 0) {
+            return;
+        }
+        int insert = -index - 1;
+        if (insert >= prices.length) {
+            return;
+        }
+        int moved = Math.min(count, prices.length - 1) - insert;
+        if (moved > 0) {
+            System.arraycopy(prices, insert, prices, insert + 1, moved);
+            System.arraycopy(sizes, insert, sizes, insert + 1, moved);
+        }
+        prices[insert] = price;
+        sizes[insert] = size;
+        if (count < prices.length) {
+            count++;
+        }
+    }
+
+    /**
+     * 二分查找价位
+     *
+     * @return 找到时返回下标；否则返回 -(插入位置) - 1
+     */
+    private int search(long price) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long value = prices[mid];
+            if (value == price) {
+                return mid;
+            }
+            boolean before = descending ? value > price : value < price;
+            if (before) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return -(low + 1);
+    }
+
+    void clear() {
+        count = 0;
+    }
+
+    int count() {
+        return count;
+    }
+
+    long price(int level) {
+        return prices[level];
+    }
+
+    long size(int level) {
+        return sizes[level];
+    }
+
+    /**
+     * 复制前 levels 档到目标数组
+     *
+     * @return 复制的档数
+     */
+    int copyTo(long[] targetPrices, long[] targetSizes, int levels) {
+        int n = Math.min(levels, count);
+        System.arraycopy(prices, 0, targetPrices, 0, n);
+        System.arraycopy(sizes, 0, targetSizes, 0, n);
+        return n;
+    }
+}
@@ -0,0 +1,279 @@
+package co.codingnomads.bot.arbitrage.service.cross;
+
+import co.codingnomads.bot.arbitrage.config.ArbitrageConfig;
+import co.codingnomads.bot.arbitrage.model.ArbitrageOpportunity;
+import co.codingnomads.bot.arbitrage.service.OpportunityEpisodeTracker;
+import co.codingnomads.bot.arbitrage.service.quote.CrossVenueBook;
+import co.codingnomads.bot.arbitrage.service.quote.ExchangeClockEstimator;
+import co.codingnomads.bot.arbitrage.service.quote.InstrumentRegistry;
+import co.codingnomads.bot.arbitrage.util.FixedPointUtil;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 跨交易所套利检测核心
+ *
+ * 持有检测所需的全部状态：每个交易对的跨交易所最优报价堆、交易所时钟偏差估计和区间跟踪器。
+ * 不依赖Spring，实时行情（ArbitrageService 持有的实例）和离线回放（每个分区一个实例）
+ * 使用同一套检测逻辑。
+ *
+ * 除 {@link #expireIdle} 和 {@link #closeAll} 外，每个实例只允许在一个线程上调用。
+ */
+public class CrossVenueArbitrageDetector {
+
+    /**
+     * 检测事件监听器（在检测线程上回调，不应阻塞）
+     */
+    public interface Listener {
+        /**
+         * 价差区间开启
+         */
+        void onCrossOpened(int symbolId, int buyExchangeId, int sellExchangeId,
+                           long buyPrice, long sellPrice, double margin);
+
+        /**
+         * 区间结束，输出聚合后的套利机会
+         */
+        void onEpisodeClosed(ArbitrageOpportunity opportunity);
+    }
+
+    private final InstrumentRegistry instrumentRegistry;
+    private final Listener listener;
+    private final OpportunityEpisodeTracker episodeTracker;
+    private final ExchangeClockEstimator clockEstimator;
+
+    /** 每个交易对一个跨交易所最优报价结构，按交易对id寻址 */
+    private final CrossVenueBook[] books;
+
+    /** 每个交易对上一次完整评估找到的最优组合，重复使用 */
+    private final CrossVenueBook.Cross[] bestCrosses;
+
+    /** 上一次 {@link #onQuote} 返回true时的最优组合 */
+    private CrossVenueBook.Cross lastCross;
+
+    private final double minMargin;
+
+    /**
+     * 每个交易对上一次完整评估的结论：找到了配对组合且最优组合的利润率未超过阈值。
+     * 此时没有未关闭区间的交易对收到最优价未变的报价，重新评估不会开启区间
+     */
+    private final boolean[] belowThreshold;
+
+    /** 最优价未变、只刷新报价时间的次数，只由检测线程写入 */
+    private final AtomicLong unchangedCount = new AtomicLong();
+
+    /**
+     * @param instrumentRegistry   交易对/交易所注册表
+     * @param minMargin            开启区间的最小利润率（百分比）
+     * @param episodeMaxDurationMs 区间最长持续时间
+     * @param episodeIdleTimeoutMs 区间无更新超时时间
+     * @param listener             检测事件监听器
+     */
+    public CrossVenueArbitrageDetector(InstrumentRegistry instrumentRegistry, double minMargin,
+                                       long episodeMaxDurationMs, long episodeIdleTimeoutMs, Listener listener) {
+        this.instrumentRegistry = instrumentRegistry;
+        this.listener = listener;
+        this.minMargin = minMargin;
+        this.episodeTracker = new OpportunityEpisodeTracker(instrumentRegistry, minMargin,
+                episodeMaxDurationMs, episodeIdleTimeoutMs, listener::onEpisodeClosed);
+        this.clockEstimator = new ExchangeClockEstimator(instrumentRegistry.maxExchanges());
+        this.books = new CrossVenueBook[instrumentRegistry.symbolCount()];
+        this.bestCrosses = new CrossVenueBook.Cross[instrumentRegistry.symbolCount()];
+        this.belowThreshold = new boolean[instrumentRegistry.symbolCount()];
+        for (int i = 0; i < books.length; i++) {
+            books[i] = new CrossVenueBook(instrumentRegistry.maxExchanges());
+            bestCrosses[i] = new CrossVenueBook.Cross();
+        }
+    }
+
+    /**
+     * 准入检查：记录时间样本，推送延迟超过阈值的报价已不可交易
+     *
+     * @param exchangeId  交易所id
+     * @param eventTime   交易所事件时间（毫秒），未知时为0
+     * @param receiveTime 本地接收时间（毫秒）
+     * @return 是否继续检测和落库
+     */
+    public boolean admit(int exchangeId, long eventTime, long receiveTime) {
+        long delay = clockEstimator.sample(exchangeId, eventTime, receiveTime);
+        return delay <= clockEstimator.maxDelayMs(exchangeId);
+    }
+
+    /**
+     * 处理一条最优报价并检查套利机会
+     *
+     * 只把本次更新的交易所在该交易对的最优报价堆中调整位置（O(log N)），
+     * 然后检查全市场最高买价与最低卖价是否构成跨交易所价差。
+     * 两边报价按对齐后的交易所时间配对，时间差超过自适应阈值时视为不可交易。
+     *
+     * 该交易所的买一/卖一价与堆中仍有效的报价相同、交易对没有未关闭区间、且上一次评估的最优组合
+     * 未超过阈值时只刷新报价时间：价格不变时最优组合的利润率不会升高（其他报价过期只会让它更低）。
+     * 刷新后还要确认上一次最优组合的两侧报价仍有效且仍可配对（对侧交易所的报价可能已过期），
+     * 满足时重新评估的结论不变，返回上一次的结果；否则照常完整评估。
+     *
+     * @param symbolId   交易对id
+     * @param exchangeId 本次更新的交易所id
+     * @param bid        买一价尾数
+     * @param ask        卖一价尾数
+     * @param eventTime  交易所事件时间（毫秒），未知时为0
+     * @param now        当前时间（本地接收时间，毫秒）
+     * @return 是否找到可配对的跨交易所报价组合
+     */
+    public boolean onQuote(int symbolId, int exchangeId, long bid, long ask, long eventTime, long now) {
+        CrossVenueBook book = books[symbolId];
+        CrossVenueBook.Cross cross = bestCrosses[symbolId];
+        boolean unchanged = belowThreshold[symbolId] && book.bid(exchangeId) == bid && book.ask(exchangeId) == ask
+                && book.isFresh(exchangeId, now, ArbitrageConfig.PRICE_EXPIRY_MS)
+                && episodeTracker.openCount(symbolId) == 0;
+        book.update(exchangeId, bid, ask, clockEstimator.alignedTime(exchangeId, eventTime, now));
+        if (unchanged
+                && book.isFresh(cross.getBuyExchangeId(), now, ArbitrageConfig.PRICE_EXPIRY_MS)
+                && book.isFresh(cross.getSellExchangeId(), now, ArbitrageConfig.PRICE_EXPIRY_MS)
+                && isPaired(book, cross.getBuyExchangeId(), cross.getSellExchangeId())) {
+            unchangedCount.lazySet(unchangedCount.get() + 1);
+            lastCross = cross;
+            return true;
+        }
+        boolean found = book.findBestCross(now, ArbitrageConfig.PRICE_EXPIRY_MS, cross)
+                && isPaired(book, cross.getBuyExchangeId(), cross.getSellExchangeId());
+        belowThreshold[symbolId] = found
+                && FixedPointUtil.marginPercent(cross.getBuyPrice(), cross.getSellPrice()) <= minMargin;
+        if (found) {
+            lastCross = cross;
+            evaluateSpread(symbolId, cross.getBuyExchangeId(), cross.getSellExchangeId(),
+                    cross.getBuyPrice(), cross.getSellPrice(), now);
+        }
+        if (episodeTracker.openCount(symbolId) > 0) {
+            revalidateOpenEpisodes(book, symbolId, exchangeId, found ? cross : null, now);
+        }
+        return found;
+    }
+
+    /**
+     * 写入热启动快照中的报价，只更新最优报价结构，不检测价差也不开启区间（检测线程启动之前调用）
+     *
+     * @param receiveTime 快照中该报价的本地接收时间（毫秒），超过有效期后自然不再参与配对
+     */
+    public void restoreQuote(int symbolId, int exchangeId, long bid, long ask, long receiveTime) {
+        books[symbolId].update(exchangeId, bid, ask, receiveTime);
+    }
+
+    /**
+     * 评估特定方向的价差
+     *
+     * 价差越过阈值时开启或延续区间，回落时关闭区间
+     *
+     * @param symbolId       交易对id
+     * @param buyExchangeId  买入交易所id
+     * @param sellExchangeId 卖出交易所id
+     * @param buyPrice       买入价格尾数
+     * @param sellPrice      卖出价格尾数
+     * @param now            当前时间（毫秒）
+     */
+    public void evaluateSpread(int symbolId, int buyExchangeId, int sellExchangeId,
+                               long buyPrice, long sellPrice, long now) {
+        double profitMargin = FixedPointUtil.marginPercent(buyPrice, sellPrice);
+        boolean opened = episodeTracker.onSpread(symbolId, buyExchangeId, sellExchangeId,
+                buyPrice, sellPrice, profitMargin, now);
+        if (opened) {
+            listener.onCrossOpened(symbolId, buyExchangeId, sellExchangeId, buyPrice, sellPrice, profitMargin);
+        }
+    }
+
+    /**
+     * 关闭指定方向上未结束的区间（例如一侧报价过期）
+     */
+    public void closeSpread(int symbolId, int buyExchangeId, int sellExchangeId, long now) {
+        episodeTracker.onSpread(symbolId, buyExchangeId, sellExchangeId, 0, 0, Double.NEGATIVE_INFINITY, now);
+    }
+
+    /**
+     * 关闭长时间无更新的区间（可在其他线程调用）
+     *
+     * @param now 当前时间（毫秒；回放时为回放时间）
+     */
+    public void expireIdle(long now) {
+        episodeTracker.expireIdle(now);
+    }
+
+    /**
+     * 关闭全部未结束的区间（可在其他线程调用）
+     */
+    public void closeAll() {
+        episodeTracker.closeAll();
+    }
+
+    /**
+     * @return 指定方向当前是否有未关闭的区间
+     */
+    public boolean isEpisodeOpen(int symbolId, int buyExchangeId, int sellExchangeId) {
+        return episodeTracker.isOpen(symbolId, buyExchangeId, sellExchangeId);
+    }
+
+    /**
+     * @return 指定交易对未关闭的区间数
+     */
+    public int openEpisodeCount(int symbolId) {
+        return episodeTracker.openCount(symbolId);
+    }
+
+    /**
+     * @return 上一次 {@link #onQuote} 找到的最优组合，只在其返回true后、下一次调用前有效
+     */
+    public CrossVenueBook.Cross getLastCross() {
+        return lastCross;
+    }
+
+    /**
+     * @return 最优价未变、只刷新报价时间而未重新评估的报价数
+     */
+    public long getUnchangedCount() {
+        return unchangedCount.get();
+    }
+
+    public ExchangeClockEstimator getClockEstimator() {
+        return clockEstimator;
+    }
+
+    /**
+     * 重新评估与本次更新的交易所相关、但不是当前最优组合的未关闭区间，
+     * 使这些区间在价差回落时及时关闭。只有存在未关闭区间时才会执行。
+     */
+    private void revalidateOpenEpisodes(CrossVenueBook book, int symbolId, int exchangeId,
+                                        CrossVenueBook.Cross best, long now) {
+        int exchangeCount = instrumentRegistry.exchangeCount();
+        for (int other = 0; other < exchangeCount; other++) {
+            if (other == exchangeId) {
+                continue;
+            }
+            revalidate(book, symbolId, exchangeId, other, best, now);
+            revalidate(book, symbolId, other, exchangeId, best, now);
+        }
+    }
+
+    private void revalidate(CrossVenueBook book, int symbolId, int buyExchangeId, int sellExchangeId,
+                            CrossVenueBook.Cross best, long now) {
+        if (!episodeTracker.isOpen(symbolId, buyExchangeId, sellExchangeId)) {
+            return;
+        }
+        if (best != null && best.getBuyExchangeId() == buyExchangeId && best.getSellExchangeId() == sellExchangeId) {
+            return;
+        }
+        if (book.isFresh(buyExchangeId, now, ArbitrageConfig.PRICE_EXPIRY_MS)
+                && book.isFresh(sellExchangeId, now, ArbitrageConfig.PRICE_EXPIRY_MS)
+                && isPaired(book, buyExchangeId, sellExchangeId)) {
+            evaluateSpread(symbolId, buyExchangeId, sellExchangeId,
+                    book.ask(buyExchangeId), book.bid(sellExchangeId), now);
+        } else {
+            closeSpread(symbolId, buyExchangeId, sellExchangeId, now);
+        }
+    }
+
+    /**
+     * @return 两个交易所的最近报价在对齐后的时间差是否在可交易范围内
+     */
+    private boolean isPaired(CrossVenueBook book, int buyExchangeId, int sellExchangeId) {
+        long gap = Math.abs(book.timestamp(buyExchangeId) - book.timestamp(sellExchangeId));
+        return gap <= clockEstimator.maxPairingGapMs(buyExchangeId, sellExchangeId);
+    }
+}
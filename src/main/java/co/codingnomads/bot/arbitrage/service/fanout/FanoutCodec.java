@@ -0,0 +1,107 @@
+package co.codingnomads.bot.arbitrage.service.fanout;
+
+import co.codingnomads.bot.arbitrage.service.quote.InstrumentRegistry;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 推送消息的二进制编码
+ *
+ * 每个WebSocket二进制帧一条消息，大端序，定长（字典除外）：
+ * <pre>
+ * 消息头       type(1) timestamp(8, 本地毫秒)
+ * DICTIONARY   version(1) symbolCount(2) {symbolId(2) scale(1) quantityScale(1) nameLength(1) name(ASCII)}...
+ *              exchangeCount(1) {exchangeId(1) nameLength(1) name(ASCII)}...
+ * CROSS_OPENED symbolId(2) buyExchangeId(1) sellExchangeId(1) buyPrice(8) sellPrice(8) margin(8, double %)
+ * EPISODE_CLOSED symbolId(2) buyExchangeId(1) sellExchangeId(1) buyPrice(8) sellPrice(8)
+ *              peakMargin(8, double %) avgMargin(8, double %) durationMs(8) tickCount(4)
+ * QUOTE        symbolId(2) exchangeId(1) bid(8) ask(8) bidSize(8) askSize(8) eventTime(8, 交易所毫秒，未知为0)
+ * </pre>
+ * 价格和数量为定点数尾数，实际值 = 尾数 / 10^精度，价格用 scale、挂单量用 quantityScale，
+ * 见连接后首先收到的字典消息。
+ */
+public final class FanoutCodec {
+
+    public static final byte VERSION = 2;
+
+    public static final byte TYPE_DICTIONARY = 0;
+    public static final byte TYPE_CROSS_OPENED = 1;
+    public static final byte TYPE_EPISODE_CLOSED = 2;
+    public static final byte TYPE_QUOTE = 3;
+
+    public static final int HEADER_LENGTH = 9;
+    public static final int CROSS_OPENED_LENGTH = HEADER_LENGTH + 28;
+    public static final int EPISODE_CLOSED_LENGTH = HEADER_LENGTH + 48;
+    public static final int QUOTE_LENGTH = HEADER_LENGTH + 43;
+    /** 定长消息的最大长度 */
+    public static final int MAX_EVENT_LENGTH = EPISODE_CLOSED_LENGTH;
+
+    private FanoutCodec() {
+    }
+
+    /**
+     * 编码字典消息（交易对/交易所id与名称、价格和挂单量精度）
+     */
+    public static ByteBuffer encodeDictionary(InstrumentRegistry registry, long timestamp) {
+        int symbolCount = registry.symbolCount();
+        int exchangeCount = registry.exchangeCount();
+        int length = HEADER_LENGTH + 1 + 2 + 1;
+        for (int i = 0; i < symbolCount; i++) {
+            length += 5 + registry.symbolName(i).length();
+        }
+        for (int i = 0; i < exchangeCount; i++) {
+            length += 2 + registry.exchangeName(i).length();
+        }
+        ByteBuffer out = ByteBuffer.allocate(length);
+        out.put(TYPE_DICTIONARY).putLong(timestamp).put(VERSION);
+        out.putShort((short) symbolCount);
+        for (int i = 0; i < symbolCount; i++) {
+            byte[] name = registry.symbolName(i).getBytes(StandardCharsets.US_ASCII);
+            out.putShort((short) i).put((byte) registry.priceScale(i)).put((byte) registry.quantityScale(i))
+                    .put((byte) name.length).put(name);
+        }
+        out.put((byte) exchangeCount);
+        for (int i = 0; i < exchangeCount; i++) {
+            byte[] name = registry.exchangeName(i).getBytes(StandardCharsets.US_ASCII);
+            out.put((byte) i).put((byte) name.length).put(name);
+        }
+        out.flip();
+        return out;
+    }
+
+    /**
+     * 把事件编码到 out（从position 0开始写入，返回时已flip）
+     *
+     * @param out 容量不小于 {@link #MAX_EVENT_LENGTH} 的缓冲区
+     */
+    public static void encode(FanoutEvent event, ByteBuffer out) {
+        out.clear();
+        switch (event.getType()) {
+            case CROSS_OPENED:
+                out.put(TYPE_CROSS_OPENED).putLong(event.getTimestamp());
+                putOpportunity(event, out);
+                break;
+            case EPISODE_CLOSED:
+                out.put(TYPE_EPISODE_CLOSED).putLong(event.getTimestamp());
+                putOpportunity(event, out);
+                out.putDouble(event.getAvgMargin()).putLong(event.getDurationMs()).putInt(event.getTickCount());
+                break;
+            case QUOTE:
+                out.put(TYPE_QUOTE).putLong(event.getTimestamp());
+                out.putShort((short) event.getSymbolId()).put((byte) event.getExchangeId())
+                        .putLong(event.getBid()).putLong(event.getAsk())
+                        .putLong(event.getBidSize()).putLong(event.getAskSize()).putLong(event.getEventTime());
+                break;
+            default:
+                break;
+        }
+        out.flip();
+    }
+
+    private static void putOpportunity(FanoutEvent event, ByteBuffer out) {
+        out.putShort((short) event.getSymbolId())
+                .put((byte) event.getBuyExchangeId()).put((byte) event.getSellExchangeId())
+                .putLong(event.getBuyPrice()).putLong(event.getSellPrice()).putDouble(event.getMargin());
+    }
+}
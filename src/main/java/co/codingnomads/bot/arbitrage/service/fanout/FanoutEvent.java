@@ -0,0 +1,123 @@
+package co.codingnomads.bot.arbitrage.service.fanout;
+
+/**
+ * 推送事件（推送缓冲区槽位中的可变对象）
+ *
+ * 价格和挂单量为定点数尾数，交易对和交易所为注册表中的id；按类型只使用其中一部分字段
+ */
+public final class FanoutEvent {
+
+    /**
+     * 事件类型
+     */
+    public enum Type {
+        /** 跨交易所价差区间开启 */
+        CROSS_OPENED,
+        /** 区间结束（聚合后的套利机会） */
+        EPISODE_CLOSED,
+        /** 通过准入检查的最优报价 */
+        QUOTE
+    }
+
+    private Type type;
+    /** 本地时间（毫秒） */
+    private long timestamp;
+    private int symbolId;
+
+    // ==================== 套利机会 ====================
+    private int buyExchangeId;
+    private int sellExchangeId;
+    private long buyPrice;
+    private long sellPrice;
+    /** 开启时的利润率 / 区间峰值利润率（%） */
+    private double margin;
+    private double avgMargin;
+    private long durationMs;
+    private int tickCount;
+
+    // ==================== 报价 ====================
+    private int exchangeId;
+    private long bid;
+    private long ask;
+    private long bidSize;
+    private long askSize;
+    private long eventTime;
+
+    /** 发布时的 System.nanoTime()，未统计延迟时为0 */
+    private long publishNanos;
+
+    void setCrossOpened(long timestamp, int symbolId, int buyExchangeId, int sellExchangeId,
+                        long buyPrice, long sellPrice, double margin) {
+        this.type = Type.CROSS_OPENED;
+        this.timestamp = timestamp;
+        this.symbolId = symbolId;
+        this.buyExchangeId = buyExchangeId;
+        this.sellExchangeId = sellExchangeId;
+        this.buyPrice = buyPrice;
+        this.sellPrice = sellPrice;
+        this.margin = margin;
+    }
+
+    void setEpisodeClosed(long timestamp, int symbolId, int buyExchangeId, int sellExchangeId,
+                          long buyPrice, long sellPrice, double peakMargin, double avgMargin,
+                          long durationMs, int tickCount) {
+        setCrossOpened(timestamp, symbolId, buyExchangeId, sellExchangeId, buyPrice, sellPrice, peakMargin);
+        this.type = Type.EPISODE_CLOSED;
+        this.avgMargin = avgMargin;
+        this.durationMs = durationMs;
+        this.tickCount = tickCount;
+    }
+
+    void setQuote(long timestamp, int symbolId, int exchangeId, long bid, long ask,
+                  long bidSize, long askSize, long eventTime) {
+        this.type = Type.QUOTE;
+        this.timestamp = timestamp;
+        this.symbolId = symbolId;
+        this.exchangeId = exchangeId;
+        this.bid = bid;
+        this.ask = ask;
+        this.bidSize = bidSize;
+        this.askSize = askSize;
+        this.eventTime = eventTime;
+    }
+
+    void setPublishNanos(long publishNanos) {
+        this.publishNanos = publishNanos;
+    }
+
+    public Type getType() { return type; }
+
+    public long getTimestamp() { return timestamp; }
+
+    public int getSymbolId() { return symbolId; }
+
+    public int getBuyExchangeId() { return buyExchangeId; }
+
+    public int getSellExchangeId() { return sellExchangeId; }
+
+    public long getBuyPrice() { return buyPrice; }
+
+    public long getSellPrice() { return sellPrice; }
+
+    public double getMargin() { return margin; }
+
+    public double getAvgMargin() { return avgMargin; }
+
+    public long getDurationMs() { return durationMs; }
+
+    public int getTickCount() { return tickCount; }
+
+    public int getExchangeId() { return exchangeId; }
+
+    public long getBid() { return bid; }
+
+    public long getAsk() { return ask; }
+
+    public long getBidSize() { return bidSize; }
+
+    public long getAskSize() { return askSize; }
+
+    public long getEventTime() { return eventTime; }
+
+    public long getPublishNanos() { return publishNanos; }
+}
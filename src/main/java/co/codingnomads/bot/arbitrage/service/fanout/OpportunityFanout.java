@@ -0,0 +1,345 @@
+package co.codingnomads.bot.arbitrage.service.fanout;
+
+import co.codingnomads.bot.arbitrage.model.ArbitrageOpportunity;
+import co.codingnomads.bot.arbitrage.service.metrics.LatencyMonitor;
+import co.codingnomads.bot.arbitrage.service.metrics.LatencyStage;
+import co.codingnomads.bot.arbitrage.service.pipeline.EventProcessor;
+import co.codingnomads.bot.arbitrage.service.pipeline.EventRing;
+import co.codingnomads.bot.arbitrage.service.pipeline.QuoteEvent;
+import co.codingnomads.bot.arbitrage.service.pipeline.WaitStrategy;
+import co.codingnomads.bot.arbitrage.service.quote.InstrumentRegistry;
+import co.codingnomads.bot.arbitrage.util.FixedPointUtil;
+import org.java_websocket.WebSocket;
+import org.java_websocket.WebSocketImpl;
+import org.java_websocket.exceptions.WebsocketNotConnectedException;
+import org.java_websocket.framing.CloseFrame;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 套利机会推送
+ *
+ * 在本地WebSocket端口上把套利机会（区间开启/结束）和可选的报价以二进制格式（见 {@link FanoutCodec}）
+ * 推送给下游消费者（如下单程序），不经过数据库和日志。
+ *
+ * 检测线程只把事件写入推送缓冲区（满时丢弃并计数，从不阻塞），编码和发送在独立的推送线程上完成；
+ * 与负责落库的 OpportunityNotifier 分开，落库变慢不会推迟推送。每个事件只编码一次，按订阅者的过滤条件
+ * （见 {@link Subscription}）交给各连接的发送队列。
+ *
+ * 订阅者的发送队列有上限：待写出的帧超过 max-queued-frames 时直接断开该连接，
+ * 消费过慢的订阅者不会占用越来越多的内存，也不会拖慢其他订阅者。
+ */
+@Component
+public class OpportunityFanout {
+
+    private static final Logger logger = LoggerFactory.getLogger(OpportunityFanout.class);
+
+    /** 缓冲区满时每丢弃多少个事件告警一次（2的幂） */
+    private static final long DROP_WARN_INTERVAL = 1024;
+
+    @Autowired
+    private InstrumentRegistry instrumentRegistry;
+
+    @Autowired
+    private LatencyMonitor latencyMonitor;
+
+    // ==================== 配置 ====================
+    @Value("${arbitrage.fanout.enabled:false}")
+    private boolean enabled;
+
+    /** 监听地址，默认只接受本机连接 */
+    @Value("${arbitrage.fanout.host:127.0.0.1}")
+    private String host;
+
+    @Value("${arbitrage.fanout.port:9600}")
+    private int port;
+
+    /** 推送缓冲区容量（2的幂） */
+    @Value("${arbitrage.fanout.capacity:65536}")
+    private int capacity;
+
+    /** 每个订阅者允许积压的帧数，超过后断开 */
+    @Value("${arbitrage.fanout.max-queued-frames:1024}")
+    private int maxQueuedFrames;
+
+    @Value("${arbitrage.fanout.wait-strategy:BLOCKING}")
+    private WaitStrategy.Type waitStrategy;
+
+    private EventRing<FanoutEvent> ring;
+    private EventProcessor<FanoutEvent> processor;
+    private FanoutServer server;
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    /** 需要报价的订阅者数，为0时检测线程不发布报价 */
+    private final AtomicInteger quoteSubscribers = new AtomicInteger();
+
+    /** 编码缓冲区，只在推送线程上使用 */
+    private final ByteBuffer frame = ByteBuffer.allocate(FanoutCodec.MAX_EVENT_LENGTH);
+
+    // ==================== 统计 ====================
+    private final AtomicLong sentFrames = new AtomicLong();
+    private final AtomicLong slowDisconnects = new AtomicLong();
+    private final AtomicLong connectionCount = new AtomicLong();
+
+    /**
+     * 创建推送缓冲区，启动推送线程和WebSocket服务
+     */
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        ring = new EventRing<>(capacity, FanoutEvent::new, waitStrategy.create());
+        processor = new EventProcessor<>("Opportunity-Fanout", ring, this::onEvent);
+        processor.start();
+        server = new FanoutServer(new InetSocketAddress(host, port));
+        server.setReuseAddr(true);
+        server.setTcpNoDelay(true);
+        server.start();
+        logger.info("[OpportunityFanout] 推送服务已启动: ws://{}:{}/，每个订阅者最多积压{}帧", host, port, maxQueuedFrames);
+    }
+
+    /**
+     * 推送完剩余事件后关闭服务
+     */
+    @PreDestroy
+    public void destroy() {
+        if (!enabled) {
+            return;
+        }
+        processor.stop();
+        try {
+            server.stop(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (ring.getRejectedCount() > 0) {
+            logger.warn("[OpportunityFanout] 推送缓冲区满共丢弃{}个事件", ring.getRejectedCount());
+        }
+    }
+
+    // ==================== 发布（检测线程 / 区间清理线程调用） ====================
+
+    /**
+     * 跨交易所价差区间开启
+     */
+    public void publishCrossOpened(int symbolId, int buyExchangeId, int sellExchangeId,
+                                   long buyPrice, long sellPrice, double margin) {
+        if (!enabled || subscriptions.isEmpty()) {
+            return;
+        }
+        long sequence = claim();
+        if (sequence < 0) {
+            return;
+        }
+        FanoutEvent event = ring.get(sequence);
+        event.setCrossOpened(System.currentTimeMillis(), symbolId, buyExchangeId, sellExchangeId,
+                buyPrice, sellPrice, margin);
+        publish(event, sequence);
+    }
+
+    /**
+     * 区间结束
+     */
+    public void publishClosed(ArbitrageOpportunity opportunity) {
+        if (!enabled || subscriptions.isEmpty()) {
+            return;
+        }
+        int symbolId = instrumentRegistry.symbolId(opportunity.getSymbol());
+        if (symbolId < 0) {
+            return;
+        }
+        int scale = instrumentRegistry.priceScale(symbolId);
+        long sequence = claim();
+        if (sequence < 0) {
+            return;
+        }
+        FanoutEvent event = ring.get(sequence);
+        event.setEpisodeClosed(System.currentTimeMillis(), symbolId,
+                instrumentRegistry.exchangeId(opportunity.getBuyExchange()),
+                instrumentRegistry.exchangeId(opportunity.getSellExchange()),
+                FixedPointUtil.fromBigDecimal(opportunity.getBuyPrice(), scale),
+                FixedPointUtil.fromBigDecimal(opportunity.getSellPrice(), scale),
+                opportunity.getPeakMargin().doubleValue(), opportunity.getAvgMargin().doubleValue(),
+                opportunity.getDurationMs(), opportunity.getTickCount());
+        publish(event, sequence);
+    }
+
+    /**
+     * 通过准入检查的报价（只在有订阅者需要报价时调用，见 {@link #hasQuoteSubscribers()}）
+     */
+    public void publishQuote(QuoteEvent quote) {
+        long sequence = claim();
+        if (sequence < 0) {
+            return;
+        }
+        FanoutEvent event = ring.get(sequence);
+        event.setQuote(quote.getReceiveTime(), quote.getSymbolId(), quote.getExchangeId(),
+                quote.getBid(), quote.getAsk(), quote.getBidSize(), quote.getAskSize(), quote.getEventTime());
+        publish(event, sequence);
+    }
+
+    /**
+     * @return 是否有订阅者需要报价（未启用时恒为false）
+     */
+    public boolean hasQuoteSubscribers() {
+        return quoteSubscribers.get() > 0;
+    }
+
+    private long claim() {
+        long sequence = ring.tryClaim();
+        if (sequence < 0) {
+            // 限制告警频率，避免在检测线程上刷日志
+            long dropped = ring.getRejectedCount();
+            if ((dropped & (DROP_WARN_INTERVAL - 1)) == 1) {
+                logger.warn("[OpportunityFanout] 推送缓冲区已满，丢弃事件（累计丢弃{}个）", dropped);
+            }
+        }
+        return sequence;
+    }
+
+    private void publish(FanoutEvent event, long sequence) {
+        event.setPublishNanos(latencyMonitor.isEnabled() ? System.nanoTime() : 0);
+        ring.publish(sequence);
+    }
+
+    // ==================== 推送（推送线程） ====================
+
+    private void onEvent(FanoutEvent event, long sequence, boolean endOfBatch) {
+        FanoutCodec.encode(event, frame);
+        int sent = 0;
+        for (Subscription subscription : subscriptions) {
+            if (subscription.dropped || !subscription.accepts(event)) {
+                continue;
+            }
+            WebSocket connection = subscription.connection;
+            if (((WebSocketImpl) connection).outQueue.size() >= maxQueuedFrames) {
+                disconnectSlow(subscription);
+                continue;
+            }
+            try {
+                // 发送时同步组帧并复制，编码缓冲区随后可以复用
+                connection.send(frame.duplicate());
+                subscription.sentCount++;
+                sent++;
+            } catch (WebsocketNotConnectedException e) {
+                // 连接已关闭，onClose 中移除
+            }
+        }
+        sentFrames.addAndGet(sent);
+        if (sent > 0 && event.getPublishNanos() != 0) {
+            int exchangeId = event.getType() == FanoutEvent.Type.QUOTE ? event.getExchangeId() : event.getBuyExchangeId();
+            latencyMonitor.record(LatencyStage.FANOUT, exchangeId, System.nanoTime() - event.getPublishNanos());
+        }
+    }
+
+    private void disconnectSlow(Subscription subscription) {
+        subscription.dropped = true;
+        slowDisconnects.incrementAndGet();
+        logger.warn("[OpportunityFanout] 订阅者 {} 积压超过{}帧，断开连接（已推送{}帧）",
+                subscription, maxQueuedFrames, subscription.sentCount);
+        // 不发送关闭帧：关闭帧会排在积压的帧后面，直接断开释放发送队列
+        subscription.connection.closeConnection(CloseFrame.TRY_AGAIN_LATER, "消费过慢");
+    }
+
+    // ==================== 指标 ====================
+
+    /**
+     * 打印推送统计
+     */
+    public void logStats() {
+        if (!enabled) {
+            return;
+        }
+        logger.info("[OpportunityFanout] 订阅者{}个(需要报价{}个)，累计连接{}次，推送{}帧，缓冲区积压{}，丢弃{}，因消费过慢断开{}次",
+                subscriptions.size(), quoteSubscribers.get(), connectionCount.get(), sentFrames.get(),
+                ring.getDepth(), ring.getRejectedCount(), slowDisconnects.get());
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    public long getSentFrames() {
+        return sentFrames.get();
+    }
+
+    public long getSlowDisconnectCount() {
+        return slowDisconnects.get();
+    }
+
+    public long getDroppedCount() {
+        return ring == null ? 0 : ring.getRejectedCount();
+    }
+
+    /**
+     * 推送服务：连接时按地址中的查询参数建立订阅，先发送字典，之后只由推送线程发送
+     */
+    private final class FanoutServer extends WebSocketServer {
+
+        FanoutServer(InetSocketAddress address) {
+            super(address);
+        }
+
+        @Override
+        public void onOpen(WebSocket conn, ClientHandshake handshake) {
+            Subscription subscription;
+            try {
+                subscription = Subscription.parse(conn, handshake.getResourceDescriptor(), instrumentRegistry);
+            } catch (IllegalArgumentException e) {
+                logger.warn("[OpportunityFanout] 拒绝订阅 {}: {}", conn.getRemoteSocketAddress(), e.getMessage());
+                conn.close(CloseFrame.POLICY_VALIDATION, e.getMessage());
+                return;
+            }
+            conn.send(FanoutCodec.encodeDictionary(instrumentRegistry, System.currentTimeMillis()));
+            conn.setAttachment(subscription);
+            subscriptions.add(subscription);
+            if (subscription.wantsQuotes()) {
+                quoteSubscribers.incrementAndGet();
+            }
+            connectionCount.incrementAndGet();
+            logger.info("[OpportunityFanout] 新订阅者 {}", subscription);
+        }
+
+        @Override
+        public void onClose(WebSocket conn, int code, String reason, boolean remote) {
+            Subscription subscription = conn.getAttachment();
+            if (subscription != null && subscriptions.remove(subscription)) {
+                if (subscription.wantsQuotes()) {
+                    quoteSubscribers.decrementAndGet();
+                }
+                logger.info("[OpportunityFanout] 订阅者 {} 已断开: {} {}", subscription, code, reason);
+            }
+        }
+
+        @Override
+        public void onMessage(WebSocket conn, String message) {
+            // 只推送，不处理订阅者发来的消息
+        }
+
+        @Override
+        public void onError(WebSocket conn, Exception ex) {
+            logger.error("[OpportunityFanout] {}出错: {}", conn == null ? "推送服务" : conn.getRemoteSocketAddress(),
+                    ex.getMessage(), ex);
+        }
+
+        @Override
+        public void onStart() {
+            setConnectionLostTimeout(30);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package co.codingnomads.bot.arbitrage.service.fanout;
+
+import co.codingnomads.bot.arbitrage.service.quote.InstrumentRegistry;
+import org.java_websocket.WebSocket;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.Locale;
+
+/**
+ * 一个推送订阅者及其过滤条件
+ *
+ * 过滤条件由连接地址的查询参数给出，如 ws://127.0.0.1:9600/?symbols=ethusdt,btcusdt&amp;minMargin=0.2&amp;quotes=true
+ * <ul>
+ *   <li>symbols：只接收这些交易对，省略时接收全部</li>
+ *   <li>minMargin：只接收利润率（区间结束时为峰值利润率）不低于该值的套利机会（%），默认0</li>
+ *   <li>quotes：是否同时接收报价，默认false</li>
+ * </ul>
+ */
+final class Subscription {
+
+    final WebSocket connection;
+    /** 按交易对id的订阅标记，null表示全部 */
+    private final boolean[] symbols;
+    private final double minMargin;
+    private final boolean quotes;
+
+    /** 已因消费过慢断开，推送线程不再发送 */
+    volatile boolean dropped;
+
+    // ==================== 统计（推送线程） ====================
+    long sentCount;
+
+    private Subscription(WebSocket connection, boolean[] symbols, double minMargin, boolean quotes) {
+        this.connection = connection;
+        this.symbols = symbols;
+        this.minMargin = minMargin;
+        this.quotes = quotes;
+    }
+
+    /**
+     * 解析连接地址中的过滤条件
+     *
+     * @throws IllegalArgumentException 参数无法识别或交易对未注册
+     */
+    static Subscription parse(WebSocket connection, String resourceDescriptor, InstrumentRegistry registry) {
+        boolean[] symbols = null;
+        double minMargin = 0;
+        boolean quotes = false;
+        int query = resourceDescriptor == null ? -1 : resourceDescriptor.indexOf('?');
+        if (query >= 0) {
+            for (String parameter : resourceDescriptor.substring(query + 1).split("&")) {
+                if (parameter.isEmpty()) {
+                    continue;
+                }
+                int eq = parameter.indexOf('=');
+                String name = eq < 0 ? parameter : parameter.substring(0, eq);
+                String value = eq < 0 ? "" : decode(parameter.substring(eq + 1));
+                switch (name) {
+                    case "symbols":
+                        symbols = parseSymbols(value, registry);
+                        break;
+                    case "minMargin":
+                        try {
+                            minMargin = Double.parseDouble(value);
+                        } catch (NumberFormatException e) {
+                            throw new IllegalArgumentException("minMargin 不是数字: " + value);
+                        }
+                        break;
+                    case "quotes":
+                        quotes = value.isEmpty() || Boolean.parseBoolean(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("未知参数: " + name);
+                }
+            }
+        }
+        return new Subscription(connection, symbols, minMargin, quotes);
+    }
+
+    private static boolean[] parseSymbols(String value, InstrumentRegistry registry) {
+        boolean[] symbols = new boolean[registry.symbolCount()];
+        for (String raw : value.split(",")) {
+            String symbol = raw.trim().toLowerCase(Locale.ROOT);
+            if (symbol.isEmpty()) {
+                continue;
+            }
+            int symbolId = registry.symbolId(symbol);
+            if (symbolId < 0) {
+                throw new IllegalArgumentException("未注册的交易对: " + symbol);
+            }
+            symbols[symbolId] = true;
+        }
+        return symbols;
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return 该事件是否需要推送给本订阅者
+     */
+    boolean accepts(FanoutEvent event) {
+        if (symbols != null && !symbols[event.getSymbolId()]) {
+            return false;
+        }
+        if (event.getType() == FanoutEvent.Type.QUOTE) {
+            return quotes;
+        }
+        return event.getMargin() >= minMargin;
+    }
+
+    boolean wantsQuotes() {
+        return quotes;
+    }
+
+    @Override
+    public String toString() {
+        return connection.getRemoteSocketAddress() + "(symbols=" + (symbols == null ? "全部" : countSymbols() + "个")
+                + ", minMargin=" + minMargin + "%, quotes=" + quotes + ")";
+    }
+
+    private int countSymbols() {
+        int count = 0;
+        for (boolean subscribed : symbols) {
+            if (subscribed) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,234 @@
+package co.codingnomads.bot.arbitrage.service.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 行情日志的一个段文件（定长记录，整体内存映射）
+ *
+ * 文件布局：
+ * - [0, 64)：段头（魔数、版本、记录长度、记录容量、首条序号、创建时间、索引间隔）
+ * - [64, DATA_OFFSET)：时间索引，每 indexInterval 条记录一项（接收时间, 序号）
+ * - [DATA_OFFSET, ...)：记录区，每条 {@link #RECORD_SIZE} 字节
+ *
+ * 记录布局（ByteBuffer默认的大端字节序）：
+ * - 0  long 提交字（序号+1，最后写入；为0表示尚未写完）
+ * - 8  short 交易所id；10 short 交易对id
+ * - 12 byte 挂单量精度+1（0表示旧记录，挂单量与价格同精度）；13 byte 保留；14 short 价格精度
+ *   （旧记录在12处写入 int 价格精度，按此布局读取结果相同）
+ * - 16 long 买一价；24 long 卖一价（价格精度）；32 long 买一量；40 long 卖一量（挂单量精度）
+ * - 48 long 交易所事件时间；56 long 本地接收时间（毫秒）
+ *
+ * 文件名为 ticks-&lt;首条序号(20位)&gt;.journal，按文件名排序即按序号排序。
+ */
+final class JournalSegment {
+
+    static final int MAGIC = 0x544B4A31;
+    static final int VERSION = 1;
+
+    static final int RECORD_SIZE = 64;
+    static final int HEADER_SIZE = 64;
+    static final int INDEX_ENTRY_SIZE = 16;
+    static final int DATA_OFFSET = 8192;
+    static final int MAX_INDEX_ENTRIES = (DATA_OFFSET - HEADER_SIZE) / INDEX_ENTRY_SIZE;
+
+    // 段头字段偏移
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    private static final int H_RECORD_SIZE = 8;
+    private static final int H_CAPACITY = 12;
+    private static final int H_FIRST_SEQUENCE = 16;
+    private static final int H_CREATE_TIME = 24;
+    private static final int H_INDEX_INTERVAL = 32;
+
+    // 记录字段偏移
+    static final int R_COMMIT = 0;
+    static final int R_EXCHANGE = 8;
+    static final int R_SYMBOL = 10;
+    static final int R_QUANTITY_SCALE = 12;
+    static final int R_RESERVED = 13;
+    static final int R_SCALE = 14;
+    static final int R_BID = 16;
+    static final int R_ASK = 24;
+    static final int R_BID_SIZE = 32;
+    static final int R_ASK_SIZE = 40;
+    static final int R_EVENT_TIME = 48;
+    static final int R_RECEIVE_TIME = 56;
+
+    private static final String PREFIX = "ticks-";
+    private static final String SUFFIX = ".journal";
+
+    final File file;
+    final MappedByteBuffer buffer;
+    final long firstSequence;
+    final int capacity;
+    final int indexInterval;
+
+    private JournalSegment(File file, MappedByteBuffer buffer) {
+        this.file = file;
+        this.buffer = buffer;
+        if (buffer.getInt(H_MAGIC) != MAGIC || buffer.getInt(H_VERSION) != VERSION
+                || buffer.getInt(H_RECORD_SIZE) != RECORD_SIZE) {
+            throw new IllegalStateException("不是有效的行情日志段文件: " + file);
+        }
+        this.capacity = buffer.getInt(H_CAPACITY);
+        this.firstSequence = buffer.getLong(H_FIRST_SEQUENCE);
+        this.indexInterval = buffer.getInt(H_INDEX_INTERVAL);
+    }
+
+    /**
+     * 创建并预分配一个新的段文件
+     */
+    static JournalSegment create(File directory, long firstSequence, long segmentBytes) throws IOException {
+        int capacity = (int) ((segmentBytes - DATA_OFFSET) / RECORD_SIZE);
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("段文件太小: " + segmentBytes);
+        }
+        int indexInterval = 1;
+        while ((long) indexInterval * MAX_INDEX_ENTRIES < capacity) {
+            indexInterval <<= 1;
+        }
+        File file = new File(directory, fileName(firstSequence));
+        File temp = new File(directory, file.getName() + ".tmp");
+        try (RandomAccessFile raf = new RandomAccessFile(temp, "rw")) {
+            raf.setLength(DATA_OFFSET + (long) capacity * RECORD_SIZE);
+            MappedByteBuffer header = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            header.putInt(H_MAGIC, MAGIC);
+            header.putInt(H_VERSION, VERSION);
+            header.putInt(H_RECORD_SIZE, RECORD_SIZE);
+            header.putInt(H_CAPACITY, capacity);
+            header.putLong(H_FIRST_SEQUENCE, firstSequence);
+            header.putLong(H_CREATE_TIME, System.currentTimeMillis());
+            header.putInt(H_INDEX_INTERVAL, indexInterval);
+            header.force();
+        }
+        // 段头写完后再改名，读者不会看到没有段头的文件
+        if (!temp.renameTo(file)) {
+            throw new IOException("无法创建段文件: " + file);
+        }
+        return open(file, true);
+    }
+
+    /**
+     * 映射已有的段文件
+     *
+     * @param writable 是否以读写方式映射（仅写者）
+     */
+    static JournalSegment open(File file, boolean writable) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, writable ? "rw" : "r")) {
+            MappedByteBuffer buffer = raf.getChannel().map(
+                    writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, 0, raf.length());
+            return new JournalSegment(file, buffer);
+        }
+    }
+
+    /**
+     * @return 目录下按序号排序的段文件
+     */
+    static List<File> list(File directory) {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(PREFIX) && name.endsWith(SUFFIX));
+        if (files == null) {
+            return new ArrayList<>();
+        }
+        Arrays.sort(files);
+        return new ArrayList<>(Arrays.asList(files));
+    }
+
+    static String fileName(long firstSequence) {
+        return String.format("%s%020d%s", PREFIX, firstSequence, SUFFIX);
+    }
+
+    static File file(File directory, long firstSequence) {
+        return new File(directory, fileName(firstSequence));
+    }
+
+    int position(int index) {
+        return DATA_OFFSET + index * RECORD_SIZE;
+    }
+
+    /**
+     * 读取提交字（acquire）：返回true后再读记录内容，能看到写者在提交之前写入的全部字段
+     *
+     * @return 第 index 条记录是否已提交
+     */
+    boolean isCommitted(int index) {
+        boolean committed = buffer.getLong(position(index) + R_COMMIT) == firstSequence + index + 1;
+        MemoryFences.loadFence();
+        return committed;
+    }
+
+    /**
+     * 二分查找第一个未提交的记录（记录按顺序提交）
+     *
+     * @return 已提交的记录数
+     */
+    int committedCount() {
+        int low = 0;
+        int high = capacity;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (isCommitted(mid)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return 第 index 条记录的挂单量精度
+     */
+    int quantityScale(int index, int priceScale) {
+        int stored = buffer.get(position(index) + R_QUANTITY_SCALE);
+        return stored == 0 ? priceScale : stored - 1;
+    }
+
+    long receiveTime(int index) {
+        return buffer.getLong(position(index) + R_RECEIVE_TIME);
+    }
+
+    void writeIndex(int index, long receiveTime) {
+        int entry = HEADER_SIZE + (index / indexInterval) * INDEX_ENTRY_SIZE;
+        buffer.putLong(entry, receiveTime);
+        buffer.putLong(entry + 8, firstSequence + index);
+    }
+
+    long indexTime(int entry) {
+        return buffer.getLong(HEADER_SIZE + entry * INDEX_ENTRY_SIZE);
+    }
+
+    /**
+     * 按时间定位：返回第一条接收时间不早于 timestamp 的记录下标（只考虑已提交的记录）
+     *
+     * 先在索引中二分找到所在区间，再在区间内顺序扫描
+     */
+    int seek(long timestamp) {
+        int committed = committedCount();
+        if (committed == 0) {
+            return 0;
+        }
+        int entries = (committed - 1) / indexInterval + 1;
+        int low = 0;
+        int high = entries - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (indexTime(mid) <= timestamp) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        int index = low * indexInterval;
+        while (index < committed && receiveTime(index) < timestamp) {
+            index++;
+        }
+        return index;
+    }
+}
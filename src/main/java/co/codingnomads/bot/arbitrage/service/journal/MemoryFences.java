@@ -0,0 +1,34 @@
+package co.codingnomads.bot.arbitrage.service.journal;
+
+/**
+ * 内存屏障（Java 8 没有 VarHandle，借助 volatile 字段的读写）
+ *
+ * 映射内存上的 put/get 都是普通读写，JMM 不保证它们之间的顺序：
+ * - 写者：写完记录内容后 {@link #storeFence()}，再写提交字，提交字具有 release 语义
+ * - 读者：读到提交字后 {@link #loadFence()}，再读记录内容，提交字具有 acquire 语义
+ *
+ * HotSpot 在 volatile 写之前插入 StoreStore|LoadStore 屏障、在 volatile 读之后插入 LoadLoad|LoadStore 屏障
+ * （JSR-133 Cookbook），写/读一个 volatile 字段即可得到上述顺序，不需要使用 sun.misc.Unsafe。
+ */
+final class MemoryFences {
+
+    /** 只用于产生屏障，值没有意义 */
+    private static volatile int fence;
+
+    private MemoryFences() {
+    }
+
+    /**
+     * 之前的读写不会被重排到之后的写之后
+     */
+    static void storeFence() {
+        fence = 0;
+    }
+
+    /**
+     * 之前的读不会被重排到之后的读写之后
+     */
+    static void loadFence() {
+        int ignored = fence;
+    }
+}
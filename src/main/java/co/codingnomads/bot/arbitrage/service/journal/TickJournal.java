@@ -0,0 +1,144 @@
+package co.codingnomads.bot.arbitrage.service.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.util.List;
+
+/**
+ * 内存映射的只追加行情日志（写者）
+ *
+ * 定长记录顺序写入预分配的段文件，段写满后滚动到下一个段文件。
+ * 每条记录先写内容、经写屏障后最后写提交字，读者（可在其他线程或进程中）据此判断记录是否完整，
+ * 因此可以一边写一边实时读取（见 {@link TickJournalReader}）。
+ *
+ * 写入只是对映射内存的几次 put，不经过系统调用；落盘由操作系统回写，
+ * 段滚动和关闭时强制刷盘。重新打开时从最后一个段的第一个未提交记录处继续写入。
+ *
+ * 本类只允许一个线程写入。
+ */
+public class TickJournal implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TickJournal.class);
+
+    private final File directory;
+    private final long segmentBytes;
+
+    private JournalSegment segment;
+    private MappedByteBuffer buffer;
+    private int index;
+    private long nextSequence;
+
+    /**
+     * @param directory    日志目录，不存在时创建
+     * @param segmentBytes 每个段文件的大小（字节）
+     */
+    public TickJournal(File directory, long segmentBytes) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("无法创建行情日志目录: " + directory);
+        }
+        if (segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("段文件不能超过2GB: " + segmentBytes);
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        recover();
+    }
+
+    /**
+     * 找到最后一个段文件并定位到第一个未提交的记录
+     */
+    private void recover() throws IOException {
+        List<File> files = JournalSegment.list(directory);
+        if (files.isEmpty()) {
+            map(JournalSegment.create(directory, 0, segmentBytes), 0);
+            return;
+        }
+        JournalSegment last = JournalSegment.open(files.get(files.size() - 1), true);
+        int committed = last.committedCount();
+        if (committed == last.capacity) {
+            map(JournalSegment.create(directory, last.firstSequence + last.capacity, segmentBytes), 0);
+        } else {
+            map(last, committed);
+        }
+        logger.info("[TickJournal] 打开行情日志 {}，从序号{}继续写入", directory, nextSequence);
+    }
+
+    private void map(JournalSegment newSegment, int startIndex) {
+        segment = newSegment;
+        buffer = newSegment.buffer;
+        index = startIndex;
+        nextSequence = newSegment.firstSequence + startIndex;
+    }
+
+    /**
+     * 追加一条行情
+     *
+     * @return 该记录的序号
+     */
+    public long append(int exchangeId, int symbolId, int scale, int quantityScale, long bid, long ask,
+                       long bidSize, long askSize, long eventTime, long receiveTime) throws IOException {
+        if (index == segment.capacity) {
+            roll();
+        }
+        long sequence = nextSequence;
+        int position = segment.position(index);
+        MappedByteBuffer buf = buffer;
+        buf.putShort(position + JournalSegment.R_EXCHANGE, (short) exchangeId);
+        buf.putShort(position + JournalSegment.R_SYMBOL, (short) symbolId);
+        buf.put(position + JournalSegment.R_QUANTITY_SCALE, (byte) (quantityScale + 1));
+        buf.put(position + JournalSegment.R_RESERVED, (byte) 0);
+        buf.putShort(position + JournalSegment.R_SCALE, (short) scale);
+        buf.putLong(position + JournalSegment.R_BID, bid);
+        buf.putLong(position + JournalSegment.R_ASK, ask);
+        buf.putLong(position + JournalSegment.R_BID_SIZE, bidSize);
+        buf.putLong(position + JournalSegment.R_ASK_SIZE, askSize);
+        buf.putLong(position + JournalSegment.R_EVENT_TIME, eventTime);
+        buf.putLong(position + JournalSegment.R_RECEIVE_TIME, receiveTime);
+        if (index % segment.indexInterval == 0) {
+            segment.writeIndex(index, receiveTime);
+        }
+        // 写屏障：记录内容先于提交字对读者可见
+        MemoryFences.storeFence();
+        buf.putLong(position + JournalSegment.R_COMMIT, sequence + 1);
+        index++;
+        nextSequence = sequence + 1;
+        return sequence;
+    }
+
+    /**
+     * 当前段已满：刷盘并切换到下一个段文件
+     */
+    private void roll() throws IOException {
+        buffer.force();
+        JournalSegment next = JournalSegment.create(directory, segment.firstSequence + segment.capacity, segmentBytes);
+        logger.info("[TickJournal] 滚动到新的段文件 {}", next.file.getName());
+        map(next, 0);
+    }
+
+    /**
+     * @return 下一条记录的序号（即已写入的记录总数）
+     */
+    public long getNextSequence() {
+        return nextSequence;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 把当前段的修改刷到磁盘
+     */
+    public void flush() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+}
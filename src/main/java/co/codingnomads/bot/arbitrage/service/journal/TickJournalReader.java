@@ -0,0 +1,160 @@
+package co.codingnomads.bot.arbitrage.service.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.util.List;
+
+/**
+ * 行情日志读者
+ *
+ * 以只读方式映射段文件，从指定序号或时间开始顺序读取。读到尚未提交的记录时
+ * {@link #poll} 返回false，稍后再调用即可继续读取写者新追加的记录（实时跟读）；
+ * 当前段读完后自动切换到下一个段文件。
+ *
+ * 每个读者只能在一个线程上使用；多个读者之间互不影响。
+ */
+public class TickJournalReader implements AutoCloseable {
+
+    private final File directory;
+
+    private JournalSegment segment;
+    private int index;
+
+    /**
+     * 从日志开头开始读取
+     *
+     * @param directory 日志目录
+     */
+    public TickJournalReader(File directory) throws IOException {
+        this.directory = directory;
+        List<File> files = JournalSegment.list(directory);
+        if (!files.isEmpty()) {
+            segment = JournalSegment.open(files.get(0), false);
+        }
+    }
+
+    /**
+     * 定位到第一条接收时间不早于 timestamp 的记录
+     *
+     * 先按各段第一条记录的时间找到所在段，再用段内时间索引定位
+     *
+     * @param timestamp 本地接收时间（毫秒）
+     */
+    public void seekToTime(long timestamp) throws IOException {
+        List<File> files = JournalSegment.list(directory);
+        JournalSegment target = null;
+        for (File file : files) {
+            JournalSegment candidate = JournalSegment.open(file, false);
+            if (target != null && (!candidate.isCommitted(0) || candidate.receiveTime(0) > timestamp)) {
+                break;
+            }
+            target = candidate;
+        }
+        if (target != null) {
+            segment = target;
+            index = target.seek(timestamp);
+        }
+    }
+
+    /**
+     * 定位到指定序号
+     *
+     * @param sequence 全局序号
+     */
+    public void seekToSequence(long sequence) throws IOException {
+        List<File> files = JournalSegment.list(directory);
+        for (int i = files.size() - 1; i >= 0; i--) {
+            JournalSegment candidate = JournalSegment.open(files.get(i), false);
+            if (candidate.firstSequence <= sequence) {
+                segment = candidate;
+                index = (int) Math.min(sequence - candidate.firstSequence, candidate.capacity);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 日志当前的末尾序号
+     *
+     * @param directory 日志目录
+     * @return 写者下一条记录的序号；之后追加的记录序号都不小于该值
+     */
+    public static long endSequence(File directory) throws IOException {
+        List<File> files = JournalSegment.list(directory);
+        if (files.isEmpty()) {
+            return 0;
+        }
+        JournalSegment last = JournalSegment.open(files.get(files.size() - 1), false);
+        return last.firstSequence + last.committedCount();
+    }
+
+    /**
+     * 读取下一条记录
+     *
+     * @param out 接收记录的对象
+     * @return 有新记录时返回true；已读到写者当前位置时返回false
+     */
+    public boolean poll(TickRecord out) throws IOException {
+        if (segment == null && !openFirst()) {
+            return false;
+        }
+        if (index == segment.capacity && !advance()) {
+            return false;
+        }
+        // isCommitted 读提交字后带读屏障，之后的记录内容读取不会早于提交字
+        if (!segment.isCommitted(index)) {
+            return false;
+        }
+        MappedByteBuffer buf = segment.buffer;
+        int position = segment.position(index);
+        int scale = buf.getShort(position + JournalSegment.R_SCALE);
+        out.set(segment.firstSequence + index,
+                buf.getShort(position + JournalSegment.R_EXCHANGE),
+                buf.getShort(position + JournalSegment.R_SYMBOL),
+                scale, segment.quantityScale(index, scale),
+                buf.getLong(position + JournalSegment.R_BID),
+                buf.getLong(position + JournalSegment.R_ASK),
+                buf.getLong(position + JournalSegment.R_BID_SIZE),
+                buf.getLong(position + JournalSegment.R_ASK_SIZE),
+                buf.getLong(position + JournalSegment.R_EVENT_TIME),
+                buf.getLong(position + JournalSegment.R_RECEIVE_TIME));
+        index++;
+        return true;
+    }
+
+    /**
+     * @return 下一条要读取的记录的序号
+     */
+    public long getSequence() {
+        return segment == null ? 0 : segment.firstSequence + index;
+    }
+
+    private boolean openFirst() throws IOException {
+        List<File> files = JournalSegment.list(directory);
+        if (files.isEmpty()) {
+            return false;
+        }
+        segment = JournalSegment.open(files.get(0), false);
+        index = 0;
+        return true;
+    }
+
+    /**
+     * 当前段已读完，切换到下一个段文件；写者还没有创建下一个段时返回false
+     */
+    private boolean advance() throws IOException {
+        File next = JournalSegment.file(directory, segment.firstSequence + segment.capacity);
+        if (!next.exists()) {
+            return false;
+        }
+        segment = JournalSegment.open(next, false);
+        index = 0;
+        return true;
+    }
+
+    @Override
+    public void close() {
+        segment = null;
+    }
+}
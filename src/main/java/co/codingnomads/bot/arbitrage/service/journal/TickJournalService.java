@@ -0,0 +1,95 @@
+package co.codingnomads.bot.arbitrage.service.journal;
+
+import co.codingnomads.bot.arbitrage.model.Quote;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 行情日志服务
+ *
+ * 管理本进程唯一的 {@link TickJournal} 写者。是否启用由 {@code arbitrage.marketdata.store} 决定，
+ * 由 MarketDataService 在启动时调用 {@link #open()}；只在持久化线程上追加记录。
+ */
+@Component
+public class TickJournalService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TickJournalService.class);
+
+    /** 日志目录 */
+    @Value("${arbitrage.journal.dir:data/journal}")
+    private String directory;
+
+    /** 每个段文件的大小（MB） */
+    @Value("${arbitrage.journal.segment-size-mb:256}")
+    private int segmentSizeMb;
+
+    private volatile TickJournal journal;
+
+    private final AtomicLong failed = new AtomicLong();
+
+    /**
+     * 打开行情日志（在已有日志之后继续写入）
+     */
+    public synchronized void open() throws IOException {
+        if (journal == null) {
+            journal = new TickJournal(new File(directory), (long) segmentSizeMb * 1024 * 1024);
+        }
+    }
+
+    /**
+     * 刷盘并关闭
+     */
+    @PreDestroy
+    public synchronized void close() {
+        if (journal != null) {
+            journal.close();
+            logger.info("[TickJournalService] 行情日志已关闭，共{}条记录，写入失败{}条",
+                    journal.getNextSequence(), failed.get());
+            journal = null;
+        }
+    }
+
+    /**
+     * 追加一条行情（只在持久化线程上调用）
+     *
+     * @param quote     报价快照
+     * @param eventTime 交易所事件时间（毫秒），未知时为0
+     */
+    public void append(Quote quote, long eventTime) {
+        TickJournal current = journal;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.append(quote.getExchangeId(), quote.getSymbolId(), quote.getScale(), quote.getQuantityScale(),
+                    quote.getBid(), quote.getAsk(), quote.getBidSize(), quote.getAskSize(),
+                    eventTime, quote.getTimestamp());
+        } catch (IOException e) {
+            if (failed.incrementAndGet() == 1) {
+                logger.error("[TickJournalService] 写入行情日志失败: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 创建一个从日志开头读取的读者（可实时跟读）
+     */
+    public TickJournalReader newReader() throws IOException {
+        return new TickJournalReader(new File(directory));
+    }
+
+    public boolean isOpen() {
+        return journal != null;
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+}
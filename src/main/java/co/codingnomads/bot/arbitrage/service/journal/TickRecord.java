@@ -0,0 +1,63 @@
+package co.codingnomads.bot.arbitrage.service.journal;
+
+/**
+ * 行情日志中的一条记录（读者预分配并重复使用）
+ *
+ * 价格和挂单量为定点数尾数（精度分别为 scale 和 quantityScale），交易对和交易所为注册表中的id
+ */
+public final class TickRecord {
+    private long sequence;
+    private int exchangeId;
+    private int symbolId;
+    private int scale;
+    private int quantityScale;
+    private long bid;
+    private long ask;
+    private long bidSize;
+    private long askSize;
+    private long eventTime;
+    private long receiveTime;
+
+    /**
+     * 填充记录
+     */
+    public void set(long sequence, int exchangeId, int symbolId, int scale, int quantityScale, long bid, long ask,
+                    long bidSize, long askSize, long eventTime, long receiveTime) {
+        this.sequence = sequence;
+        this.exchangeId = exchangeId;
+        this.symbolId = symbolId;
+        this.scale = scale;
+        this.quantityScale = quantityScale;
+        this.bid = bid;
+        this.ask = ask;
+        this.bidSize = bidSize;
+        this.askSize = askSize;
+        this.eventTime = eventTime;
+        this.receiveTime = receiveTime;
+    }
+
+    /** @return 日志内的全局序号（从0开始） */
+    public long getSequence() { return sequence; }
+
+    public int getExchangeId() { return exchangeId; }
+
+    public int getSymbolId() { return symbolId; }
+
+    public int getScale() { return scale; }
+
+    public int getQuantityScale() { return quantityScale; }
+
+    public long getBid() { return bid; }
+
+    public long getAsk() { return ask; }
+
+    public long getBidSize() { return bidSize; }
+
+    public long getAskSize() { return askSize; }
+
+    /** @return 交易所事件时间（毫秒），未知时为0 */
+    public long getEventTime() { return eventTime; }
+
+    /** @return 本地接收时间（毫秒） */
+    public long getReceiveTime() { return receiveTime; }
+}
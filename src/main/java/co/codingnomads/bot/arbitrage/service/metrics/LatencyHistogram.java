@@ -0,0 +1,121 @@
+package co.codingnomads.bot.arbitrage.service.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 对数-线性分桶的延迟直方图（HDR风格）
+ *
+ * 0~127ns 每纳秒一个桶；之后每个2的幂区间等分为64个桶，
+ * 相对误差不超过 1/64（约1.6%），最大可记录约68秒，超出的值计入最后一个桶。
+ *
+ * 记录端可多线程并发调用 {@link #record}，只有一次数组原子加，不分配对象；
+ * 统计线程用 {@link #drainTo} 取走当前窗口的计数并清零，开始下一个窗口。
+ */
+public final class LatencyHistogram {
+
+    /** 每个2的幂区间的桶数为 2^SUB_BUCKET_BITS */
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /** 可记录的最大值的位数（2^36ns ≈ 68.7s） */
+    private static final int MAX_VALUE_BITS = 36;
+
+    /** 可记录的最大值（纳秒） */
+    public static final long MAX_VALUE = (1L << MAX_VALUE_BITS) - 1;
+
+    /** 桶总数 */
+    static final int BUCKET_COUNT = bucketIndex(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * 记录一个延迟值
+     *
+     * @param nanos 延迟（纳秒），负值按0记录
+     */
+    public void record(long nanos) {
+        long value = nanos < 0 ? 0 : Math.min(nanos, MAX_VALUE);
+        counts.incrementAndGet(bucketIndex(value));
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * 取走当前窗口的计数并清零（统计线程调用）
+     *
+     * 每个桶单独原子清零，取走期间并发记录的值只会落入本窗口或下一个窗口，不会丢失
+     *
+     * @param window 接收计数的窗口，原有内容被覆盖
+     */
+    public void drainTo(Window window) {
+        long total = 0;
+        long[] target = window.counts;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = counts.get(i) == 0 ? 0 : counts.getAndSet(i, 0);
+            target[i] = count;
+            total += count;
+        }
+        window.totalCount = total;
+        window.max = max.getAndSet(0);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < (SUB_BUCKET_COUNT << 1)) {
+            return (int) value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) (value >>> shift) - SUB_BUCKET_COUNT;
+    }
+
+    /**
+     * 桶内的最大值，报告分位数时使用（偏保守）
+     */
+    static long highestEquivalentValue(int index) {
+        if (index < (SUB_BUCKET_COUNT << 1)) {
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long sub = (index & (SUB_BUCKET_COUNT - 1)) + SUB_BUCKET_COUNT;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /**
+     * 一个统计窗口的计数快照，只在统计线程上使用，可重复使用
+     */
+    public static final class Window {
+        private final long[] counts = new long[BUCKET_COUNT];
+        private long totalCount;
+        private long max;
+
+        public long getTotalCount() {
+            return totalCount;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * @param percentile 百分位（0~100）
+         * @return 该百分位的延迟（纳秒），窗口为空时返回0
+         */
+        public long valueAtPercentile(double percentile) {
+            if (totalCount == 0) {
+                return 0;
+            }
+            long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+            long cumulative = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                cumulative += counts[i];
+                if (cumulative >= target) {
+                    return Math.min(highestEquivalentValue(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
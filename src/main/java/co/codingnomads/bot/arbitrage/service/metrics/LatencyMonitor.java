@@ -0,0 +1,113 @@
+package co.codingnomads.bot.arbitrage.service.metrics;
+
+import co.codingnomads.bot.arbitrage.service.quote.InstrumentRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * 分阶段延迟统计
+ *
+ * 每个阶段、每个交易所一个 {@link LatencyHistogram}，按交易所id寻址，启动时预分配。
+ * 各阶段在各自的线程上记录（读线程、检测线程、持久化线程、通知线程），
+ * 统计线程按统计周期打印 p50/p99/p99.9/max 并清零，开始下一个窗口。
+ */
+@Component
+public class LatencyMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(LatencyMonitor.class);
+
+    private static final LatencyStage[] STAGES = LatencyStage.values();
+
+    @Autowired
+    private InstrumentRegistry instrumentRegistry;
+
+    /** 是否记录延迟；关闭后各阶段不再读取时钟 */
+    @Value("${arbitrage.latency.enabled:true}")
+    private boolean enabled;
+
+    /** [阶段][交易所id] */
+    private LatencyHistogram[][] histograms;
+
+    /** 打印用的窗口快照，只在统计线程上使用 */
+    private final LatencyHistogram.Window window = new LatencyHistogram.Window();
+
+    /**
+     * 预分配直方图
+     */
+    @PostConstruct
+    public void init() {
+        int exchanges = instrumentRegistry.maxExchanges();
+        histograms = new LatencyHistogram[STAGES.length][exchanges];
+        for (int stage = 0; stage < STAGES.length; stage++) {
+            for (int exchange = 0; exchange < exchanges; exchange++) {
+                histograms[stage][exchange] = new LatencyHistogram();
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 记录一个阶段的延迟
+     *
+     * @param stage      阶段
+     * @param exchangeId 交易所id
+     * @param nanos      延迟（纳秒）
+     */
+    public void record(LatencyStage stage, int exchangeId, long nanos) {
+        if (enabled && exchangeId >= 0) {
+            histograms[stage.ordinal()][exchangeId].record(nanos);
+        }
+    }
+
+    /**
+     * 打印本窗口各阶段的延迟分位数并清零（统计线程调用）
+     */
+    public synchronized void report() {
+        if (!enabled) {
+            return;
+        }
+        int exchanges = instrumentRegistry.exchangeCount();
+        for (int exchange = 0; exchange < exchanges; exchange++) {
+            String exchangeName = instrumentRegistry.exchangeName(exchange);
+            for (LatencyStage stage : STAGES) {
+                histograms[stage.ordinal()][exchange].drainTo(window);
+                if (window.getTotalCount() == 0) {
+                    continue;
+                }
+                logger.info("[LatencyMonitor] {} {}: n={} p50={} p99={} p99.9={} max={}",
+                        exchangeName, stage.getLabel(), window.getTotalCount(),
+                        format(window.valueAtPercentile(50)), format(window.valueAtPercentile(99)),
+                        format(window.valueAtPercentile(99.9)), format(window.getMax()));
+            }
+        }
+    }
+
+    /**
+     * 取走一个阶段、一个交易所本窗口的计数并清零（压测工具按自己的窗口读取时使用）
+     *
+     * @param stage      阶段
+     * @param exchangeId 交易所id
+     * @param into       接收计数的窗口，原有内容被覆盖
+     */
+    public synchronized void drain(LatencyStage stage, int exchangeId, LatencyHistogram.Window into) {
+        histograms[stage.ordinal()][exchangeId].drainTo(into);
+    }
+
+    private static String format(long nanos) {
+        if (nanos < 1_000L) {
+            return nanos + "ns";
+        }
+        if (nanos < 1_000_000L) {
+            return String.format("%.1fus", nanos / 1_000.0);
+        }
+        return String.format("%.2fms", nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,35 @@
+package co.codingnomads.bot.arbitrage.service.metrics;
+
+/**
+ * 延迟统计的阶段
+ *
+ * 时间点：交易所事件时间 → 收到帧 → 解码完成 → 检测开始 → 检测完成 → 落库完成
+ */
+public enum LatencyStage {
+    /** 交易所事件时间 → 收到帧（毫秒精度，含两端时钟偏差） */
+    NETWORK("网络"),
+    /** 收到帧 → 解码完成（解压、解析、换算定点数、写入接入缓冲区之前） */
+    DECODE("解码"),
+    /** 解码完成 → 检测线程开始处理（接入缓冲区排队） */
+    QUEUE("排队"),
+    /** 检测开始 → 检测完成（报价表、最优报价堆、区间跟踪、三角检测） */
+    DETECT("检测"),
+    /** 解码完成 → 行情落库（交给写后队列）完成，含持久化缓冲区排队 */
+    PERSIST("行情落库"),
+    /** 检测线程发出区间结束事件 → 套利机会落库完成 */
+    OPPORTUNITY("机会落库"),
+    /** 检测线程发出推送事件 → 编码并交给所有订阅者的发送队列 */
+    FANOUT("推送"),
+    /** 交易所事件时间 → 检测完成 */
+    END_TO_END("端到端");
+
+    private final String label;
+
+    LatencyStage(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,244 @@
+package co.codingnomads.bot.arbitrage.service.metrics;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按键分维度、带滑动窗口的计数器
+ *
+ * 写入：每个键一个 {@link LongAdder}，写线程只做一次累加；多个线程写同一个键时分散到不同的单元，
+ * 不会争用同一个缓存行，也不需要加锁。键的计数单元和窗口桶在第一次计数时才创建，
+ * 键空间很大但实际出现的键很少时（如 交易对×买入×卖出）不会为从未出现的键分配内存。
+ *
+ * 窗口：采样线程每秒调用一次 {@link #tick()}，把每个已出现的键自上次以来的增量写入60个秒桶，
+ * 每满60秒把这一分钟的合计写入60个分钟桶。窗口合计以滑动和维护，每次采样的开销只与键的数量成正比：
+ * <ul>
+ *   <li>1秒：最近一个秒桶</li>
+ *   <li>1分钟：最近60个秒桶</li>
+ *   <li>1小时：最近60个完整的分钟（最多滞后一分钟）</li>
+ * </ul>
+ *
+ * 读取：每次采样把结果写入 {@link Values} 并以volatile发布，读取方不加锁，
+ * 不会阻塞写线程和采样线程。采样线程交替复用两个 {@link Values}，采样时不分配内存；
+ * 读取方拿到的快照在下一次采样之后才会被覆盖，应在一个采样间隔（1秒）内用完。
+ * 累计值可通过 {@link #sum(int)} 实时读取。
+ */
+public final class WindowedCounter {
+
+    /**
+     * 滑动窗口
+     */
+    public enum Window {
+        SECOND(1, "1秒"),
+        MINUTE(60, "1分钟"),
+        HOUR(3600, "1小时");
+
+        private final int seconds;
+        private final String label;
+
+        Window(int seconds, String label) {
+            this.seconds = seconds;
+            this.label = label;
+        }
+
+        public int getSeconds() {
+            return seconds;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private static final int SLOTS = 60;
+
+    private final int keyCount;
+    /** 第一次计数时创建 */
+    private final AtomicReferenceArray<LongAdder> adders;
+
+    // ==================== 采样状态（采样线程） ====================
+    /** 每个已出现的键的秒桶/分钟桶，采样时第一次看到该键时创建 */
+    private final KeyWindow[] windows;
+    /** 下一次采样写入的快照，与已发布的快照交替使用 */
+    private Values spare;
+    private long ticks;
+
+    private volatile Values values;
+
+    /**
+     * @param keyCount 键的数量（键为 [0, keyCount) 内的整数）
+     */
+    public WindowedCounter(int keyCount) {
+        this.keyCount = keyCount;
+        this.adders = new AtomicReferenceArray<>(keyCount);
+        this.windows = new KeyWindow[keyCount];
+        this.values = new Values(keyCount);
+        this.spare = new Values(keyCount);
+    }
+
+    /**
+     * 计数加一（任意线程）
+     */
+    public void increment(int key) {
+        LongAdder adder = adders.get(key);
+        if (adder == null) {
+            adder = createAdder(key);
+        }
+        adder.increment();
+    }
+
+    /**
+     * @return 该键的实时累计值
+     */
+    public long sum(int key) {
+        LongAdder adder = adders.get(key);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    /**
+     * @return 所有键的实时累计值
+     */
+    public long sum() {
+        long sum = 0;
+        for (int key = 0; key < keyCount; key++) {
+            LongAdder adder = adders.get(key);
+            if (adder != null) {
+                sum += adder.sum();
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * 采样一次并发布新的窗口快照（只由采样线程每秒调用一次）
+     */
+    public void tick() {
+        int secondSlot = (int) (ticks % SLOTS);
+        boolean minuteDone = (ticks + 1) % SLOTS == 0;
+        int minuteSlot = (int) ((ticks / SLOTS) % SLOTS);
+        Values next = spare;
+        for (int key = 0; key < keyCount; key++) {
+            LongAdder adder = adders.get(key);
+            if (adder == null) {
+                continue;
+            }
+            KeyWindow window = windows[key];
+            if (window == null) {
+                window = new KeyWindow();
+                windows[key] = window;
+            }
+            long total = adder.sum();
+            window.update(total - window.lastTotal, secondSlot, minuteDone, minuteSlot);
+            window.lastTotal = total;
+
+            next.totals[key] = total;
+            next.second[key] = window.secondWindow;
+            next.minute[key] = window.minuteWindow;
+            next.hour[key] = window.hourWindow;
+        }
+        ticks++;
+        next.ticks = ticks;
+        spare = values;
+        values = next;
+    }
+
+    /**
+     * @return 最近一次采样的快照
+     */
+    public Values getValues() {
+        return values;
+    }
+
+    public int getKeyCount() {
+        return keyCount;
+    }
+
+    private LongAdder createAdder(int key) {
+        LongAdder created = new LongAdder();
+        return adders.compareAndSet(key, null, created) ? created : adders.get(key);
+    }
+
+    /**
+     * 一个键的秒桶和分钟桶（采样线程）
+     */
+    private static final class KeyWindow {
+        long lastTotal;
+        final long[] seconds = new long[SLOTS];
+        /** 已完成的分钟 */
+        final long[] minutes = new long[SLOTS];
+        long currentMinute;
+        long secondWindow;
+        long minuteWindow;
+        long hourWindow;
+
+        void update(long delta, int secondSlot, boolean minuteDone, int minuteSlot) {
+            secondWindow = delta;
+            minuteWindow += delta - seconds[secondSlot];
+            seconds[secondSlot] = delta;
+            currentMinute += delta;
+            if (minuteDone) {
+                hourWindow += currentMinute - minutes[minuteSlot];
+                minutes[minuteSlot] = currentMinute;
+                currentMinute = 0;
+            }
+        }
+    }
+
+    /**
+     * 某次采样时的累计值和各窗口内的计数
+     *
+     * 发布后不再修改，直到下一次采样之后被采样线程复用（见类注释）
+     */
+    public static final class Values {
+        private final long[] totals;
+        private final long[] second;
+        private final long[] minute;
+        private final long[] hour;
+        /** 采样次数（秒），窗口未填满时按实际覆盖的时长计算速率 */
+        private long ticks;
+
+        Values(int keyCount) {
+            this.totals = new long[keyCount];
+            this.second = new long[keyCount];
+            this.minute = new long[keyCount];
+            this.hour = new long[keyCount];
+        }
+
+        /**
+         * @return 采样时该键的累计值
+         */
+        public long total(int key) {
+            return totals[key];
+        }
+
+        /**
+         * @return 该键在窗口内的计数
+         */
+        public long count(int key, Window window) {
+            switch (window) {
+                case SECOND:
+                    return second[key];
+                case MINUTE:
+                    return minute[key];
+                default:
+                    return hour[key];
+            }
+        }
+
+        /**
+         * 把窗口内的计数换算为每秒速率
+         *
+         * @param count  窗口内的计数（可以是多个键之和）
+         * @param window 窗口
+         */
+        public double rate(long count, Window window) {
+            long covered;
+            if (window == Window.HOUR) {
+                covered = Math.min(window.getSeconds(), ticks / SLOTS * SLOTS);
+            } else {
+                covered = Math.min(window.getSeconds(), ticks);
+            }
+            return covered == 0 ? 0 : (double) count / covered;
+        }
+    }
+}
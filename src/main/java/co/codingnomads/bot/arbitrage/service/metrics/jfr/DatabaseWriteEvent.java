@@ -0,0 +1,41 @@
+package co.codingnomads.bot.arbitrage.service.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * 一次数据库写入（套利机会或行情批量写入），持续时间为写入耗时
+ */
+@Name("arbitrage.DatabaseWrite")
+@Label("数据库写入")
+@Category({"Arbitrage", "Persistence"})
+@Description("套利机会落库和行情批量写入")
+@Threshold("10 ms")
+public class DatabaseWriteEvent extends Event {
+
+    @Label("表")
+    public String table;
+
+    @Label("行数")
+    public int rows;
+
+    @Label("成功")
+    public boolean success;
+
+    /**
+     * 结束计时，超过阈值时填写字段并提交（写入之前调用 {@link #begin()}）
+     */
+    public void complete(String table, int rows, boolean success) {
+        end();
+        if (shouldCommit()) {
+            this.table = table;
+            this.rows = rows;
+            this.success = success;
+            commit();
+        }
+    }
+}
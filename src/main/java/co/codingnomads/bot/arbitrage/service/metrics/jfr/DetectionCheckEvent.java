@@ -0,0 +1,45 @@
+package co.codingnomads.bot.arbitrage.service.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Percentage;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * 一次跨交易所套利检测（检测线程），持续时间为更新报价表和检测的耗时
+ */
+@Name("arbitrage.DetectionCheck")
+@Label("套利检测")
+@Category({"Arbitrage", "Detection"})
+@Description("更新报价后的跨交易所价差检测；crossed 为是否找到可配对的价差，episodeOpen 为该方向当前是否处于套利区间")
+@Threshold("100 us")
+@StackTrace(false)
+public class DetectionCheckEvent extends Event {
+
+    @Label("交易对")
+    public String symbol;
+
+    @Label("更新的交易所")
+    public String exchange;
+
+    @Label("买入交易所")
+    public String buyExchange;
+
+    @Label("卖出交易所")
+    public String sellExchange;
+
+    @Label("利润率")
+    @Description("(卖价 - 买价) / 买价，未找到价差时为0")
+    @Percentage
+    public double margin;
+
+    @Label("找到价差")
+    public boolean crossed;
+
+    @Label("区间开启")
+    public boolean episodeOpen;
+}
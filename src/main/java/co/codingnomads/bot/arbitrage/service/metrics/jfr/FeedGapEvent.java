@@ -0,0 +1,27 @@
+package co.codingnomads.bot.arbitrage.service.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * 断线后行情恢复（读线程），记录断流时长
+ */
+@Name("arbitrage.FeedGap")
+@Label("行情断流")
+@Category({"Arbitrage", "Exchange"})
+@Description("断线前最后一条行情到重连后第一条行情的间隔")
+@StackTrace(false)
+public class FeedGapEvent extends Event {
+
+    @Label("连接")
+    public String connection;
+
+    @Label("断流时长")
+    @Timespan
+    public long gap;
+}
@@ -0,0 +1,119 @@
+package co.codingnomads.bot.arbitrage.service.metrics.jfr;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 常驻JFR录制
+ *
+ * 启用后在进程内开启一个滚动录制：JDK预置配置（默认 default，开销约1%）叠加 jfr/arbitrage.jfc 中
+ * 本项目的事件（帧解码、报价更新、套利检测、数据库写入、重连、断流）和GC停顿/安全点阈值。
+ * 录制只保留最近 max-age-minutes 分钟 / max-size-mb 的数据，进程退出时写入 dump-dir；
+ * 运行中需要现场数据时调用 {@link #dump()} 或使用 jcmd &lt;pid&gt; JFR.dump name=arbitrage。
+ *
+ * 不通过本类时也可以直接用JVM参数录制（需先从jar中取出 jfr/arbitrage.jfc）：
+ * -XX:StartFlightRecording:settings=default,settings=arbitrage.jfc,maxage=6h,filename=arbitrage.jfr
+ *
+ * 运行时没有 jdk.jfr（早于8u272的Java 8）时不录制，见 {@link JfrSupport}。
+ */
+@Component
+public class FlightRecordingManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecordingManager.class);
+
+    /** 打包在jar中的录制配置 */
+    public static final String SETTINGS_RESOURCE = "/jfr/arbitrage.jfc";
+
+    private static final String RECORDING_NAME = "arbitrage";
+    private static final DateTimeFormatter FILE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    // ==================== 配置 ====================
+    @Value("${arbitrage.jfr.enabled:false}")
+    private boolean enabled;
+
+    /** 叠加的JDK预置配置：default / profile，为空时只使用本项目的配置 */
+    @Value("${arbitrage.jfr.base-settings:default}")
+    private String baseSettings;
+
+    @Value("${arbitrage.jfr.max-age-minutes:360}")
+    private long maxAgeMinutes;
+
+    @Value("${arbitrage.jfr.max-size-mb:512}")
+    private long maxSizeMb;
+
+    @Value("${arbitrage.jfr.dump-dir:jfr}")
+    private String dumpDir;
+
+    private JfrRecording recording;
+
+    /**
+     * 开始录制
+     */
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        if (!JfrSupport.AVAILABLE) {
+            logger.warn("[FlightRecordingManager] 当前JVM不支持JFR（jdk.jfr 不存在），不录制");
+            return;
+        }
+        try {
+            recording = new JfrRecording(RECORDING_NAME, baseSettings, SETTINGS_RESOURCE,
+                    Duration.ofMinutes(maxAgeMinutes), maxSizeMb * 1024 * 1024, newDumpFile());
+            logger.info("[FlightRecordingManager] JFR录制已开始: 基础配置={}，保留{}分钟/{}MB，退出时写入{}",
+                    baseSettings.isEmpty() ? "无" : baseSettings, maxAgeMinutes, maxSizeMb, recording.getDestination());
+        } catch (Exception e) {
+            // 录制只用于排查，失败不影响启动
+            logger.error("[FlightRecordingManager] 启动JFR录制失败: {}", e.getMessage(), e);
+            recording = null;
+        }
+    }
+
+    /**
+     * 停止录制，数据写入启动时确定的文件
+     */
+    @PreDestroy
+    public void destroy() {
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    /**
+     * 把当前保留的录制数据写入新文件，录制继续进行
+     *
+     * @return 写入的文件，未在录制时返回null
+     */
+    public Path dump() throws IOException {
+        if (recording == null) {
+            return null;
+        }
+        Path file = newDumpFile();
+        recording.dump(file);
+        logger.info("[FlightRecordingManager] JFR录制已写入 {}", file);
+        return file;
+    }
+
+    public boolean isRecording() {
+        return recording != null;
+    }
+
+    private Path newDumpFile() throws IOException {
+        Path dir = Paths.get(dumpDir);
+        Files.createDirectories(dir);
+        return dir.resolve(RECORDING_NAME + "-" + FILE_TIME_FORMAT.format(LocalDateTime.now()) + ".jfr");
+    }
+}
@@ -0,0 +1,33 @@
+package co.codingnomads.bot.arbitrage.service.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * 交易所帧解码（读线程），持续时间为解码一帧的耗时
+ */
+@Name("arbitrage.FrameDecode")
+@Label("帧解码")
+@Category({"Arbitrage", "Exchange"})
+@Description("交易所WebSocket帧的解码耗时，超过阈值才记录")
+@Threshold("500 us")
+@StackTrace(false)
+public class FrameDecodeEvent extends Event {
+
+    @Label("交易所")
+    public String exchange;
+
+    @Label("连接")
+    public String connection;
+
+    /** 帧负载的字节数（文本帧为UTF-8编码后的长度，火币为解压前的长度） */
+    @Label("帧大小")
+    @DataAmount
+    public int bytes;
+}
@@ -0,0 +1,73 @@
+package co.codingnomads.bot.arbitrage.service.metrics.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 对 {@link Recording} 的封装
+ *
+ * jdk.jfr 的类型只出现在本类中，{@link FlightRecordingManager} 的字段和方法签名里没有jdk.jfr类型，
+ * Spring 反射该bean时不会加载它们；本类只在 {@link JfrSupport#AVAILABLE} 为true时才会创建。
+ */
+final class JfrRecording {
+
+    private final Recording recording;
+
+    /**
+     * 按配置创建并开始录制
+     *
+     * @param name         录制名称
+     * @param baseSettings 叠加的JDK预置配置，为空时只使用 settingsResource
+     */
+    JfrRecording(String name, String baseSettings, String settingsResource, Duration maxAge, long maxSize,
+                 Path destination) throws IOException, ParseException {
+        Map<String, String> settings = new HashMap<>();
+        if (!baseSettings.isEmpty()) {
+            settings.putAll(Configuration.getConfiguration(baseSettings).getSettings());
+        }
+        settings.putAll(loadSettings(settingsResource).getSettings());
+
+        recording = new Recording(settings);
+        recording.setName(name);
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        recording.setMaxSize(maxSize);
+        recording.setDestination(destination);
+        recording.setDumpOnExit(true);
+        recording.start();
+    }
+
+    Path getDestination() {
+        return recording.getDestination();
+    }
+
+    void dump(Path file) throws IOException {
+        recording.dump(file);
+    }
+
+    void close() {
+        recording.stop();
+        recording.close();
+    }
+
+    private static Configuration loadSettings(String resource) throws IOException, ParseException {
+        InputStream stream = JfrRecording.class.getResourceAsStream(resource);
+        if (stream == null) {
+            throw new IOException("找不到录制配置 " + resource);
+        }
+        try (Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+            return Configuration.create(reader);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package co.codingnomads.bot.arbitrage.service.metrics.jfr;
+
+/**
+ * 运行时是否提供 jdk.jfr（JDK 11+ / 8u272+）
+ *
+ * 编译目标仍为1.8，在没有 jdk.jfr 的Java 8上加载任何事件类都会抛出 NoClassDefFoundError。
+ * 调用方在创建事件之前检查 {@link #AVAILABLE}，不可用时走空路径：
+ * <pre>
+ * FrameDecodeEvent event = JfrSupport.AVAILABLE ? new FrameDecodeEvent() : null;
+ * </pre>
+ * 只有在 AVAILABLE 为true时才会执行到事件类，事件类不会被提前加载。
+ */
+public final class JfrSupport {
+
+    /** 启动时检查一次 */
+    public static final boolean AVAILABLE = detect();
+
+    private JfrSupport() {
+    }
+
+    private static boolean detect() {
+        try {
+            Class.forName("jdk.jfr.Event", false, JfrSupport.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package co.codingnomads.bot.arbitrage.service.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * 最优报价进入处理流水线（读线程），持续时间为换算和发布到流水线的耗时
+ *
+ * 每条行情一个事件，默认关闭；排查时在录制配置中打开或设置阈值
+ */
+@Name("arbitrage.QuoteUpdate")
+@Label("报价更新")
+@Category({"Arbitrage", "Quote"})
+@Description("最优报价发布到检测流水线，dropped 表示流水线已满被丢弃")
+@Enabled(false)
+@StackTrace(false)
+public class QuoteUpdateEvent extends Event {
+
+    @Label("交易所")
+    public String exchange;
+
+    @Label("交易对")
+    public String symbol;
+
+    @Label("买一价")
+    public double bid;
+
+    @Label("卖一价")
+    public double ask;
+
+    @Label("推送延迟")
+    @Description("本地接收时间 - 交易所事件时间（墙钟，含时钟偏差），事件时间未知时为0")
+    @Timespan(Timespan.MILLISECONDS)
+    public long exchangeLatency;
+
+    @Label("被丢弃")
+    public boolean dropped;
+}
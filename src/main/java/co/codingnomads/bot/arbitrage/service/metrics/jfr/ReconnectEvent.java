@@ -0,0 +1,30 @@
+package co.codingnomads.bot.arbitrage.service.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * 连接断开后安排重连（监督器线程）
+ */
+@Name("arbitrage.Reconnect")
+@Label("重连")
+@Category({"Arbitrage", "Exchange"})
+@Description("交易所连接断开后按退避安排的重连")
+@StackTrace(false)
+public class ReconnectEvent extends Event {
+
+    @Label("连接")
+    public String connection;
+
+    @Label("第几次")
+    public int attempt;
+
+    @Label("退避")
+    @Timespan(Timespan.MILLISECONDS)
+    public long backoff;
+}
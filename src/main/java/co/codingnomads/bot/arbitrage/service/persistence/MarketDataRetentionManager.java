@@ -0,0 +1,248 @@
+package co.codingnomads.bot.arbitrage.service.persistence;
+
+import co.codingnomads.bot.arbitrage.mapper.MarketDataPartitionMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 行情表分区轮转与保留
+ *
+ * market_data 按 created_at 做 RANGE COLUMNS 分区（见 src/main/mysql/alter_market_data_partitioning.sql），
+ * 分区名为该分区的起始时间：按天 pYYYYMMDD，按小时 pYYYYMMDDHH，最后一个分区 pmax 兜底。
+ *
+ * 负责：
+ * 1. 定期从 pmax 拆分出未来 precreate-days 天的分区，写入永远落在预先建好的分区里
+ * 2. 删除结束时间早于 keep-days 天前的分区；ARCHIVE 模式下先把分区交换到独立的归档表再删除
+ *
+ * 删除整个分区只是删除表空间文件，不会像 DELETE 那样逐行删除、产生大事务和碎片，
+ * 插入和查询的开销不随运行时间增长。表未分区时只打印一次提示，不做任何修改。
+ *
+ * 默认关闭（arbitrage.retention.enabled）。拆分 pmax 的 REORGANIZE 会复制 pmax 中已有的全部行并锁表，
+ * 迁移脚本把历史数据放在当天的日期分区、pmax 为空，首次维护很快；如果未开启维护期间写入了大量数据
+ * （全部落在 pmax），开启后的第一次维护会复制这些数据，应在低峰期开启。
+ *
+ * created_at 由数据库按会话时区填写，分区边界同样按数据库当前时间计算，与应用所在时区无关。
+ */
+@Component
+public class MarketDataRetentionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(MarketDataRetentionManager.class);
+
+    private static final String TABLE = "market_data";
+    private static final String MAX_PARTITION = "pmax";
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * 分区粒度
+     */
+    public enum Granularity {
+        /** 每天一个分区 */
+        DAILY("yyyyMMdd", ChronoUnit.DAYS),
+        /** 每小时一个分区（每天写入量特别大时使用） */
+        HOURLY("yyyyMMddHH", ChronoUnit.HOURS);
+
+        private final DateTimeFormatter format;
+        private final int nameLength;
+        private final ChronoUnit unit;
+
+        Granularity(String pattern, ChronoUnit unit) {
+            this.format = DateTimeFormatter.ofPattern(pattern);
+            this.nameLength = pattern.length() + 1;
+            this.unit = unit;
+        }
+
+        LocalDateTime truncate(LocalDateTime time) {
+            return time.truncatedTo(unit);
+        }
+
+        LocalDateTime next(LocalDateTime start) {
+            return start.plus(1, unit);
+        }
+
+        String partitionName(LocalDateTime start) {
+            return "p" + format.format(start);
+        }
+    }
+
+    /**
+     * 过期分区的处理方式
+     */
+    public enum Action {
+        /** 直接删除 */
+        DROP,
+        /** 交换到归档表 market_data_archive_&lt;分区名&gt; 后删除分区 */
+        ARCHIVE
+    }
+
+    @Autowired
+    private MarketDataPartitionMapper partitionMapper;
+
+    // ==================== 配置 ====================
+    @Value("${arbitrage.retention.enabled:false}")
+    private boolean enabled;
+
+    @Value("${arbitrage.retention.granularity:DAILY}")
+    private Granularity granularity;
+
+    /** 提前创建的天数 */
+    @Value("${arbitrage.retention.precreate-days:3}")
+    private int precreateDays;
+
+    /** 保留的天数 */
+    @Value("${arbitrage.retention.keep-days:30}")
+    private int keepDays;
+
+    @Value("${arbitrage.retention.action:DROP}")
+    private Action action;
+
+    @Value("${arbitrage.retention.check-interval-ms:3600000}")
+    private long checkIntervalMs;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "MarketData-Retention");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private boolean unpartitionedWarned;
+
+    /**
+     * 启动定期维护任务（首次在启动后立即执行）
+     */
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        scheduler.scheduleWithFixedDelay(this::maintainSafely, 0, checkIntervalMs, TimeUnit.MILLISECONDS);
+        logger.info("[MarketDataRetentionManager] 分区维护已启动: 粒度={}, 预建{}天, 保留{}天, 过期处理={}",
+                granularity, precreateDays, keepDays, action);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    private void maintainSafely() {
+        try {
+            maintain(LocalDateTime.parse(partitionMapper.currentTime(), BOUND_FORMAT));
+        } catch (Exception e) {
+            // 数据库暂时不可用等情况，下个周期重试
+            logger.error("[MarketDataRetentionManager] 分区维护失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 执行一次维护：预建分区、处理过期分区
+     *
+     * @param now 数据库当前时间（与 created_at 同一时区）
+     */
+    public synchronized void maintain(LocalDateTime now) {
+        List<String> partitions = partitionMapper.listPartitions(TABLE);
+        if (!partitions.contains(MAX_PARTITION)) {
+            if (!unpartitionedWarned) {
+                logger.warn("[MarketDataRetentionManager] {} 未按 created_at 分区（缺少 {}），跳过分区维护；"
+                        + "请先执行 alter_market_data_partitioning.sql", TABLE, MAX_PARTITION);
+                unpartitionedWarned = true;
+            }
+            return;
+        }
+        createAhead(partitions, now);
+        expire(partitions, now);
+    }
+
+    private void createAhead(List<String> partitions, LocalDateTime now) {
+        // 从现有最后一个分区的结束时间（没有时从当前周期）开始，补齐到 now + precreateDays
+        LocalDateTime start = granularity.truncate(now);
+        for (String partition : partitions) {
+            LocalDateTime end = partitionEnd(partition);
+            if (end != null && end.isAfter(start)) {
+                start = end;
+            }
+        }
+        LocalDateTime horizon = now.plusDays(precreateDays);
+        StringBuilder definitions = new StringBuilder();
+        int count = 0;
+        while (start.isBefore(horizon)) {
+            // 切换粒度后第一个分区可能不是从整点/零点开始，结束时间和名称都按所在周期对齐
+            LocalDateTime period = granularity.truncate(start);
+            LocalDateTime end = granularity.next(period);
+            if (count > 0) {
+                definitions.append(", ");
+            }
+            definitions.append("PARTITION ").append(granularity.partitionName(period))
+                    .append(" VALUES LESS THAN ('").append(BOUND_FORMAT.format(end)).append("')");
+            start = end;
+            count++;
+        }
+        if (count > 0) {
+            partitionMapper.addPartitions(TABLE, definitions.toString());
+            logger.info("[MarketDataRetentionManager] 已预建{}个分区，最后一个分区截止 {}", count, start);
+        }
+    }
+
+    private void expire(List<String> partitions, LocalDateTime now) {
+        LocalDateTime cutoff = now.minusDays(keepDays);
+        for (String partition : partitions) {
+            LocalDateTime end = partitionEnd(partition);
+            if (end == null || end.isAfter(cutoff)) {
+                continue;
+            }
+            if (action == Action.ARCHIVE) {
+                archive(partition);
+            }
+            partitionMapper.dropPartition(TABLE, partition);
+            logger.info("[MarketDataRetentionManager] 已{}过期分区 {}", action == Action.ARCHIVE ? "归档并删除" : "删除", partition);
+        }
+    }
+
+    private void archive(String partition) {
+        String archive = TABLE + "_archive_" + partition;
+        partitionMapper.createArchiveTable(archive, TABLE);
+        if (!partitionMapper.listPartitions(archive).isEmpty()) {
+            partitionMapper.removePartitioning(archive);
+        }
+        // 上次交换成功但删除分区失败时，数据已经在归档表里，不能再交换回去
+        if (partitionMapper.hasRows(archive) == 0) {
+            partitionMapper.exchangePartition(TABLE, partition, archive);
+        }
+    }
+
+    /**
+     * 由分区名解析分区的结束时间（不含）
+     *
+     * @return 结束时间，pmax 或无法识别的分区名返回null
+     */
+    static LocalDateTime partitionEnd(String partition) {
+        for (Granularity candidate : Granularity.values()) {
+            if (partition.length() != candidate.nameLength || partition.charAt(0) != 'p') {
+                continue;
+            }
+            try {
+                LocalDateTime start = LocalDateTime.of(
+                        Integer.parseInt(partition.substring(1, 5)),
+                        Integer.parseInt(partition.substring(5, 7)),
+                        Integer.parseInt(partition.substring(7, 9)),
+                        candidate == Granularity.HOURLY ? Integer.parseInt(partition.substring(9, 11)) : 0, 0);
+                return candidate.next(start);
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
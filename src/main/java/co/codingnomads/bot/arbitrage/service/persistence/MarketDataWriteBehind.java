@@ -0,0 +1,321 @@
+package co.codingnomads.bot.arbitrage.service.persistence;
+
+import co.codingnomads.bot.arbitrage.config.ArbitrageConfig;
+import co.codingnomads.bot.arbitrage.mapper.MarketDataMapper;
+import co.codingnomads.bot.arbitrage.model.MarketData;
+import co.codingnomads.bot.arbitrage.service.metrics.jfr.DatabaseWriteEvent;
+import co.codingnomads.bot.arbitrage.service.metrics.jfr.JfrSupport;
+import co.codingnomads.bot.arbitrage.service.readmodel.MarketDataReadModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 行情数据写后（write-behind）队列
+ *
+ * 负责：
+ * 1. 在WebSocket读线程上只做入队，不等待数据库往返
+ * 2. 由独立的写线程按数量或时间攒批，使用多行INSERT写入MySQL
+ * 3. 队列满时按配置的溢出策略处理（阻塞、丢弃最旧、采样）
+ * 4. 暴露队列深度、批次大小、刷写延迟等指标
+ */
+@Component
+public class MarketDataWriteBehind {
+
+    private static final Logger logger = LoggerFactory.getLogger(MarketDataWriteBehind.class);
+
+    /**
+     * 队列溢出策略
+     */
+    public enum OverflowPolicy {
+        /** 队列满时阻塞生产者，直到写线程腾出空间 */
+        BLOCK,
+        /** 队列满时丢弃最旧的一条，保证最新行情入队 */
+        DROP_OLDEST,
+        /** 队列超过高水位后按比例采样入队，满时丢弃新数据 */
+        SAMPLE
+    }
+
+    @Autowired
+    private MarketDataMapper marketDataMapper;
+
+    @Autowired
+    private MarketDataReadModel marketDataReadModel;
+
+    // ==================== 配置 ====================
+    @Value("${arbitrage.marketdata.write.queue-capacity:65536}")
+    private int queueCapacity;
+
+    @Value("${arbitrage.marketdata.write.batch-size:500}")
+    private int batchSize;
+
+    @Value("${arbitrage.marketdata.write.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${arbitrage.marketdata.write.overflow-policy:DROP_OLDEST}")
+    private OverflowPolicy overflowPolicy;
+
+    /** SAMPLE策略下，超过高水位后每N条保留1条 */
+    @Value("${arbitrage.marketdata.write.sample-rate:10}")
+    private int sampleRate;
+
+    /** SAMPLE策略的高水位（队列容量的比例） */
+    @Value("${arbitrage.marketdata.write.sample-high-watermark:0.75}")
+    private double sampleHighWatermark;
+
+    // ==================== 运行状态 ====================
+    private ArrayBlockingQueue<MarketData> queue;
+    private Thread writerThread;
+    private volatile boolean running;
+    private int sampleThreshold;
+
+    // ==================== 指标 ====================
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong sampledOut = new AtomicLong();
+    private final AtomicLong sampleCounter = new AtomicLong();
+    private final AtomicLong writtenRows = new AtomicLong();
+    private final AtomicLong failedRows = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private volatile int lastBatchSize;
+    private volatile long lastFlushNanos;
+    private volatile long maxFlushNanos;
+
+    /**
+     * 启动写线程
+     */
+    @PostConstruct
+    public void start() {
+        if (sampleRate < 1) {
+            throw new IllegalArgumentException("arbitrage.marketdata.write.sample-rate 必须不小于1: " + sampleRate);
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        sampleThreshold = (int) (queueCapacity * sampleHighWatermark);
+        running = true;
+        writerThread = new Thread(this::runWriter, "MarketData-Writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        logger.info("[MarketDataWriteBehind] 写后队列已启动: 容量={}, 批次={}, 刷写间隔={}ms, 溢出策略={}",
+                queueCapacity, batchSize, flushIntervalMs, overflowPolicy);
+    }
+
+    /**
+     * 停止写线程，并把队列中剩余数据写完
+     */
+    @PreDestroy
+    public void stop() {
+        // 不中断写线程，避免打断进行中的JDBC调用；写线程最多在一个刷写间隔内感知到停止标志
+        running = false;
+        if (writerThread != null) {
+            try {
+                writerThread.join(ArbitrageConfig.CONNECTION_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        logStats();
+    }
+
+    // ==================== 入队 ====================
+
+    /**
+     * 将行情数据放入写后队列
+     *
+     * @param marketData 行情数据对象
+     * @return 是否已入队（被丢弃或采样掉时返回false）
+     */
+    public boolean enqueue(MarketData marketData) {
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    queue.put(marketData);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    dropped.incrementAndGet();
+                    return false;
+                }
+                break;
+            case SAMPLE:
+                if (queue.size() >= sampleThreshold
+                        && sampleCounter.incrementAndGet() % sampleRate != 0) {
+                    sampledOut.incrementAndGet();
+                    return false;
+                }
+                if (!queue.offer(marketData)) {
+                    dropped.incrementAndGet();
+                    return false;
+                }
+                break;
+            case DROP_OLDEST:
+            default:
+                while (!queue.offer(marketData)) {
+                    if (queue.poll() != null) {
+                        dropped.incrementAndGet();
+                    }
+                }
+                break;
+        }
+        enqueued.incrementAndGet();
+        return true;
+    }
+
+    // ==================== 写线程 ====================
+
+    private void runWriter() {
+        List<MarketData> batch = new ArrayList<>(batchSize);
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        long lastStatsTime = System.currentTimeMillis();
+
+        while (running || !queue.isEmpty()) {
+            try {
+                collectBatch(batch, flushIntervalNanos);
+            } catch (InterruptedException e) {
+                // 被中断时不丢数据，继续把已取出的和剩余的数据写完
+                queue.drainTo(batch, batchSize - batch.size());
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+
+            long now = System.currentTimeMillis();
+            if (now - lastStatsTime >= ArbitrageConfig.STATS_PRINT_INTERVAL_MS) {
+                lastStatsTime = now;
+                logStats();
+            }
+        }
+    }
+
+    /**
+     * 攒批：达到批次大小或自第一条起超过刷写间隔即返回
+     */
+    private void collectBatch(List<MarketData> batch, long flushIntervalNanos) throws InterruptedException {
+        MarketData first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            if (batch.size() >= batchSize) {
+                return;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            MarketData next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<MarketData> batch) {
+        long start = System.nanoTime();
+        DatabaseWriteEvent writeEvent = JfrSupport.AVAILABLE ? new DatabaseWriteEvent() : null;
+        if (writeEvent != null) {
+            writeEvent.begin();
+        }
+        try {
+            marketDataMapper.insertMarketDataBatch(batch);
+            if (writeEvent != null) {
+                writeEvent.complete("market_data", batch.size(), true);
+            }
+            writtenRows.addAndGet(batch.size());
+            marketDataReadModel.onWritten(batch);
+        } catch (Exception e) {
+            if (writeEvent != null) {
+                writeEvent.complete("market_data", batch.size(), false);
+            }
+            failedRows.addAndGet(batch.size());
+            logger.error("[MarketDataWriteBehind] 批量写入行情数据失败({}条): {}", batch.size(), e.getMessage(), e);
+        }
+        long elapsed = System.nanoTime() - start;
+        lastBatchSize = batch.size();
+        lastFlushNanos = elapsed;
+        if (elapsed > maxFlushNanos) {
+            maxFlushNanos = elapsed;
+        }
+        flushCount.incrementAndGet();
+        totalFlushNanos.addAndGet(elapsed);
+    }
+
+    // ==================== 指标 ====================
+
+    /** 当前队列深度 */
+    public int getQueueDepth() {
+        return queue == null ? 0 : queue.size();
+    }
+
+    /** 最近一次刷写的批次大小 */
+    public int getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    /** 平均批次大小 */
+    public double getAverageBatchSize() {
+        long flushes = flushCount.get();
+        return flushes == 0 ? 0 : (double) (writtenRows.get() + failedRows.get()) / flushes;
+    }
+
+    /** 最近一次刷写耗时（毫秒） */
+    public double getLastFlushLatencyMs() {
+        return lastFlushNanos / 1_000_000.0;
+    }
+
+    /** 最大刷写耗时（毫秒） */
+    public double getMaxFlushLatencyMs() {
+        return maxFlushNanos / 1_000_000.0;
+    }
+
+    /** 平均刷写耗时（毫秒） */
+    public double getAverageFlushLatencyMs() {
+        long flushes = flushCount.get();
+        return flushes == 0 ? 0 : totalFlushNanos.get() / 1_000_000.0 / flushes;
+    }
+
+    public long getEnqueuedCount() {
+        return enqueued.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getSampledOutCount() {
+        return sampledOut.get();
+    }
+
+    public long getWrittenRows() {
+        return writtenRows.get();
+    }
+
+    public long getFailedRows() {
+        return failedRows.get();
+    }
+
+    /**
+     * 打印写后队列指标
+     */
+    public void logStats() {
+        logger.info(String.format("[MarketDataWriteBehind] 队列深度: %d/%d, 入队: %d, 丢弃: %d, 采样丢弃: %d, 已写入: %d, 写入失败: %d, "
+                        + "批次: 最近%d/平均%.1f, 刷写延迟: 最近%.2fms/平均%.2fms/最大%.2fms",
+                getQueueDepth(), queueCapacity, getEnqueuedCount(), getDroppedCount(), getSampledOutCount(),
+                getWrittenRows(), getFailedRows(), getLastBatchSize(), getAverageBatchSize(),
+                getLastFlushLatencyMs(), getAverageFlushLatencyMs(), getMaxFlushLatencyMs()));
+    }
+}
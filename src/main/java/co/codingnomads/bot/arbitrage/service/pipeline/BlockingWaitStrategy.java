@@ -0,0 +1,51 @@
+package co.codingnomads.bot.arbitrage.service.pipeline;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 阻塞等待策略
+ *
+ * 消费者在锁上挂起，生产者只在有消费者挂起时才加锁唤醒，空闲时不占用CPU
+ */
+public final class BlockingWaitStrategy implements WaitStrategy {
+
+    /** 单次挂起的最长时间，使消费者能定期检查停止标志 */
+    private static final long MAX_PARK_MS = 100;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition published = lock.newCondition();
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    @Override
+    public void waitFor(EventRing<?> ring, long sequence, int idleCount) throws InterruptedException {
+        // 先登记再检查：生产者发布后读到登记数大于0就会加锁唤醒，不会丢失通知
+        waiters.incrementAndGet();
+        try {
+            lock.lock();
+            try {
+                if (!ring.isAvailable(sequence)) {
+                    published.await(MAX_PARK_MS, TimeUnit.MILLISECONDS);
+                }
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            waiters.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void signalAllWhenBlocking() {
+        if (waiters.get() > 0) {
+            lock.lock();
+            try {
+                published.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package co.codingnomads.bot.arbitrage.service.pipeline;
+
+/**
+ * 忙等策略：消费者持续自旋，需要为消费者线程预留独立的CPU核心
+ */
+public final class BusySpinWaitStrategy implements WaitStrategy {
+
+    @Override
+    public void waitFor(EventRing<?> ring, long sequence, int idleCount) {
+        // 立即返回，由调用方继续自旋检查
+    }
+
+    @Override
+    public void signalAllWhenBlocking() {
+        // 消费者不会挂起，无需唤醒
+    }
+}
@@ -0,0 +1,89 @@
+package co.codingnomads.bot.arbitrage.service.pipeline;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按 交易对×交易所 合并的待检测报价
+ *
+ * 检测线程在一批报价内把每条报价写入对应键的槽位，同一个键只保留最新的一条，
+ * 第一次写入时把键标记为脏并按出现顺序记录；批次结束时只对脏键各检测一次。
+ * 行情突发时被新报价覆盖的中间报价不再检测（仍然照常落库），没有突发时每批只有一条，行为不变。
+ *
+ * 只在检测线程上使用，不是线程安全的。
+ */
+public final class ConflatingBuffer {
+
+    private final int maxExchanges;
+    private final QuoteEvent[] latest;
+    private final boolean[] dirty;
+    /** 脏键，按第一次出现的顺序 */
+    private final int[] dirtyKeys;
+    private int dirtyCount;
+
+    /** 被覆盖的报价数，只由检测线程写入 */
+    private final AtomicLong conflated = new AtomicLong();
+
+    /**
+     * @param symbolCount  交易对数量
+     * @param maxExchanges 交易所数量上限
+     */
+    public ConflatingBuffer(int symbolCount, int maxExchanges) {
+        this.maxExchanges = maxExchanges;
+        int keys = symbolCount * maxExchanges;
+        this.latest = new QuoteEvent[keys];
+        this.dirty = new boolean[keys];
+        this.dirtyKeys = new int[keys];
+        for (int i = 0; i < keys; i++) {
+            latest[i] = new QuoteEvent();
+        }
+    }
+
+    /**
+     * 写入一条报价，覆盖同一个键上尚未检测的报价
+     */
+    public void offer(QuoteEvent event) {
+        int key = event.getSymbolId() * maxExchanges + event.getExchangeId();
+        latest[key].copyFrom(event);
+        if (dirty[key]) {
+            conflated.lazySet(conflated.get() + 1);
+        } else {
+            dirty[key] = true;
+            dirtyKeys[dirtyCount++] = key;
+        }
+    }
+
+    /**
+     * 按键第一次出现的顺序把每个脏键的最新报价交给处理器，并清除脏标记
+     *
+     * 某个键处理出错时其余的键照常处理，处理完后抛出第一个异常
+     *
+     * @param handler  检测处理器
+     * @param sequence 本批最后一条报价的序号
+     */
+    public void drain(EventHandler<QuoteEvent> handler, long sequence) throws Exception {
+        int count = dirtyCount;
+        dirtyCount = 0;
+        Exception failure = null;
+        for (int i = 0; i < count; i++) {
+            int key = dirtyKeys[i];
+            dirty[key] = false;
+            try {
+                handler.onEvent(latest[key], sequence, i == count - 1);
+            } catch (Exception e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * @return 被同一个键上更新的报价覆盖、未单独检测的报价数
+     */
+    public long getConflatedCount() {
+        return conflated.get();
+    }
+}
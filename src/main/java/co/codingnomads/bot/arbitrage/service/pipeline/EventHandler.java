@@ -0,0 +1,21 @@
+package co.codingnomads.bot.arbitrage.service.pipeline;
+
+/**
+ * 流水线阶段的事件处理器
+ *
+ * 只在该阶段的消费线程上调用；事件对象属于环形缓冲区，方法返回后会被复用，
+ * 需要保留的数据必须在方法内复制出来。
+ *
+ * @param <E> 事件类型
+ */
+@FunctionalInterface
+public interface EventHandler<E> {
+
+    /**
+     * @param event      事件
+     * @param sequence   事件序号
+     * @param endOfBatch 是否为本批次最后一个事件（可用于攒批刷写）
+     * @throws Exception 处理失败，由消费线程记录日志后继续处理下一个事件
+     */
+    void onEvent(E event, long sequence, boolean endOfBatch) throws Exception;
+}
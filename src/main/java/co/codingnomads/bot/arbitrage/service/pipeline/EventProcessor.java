@@ -0,0 +1,118 @@
+package co.codingnomads.bot.arbitrage.service.pipeline;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 流水线阶段的消费线程
+ *
+ * 独占一个环形缓冲区的消费端，按序号批量取出事件交给处理器；
+ * 没有事件时按缓冲区的等待策略等待。停止时先处理完已发布的事件再退出。
+ *
+ * @param <E> 事件类型
+ */
+public final class EventProcessor<E> implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventProcessor.class);
+
+    /** 单批次最多处理的事件数，避免长时间不归还槽位 */
+    private static final int MAX_BATCH = 256;
+
+    /** 停止时等待消费线程退出的最长时间 */
+    private static final long STOP_TIMEOUT_MS = 10000;
+
+    private final String name;
+    private final EventRing<E> ring;
+    private final EventHandler<E> handler;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    /**
+     * @param name    线程名
+     * @param ring    消费的环形缓冲区
+     * @param handler 事件处理器
+     */
+    public EventProcessor(String name, EventRing<E> ring, EventHandler<E> handler) {
+        this.name = name;
+        this.ring = ring;
+        this.handler = handler;
+    }
+
+    /**
+     * 启动消费线程
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 停止消费线程，已发布的事件处理完后返回
+     */
+    public synchronized void stop() {
+        if (thread == null) {
+            return;
+        }
+        running = false;
+        ring.getWaitStrategy().signalAllWhenBlocking();
+        try {
+            thread.join(STOP_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+    @Override
+    public void run() {
+        WaitStrategy waitStrategy = ring.getWaitStrategy();
+        long next = ring.getConsumerSequence() + 1;
+        int idleCount = 0;
+        while (true) {
+            long available = ring.highestPublished(next, MAX_BATCH);
+            if (available >= next) {
+                for (long sequence = next; sequence <= available; sequence++) {
+                    try {
+                        handler.onEvent(ring.get(sequence), sequence, sequence == available);
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                        logger.error("[{}] 处理事件时出错: {}", name, e.getMessage(), e);
+                    }
+                }
+                processed.addAndGet(available - next + 1);
+                ring.release(available);
+                next = available + 1;
+                idleCount = 0;
+            } else if (!running) {
+                break;
+            } else {
+                try {
+                    waitStrategy.waitFor(ring, next, idleCount++);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    logger.warn("[{}] 消费线程被中断，剩余{}个事件未处理", name, ring.getDepth());
+                    break;
+                }
+            }
+        }
+    }
+
+    public long getProcessedCount() {
+        return processed.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+}
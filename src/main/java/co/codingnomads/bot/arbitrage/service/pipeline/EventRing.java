@@ -0,0 +1,165 @@
+package co.codingnomads.bot.arbitrage.service.pipeline;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * 预分配的多生产者/单消费者环形缓冲区
+ *
+ * 槽位中的事件对象在创建时一次性分配，之后被生产者反复填充：
+ * 1. 生产者 {@link #tryClaim()} 以CAS占用序号，缓冲区满时立即返回-1，从不阻塞
+ * 2. 填充 {@link #get(long)} 返回的事件后 {@link #publish(long)}
+ * 3. 唯一的消费者按序号顺序读取，处理完后 {@link #release(long)} 归还槽位
+ *
+ * @param <E> 事件类型
+ */
+public final class EventRing<E> {
+
+    private final Object[] events;
+    private final int mask;
+    private final int capacity;
+    private final WaitStrategy waitStrategy;
+
+    /** 每个槽位最近发布的序号，等于期望序号时表示该事件已可读 */
+    private final AtomicLongArray published;
+    /** 最近被占用的序号 */
+    private final AtomicLong producerSequence = new AtomicLong(-1);
+    /** 消费者已处理完的序号 */
+    private final AtomicLong consumerSequence = new AtomicLong(-1);
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * @param capacity     容量，向上取整为2的幂
+     * @param factory      事件对象工厂，每个槽位调用一次
+     * @param waitStrategy 消费者等待策略
+     */
+    public EventRing(int capacity, Supplier<E> factory, WaitStrategy waitStrategy) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("环形缓冲区容量必须在1到2^30之间: " + capacity);
+        }
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.capacity = size;
+        this.mask = size - 1;
+        this.waitStrategy = waitStrategy;
+        this.events = new Object[this.capacity];
+        this.published = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            events[i] = factory.get();
+            published.set(i, -1);
+        }
+    }
+
+    // ==================== 生产者 ====================
+
+    /**
+     * 占用下一个序号
+     *
+     * @return 序号；缓冲区已满时返回-1并计入拒绝数
+     */
+    public long tryClaim() {
+        while (true) {
+            long current = producerSequence.get();
+            long next = current + 1;
+            if (next - capacity > consumerSequence.get()) {
+                rejected.incrementAndGet();
+                return -1;
+            }
+            if (producerSequence.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * @param sequence 已占用或可读的序号
+     * @return 该序号对应的事件对象
+     */
+    @SuppressWarnings("unchecked")
+    public E get(long sequence) {
+        return (E) events[(int) sequence & mask];
+    }
+
+    /**
+     * 发布已填充的事件，并唤醒挂起的消费者
+     *
+     * @param sequence 占用的序号
+     */
+    public void publish(long sequence) {
+        published.set((int) sequence & mask, sequence);
+        waitStrategy.signalAllWhenBlocking();
+    }
+
+    // ==================== 消费者 ====================
+
+    /**
+     * @param sequence 序号
+     * @return 该序号的事件是否已发布
+     */
+    public boolean isAvailable(long sequence) {
+        return published.get((int) sequence & mask) == sequence;
+    }
+
+    /**
+     * 从指定序号开始查找连续已发布的最大序号
+     *
+     * @param from     起始序号
+     * @param maxBatch 最多检查的事件数
+     * @return 连续已发布的最大序号；from本身未发布时返回from-1
+     */
+    public long highestPublished(long from, int maxBatch) {
+        long sequence = from;
+        long limit = from + maxBatch;
+        while (sequence < limit && isAvailable(sequence)) {
+            sequence++;
+        }
+        return sequence - 1;
+    }
+
+    /**
+     * 归还已处理完的槽位
+     *
+     * @param sequence 已处理完的最大序号
+     */
+    public void release(long sequence) {
+        consumerSequence.lazySet(sequence);
+    }
+
+    /**
+     * @return 消费者已处理完的序号
+     */
+    public long getConsumerSequence() {
+        return consumerSequence.get();
+    }
+
+    /**
+     * @return 消费者在等待新事件时使用的策略
+     */
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    // ==================== 指标 ====================
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return 已占用但尚未被消费者处理完的事件数
+     */
+    public long getDepth() {
+        return Math.max(0, producerSequence.get() - consumerSequence.get());
+    }
+
+    /**
+     * @return 因缓冲区已满被拒绝的事件数
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+}
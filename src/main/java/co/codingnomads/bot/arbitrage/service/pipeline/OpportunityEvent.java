@@ -0,0 +1,70 @@
+package co.codingnomads.bot.arbitrage.service.pipeline;
+
+import co.codingnomads.bot.arbitrage.model.ArbitrageOpportunity;
+
+/**
+ * 套利机会通知事件（通知缓冲区槽位中的可变对象）
+ */
+public final class OpportunityEvent {
+
+    /**
+     * 事件类型
+     */
+    public enum Type {
+        /** 跨交易所价差区间开启 */
+        CROSS_OPENED,
+        /** 三角套利区间开启 */
+        TRIANGULAR_OPENED,
+        /** 区间结束，需要落库 */
+        CLOSED
+    }
+
+    private Type type;
+    private String symbol;
+    private String buyExchange;
+    private String sellExchange;
+    private long buyPrice;
+    private long sellPrice;
+    private int scale;
+    private double margin;
+    private ArbitrageOpportunity opportunity;
+    private long publishNanos;
+
+    void set(Type type, String symbol, String buyExchange, String sellExchange,
+             long buyPrice, long sellPrice, int scale, double margin, ArbitrageOpportunity opportunity) {
+        this.type = type;
+        this.symbol = symbol;
+        this.buyExchange = buyExchange;
+        this.sellExchange = sellExchange;
+        this.buyPrice = buyPrice;
+        this.sellPrice = sellPrice;
+        this.scale = scale;
+        this.margin = margin;
+        this.opportunity = opportunity;
+    }
+
+    void setPublishNanos(long publishNanos) {
+        this.publishNanos = publishNanos;
+    }
+
+    public Type getType() { return type; }
+
+    public String getSymbol() { return symbol; }
+
+    public String getBuyExchange() { return buyExchange; }
+
+    public String getSellExchange() { return sellExchange; }
+
+    public long getBuyPrice() { return buyPrice; }
+
+    public long getSellPrice() { return sellPrice; }
+
+    public int getScale() { return scale; }
+
+    public double getMargin() { return margin; }
+
+    public ArbitrageOpportunity getOpportunity() { return opportunity; }
+
+    /** @return 检测线程发布该事件时的 System.nanoTime() */
+    public long getPublishNanos() { return publishNanos; }
+}
@@ -0,0 +1,176 @@
+package co.codingnomads.bot.arbitrage.service.pipeline;
+
+import co.codingnomads.bot.arbitrage.mapper.ArbitrageOpportunityMapper;
+import co.codingnomads.bot.arbitrage.model.ArbitrageOpportunity;
+import co.codingnomads.bot.arbitrage.service.metrics.LatencyMonitor;
+import co.codingnomads.bot.arbitrage.service.metrics.LatencyStage;
+import co.codingnomads.bot.arbitrage.service.metrics.jfr.DatabaseWriteEvent;
+import co.codingnomads.bot.arbitrage.service.metrics.jfr.JfrSupport;
+import co.codingnomads.bot.arbitrage.service.quote.InstrumentRegistry;
+import co.codingnomads.bot.arbitrage.service.readmodel.OpportunityReadModel;
+import co.codingnomads.bot.arbitrage.util.FixedPointUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+/**
+ * 套利机会通知阶段
+ *
+ * 检测线程只把区间开启/结束事件写入通知缓冲区，
+ * 日志格式化和套利机会落库在独立的通知线程上完成，不占用检测线程。
+ * 缓冲区满时丢弃并计数，从不阻塞检测线程。
+ */
+@Component
+public class OpportunityNotifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(OpportunityNotifier.class);
+
+    /** 缓冲区满时每丢弃多少个事件告警一次（2的幂） */
+    private static final long DROP_WARN_INTERVAL = 1024;
+
+    @Autowired
+    private ArbitrageOpportunityMapper arbitrageMapper;
+
+    @Autowired
+    private LatencyMonitor latencyMonitor;
+
+    @Autowired
+    private InstrumentRegistry instrumentRegistry;
+
+    @Autowired
+    private OpportunityReadModel opportunityReadModel;
+
+    @Value("${arbitrage.pipeline.notify-capacity:1024}")
+    private int notifyCapacity;
+
+    private EventRing<OpportunityEvent> ring;
+    private EventProcessor<OpportunityEvent> processor;
+
+    /**
+     * 创建通知缓冲区并启动通知线程
+     */
+    @PostConstruct
+    public void init() {
+        ring = new EventRing<>(notifyCapacity, OpportunityEvent::new, new BlockingWaitStrategy());
+        processor = new EventProcessor<>("Opportunity-Notify", ring, this::onEvent);
+        processor.start();
+    }
+
+    /**
+     * 处理完剩余事件后停止通知线程
+     */
+    @PreDestroy
+    public void destroy() {
+        processor.stop();
+        if (ring.getRejectedCount() > 0) {
+            logger.warn("[OpportunityNotifier] 通知缓冲区满共丢弃{}个事件", ring.getRejectedCount());
+        }
+    }
+
+    // ==================== 发布（检测线程调用） ====================
+
+    /**
+     * 跨交易所价差区间开启
+     */
+    public void publishCrossOpened(String symbol, String buyExchange, String sellExchange,
+                                   long buyPrice, long sellPrice, int scale, double margin) {
+        publish(OpportunityEvent.Type.CROSS_OPENED, symbol, buyExchange, sellExchange,
+                buyPrice, sellPrice, scale, margin, null);
+    }
+
+    /**
+     * 三角套利区间开启
+     *
+     * @param cycle    环路径，如 usdt&gt;eth&gt;btc
+     * @param exchange 交易所
+     * @param margin   扣费后收益率（%）
+     */
+    public void publishTriangularOpened(String cycle, String exchange, double margin) {
+        publish(OpportunityEvent.Type.TRIANGULAR_OPENED, cycle, exchange, exchange, 0, 0, 0, margin, null);
+    }
+
+    /**
+     * 区间结束，落库聚合后的套利机会
+     */
+    public void publishClosed(ArbitrageOpportunity opportunity) {
+        publish(OpportunityEvent.Type.CLOSED, opportunity.getSymbol(), opportunity.getBuyExchange(),
+                opportunity.getSellExchange(), 0, 0, 0, 0, opportunity);
+    }
+
+    private void publish(OpportunityEvent.Type type, String symbol, String buyExchange, String sellExchange,
+                         long buyPrice, long sellPrice, int scale, double margin, ArbitrageOpportunity opportunity) {
+        long sequence = ring.tryClaim();
+        if (sequence < 0) {
+            // 限制告警频率，避免在检测线程上刷日志
+            long dropped = ring.getRejectedCount();
+            if ((dropped & (DROP_WARN_INTERVAL - 1)) == 1) {
+                logger.warn("[OpportunityNotifier] 通知缓冲区已满，丢弃{}事件: {}（累计丢弃{}个）", type, symbol, dropped);
+            }
+            return;
+        }
+        OpportunityEvent event = ring.get(sequence);
+        event.set(type, symbol, buyExchange, sellExchange, buyPrice, sellPrice, scale, margin, opportunity);
+        event.setPublishNanos(latencyMonitor.isEnabled() ? System.nanoTime() : 0);
+        ring.publish(sequence);
+    }
+
+    // ==================== 处理（通知线程） ====================
+
+    private void onEvent(OpportunityEvent event, long sequence, boolean endOfBatch) {
+        switch (event.getType()) {
+            case CROSS_OPENED:
+                logger.info(String.format("🚨 发现套利机会: 在%s买入(%.4f)，在%s卖出(%.4f)，利润率: %.4f%%",
+                        event.getBuyExchange(), FixedPointUtil.toDouble(event.getBuyPrice(), event.getScale()),
+                        event.getSellExchange(), FixedPointUtil.toDouble(event.getSellPrice(), event.getScale()),
+                        event.getMargin()));
+                break;
+            case TRIANGULAR_OPENED:
+                logger.info(String.format("🔺 发现三角套利机会: %s 环路 %s，扣费后收益率: %.4f%%",
+                        event.getBuyExchange(), event.getSymbol(), event.getMargin()));
+                break;
+            case CLOSED:
+                onEpisodeClosed(event.getOpportunity());
+                if (event.getPublishNanos() != 0) {
+                    latencyMonitor.record(LatencyStage.OPPORTUNITY, instrumentRegistry.exchangeId(event.getBuyExchange()),
+                            System.nanoTime() - event.getPublishNanos());
+                }
+                break;
+            default:
+                break;
+        }
+        // 释放对套利机会对象的引用
+        event.set(null, null, null, null, 0, 0, 0, 0, null);
+    }
+
+    private void onEpisodeClosed(ArbitrageOpportunity opportunity) {
+        DatabaseWriteEvent writeEvent = JfrSupport.AVAILABLE ? new DatabaseWriteEvent() : null;
+        if (writeEvent != null) {
+            writeEvent.begin();
+        }
+        try {
+            arbitrageMapper.insertArbitrageOpportunity(opportunity);
+            if (writeEvent != null) {
+                writeEvent.complete("arbitrage_opportunity", 1, true);
+            }
+            opportunityReadModel.onSaved(opportunity);
+        } catch (Exception e) {
+            if (writeEvent != null) {
+                writeEvent.complete("arbitrage_opportunity", 1, false);
+            }
+            logger.error("[OpportunityNotifier] 保存套利机会失败: " + e.getMessage(), e);
+        }
+        logger.info(String.format("✅ 套利区间结束: %s 在%s买入，在%s卖出，持续%dms，tick数%d，峰值利润率: %.4f%%，平均利润率: %.4f%%",
+                opportunity.getSymbol(), opportunity.getBuyExchange(), opportunity.getSellExchange(),
+                opportunity.getDurationMs(), opportunity.getTickCount(),
+                opportunity.getPeakMargin().doubleValue(), opportunity.getAvgMargin().doubleValue()));
+    }
+
+    public long getDroppedCount() {
+        return ring.getRejectedCount();
+    }
+}
@@ -0,0 +1,69 @@
+package co.codingnomads.bot.arbitrage.service.pipeline;
+
+/**
+ * 报价事件（流水线槽位中的可变对象）
+ *
+ * 价格和挂单量为定点数尾数，交易对和交易所为注册表中的id；
+ * receiveNanos/decodedNanos 为本地单调时钟，用于分阶段延迟统计
+ */
+public final class QuoteEvent {
+    private int symbolId;
+    private int exchangeId;
+    private long bid;
+    private long ask;
+    private long bidSize;
+    private long askSize;
+    private long eventTime;
+    private long receiveTime;
+    private long receiveNanos;
+    private long decodedNanos;
+
+    /**
+     * 填充事件
+     */
+    public void set(int symbolId, int exchangeId, long bid, long ask, long bidSize, long askSize,
+                    long eventTime, long receiveTime, long receiveNanos, long decodedNanos) {
+        this.symbolId = symbolId;
+        this.exchangeId = exchangeId;
+        this.bid = bid;
+        this.ask = ask;
+        this.bidSize = bidSize;
+        this.askSize = askSize;
+        this.eventTime = eventTime;
+        this.receiveTime = receiveTime;
+        this.receiveNanos = receiveNanos;
+        this.decodedNanos = decodedNanos;
+    }
+
+    /**
+     * 复制另一个事件的内容
+     */
+    public void copyFrom(QuoteEvent other) {
+        set(other.symbolId, other.exchangeId, other.bid, other.ask, other.bidSize, other.askSize,
+                other.eventTime, other.receiveTime, other.receiveNanos, other.decodedNanos);
+    }
+
+    public int getSymbolId() { return symbolId; }
+
+    public int getExchangeId() { return exchangeId; }
+
+    public long getBid() { return bid; }
+
+    public long getAsk() { return ask; }
+
+    public long getBidSize() { return bidSize; }
+
+    public long getAskSize() { return askSize; }
+
+    /** @return 交易所事件时间（毫秒），未知时为0 */
+    public long getEventTime() { return eventTime; }
+
+    /** @return 本地接收时间（毫秒） */
+    public long getReceiveTime() { return receiveTime; }
+
+    /** @return 收到该帧时的 System.nanoTime() */
+    public long getReceiveNanos() { return receiveNanos; }
+
+    /** @return 解码完成、写入接入缓冲区前的 System.nanoTime() */
+    public long getDecodedNanos() { return decodedNanos; }
+}
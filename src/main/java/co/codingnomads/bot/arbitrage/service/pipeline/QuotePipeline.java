@@ -0,0 +1,169 @@
+package co.codingnomads.bot.arbitrage.service.pipeline;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * 行情处理流水线
+ *
+ * 三个阶段由预分配的环形缓冲区连接：
+ * 1. 接入：WebSocket读线程把报价写入接入缓冲区，缓冲区满时丢弃并计数，从不阻塞
+ * 2. 检测：唯一的检测线程独占全部报价状态（报价表、最优报价堆、区间跟踪），
+ *    按到达顺序串行处理，无需加锁；准入检查不通过的报价（如推送延迟过大）
+ *    在检测和持久化之前丢弃。启用合并时（见 {@link ConflatingBuffer}），
+ *    一批报价中同一个 交易对×交易所 只检测最新的一条，批次结束时统一检测
+ * 3. 持久化：检测线程把报价转交给持久化缓冲区，由独立线程落库；
+ *    持久化缓冲区满时丢弃并计数，慢速的数据库不会拖慢检测线程
+ */
+public class QuotePipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuotePipeline.class);
+
+    private final EventRing<QuoteEvent> ingestRing;
+    private final EventRing<QuoteEvent> persistRing;
+    private final EventProcessor<QuoteEvent> detectProcessor;
+    private final EventProcessor<QuoteEvent> persistProcessor;
+    /** 检测前的合并缓冲，为null时逐条检测 */
+    private final ConflatingBuffer conflatingBuffer;
+
+    /** 准入检查不通过被丢弃的报价数，只由检测线程写入 */
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * @param ingestCapacity   接入缓冲区容量
+     * @param persistCapacity  持久化缓冲区容量
+     * @param waitStrategyType 检测线程的等待策略
+     * @param admission        准入检查，只在检测线程上调用；返回false的报价不检测也不落库
+     * @param detectHandler    检测阶段处理器，只在检测线程上调用
+     * @param persistHandler   持久化阶段处理器，只在持久化线程上调用
+     * @param conflatingBuffer 检测前的合并缓冲，为null时逐条检测
+     */
+    public QuotePipeline(int ingestCapacity, int persistCapacity, WaitStrategy.Type waitStrategyType,
+                         Predicate<QuoteEvent> admission,
+                         EventHandler<QuoteEvent> detectHandler, EventHandler<QuoteEvent> persistHandler,
+                         ConflatingBuffer conflatingBuffer) {
+        this.conflatingBuffer = conflatingBuffer;
+        this.ingestRing = new EventRing<>(ingestCapacity, QuoteEvent::new, waitStrategyType.create());
+        this.persistRing = new EventRing<>(persistCapacity, QuoteEvent::new, new BlockingWaitStrategy());
+        this.detectProcessor = new EventProcessor<>("Quote-Detect", ingestRing, (event, sequence, endOfBatch) -> {
+            if (admission.test(event)) {
+                // 先转交持久化，检测出错时行情仍然落库
+                forwardToPersist(event);
+                if (conflatingBuffer == null) {
+                    detectHandler.onEvent(event, sequence, endOfBatch);
+                    return;
+                }
+                conflatingBuffer.offer(event);
+            } else {
+                rejected.lazySet(rejected.get() + 1);
+            }
+            // 批次的最后一条即使未通过准入检查，也要检测本批已合并的报价
+            if (conflatingBuffer != null && endOfBatch) {
+                conflatingBuffer.drain(detectHandler, sequence);
+            }
+        });
+        this.persistProcessor = new EventProcessor<>("Quote-Persist", persistRing, persistHandler);
+    }
+
+    /**
+     * 启动检测和持久化线程
+     */
+    public void start() {
+        persistProcessor.start();
+        detectProcessor.start();
+    }
+
+    /**
+     * 停止流水线：检测线程处理完已接入的报价后，持久化线程再处理完剩余报价
+     */
+    public void stop() {
+        detectProcessor.stop();
+        persistProcessor.stop();
+    }
+
+    /**
+     * 接入一条报价（WebSocket读线程调用）
+     *
+     * @return 是否成功接入；接入缓冲区已满时返回false
+     */
+    public boolean publish(int symbolId, int exchangeId, long bid, long ask, long bidSize, long askSize,
+                           long eventTime, long receiveTime, long receiveNanos, long decodedNanos) {
+        long sequence = ingestRing.tryClaim();
+        if (sequence < 0) {
+            return false;
+        }
+        ingestRing.get(sequence).set(symbolId, exchangeId, bid, ask, bidSize, askSize,
+                eventTime, receiveTime, receiveNanos, decodedNanos);
+        ingestRing.publish(sequence);
+        return true;
+    }
+
+    private void forwardToPersist(QuoteEvent event) {
+        long sequence = persistRing.tryClaim();
+        if (sequence < 0) {
+            return;
+        }
+        persistRing.get(sequence).copyFrom(event);
+        persistRing.publish(sequence);
+    }
+
+    // ==================== 指标 ====================
+
+    public long getIngestDepth() {
+        return ingestRing.getDepth();
+    }
+
+    /**
+     * @return 接入缓冲区满被丢弃的报价数
+     */
+    public long getIngestDroppedCount() {
+        return ingestRing.getRejectedCount();
+    }
+
+    public long getPersistDepth() {
+        return persistRing.getDepth();
+    }
+
+    /**
+     * @return 持久化缓冲区满被丢弃的报价数
+     */
+    public long getPersistDroppedCount() {
+        return persistRing.getRejectedCount();
+    }
+
+    /**
+     * @return 准入检查不通过被丢弃的报价数
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * @return 被同一个键上更新的报价覆盖、未单独检测的报价数
+     */
+    public long getConflatedCount() {
+        return conflatingBuffer == null ? 0 : conflatingBuffer.getConflatedCount();
+    }
+
+    public long getDetectedCount() {
+        return detectProcessor.getProcessedCount();
+    }
+
+    public long getPersistedCount() {
+        return persistProcessor.getProcessedCount();
+    }
+
+    /**
+     * 打印流水线指标
+     */
+    public void logStats() {
+        logger.info("[QuotePipeline] 检测: 已处理={} 积压={}/{} 丢弃={} 过期={} 合并={} 失败={} | 持久化: 已处理={} 积压={}/{} 丢弃={} 失败={}",
+                detectProcessor.getProcessedCount(), ingestRing.getDepth(), ingestRing.getCapacity(),
+                ingestRing.getRejectedCount(), rejected.get(), getConflatedCount(), detectProcessor.getFailedCount(),
+                persistProcessor.getProcessedCount(), persistRing.getDepth(), persistRing.getCapacity(),
+                persistRing.getRejectedCount(), persistProcessor.getFailedCount());
+    }
+}
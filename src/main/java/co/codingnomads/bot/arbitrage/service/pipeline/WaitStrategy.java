@@ -0,0 +1,52 @@
+package co.codingnomads.bot.arbitrage.service.pipeline;
+
+/**
+ * 消费者等待策略
+ *
+ * 决定消费者在环形缓冲区没有新事件时如何等待，在CPU占用与延迟之间取舍：
+ * - BLOCKING：挂起线程，生产者发布后唤醒，最省CPU，唤醒有数十微秒延迟
+ * - YIELDING：先自旋一段时间再让出CPU，延迟较低，空闲时仍占用部分CPU
+ * - BUSY_SPIN：持续自旋，延迟最低，独占一个CPU核心
+ */
+public interface WaitStrategy {
+
+    /**
+     * 等待策略类型（对应配置项取值）
+     */
+    enum Type {
+        BLOCKING,
+        YIELDING,
+        BUSY_SPIN;
+
+        /**
+         * @return 新的等待策略实例
+         */
+        public WaitStrategy create() {
+            switch (this) {
+                case YIELDING:
+                    return new YieldingWaitStrategy();
+                case BUSY_SPIN:
+                    return new BusySpinWaitStrategy();
+                default:
+                    return new BlockingWaitStrategy();
+            }
+        }
+    }
+
+    /**
+     * 等待指定序号的事件发布
+     *
+     * 返回时事件不一定已经可用（例如超时），调用方需要重新检查
+     *
+     * @param ring      环形缓冲区
+     * @param sequence  等待的序号
+     * @param idleCount 连续空等的次数
+     * @throws InterruptedException 线程被中断
+     */
+    void waitFor(EventRing<?> ring, long sequence, int idleCount) throws InterruptedException;
+
+    /**
+     * 生产者发布事件后调用，唤醒挂起的消费者
+     */
+    void signalAllWhenBlocking();
+}
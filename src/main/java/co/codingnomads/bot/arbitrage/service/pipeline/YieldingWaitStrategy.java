@@ -0,0 +1,22 @@
+package co.codingnomads.bot.arbitrage.service.pipeline;
+
+/**
+ * 自旋后让出CPU的等待策略
+ */
+public final class YieldingWaitStrategy implements WaitStrategy {
+
+    /** 让出CPU之前的自旋次数 */
+    private static final int SPIN_TRIES = 100;
+
+    @Override
+    public void waitFor(EventRing<?> ring, long sequence, int idleCount) {
+        if (idleCount >= SPIN_TRIES) {
+            Thread.yield();
+        }
+    }
+
+    @Override
+    public void signalAllWhenBlocking() {
+        // 消费者不会挂起，无需唤醒
+    }
+}
@@ -0,0 +1,169 @@
+package co.codingnomads.bot.arbitrage.service.quote;
+
+import co.codingnomads.bot.arbitrage.util.FixedPointUtil;
+
+/**
+ * 单个交易对的跨交易所最优报价
+ *
+ * 用两个按交易所id索引的堆分别维护所有交易所中的最高买价和最低卖价：
+ * - 某个交易所更新报价时只调整它在两个堆中的位置，O(log N)
+ * - 检测时只需看两个堆顶（同一交易所同时占据两个堆顶时再看次优），O(1)
+ * 因此接入更多交易所不会让每个tick的检测成本成倍增加。
+ *
+ * 过期报价在检测时从堆中惰性移除，下次更新时重新加入。
+ * 本类不是线程安全的，复合操作由调用方在同一把锁内完成。
+ */
+public class CrossVenueBook {
+
+    private final IndexedPriceHeap bids;
+    private final IndexedPriceHeap asks;
+    private final long[] bidPrices;
+    private final long[] askPrices;
+    private final long[] timestamps;
+
+    /**
+     * @param maxExchanges 交易所数量上限
+     */
+    public CrossVenueBook(int maxExchanges) {
+        this.bids = new IndexedPriceHeap(maxExchanges, true);
+        this.asks = new IndexedPriceHeap(maxExchanges, false);
+        this.bidPrices = new long[maxExchanges];
+        this.askPrices = new long[maxExchanges];
+        this.timestamps = new long[maxExchanges];
+    }
+
+    /**
+     * 更新某个交易所的最优报价
+     *
+     * @param exchangeId 交易所id
+     * @param bid        买一价尾数
+     * @param ask        卖一价尾数
+     * @param timestamp  报价时间（对齐到本地时钟的交易所事件时间，毫秒）
+     */
+    public void update(int exchangeId, long bid, long ask, long timestamp) {
+        bidPrices[exchangeId] = bid;
+        askPrices[exchangeId] = ask;
+        timestamps[exchangeId] = timestamp;
+        bids.upsert(exchangeId, bid);
+        asks.upsert(exchangeId, ask);
+    }
+
+    /**
+     * 移除某个交易所的报价（断线或过期）
+     *
+     * @param exchangeId 交易所id
+     */
+    public void remove(int exchangeId) {
+        bids.remove(exchangeId);
+        asks.remove(exchangeId);
+    }
+
+    /**
+     * 找出当前最优的跨交易所价差（买入最低卖价、卖出最高买价，且两边不是同一交易所）
+     *
+     * 不论价差是否为正都会输出，由调用方按阈值判断
+     *
+     * @param now      当前时间（毫秒）
+     * @param expiryMs 报价过期时间
+     * @param out      结果输出对象
+     * @return 有效报价的交易所不足两个时返回false
+     */
+    public boolean findBestCross(long now, long expiryMs, Cross out) {
+        evictStaleTop(bids, now, expiryMs);
+        evictStaleTop(asks, now, expiryMs);
+        if (bids.size() < 2) {
+            return false;
+        }
+
+        int bestBid = bids.top();
+        int bestAsk = asks.top();
+        if (bestBid != bestAsk) {
+            out.set(bestAsk, bestBid, askPrices[bestAsk], bidPrices[bestBid]);
+            return true;
+        }
+
+        // 同一交易所同时是最高买价和最低卖价：比较 次低卖价→最高买价 与 最低卖价→次高买价
+        int secondAsk = freshSecond(asks, now, expiryMs);
+        int secondBid = freshSecond(bids, now, expiryMs);
+        if (secondAsk < 0 || secondBid < 0) {
+            return false;
+        }
+        double sellBestBid = FixedPointUtil.marginPercent(askPrices[secondAsk], bidPrices[bestBid]);
+        double buyBestAsk = FixedPointUtil.marginPercent(askPrices[bestAsk], bidPrices[secondBid]);
+        if (sellBestBid >= buyBestAsk) {
+            out.set(secondAsk, bestBid, askPrices[secondAsk], bidPrices[bestBid]);
+        } else {
+            out.set(bestAsk, secondBid, askPrices[bestAsk], bidPrices[secondBid]);
+        }
+        return true;
+    }
+
+    /**
+     * @return 该交易所报价是否存在且未过期
+     */
+    public boolean isFresh(int exchangeId, long now, long expiryMs) {
+        return bids.contains(exchangeId) && now - timestamps[exchangeId] < expiryMs;
+    }
+
+    /**
+     * @return 该交易所最近一次报价的时间（毫秒）
+     */
+    public long timestamp(int exchangeId) {
+        return timestamps[exchangeId];
+    }
+
+    public long bid(int exchangeId) {
+        return bidPrices[exchangeId];
+    }
+
+    public long ask(int exchangeId) {
+        return askPrices[exchangeId];
+    }
+
+    /**
+     * @return 当前在堆中的交易所数量
+     */
+    public int venueCount() {
+        return bids.size();
+    }
+
+    private void evictStaleTop(IndexedPriceHeap heap, long now, long expiryMs) {
+        int top;
+        while ((top = heap.top()) >= 0 && now - timestamps[top] >= expiryMs) {
+            remove(top);
+        }
+    }
+
+    private int freshSecond(IndexedPriceHeap heap, long now, long expiryMs) {
+        int second;
+        while ((second = heap.second()) >= 0 && now - timestamps[second] >= expiryMs) {
+            remove(second);
+        }
+        return second;
+    }
+
+    /**
+     * 跨交易所价差检测结果（调用方预分配并重复使用）
+     */
+    public static final class Cross {
+        private int buyExchangeId;
+        private int sellExchangeId;
+        private long buyPrice;
+        private long sellPrice;
+
+        void set(int buyExchangeId, int sellExchangeId, long buyPrice, long sellPrice) {
+            this.buyExchangeId = buyExchangeId;
+            this.sellExchangeId = sellExchangeId;
+            this.buyPrice = buyPrice;
+            this.sellPrice = sellPrice;
+        }
+
+        public int getBuyExchangeId() { return buyExchangeId; }
+
+        public int getSellExchangeId() { return sellExchangeId; }
+
+        public long getBuyPrice() { return buyPrice; }
+
+        public long getSellPrice() { return sellPrice; }
+    }
+}
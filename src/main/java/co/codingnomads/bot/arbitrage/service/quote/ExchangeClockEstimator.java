@@ -0,0 +1,156 @@
+package co.codingnomads.bot.arbitrage.service.quote;
+
+import co.codingnomads.bot.arbitrage.config.ArbitrageConfig;
+
+/**
+ * 交易所时钟偏差与推送延迟估计
+ *
+ * 每条带交易所事件时间的报价产生一个样本：本地接收时间 - 交易所事件时间 = 时钟偏差 + 推送延迟。
+ * 每个交易所保留最近 {@link ArbitrageConfig#TIME_DIFF_SAMPLES} 个样本：
+ * - 时钟偏差取窗口内的最小样本（推送延迟最小的那条报价最接近纯时钟偏差）
+ * - 单条报价的推送延迟 = 样本 - 时钟偏差；平均推送延迟 = 样本均值 - 时钟偏差
+ *
+ * 交易所事件时间加上时钟偏差即为对齐到本地时钟的报价时间，用于跨交易所配对。
+ * 允许的时间差阈值在样本不足时为 {@link ArbitrageConfig#INITIAL_MAX_TIMESTAMP_DIFF_MS}，
+ * 之后为平均推送延迟的 {@link ArbitrageConfig#TIME_DIFF_THRESHOLD_MULTIPLIER} 倍，
+ * 不低于初始阈值、不超过 {@link ArbitrageConfig#PRICE_EXPIRY_MS}。
+ *
+ * 本类只在检测线程上更新；偏差和平均延迟以volatile发布，供统计线程读取。
+ */
+public class ExchangeClockEstimator {
+
+    private final ExchangeClock[] clocks;
+
+    /**
+     * @param maxExchanges 交易所数量上限
+     */
+    public ExchangeClockEstimator(int maxExchanges) {
+        this.clocks = new ExchangeClock[maxExchanges];
+        for (int i = 0; i < maxExchanges; i++) {
+            clocks[i] = new ExchangeClock(ArbitrageConfig.TIME_DIFF_SAMPLES);
+        }
+    }
+
+    /**
+     * 记录一条报价的时间样本
+     *
+     * @param exchangeId  交易所id
+     * @param eventTime   交易所事件时间（毫秒），未知时为0
+     * @param receiveTime 本地接收时间（毫秒）
+     * @return 该报价的推送延迟（毫秒）；没有事件时间时返回0
+     */
+    public long sample(int exchangeId, long eventTime, long receiveTime) {
+        if (eventTime <= 0) {
+            return 0;
+        }
+        ExchangeClock clock = clocks[exchangeId];
+        long diff = receiveTime - eventTime;
+        clock.add(diff);
+        return diff - clock.offset;
+    }
+
+    /**
+     * 把交易所事件时间对齐到本地时钟
+     *
+     * @return 对齐后的报价时间（毫秒）；没有事件时间或尚无样本时返回本地接收时间
+     */
+    public long alignedTime(int exchangeId, long eventTime, long receiveTime) {
+        ExchangeClock clock = clocks[exchangeId];
+        if (eventTime <= 0 || clock.count == 0) {
+            return receiveTime;
+        }
+        return eventTime + clock.offset;
+    }
+
+    /**
+     * @return 单个交易所报价允许的最大推送延迟（毫秒）
+     */
+    public long maxDelayMs(int exchangeId) {
+        return threshold(clocks[exchangeId].warmedUp() ? clocks[exchangeId].meanDelay : -1);
+    }
+
+    /**
+     * @return 两个交易所报价对齐后允许的最大时间差（毫秒）
+     */
+    public long maxPairingGapMs(int exchangeA, int exchangeB) {
+        ExchangeClock a = clocks[exchangeA];
+        ExchangeClock b = clocks[exchangeB];
+        if (!a.warmedUp() || !b.warmedUp()) {
+            return ArbitrageConfig.INITIAL_MAX_TIMESTAMP_DIFF_MS;
+        }
+        return threshold(a.meanDelay + b.meanDelay);
+    }
+
+    private static long threshold(long meanDelay) {
+        if (meanDelay < 0) {
+            return ArbitrageConfig.INITIAL_MAX_TIMESTAMP_DIFF_MS;
+        }
+        long adaptive = (long) Math.ceil(meanDelay * ArbitrageConfig.TIME_DIFF_THRESHOLD_MULTIPLIER);
+        return Math.min(Math.max(adaptive, ArbitrageConfig.INITIAL_MAX_TIMESTAMP_DIFF_MS),
+                ArbitrageConfig.PRICE_EXPIRY_MS);
+    }
+
+    /**
+     * @return 交易所时钟偏差估计（本地时钟 - 交易所时钟，含最小推送延迟，毫秒）
+     */
+    public long offset(int exchangeId) {
+        return clocks[exchangeId].offset;
+    }
+
+    /**
+     * @return 窗口内的平均推送延迟（毫秒）
+     */
+    public long meanDelay(int exchangeId) {
+        return clocks[exchangeId].meanDelay;
+    }
+
+    public boolean isWarmedUp(int exchangeId) {
+        return clocks[exchangeId].warmedUp();
+    }
+
+    /**
+     * 单个交易所的滑动样本窗口
+     */
+    private static final class ExchangeClock {
+        private final long[] samples;
+        private int next;
+        private volatile int count;
+        private long sum;
+        private volatile long offset;
+        private volatile long meanDelay;
+
+        ExchangeClock(int capacity) {
+            this.samples = new long[capacity];
+        }
+
+        void add(long diff) {
+            long evicted = samples[next];
+            boolean full = count == samples.length;
+            samples[next] = diff;
+            next = next + 1 == samples.length ? 0 : next + 1;
+            if (full) {
+                sum -= evicted;
+            } else {
+                count++;
+            }
+            sum += diff;
+
+            long min = offset;
+            if (count == 1 || diff < min) {
+                min = diff;
+            } else if (full && evicted == min) {
+                // 移出的是最小样本，重新扫描窗口
+                min = Long.MAX_VALUE;
+                for (int i = 0; i < count; i++) {
+                    min = Math.min(min, samples[i]);
+                }
+            }
+            offset = min;
+            meanDelay = sum / count - min;
+        }
+
+        boolean warmedUp() {
+            return count == samples.length;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package co.codingnomads.bot.arbitrage.service.quote;
+
+import java.util.Arrays;
+
+/**
+ * 按交易所id索引的价格堆
+ *
+ * 堆中元素为交易所id，键为该交易所的价格尾数；
+ * 通过位置索引数组支持按id原地更新和删除，单次操作 O(log N)，不分配对象。
+ * 最大堆用于最优买价（bid），最小堆用于最优卖价（ask）。
+ */
+class IndexedPriceHeap {
+
+    private final boolean maxHeap;
+    private final int[] heap;
+    private final int[] positions;
+    private final long[] keys;
+    private int size;
+
+    /**
+     * @param capacity 交易所数量上限
+     * @param maxHeap  true为最大堆，false为最小堆
+     */
+    IndexedPriceHeap(int capacity, boolean maxHeap) {
+        this.maxHeap = maxHeap;
+        this.heap = new int[capacity];
+        this.positions = new int[capacity];
+        this.keys = new long[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * 插入或更新某个交易所的价格
+     */
+    void upsert(int id, long key) {
+        int position = positions[id];
+        if (position < 0) {
+            keys[id] = key;
+            heap[size] = id;
+            positions[id] = size;
+            siftUp(size++);
+            return;
+        }
+        long old = keys[id];
+        keys[id] = key;
+        if (better(key, old)) {
+            siftUp(position);
+        } else if (key != old) {
+            siftDown(position);
+        }
+    }
+
+    /**
+     * 移除某个交易所（例如报价过期）
+     */
+    void remove(int id) {
+        int position = positions[id];
+        if (position < 0) {
+            return;
+        }
+        int last = --size;
+        positions[id] = -1;
+        if (position == last) {
+            return;
+        }
+        int moved = heap[last];
+        heap[position] = moved;
+        positions[moved] = position;
+        siftUp(position);
+        siftDown(positions[moved]);
+    }
+
+    /**
+     * @return 堆顶交易所id，堆为空时返回-1
+     */
+    int top() {
+        return size == 0 ? -1 : heap[0];
+    }
+
+    /**
+     * 次优交易所一定是堆顶的某个子节点，O(1)
+     *
+     * @return 次优交易所id，不足两个元素时返回-1
+     */
+    int second() {
+        if (size < 2) {
+            return -1;
+        }
+        if (size == 2) {
+            return heap[1];
+        }
+        return better(keys[heap[1]], keys[heap[2]]) ? heap[1] : heap[2];
+    }
+
+    long key(int id) {
+        return keys[id];
+    }
+
+    boolean contains(int id) {
+        return positions[id] >= 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private boolean better(long a, long b) {
+        return maxHeap ? a > b : a < b;
+    }
+
+    private void siftUp(int index) {
+        int id = heap[index];
+        long key = keys[id];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            int parentId = heap[parent];
+            if (!better(key, keys[parentId])) {
+                break;
+            }
+            heap[index] = parentId;
+            positions[parentId] = index;
+            index = parent;
+        }
+        heap[index] = id;
+        positions[id] = index;
+    }
+
+    private void siftDown(int index) {
+        int id = heap[index];
+        long key = keys[id];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && better(keys[heap[right]], keys[heap[child]])) {
+                child = right;
+            }
+            int childId = heap[child];
+            if (!better(keys[childId], key)) {
+                break;
+            }
+            heap[index] = childId;
+            positions[childId] = index;
+            index = child;
+        }
+        heap[index] = id;
+        positions[id] = index;
+    }
+}
@@ -0,0 +1,172 @@
+package co.codingnomads.bot.arbitrage.service.quote;
+
+import co.codingnomads.bot.arbitrage.config.ArbitrageConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 交易对/交易所注册表
+ *
+ * 负责：
+ * 1. 从配置（arbitrage.symbols）读取监控的交易对列表
+ * 2. 把交易对和交易所名称驻留为从0开始的连续int id，供报价表等按下标寻址
+ * 3. 维护每个交易对的价格定点精度（arbitrage.price-scale.&lt;symbol&gt;）
+ *    和挂单量定点精度（arbitrage.quantity-scale.&lt;symbol&gt;）
+ *
+ * 交易对在启动时一次性注册，之后只读；交易所数量上限固定，便于预分配报价表
+ */
+@Component
+public class InstrumentRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(InstrumentRegistry.class);
+
+    @Autowired
+    private Environment environment;
+
+    /** 监控的交易对列表（逗号分隔） */
+    @Value("${arbitrage.symbols:ethusdt}")
+    private String symbolsProperty;
+
+    /** 预分配的交易所数量上限 */
+    @Value("${arbitrage.max-exchanges:8}")
+    private int maxExchanges;
+
+    private final Map<String, Integer> symbolIds = new HashMap<>();
+    private final List<String> symbols = new ArrayList<>();
+    private int[] priceScales;
+    private int[] quantityScales;
+
+    // 交易所允许运行期追加注册，使用并发容器保证无锁读取
+    private final Map<String, Integer> exchangeIds = new ConcurrentHashMap<>();
+    private final List<String> exchanges = new CopyOnWriteArrayList<>();
+
+    /**
+     * 读取配置并注册交易对和已接入的交易所
+     */
+    @PostConstruct
+    public void init() {
+        for (String raw : symbolsProperty.split(",")) {
+            String symbol = raw.trim().toLowerCase(Locale.ROOT);
+            if (!symbol.isEmpty() && !symbolIds.containsKey(symbol)) {
+                symbolIds.put(symbol, symbols.size());
+                symbols.add(symbol);
+            }
+        }
+        if (symbols.isEmpty()) {
+            throw new IllegalStateException("arbitrage.symbols 未配置任何交易对");
+        }
+
+        priceScales = new int[symbols.size()];
+        quantityScales = new int[symbols.size()];
+        for (int i = 0; i < symbols.size(); i++) {
+            priceScales[i] = environment.getProperty("arbitrage.price-scale." + symbols.get(i),
+                    Integer.class, ArbitrageConfig.PRICE_SCALE);
+            quantityScales[i] = environment.getProperty("arbitrage.quantity-scale." + symbols.get(i),
+                    Integer.class, ArbitrageConfig.QUANTITY_SCALE);
+        }
+
+        registerExchange(ArbitrageConfig.BINANCE_EXCHANGE_NAME);
+        registerExchange(ArbitrageConfig.HUOBI_EXCHANGE_NAME);
+
+        logger.info("[InstrumentRegistry] 已注册{}个交易对: {}", symbols.size(), symbols);
+    }
+
+    // ==================== 交易对 ====================
+
+    /**
+     * @param symbol 交易对（小写，如 ethusdt）
+     * @return 交易对id，未注册时返回-1
+     */
+    public int symbolId(String symbol) {
+        Integer id = symbolIds.get(symbol);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @param symbolId 交易对id
+     * @return 交易对名称（驻留后的同一个String实例）
+     */
+    public String symbolName(int symbolId) {
+        return symbols.get(symbolId);
+    }
+
+    /**
+     * @param symbolId 交易对id
+     * @return 该交易对的价格定点精度
+     */
+    public int priceScale(int symbolId) {
+        return priceScales[symbolId];
+    }
+
+    /**
+     * @param symbolId 交易对id
+     * @return 该交易对的挂单量定点精度
+     */
+    public int quantityScale(int symbolId) {
+        return quantityScales[symbolId];
+    }
+
+    public int symbolCount() {
+        return symbols.size();
+    }
+
+    public List<String> getSymbols() {
+        return Collections.unmodifiableList(symbols);
+    }
+
+    // ==================== 交易所 ====================
+
+    /**
+     * 注册交易所；重复注册返回已有id
+     *
+     * @param exchange 交易所名称
+     * @return 交易所id
+     */
+    public synchronized int registerExchange(String exchange) {
+        Integer id = exchangeIds.get(exchange);
+        if (id != null) {
+            return id;
+        }
+        if (exchanges.size() >= maxExchanges) {
+            throw new IllegalStateException("交易所数量超过上限 arbitrage.max-exchanges=" + maxExchanges);
+        }
+        exchangeIds.put(exchange, exchanges.size());
+        exchanges.add(exchange);
+        return exchanges.size() - 1;
+    }
+
+    /**
+     * @param exchange 交易所名称
+     * @return 交易所id，未注册时返回-1
+     */
+    public int exchangeId(String exchange) {
+        Integer id = exchangeIds.get(exchange);
+        return id == null ? -1 : id;
+    }
+
+    public String exchangeName(int exchangeId) {
+        return exchanges.get(exchangeId);
+    }
+
+    public int exchangeCount() {
+        return exchanges.size();
+    }
+
+    public int maxExchanges() {
+        return maxExchanges;
+    }
+}
@@ -0,0 +1,118 @@
+package co.codingnomads.bot.arbitrage.service.quote;
+
+import co.codingnomads.bot.arbitrage.model.Quote;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 最优报价表 [symbol][exchange]
+ *
+ * 启动时按 交易对数 × 交易所上限 预分配，每个槽位固定8个long（64字节）：
+ * 版本号、买一价、卖一价、买一量、卖一量、时间戳，其余保留。
+ *
+ * 读写采用顺序锁（seqlock）：
+ * - 写入时先把版本号改为奇数，写完数据后再加一变回偶数
+ * - 读取时前后两次版本号相同且为偶数才算读到一致的快照，否则重读
+ * 读线程不加锁，也不会阻塞写线程
+ */
+@Component
+public class QuoteTable {
+
+    private static final int STRIDE = 8;
+    private static final int VERSION = 0;
+    private static final int BID = 1;
+    private static final int ASK = 2;
+    private static final int BID_SIZE = 3;
+    private static final int ASK_SIZE = 4;
+    private static final int TIMESTAMP = 5;
+
+    @Autowired
+    private InstrumentRegistry instrumentRegistry;
+
+    private int maxExchanges;
+    private AtomicLongArray slots;
+
+    /**
+     * 按注册表大小预分配槽位
+     */
+    @PostConstruct
+    public void init() {
+        maxExchanges = instrumentRegistry.maxExchanges();
+        slots = new AtomicLongArray(instrumentRegistry.symbolCount() * maxExchanges * STRIDE);
+    }
+
+    /**
+     * 写入最新报价
+     *
+     * @param symbolId   交易对id
+     * @param exchangeId 交易所id
+     * @param bid        买一价尾数
+     * @param ask        卖一价尾数
+     * @param bidSize    买一量尾数（未知时为0）
+     * @param askSize    卖一量尾数（未知时为0）
+     * @param timestamp  时间戳（毫秒）
+     */
+    public void update(int symbolId, int exchangeId, long bid, long ask, long bidSize, long askSize, long timestamp) {
+        int base = slotBase(symbolId, exchangeId);
+        long version;
+        // 通常每个槽位只有一个写线程，CAS只是防止多个写线程同时进入
+        do {
+            version = slots.get(base + VERSION);
+        } while ((version & 1) != 0 || !slots.compareAndSet(base + VERSION, version, version + 1));
+
+        slots.lazySet(base + BID, bid);
+        slots.lazySet(base + ASK, ask);
+        slots.lazySet(base + BID_SIZE, bidSize);
+        slots.lazySet(base + ASK_SIZE, askSize);
+        slots.lazySet(base + TIMESTAMP, timestamp);
+        slots.set(base + VERSION, version + 2);
+    }
+
+    /**
+     * 读取一致的报价快照
+     *
+     * @param symbolId   交易对id
+     * @param exchangeId 交易所id
+     * @param target     快照写入的目标对象
+     * @return 是否已有报价（从未写入过时返回false）
+     */
+    public boolean read(int symbolId, int exchangeId, Quote target) {
+        int base = slotBase(symbolId, exchangeId);
+        long before;
+        long bid;
+        long ask;
+        long bidSize;
+        long askSize;
+        long timestamp;
+        do {
+            before = slots.get(base + VERSION);
+            bid = slots.get(base + BID);
+            ask = slots.get(base + ASK);
+            bidSize = slots.get(base + BID_SIZE);
+            askSize = slots.get(base + ASK_SIZE);
+            timestamp = slots.get(base + TIMESTAMP);
+        } while ((before & 1) != 0 || before != slots.get(base + VERSION));
+
+        target.set(symbolId, exchangeId,
+                instrumentRegistry.symbolName(symbolId), instrumentRegistry.exchangeName(exchangeId),
+                instrumentRegistry.priceScale(symbolId), instrumentRegistry.quantityScale(symbolId),
+                bid, ask, bidSize, askSize, timestamp);
+        return before != 0;
+    }
+
+    /**
+     * @param symbolId   交易对id
+     * @param exchangeId 交易所id
+     * @return 槽位的版本号（每次写入加2，可用于判断是否有更新）
+     */
+    public long version(int symbolId, int exchangeId) {
+        return slots.get(slotBase(symbolId, exchangeId) + VERSION);
+    }
+
+    private int slotBase(int symbolId, int exchangeId) {
+        return (symbolId * maxExchanges + exchangeId) * STRIDE;
+    }
+}
@@ -0,0 +1,147 @@
+package co.codingnomads.bot.arbitrage.service.readmodel;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按天分桶的计数器
+ *
+ * 写入方在事件发生时累加，查询直接读内存，开销与表大小无关。进程启动当天，
+ * 启动之前已经写入数据库的部分通过 {@link Loader} 按 [当天0点, 启动时间) 的范围查询补齐，
+ * 每个键每天最多查询一次；跨天后自动切换到新的桶。
+ *
+ * 日期按JVM默认时区划分，与数据库 NOW() 的时区一致时结果与原来的 CURDATE() 统计相同。
+ */
+public final class DailyCounter {
+
+    /** 合计使用的键 */
+    private static final String TOTAL = "";
+
+    /**
+     * 启动前数据的回查（应使用可走索引的范围条件）
+     */
+    @FunctionalInterface
+    public interface Loader {
+        /**
+         * @param key  统计的键，为null时统计全部
+         * @param from 起始时间（含）
+         * @param to   结束时间（不含）
+         * @return 记录数
+         */
+        int count(String key, LocalDateTime from, LocalDateTime to);
+    }
+
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final long bootMillis = System.currentTimeMillis();
+    private final Loader loader;
+    private volatile Bucket bucket;
+
+    public DailyCounter(Loader loader) {
+        this.loader = loader;
+        this.bucket = newBucket(bootMillis);
+    }
+
+    /**
+     * 累加当天的计数
+     *
+     * @param key   统计的键（如交易所名称），为null时只计入合计
+     * @param delta 增量
+     */
+    public void add(String key, long delta) {
+        addTo(current(), key, delta);
+    }
+
+    /**
+     * 按事件发生的时间累加计数
+     *
+     * 事件时间早于当天0点时（例如跨天后才结束的区间）不计入当天，与数据库按该时间列统计的结果一致
+     *
+     * @param key   统计的键，为null时只计入合计
+     * @param delta 增量
+     * @param at    事件时间（JVM默认时区）
+     */
+    public void add(String key, long delta, LocalDateTime at) {
+        Bucket current = current();
+        if (at.atZone(zone).toInstant().toEpochMilli() < current.startMillis) {
+            return;
+        }
+        addTo(current, key, delta);
+    }
+
+    private static void addTo(Bucket current, String key, long delta) {
+        current.counts.computeIfAbsent(TOTAL, k -> new LongAdder()).add(delta);
+        if (key != null) {
+            current.counts.computeIfAbsent(key, k -> new LongAdder()).add(delta);
+        }
+    }
+
+    /**
+     * 当天的计数，启动当天首次查询某个键时回查一次数据库
+     *
+     * @param key 统计的键，为null时返回合计
+     * @return 当天的计数
+     */
+    public long get(String key) {
+        Bucket current = current();
+        String slot = key == null ? TOTAL : key;
+        LongAdder counted = current.counts.get(slot);
+        return (counted == null ? 0 : counted.sum()) + baseline(current, key, slot);
+    }
+
+    private long baseline(Bucket current, String key, String slot) {
+        if (current.startMillis >= bootMillis) {
+            return 0;
+        }
+        Long cached = current.baselines.get(slot);
+        if (cached != null) {
+            return cached;
+        }
+        long loaded = loader.count(key, toLocalDateTime(current.startMillis), toLocalDateTime(bootMillis));
+        Long previous = current.baselines.putIfAbsent(slot, loaded);
+        return previous == null ? loaded : previous;
+    }
+
+    private Bucket current() {
+        Bucket current = bucket;
+        long now = System.currentTimeMillis();
+        if (now < current.endMillis) {
+            return current;
+        }
+        synchronized (this) {
+            current = bucket;
+            if (now >= current.endMillis) {
+                current = newBucket(now);
+                bucket = current;
+            }
+            return current;
+        }
+    }
+
+    private Bucket newBucket(long millis) {
+        LocalDate day = Instant.ofEpochMilli(millis).atZone(zone).toLocalDate();
+        long start = day.atStartOfDay(zone).toInstant().toEpochMilli();
+        long end = day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        return new Bucket(start, end);
+    }
+
+    private LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), zone);
+    }
+
+    private static final class Bucket {
+        final long startMillis;
+        final long endMillis;
+        final ConcurrentHashMap<String, LongAdder> counts = new ConcurrentHashMap<>();
+        /** 启动前已落库的计数 */
+        final ConcurrentHashMap<String, Long> baselines = new ConcurrentHashMap<>();
+
+        Bucket(long startMillis, long endMillis) {
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package co.codingnomads.bot.arbitrage.service.readmodel;
+
+import co.codingnomads.bot.arbitrage.mapper.MarketDataMapper;
+import co.codingnomads.bot.arbitrage.model.MarketData;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+
+/**
+ * 行情数据的内存计数
+ *
+ * 写后队列每批写入成功后按交易所累加当天的行数，今日统计直接读内存；
+ * 重启当天启动前的部分按 created_at 范围回查一次（见 {@link DailyCounter}）。
+ */
+@Component
+public class MarketDataReadModel {
+
+    @Autowired
+    private MarketDataMapper marketDataMapper;
+
+    private DailyCounter dailyCount;
+
+    @PostConstruct
+    public void init() {
+        dailyCount = new DailyCounter((exchange, from, to) -> exchange == null
+                ? marketDataMapper.countAllMarketDataBetween(from, to)
+                : marketDataMapper.countMarketDataBetween(exchange, from, to));
+    }
+
+    /**
+     * 记录一批已落库的行情（写线程调用）
+     */
+    public void onWritten(List<MarketData> batch) {
+        String exchange = null;
+        int run = 0;
+        // 同一批内通常按交易所连续出现，按段累加
+        for (MarketData marketData : batch) {
+            if (!marketData.getExchange().equals(exchange)) {
+                if (run > 0) {
+                    dailyCount.add(exchange, run);
+                }
+                exchange = marketData.getExchange();
+                run = 0;
+            }
+            run++;
+        }
+        if (run > 0) {
+            dailyCount.add(exchange, run);
+        }
+    }
+
+    /**
+     * 今日写入的行情数量
+     *
+     * @param exchange 交易所名称，为null或空时统计所有交易所
+     */
+    public long getTodayCount(String exchange) {
+        return dailyCount.get(exchange == null || exchange.trim().isEmpty() ? null : exchange);
+    }
+}
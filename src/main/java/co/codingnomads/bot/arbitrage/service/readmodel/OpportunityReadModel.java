@@ -0,0 +1,99 @@
+package co.codingnomads.bot.arbitrage.service.readmodel;
+
+import co.codingnomads.bot.arbitrage.mapper.ArbitrageOpportunityMapper;
+import co.codingnomads.bot.arbitrage.model.ArbitrageOpportunity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 套利机会的内存读模型
+ *
+ * 负责：
+ * 1. 落库成功后记录每个交易对最近的 capacity 条套利机会（以及不分交易对的最近记录）
+ * 2. 按天累计套利机会数量（按 detected_at 即区间开始时间归属日期，与数据库统计口径一致）
+ *
+ * 查询直接从内存返回，不随表的大小变慢。重启后某个交易对第一次被查询时，
+ * 用 detected_at &lt; 启动时间 的范围查询补齐启动前的记录，之后不再访问数据库；
+ * 请求的条数超过 capacity 时才直接查库。
+ */
+@Component
+public class OpportunityReadModel {
+
+    private static final Logger logger = LoggerFactory.getLogger(OpportunityReadModel.class);
+
+    @Autowired
+    private ArbitrageOpportunityMapper arbitrageMapper;
+
+    /** 每个交易对在内存中保留的最近记录数 */
+    @Value("${arbitrage.readmodel.recent-capacity:200}")
+    private int capacity;
+
+    private final LocalDateTime bootTime = LocalDateTime.now();
+    private final ConcurrentHashMap<String, RecentOpportunities> bySymbol = new ConcurrentHashMap<>();
+    private RecentOpportunities all;
+    private DailyCounter dailyCount;
+
+    @PostConstruct
+    public void init() {
+        all = new RecentOpportunities(capacity);
+        dailyCount = new DailyCounter((key, from, to) -> arbitrageMapper.countOpportunitiesBetween(from, to));
+    }
+
+    /**
+     * 记录一条已落库的套利机会（通知线程调用）
+     *
+     * @param opportunity 套利机会，检测时间为空时按当前时间记录（与数据库的 NOW() 一致）
+     */
+    public void onSaved(ArbitrageOpportunity opportunity) {
+        if (opportunity.getDetectedAt() == null) {
+            opportunity.setDetectedAt(LocalDateTime.now());
+        }
+        recent(opportunity.getSymbol()).add(opportunity);
+        all.add(opportunity);
+        dailyCount.add(null, 1, opportunity.getDetectedAt());
+    }
+
+    /**
+     * 获取最新的套利机会
+     *
+     * @param symbol 交易对符号，为null或空时不区分交易对
+     * @param limit  返回记录数限制
+     * @return 套利机会列表，按检测时间倒序排列
+     */
+    public List<ArbitrageOpportunity> getLatest(String symbol, int limit) {
+        boolean allSymbols = symbol == null || symbol.trim().isEmpty();
+        if (limit > capacity) {
+            return allSymbols ? arbitrageMapper.getAllLatestOpportunities(limit)
+                    : arbitrageMapper.getLatestOpportunities(symbol, limit);
+        }
+        RecentOpportunities recent = allSymbols ? all : recent(symbol);
+        if (!recent.isSeeded()) {
+            // 在锁外查询，不阻塞写入
+            List<ArbitrageOpportunity> history = allSymbols
+                    ? arbitrageMapper.getAllOpportunitiesBefore(bootTime, capacity)
+                    : arbitrageMapper.getOpportunitiesBefore(symbol, bootTime, capacity);
+            recent.seed(history);
+            logger.debug("[OpportunityReadModel] {} 已载入启动前的{}条记录", allSymbols ? "全部" : symbol, history.size());
+        }
+        return recent.latest(limit);
+    }
+
+    /**
+     * @return 今日套利机会数量
+     */
+    public long getTodayCount() {
+        return dailyCount.get(null);
+    }
+
+    private RecentOpportunities recent(String symbol) {
+        return bySymbol.computeIfAbsent(symbol, s -> new RecentOpportunities(capacity));
+    }
+}
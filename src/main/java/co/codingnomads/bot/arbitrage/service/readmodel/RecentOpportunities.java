@@ -0,0 +1,67 @@
+package co.codingnomads.bot.arbitrage.service.readmodel;
+
+import co.codingnomads.bot.arbitrage.model.ArbitrageOpportunity;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一个交易对最近的套利机会，按检测时间倒序保存，最多 capacity 条
+ *
+ * 区间按结束顺序写入，检测时间（区间开始时间）基本有序，插入位置通常在头部附近。
+ */
+final class RecentOpportunities {
+
+    private final int capacity;
+    private final ArrayList<ArbitrageOpportunity> items;
+
+    /** 是否已合并启动前的数据库记录 */
+    private boolean seeded;
+
+    RecentOpportunities(int capacity) {
+        this.capacity = capacity;
+        this.items = new ArrayList<>(capacity + 1);
+    }
+
+    synchronized void add(ArbitrageOpportunity opportunity) {
+        LocalDateTime detectedAt = opportunity.getDetectedAt();
+        int index = 0;
+        while (index < items.size() && !items.get(index).getDetectedAt().isBefore(detectedAt)) {
+            index++;
+        }
+        if (index >= capacity) {
+            return;
+        }
+        items.add(index, opportunity);
+        if (items.size() > capacity) {
+            items.remove(items.size() - 1);
+        }
+    }
+
+    /**
+     * 合并启动前的记录（均早于启动后写入的记录，按检测时间倒序）
+     */
+    synchronized void seed(List<ArbitrageOpportunity> history) {
+        if (seeded) {
+            return;
+        }
+        for (ArbitrageOpportunity opportunity : history) {
+            if (items.size() >= capacity) {
+                break;
+            }
+            if (opportunity.getDetectedAt() != null) {
+                items.add(opportunity);
+            }
+        }
+        seeded = true;
+    }
+
+    synchronized boolean isSeeded() {
+        return seeded;
+    }
+
+    synchronized List<ArbitrageOpportunity> latest(int limit) {
+        return new ArrayList<>(items.subList(0, Math.min(limit, items.size())));
+    }
+}
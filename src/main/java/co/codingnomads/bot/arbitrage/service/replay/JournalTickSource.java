@@ -0,0 +1,53 @@
+package co.codingnomads.bot.arbitrage.service.replay;
+
+import co.codingnomads.bot.arbitrage.service.journal.TickJournalReader;
+import co.codingnomads.bot.arbitrage.service.journal.TickRecord;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * 从本地行情日志读取一个分区的行情
+ *
+ * 按时间索引定位到分区开始时间，顺序读取到分区结束时间或日志末尾，跳过其他交易对。
+ * 日志中的交易对/交易所id是记录时注册表分配的id，回放时需使用相同的 arbitrage.symbols 配置。
+ * 可以指定结束序号，读到该序号即停止，不读取回放开始后写入的记录。
+ */
+public class JournalTickSource implements TickSource {
+
+    private final TickJournalReader reader;
+    private final ReplayPartition partition;
+    private final long endSequence;
+
+    public JournalTickSource(File directory, ReplayPartition partition) throws IOException {
+        this(directory, partition, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param endSequence 结束序号（不含）
+     */
+    public JournalTickSource(File directory, ReplayPartition partition, long endSequence) throws IOException {
+        this.partition = partition;
+        this.endSequence = endSequence;
+        this.reader = new TickJournalReader(directory);
+        reader.seekToTime(partition.getFromMillis());
+    }
+
+    @Override
+    public boolean next(TickRecord out) throws IOException {
+        while (reader.poll(out)) {
+            if (out.getSequence() >= endSequence || out.getReceiveTime() >= partition.getToMillis()) {
+                return false;
+            }
+            if (out.getSymbolId() == partition.getSymbolId()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void close() {
+        reader.close();
+    }
+}
@@ -0,0 +1,72 @@
+package co.codingnomads.bot.arbitrage.service.replay;
+
+import co.codingnomads.bot.arbitrage.mapper.MarketDataMapper;
+import co.codingnomads.bot.arbitrage.model.MarketData;
+import co.codingnomads.bot.arbitrage.service.journal.TickRecord;
+import co.codingnomads.bot.arbitrage.service.quote.InstrumentRegistry;
+import co.codingnomads.bot.arbitrage.util.FixedPointUtil;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * 通过MyBatis游标从 market_data 表流式读取一个分区的行情
+ *
+ * 每个数据源独占一个SqlSession（即一个数据库连接），逐行读取并换算为定点数，
+ * 不把整个分区读入内存。market_data 没有交易所事件时间，事件时间按0（未知）处理。
+ */
+public class MarketDataCursorSource implements TickSource {
+
+    private final InstrumentRegistry instrumentRegistry;
+    private final ReplayPartition partition;
+    private final int scale;
+    private final int quantityScale;
+    private final SqlSession session;
+    private final Cursor<MarketData> cursor;
+    private final Iterator<MarketData> iterator;
+    private long sequence;
+
+    public MarketDataCursorSource(SqlSessionFactory sqlSessionFactory, InstrumentRegistry instrumentRegistry,
+                                  ReplayPartition partition) {
+        this.instrumentRegistry = instrumentRegistry;
+        this.partition = partition;
+        this.scale = instrumentRegistry.priceScale(partition.getSymbolId());
+        this.quantityScale = instrumentRegistry.quantityScale(partition.getSymbolId());
+        this.session = sqlSessionFactory.openSession();
+        this.cursor = session.getMapper(MarketDataMapper.class)
+                .streamMarketData(partition.getSymbol(), partition.getFromMillis(), partition.getToMillis());
+        this.iterator = cursor.iterator();
+    }
+
+    @Override
+    public boolean next(TickRecord out) {
+        while (iterator.hasNext()) {
+            MarketData data = iterator.next();
+            if (data.getBidPrice() == null || data.getAskPrice() == null || data.getTimestamp() == null) {
+                continue;
+            }
+            int exchangeId = instrumentRegistry.registerExchange(data.getExchange());
+            out.set(sequence++, exchangeId, partition.getSymbolId(), scale, quantityScale,
+                    FixedPointUtil.fromBigDecimal(data.getBidPrice(), scale),
+                    FixedPointUtil.fromBigDecimal(data.getAskPrice(), scale),
+                    data.getBidVolume() == null ? 0 : FixedPointUtil.fromBigDecimal(data.getBidVolume(), quantityScale),
+                    data.getAskVolume() == null ? 0 : FixedPointUtil.fromBigDecimal(data.getAskVolume(), quantityScale),
+                    0, data.getTimestamp());
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void close() {
+        try {
+            cursor.close();
+        } catch (IOException e) {
+            // 关闭会话时会一并释放游标
+        }
+        session.close();
+    }
+}
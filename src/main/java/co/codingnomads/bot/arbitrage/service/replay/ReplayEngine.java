@@ -0,0 +1,240 @@
+package co.codingnomads.bot.arbitrage.service.replay;
+
+import co.codingnomads.bot.arbitrage.model.ArbitrageOpportunity;
+import co.codingnomads.bot.arbitrage.service.cross.CrossVenueArbitrageDetector;
+import co.codingnomads.bot.arbitrage.service.journal.TickRecord;
+import co.codingnomads.bot.arbitrage.service.quote.InstrumentRegistry;
+import co.codingnomads.bot.arbitrage.service.websocket.WebSocketMessageHandler;
+import co.codingnomads.bot.arbitrage.util.FixedPointUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * 行情回放引擎
+ *
+ * 把历史行情按原始时间顺序送入检测逻辑，可以不限速（尽可能快）或按原始节奏的倍数回放。
+ *
+ * 两种回放方式：
+ * <ul>
+ *   <li>{@link #replay}：每个分区创建独立的检测实例，直接调用检测核心，分区之间并行，
+ *       不经过流水线、不落库、不发通知，用于回测和吞吐测试</li>
+ *   <li>{@link #replayThrough}：把行情逐条交给 {@link WebSocketMessageHandler}（即实时处理入口），
+ *       走完整的流水线、持久化和通知，只能串行回放</li>
+ * </ul>
+ */
+public class ReplayEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplayEngine.class);
+
+    private final TickSource.Factory sourceFactory;
+    private final InstrumentRegistry instrumentRegistry;
+    private final double speed;
+    private final long sweepIntervalMs;
+
+    /**
+     * @param sourceFactory      按分区打开数据源
+     * @param instrumentRegistry 交易对/交易所注册表
+     * @param speed              回放速度倍数，0或负数表示不限速
+     * @param sweepIntervalMs    按回放时间检查区间超时的间隔（毫秒）
+     */
+    public ReplayEngine(TickSource.Factory sourceFactory, InstrumentRegistry instrumentRegistry,
+                        double speed, long sweepIntervalMs) {
+        this.sourceFactory = sourceFactory;
+        this.instrumentRegistry = instrumentRegistry;
+        this.speed = speed;
+        this.sweepIntervalMs = sweepIntervalMs;
+    }
+
+    // ==================== 并行回放（直接驱动检测核心） ====================
+
+    /**
+     * 并行回放各分区
+     *
+     * @param partitions      回放分区
+     * @param parallelism     并行线程数
+     * @param detectorFactory 按监听器创建检测实例（每个分区一个）
+     * @return 按分区顺序排列的回放结果
+     */
+    public List<ReplayResult> replay(List<ReplayPartition> partitions, int parallelism,
+                                     Function<CrossVenueArbitrageDetector.Listener, CrossVenueArbitrageDetector> detectorFactory)
+            throws InterruptedException {
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism), r -> {
+            Thread thread = new Thread(r, "Replay-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<ReplayResult>> futures = new ArrayList<>(partitions.size());
+            for (ReplayPartition partition : partitions) {
+                futures.add(executor.submit(() -> replayPartition(partition, detectorFactory)));
+            }
+            List<ReplayResult> results = new ArrayList<>(partitions.size());
+            for (Future<ReplayResult> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    // replayPartition 自行捕获异常，这里只会是Error
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 在当前线程上回放一个分区
+     */
+    private ReplayResult replayPartition(ReplayPartition partition,
+                                         Function<CrossVenueArbitrageDetector.Listener, CrossVenueArbitrageDetector> detectorFactory) {
+        CountingListener counter = new CountingListener();
+        CrossVenueArbitrageDetector detector = detectorFactory.apply(counter);
+        TickRecord tick = new TickRecord();
+        Pacer pacer = new Pacer(speed);
+        long ticks = 0;
+        long crosses = 0;
+        long lastSweep = 0;
+        long start = System.nanoTime();
+        String error = null;
+        try (TickSource source = sourceFactory.open(partition)) {
+            while (source.next(tick)) {
+                long now = tick.getReceiveTime();
+                pacer.await(now);
+                ticks++;
+                if (now - lastSweep >= sweepIntervalMs) {
+                    detector.expireIdle(now);
+                    lastSweep = now;
+                }
+                if (!detector.admit(tick.getExchangeId(), tick.getEventTime(), now)) {
+                    continue;
+                }
+                if (detector.onQuote(partition.getSymbolId(), tick.getExchangeId(),
+                        tick.getBid(), tick.getAsk(), tick.getEventTime(), now)) {
+                    crosses++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = "回放被中断";
+        } catch (Exception e) {
+            logger.error("[ReplayEngine] 回放分区 {} 失败: {}", partition, e.getMessage(), e);
+            error = e.toString();
+        }
+        detector.closeAll();
+        return new ReplayResult(partition, ticks, crosses, counter.opened, counter.closed,
+                System.nanoTime() - start, error);
+    }
+
+    // ==================== 串行回放（经过实时处理入口） ====================
+
+    /**
+     * 按顺序把各分区的行情交给实时处理入口
+     *
+     * 处理入口会以当前时间作为接收时间，回放的行情只保留原始的先后顺序和（按速度倍数的）节奏；
+     * 交易所时间按记录的接收时间平移到当前时间，保留原始的传输延迟，以免被新鲜度检查拒绝或干扰时钟估计。
+     * 检测和区间统计由实时流水线完成，结果中只包含行情条数。
+     *
+     * @param partitions 回放分区
+     * @param handler    实时处理入口
+     * @return 按分区顺序排列的回放结果
+     */
+    public List<ReplayResult> replayThrough(List<ReplayPartition> partitions, WebSocketMessageHandler handler) {
+        List<ReplayResult> results = new ArrayList<>(partitions.size());
+        TickRecord tick = new TickRecord();
+        for (ReplayPartition partition : partitions) {
+            Pacer pacer = new Pacer(speed);
+            long ticks = 0;
+            long start = System.nanoTime();
+            String error = null;
+            try (TickSource source = sourceFactory.open(partition)) {
+                while (source.next(tick)) {
+                    pacer.await(tick.getReceiveTime());
+                    int scale = tick.getScale();
+                    int quantityScale = tick.getQuantityScale();
+                    long eventTime = tick.getEventTime() > 0
+                            ? tick.getEventTime() + (System.currentTimeMillis() - tick.getReceiveTime()) : 0;
+                    handler.handleQuote(instrumentRegistry.exchangeName(tick.getExchangeId()), partition.getSymbol(),
+                            FixedPointUtil.toDouble(tick.getBid(), scale), FixedPointUtil.toDouble(tick.getAsk(), scale),
+                            FixedPointUtil.toDouble(tick.getBidSize(), quantityScale),
+                            FixedPointUtil.toDouble(tick.getAskSize(), quantityScale),
+                            eventTime, System.nanoTime());
+                    ticks++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                results.add(new ReplayResult(partition, ticks, 0, 0, 0, System.nanoTime() - start, "回放被中断"));
+                break;
+            } catch (Exception e) {
+                logger.error("[ReplayEngine] 回放分区 {} 失败: {}", partition, e.getMessage(), e);
+                error = e.toString();
+            }
+            results.add(new ReplayResult(partition, ticks, 0, 0, 0, System.nanoTime() - start, error));
+        }
+        return results;
+    }
+
+    // ==================== 内部类 ====================
+
+    /**
+     * 统计检测事件（与检测实例在同一线程上回调）
+     */
+    private static final class CountingListener implements CrossVenueArbitrageDetector.Listener {
+        long opened;
+        long closed;
+
+        @Override
+        public void onCrossOpened(int symbolId, int buyExchangeId, int sellExchangeId,
+                                  long buyPrice, long sellPrice, double margin) {
+            opened++;
+        }
+
+        @Override
+        public void onEpisodeClosed(ArbitrageOpportunity opportunity) {
+            closed++;
+        }
+    }
+
+    /**
+     * 按速度倍数还原行情之间的时间间隔
+     */
+    private static final class Pacer {
+        private final double speed;
+        private long firstTickTime = -1;
+        private long startNanos;
+
+        Pacer(double speed) {
+            this.speed = speed;
+        }
+
+        void await(long tickTime) throws InterruptedException {
+            if (speed <= 0) {
+                return;
+            }
+            if (firstTickTime < 0) {
+                firstTickTime = tickTime;
+                startNanos = System.nanoTime();
+                return;
+            }
+            long due = startNanos + (long) ((tickTime - firstTickTime) * 1_000_000L / speed);
+            long wait;
+            while ((wait = due - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        }
+    }
+}
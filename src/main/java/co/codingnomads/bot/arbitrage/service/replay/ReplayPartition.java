@@ -0,0 +1,39 @@
+package co.codingnomads.bot.arbitrage.service.replay;
+
+import java.time.Instant;
+import java.time.ZoneId;
+
+/**
+ * 回放分区：一个交易对在一个时间段 [fromMillis, toMillis) 内的行情
+ *
+ * 不同分区之间没有共享状态，可以在不同线程上并行回放
+ */
+public final class ReplayPartition {
+
+    private final String symbol;
+    private final int symbolId;
+    private final long fromMillis;
+    private final long toMillis;
+
+    public ReplayPartition(String symbol, int symbolId, long fromMillis, long toMillis) {
+        this.symbol = symbol;
+        this.symbolId = symbolId;
+        this.fromMillis = fromMillis;
+        this.toMillis = toMillis;
+    }
+
+    public String getSymbol() { return symbol; }
+
+    public int getSymbolId() { return symbolId; }
+
+    public long getFromMillis() { return fromMillis; }
+
+    public long getToMillis() { return toMillis; }
+
+    @Override
+    public String toString() {
+        ZoneId zone = ZoneId.systemDefault();
+        return symbol + " [" + Instant.ofEpochMilli(fromMillis).atZone(zone).toLocalDateTime()
+                + ", " + Instant.ofEpochMilli(toMillis).atZone(zone).toLocalDateTime() + ")";
+    }
+}
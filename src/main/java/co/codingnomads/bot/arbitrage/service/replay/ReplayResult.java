@@ -0,0 +1,52 @@
+package co.codingnomads.bot.arbitrage.service.replay;
+
+/**
+ * 一个分区的回放结果
+ */
+public final class ReplayResult {
+
+    private final ReplayPartition partition;
+    private final long ticks;
+    private final long crossesFound;
+    private final long opportunitiesOpened;
+    private final long episodesClosed;
+    private final long elapsedNanos;
+    private final String error;
+
+    public ReplayResult(ReplayPartition partition, long ticks, long crossesFound, long opportunitiesOpened,
+                        long episodesClosed, long elapsedNanos, String error) {
+        this.partition = partition;
+        this.ticks = ticks;
+        this.crossesFound = crossesFound;
+        this.opportunitiesOpened = opportunitiesOpened;
+        this.episodesClosed = episodesClosed;
+        this.elapsedNanos = elapsedNanos;
+        this.error = error;
+    }
+
+    public ReplayPartition getPartition() { return partition; }
+
+    /** @return 回放的行情条数 */
+    public long getTicks() { return ticks; }
+
+    /** @return 找到可配对跨交易所报价组合的次数 */
+    public long getCrossesFound() { return crossesFound; }
+
+    /** @return 开启的套利区间数 */
+    public long getOpportunitiesOpened() { return opportunitiesOpened; }
+
+    /** @return 结束并聚合输出的套利区间数 */
+    public long getEpisodesClosed() { return episodesClosed; }
+
+    public long getElapsedNanos() { return elapsedNanos; }
+
+    /** @return 失败原因，成功时为null */
+    public String getError() { return error; }
+
+    /**
+     * @return 每秒回放的行情条数
+     */
+    public double ticksPerSecond() {
+        return elapsedNanos == 0 ? 0 : ticks * 1e9 / elapsedNanos;
+    }
+}
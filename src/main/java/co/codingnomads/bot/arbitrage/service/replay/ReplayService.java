@@ -0,0 +1,234 @@
+package co.codingnomads.bot.arbitrage.service.replay;
+
+import co.codingnomads.bot.arbitrage.service.ArbitrageService;
+import co.codingnomads.bot.arbitrage.service.RealTimeArbitrageService;
+import co.codingnomads.bot.arbitrage.service.journal.TickJournalReader;
+import co.codingnomads.bot.arbitrage.service.quote.InstrumentRegistry;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 行情回放服务
+ *
+ * 启用后在启动时从行情日志或 market_data 表读取指定日期范围内的历史行情，
+ * 按 交易对×天 划分分区交给 {@link ReplayEngine} 回放，结束后打印吞吐量和套利机会统计。
+ */
+@Component
+public class ReplayService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplayService.class);
+
+    /**
+     * 回放数据源
+     */
+    public enum Source {
+        /** 本地行情日志（arbitrage.journal.dir） */
+        JOURNAL,
+        /** market_data 表（MyBatis流式游标） */
+        MYSQL
+    }
+
+    /**
+     * 回放目标
+     */
+    public enum Target {
+        /** 直接驱动检测核心，分区并行，不落库不通知 */
+        DETECTOR,
+        /** 经过实时处理入口（流水线、持久化、通知），串行回放 */
+        HANDLER
+    }
+
+    @Autowired
+    private InstrumentRegistry instrumentRegistry;
+
+    @Autowired
+    private ArbitrageService arbitrageService;
+
+    @Autowired
+    private RealTimeArbitrageService realTimeArbitrageService;
+
+    /** 只有从 market_data 回放时需要（基准测试等不连接数据库的上下文中没有该Bean） */
+    @Autowired(required = false)
+    private SqlSessionFactory sqlSessionFactory;
+
+    // ==================== 配置 ====================
+    @Value("${arbitrage.replay.enabled:false}")
+    private boolean enabled;
+
+    @Value("${arbitrage.replay.source:JOURNAL}")
+    private Source source;
+
+    @Value("${arbitrage.replay.target:DETECTOR}")
+    private Target target;
+
+    /** 开始日期（含），格式 yyyy-MM-dd，为空时为当天 */
+    @Value("${arbitrage.replay.from:}")
+    private String from;
+
+    /** 结束日期（含），为空时与开始日期相同 */
+    @Value("${arbitrage.replay.to:}")
+    private String to;
+
+    /** 回放的交易对（逗号分隔），为空时回放全部监控的交易对 */
+    @Value("${arbitrage.replay.symbols:}")
+    private String symbols;
+
+    /** 回放速度倍数，0表示不限速 */
+    @Value("${arbitrage.replay.speed:0}")
+    private double speed;
+
+    /** 并行线程数，0表示CPU核数 */
+    @Value("${arbitrage.replay.parallelism:0}")
+    private int parallelism;
+
+    @Value("${arbitrage.journal.dir:data/journal}")
+    private String journalDirectory;
+
+    private Thread replayThread;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        replayThread = new Thread(() -> {
+            try {
+                run();
+            } catch (InterruptedException e) {
+                logger.warn("[ReplayService] 回放被中断");
+            } catch (Exception e) {
+                logger.error("[ReplayService] 回放失败: " + e.getMessage(), e);
+            }
+        }, "Replay-Main");
+        replayThread.setDaemon(true);
+        replayThread.start();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (replayThread != null) {
+            replayThread.interrupt();
+        }
+    }
+
+    /**
+     * 按配置执行一次回放并打印统计
+     *
+     * @return 各分区的回放结果
+     */
+    public List<ReplayResult> run() throws InterruptedException {
+        List<ReplayPartition> partitions = buildPartitions();
+        ReplayEngine engine = new ReplayEngine(sourceFactory(), instrumentRegistry, speed,
+                Math.max(arbitrageService.getEpisodeIdleTimeoutMs() / 2, 100));
+        int threads = target == Target.HANDLER ? 1
+                : parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        logger.info("[ReplayService] 开始回放: 数据源={}, 目标={}, 分区数={}, 线程数={}, 速度={}",
+                source, target, partitions.size(), threads, speed > 0 ? speed + "x" : "不限速");
+
+        long start = System.nanoTime();
+        List<ReplayResult> results = target == Target.HANDLER
+                ? engine.replayThrough(partitions, realTimeArbitrageService)
+                : engine.replay(partitions, threads, arbitrageService::newDetector);
+        report(results, System.nanoTime() - start);
+        return results;
+    }
+
+    private TickSource.Factory sourceFactory() {
+        if (source == Source.MYSQL) {
+            if (sqlSessionFactory == null) {
+                throw new IllegalStateException("未配置数据源，无法从 market_data 回放");
+            }
+            return partition -> new MarketDataCursorSource(sqlSessionFactory, instrumentRegistry, partition);
+        }
+        File directory = new File(journalDirectory);
+        if (target == Target.HANDLER) {
+            // 经过实时处理入口的行情会再次写入行情日志，只回放开始前已有的记录，避免读到自己写入的行情
+            long endSequence;
+            try {
+                endSequence = TickJournalReader.endSequence(directory);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            logger.info("[ReplayService] 回放行情日志序号{}之前的记录", endSequence);
+            return partition -> new JournalTickSource(directory, partition, endSequence);
+        }
+        return partition -> new JournalTickSource(directory, partition);
+    }
+
+    /**
+     * 按 交易对×天 划分回放分区
+     */
+    private List<ReplayPartition> buildPartitions() {
+        LocalDate fromDate = from.trim().isEmpty() ? LocalDate.now() : LocalDate.parse(from.trim());
+        LocalDate toDate = to.trim().isEmpty() ? fromDate : LocalDate.parse(to.trim());
+        ZoneId zone = ZoneId.systemDefault();
+
+        List<String> names = new ArrayList<>();
+        if (symbols.trim().isEmpty()) {
+            names.addAll(instrumentRegistry.getSymbols());
+        } else {
+            for (String raw : symbols.split(",")) {
+                String symbol = raw.trim().toLowerCase(Locale.ROOT);
+                if (symbol.isEmpty()) {
+                    continue;
+                }
+                if (instrumentRegistry.symbolId(symbol) < 0) {
+                    logger.warn("[ReplayService] 交易对 {} 不在 arbitrage.symbols 中，跳过", symbol);
+                    continue;
+                }
+                names.add(symbol);
+            }
+        }
+
+        List<ReplayPartition> partitions = new ArrayList<>();
+        for (String symbol : names) {
+            int symbolId = instrumentRegistry.symbolId(symbol);
+            for (LocalDate day = fromDate; !day.isAfter(toDate); day = day.plusDays(1)) {
+                long dayStart = day.atStartOfDay(zone).toInstant().toEpochMilli();
+                long dayEnd = day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+                partitions.add(new ReplayPartition(symbol, symbolId, dayStart, dayEnd));
+            }
+        }
+        return partitions;
+    }
+
+    private void report(List<ReplayResult> results, long elapsedNanos) {
+        long ticks = 0;
+        long crosses = 0;
+        long opened = 0;
+        long closed = 0;
+        int failed = 0;
+        for (ReplayResult result : results) {
+            ticks += result.getTicks();
+            crosses += result.getCrossesFound();
+            opened += result.getOpportunitiesOpened();
+            closed += result.getEpisodesClosed();
+            if (result.getError() != null) {
+                failed++;
+            }
+            logger.info("[ReplayService] {}: 行情{}条, {}条/秒, 价差组合{}次, 开启区间{}个, 结束区间{}个{}",
+                    result.getPartition(), result.getTicks(), String.format("%.0f", result.ticksPerSecond()),
+                    result.getCrossesFound(), result.getOpportunitiesOpened(), result.getEpisodesClosed(),
+                    result.getError() == null ? "" : ", 失败: " + result.getError());
+        }
+        double seconds = elapsedNanos / 1e9;
+        logger.info("[ReplayService] 回放完成: 分区{}个(失败{}个), 行情{}条, 耗时{}秒, 总吞吐{}条/秒, 价差组合{}次, 开启区间{}个, 结束区间{}个",
+                results.size(), failed, ticks, String.format("%.2f", seconds),
+                String.format("%.0f", seconds == 0 ? 0 : ticks / seconds), crosses, opened, closed);
+    }
+}
@@ -0,0 +1,28 @@
+package co.codingnomads.bot.arbitrage.service.replay;
+
+import co.codingnomads.bot.arbitrage.service.journal.TickRecord;
+
+/**
+ * 回放数据源：按时间顺序输出一个分区内的历史行情
+ */
+public interface TickSource extends AutoCloseable {
+
+    /**
+     * 读取下一条行情
+     *
+     * @param out 接收行情的对象（调用方重复使用）
+     * @return 分区内还有行情时返回true，读完时返回false
+     */
+    boolean next(TickRecord out) throws Exception;
+
+    @Override
+    void close();
+
+    /**
+     * 按分区打开数据源
+     */
+    @FunctionalInterface
+    interface Factory {
+        TickSource open(ReplayPartition partition) throws Exception;
+    }
+}
@@ -0,0 +1,171 @@
+package co.codingnomads.bot.arbitrage.service.snapshot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * 热启动快照文件
+ *
+ * 文件布局（DataOutputStream，大端字节序）：
+ * - int 魔数；short 版本；long 写入时间（毫秒）
+ * - int 计数器个数，每个：UTF 名称、long 值
+ * - int 报价条数，每条：UTF 交易对、UTF 交易所、byte 价格精度、byte 挂单量精度（版本2起），
+ *   long 买一价、卖一价、买一量、卖一量（定点数尾数）、long 本地接收时间（毫秒）
+ *   版本1没有挂单量精度，挂单量与价格同精度
+ * - long 以上全部内容的CRC32
+ *
+ * 交易对和交易所按名称保存，配置变化后id不同也能对应上。写入时先写临时文件并刷盘，
+ * 再原子改名覆盖旧文件，进程在任何时刻崩溃都只会留下完整的旧快照或完整的新快照。
+ */
+final class SnapshotFile {
+
+    static final int MAGIC = 0x41525353;
+    static final int VERSION = 2;
+
+    /**
+     * 快照中的一条报价
+     */
+    static final class QuoteRecord {
+        final String symbol;
+        final String exchange;
+        final int scale;
+        final int quantityScale;
+        final long bid;
+        final long ask;
+        final long bidSize;
+        final long askSize;
+        final long timestamp;
+
+        QuoteRecord(String symbol, String exchange, int scale, int quantityScale, long bid, long ask,
+                    long bidSize, long askSize, long timestamp) {
+            this.symbol = symbol;
+            this.exchange = exchange;
+            this.scale = scale;
+            this.quantityScale = quantityScale;
+            this.bid = bid;
+            this.ask = ask;
+            this.bidSize = bidSize;
+            this.askSize = askSize;
+            this.timestamp = timestamp;
+        }
+    }
+
+    final long savedAt;
+    final Map<String, Long> counters;
+    final List<QuoteRecord> quotes;
+
+    SnapshotFile(long savedAt, Map<String, Long> counters, List<QuoteRecord> quotes) {
+        this.savedAt = savedAt;
+        this.counters = counters;
+        this.quotes = quotes;
+    }
+
+    /**
+     * 原子写入快照
+     */
+    void write(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("无法创建目录: " + parent);
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(temp)) {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(fileOut), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(savedAt);
+            out.writeInt(counters.size());
+            for (Map.Entry<String, Long> counter : counters.entrySet()) {
+                out.writeUTF(counter.getKey());
+                out.writeLong(counter.getValue());
+            }
+            out.writeInt(quotes.size());
+            for (QuoteRecord quote : quotes) {
+                out.writeUTF(quote.symbol);
+                out.writeUTF(quote.exchange);
+                out.writeByte(quote.scale);
+                out.writeByte(quote.quantityScale);
+                out.writeLong(quote.bid);
+                out.writeLong(quote.ask);
+                out.writeLong(quote.bidSize);
+                out.writeLong(quote.askSize);
+                out.writeLong(quote.timestamp);
+            }
+            out.flush();
+            new DataOutputStream(fileOut).writeLong(checked.getChecksum().getValue());
+            fileOut.getFD().sync();
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 读取并校验快照
+     *
+     * @return 快照，文件不存在时返回null
+     * @throws IOException 读取失败、格式或校验和不符
+     */
+    static SnapshotFile read(File file) throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (FileInputStream fileIn = new FileInputStream(file)) {
+            CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(fileIn), new CRC32());
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != MAGIC) {
+                throw new IOException("不是快照文件");
+            }
+            int version = in.readShort();
+            if (version != 1 && version != VERSION) {
+                throw new IOException("不支持的快照版本: " + version);
+            }
+            long savedAt = in.readLong();
+            int counterCount = checkCount(in.readInt(), file);
+            Map<String, Long> counters = new LinkedHashMap<>();
+            for (int i = 0; i < counterCount; i++) {
+                counters.put(in.readUTF(), in.readLong());
+            }
+            int quoteCount = checkCount(in.readInt(), file);
+            List<QuoteRecord> quotes = new ArrayList<>(quoteCount);
+            for (int i = 0; i < quoteCount; i++) {
+                String symbol = in.readUTF();
+                String exchange = in.readUTF();
+                int scale = in.readByte();
+                int quantityScale = version == 1 ? scale : in.readByte();
+                quotes.add(new QuoteRecord(symbol, exchange, scale, quantityScale,
+                        in.readLong(), in.readLong(), in.readLong(), in.readLong(), in.readLong()));
+            }
+            long expected = checked.getChecksum().getValue();
+            // 先取得内容的校验和，再读出文件末尾保存的值
+            if (new DataInputStream(checked).readLong() != expected) {
+                throw new IOException("快照校验和不符");
+            }
+            return new SnapshotFile(savedAt, counters, quotes);
+        }
+    }
+
+    /**
+     * 条数不可能超过文件长度，损坏的条数不应导致分配超大数组
+     */
+    private static int checkCount(int count, File file) throws IOException {
+        if (count < 0 || count > file.length()) {
+            throw new IOException("快照已损坏: 条数" + count);
+        }
+        return count;
+    }
+}
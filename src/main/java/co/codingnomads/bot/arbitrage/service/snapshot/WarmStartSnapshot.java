@@ -0,0 +1,206 @@
+package co.codingnomads.bot.arbitrage.service.snapshot;
+
+import co.codingnomads.bot.arbitrage.config.ArbitrageConfig;
+import co.codingnomads.bot.arbitrage.model.Quote;
+import co.codingnomads.bot.arbitrage.service.ArbitrageService;
+import co.codingnomads.bot.arbitrage.service.StatisticsService;
+import co.codingnomads.bot.arbitrage.service.cross.CrossVenueArbitrageDetector;
+import co.codingnomads.bot.arbitrage.service.quote.InstrumentRegistry;
+import co.codingnomads.bot.arbitrage.service.quote.QuoteTable;
+import co.codingnomads.bot.arbitrage.util.FixedPointUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热启动快照
+ *
+ * 定期把最优报价表和统计计数器写入本地快照文件（格式见 {@link SnapshotFile}），退出时再写一次。
+ * 启动时由 RealTimeArbitrageService 在检测线程启动、交易所连接建立之前调用 {@link #restore()}：
+ * <ul>
+ *   <li>快照超过 max-age-ms 时整体丢弃，冷启动</li>
+ *   <li>统计计数器在上次的累计值上继续累加</li>
+ *   <li>报价按名称写回报价表；距今不超过 quote-max-age-ms 的报价同时写入检测用的最优报价结构，
+ *       一个交易所先恢复时即可与另一个交易所快照中仍有效的报价配对，不必等两边都推送</li>
+ * </ul>
+ * 交易对已不在配置中或价格精度改变的报价直接丢弃。套利机会的最近记录和今日计数已由读模型在
+ * 首次查询时从数据库补齐，不放入快照。
+ */
+@Component
+public class WarmStartSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmStartSnapshot.class);
+
+    private static final String CHECK_COUNT = "checkCount";
+    private static final String SKIPPED_OPPORTUNITIES = "skippedOpportunities";
+    private static final String PROCESSED_OPPORTUNITIES = "processedOpportunities";
+
+    @Autowired
+    private InstrumentRegistry instrumentRegistry;
+
+    @Autowired
+    private QuoteTable quoteTable;
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private ArbitrageService arbitrageService;
+
+    // ==================== 配置 ====================
+    @Value("${arbitrage.snapshot.enabled:false}")
+    private boolean enabled;
+
+    @Value("${arbitrage.snapshot.path:data/snapshot/arbitrage.snap}")
+    private String path;
+
+    /** 写入间隔（毫秒） */
+    @Value("${arbitrage.snapshot.interval-ms:5000}")
+    private long intervalMs;
+
+    /** 超过该时长的快照不再恢复（毫秒） */
+    @Value("${arbitrage.snapshot.max-age-ms:86400000}")
+    private long maxAgeMs;
+
+    /** 报价写入检测结构的最长时效（毫秒） */
+    @Value("${arbitrage.snapshot.quote-max-age-ms:" + ArbitrageConfig.PRICE_EXPIRY_MS + "}")
+    private long quoteMaxAgeMs;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "Snapshot-Writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean started;
+
+    /** 读取报价表用的快照对象，只在写快照时使用（已加锁） */
+    private final Quote quote = new Quote();
+
+    /**
+     * 恢复上次的快照，之后开始定期写入（只调用一次）
+     */
+    public synchronized void restore() {
+        if (!enabled || started) {
+            return;
+        }
+        File file = new File(path);
+        try {
+            SnapshotFile snapshot = SnapshotFile.read(file);
+            if (snapshot == null) {
+                logger.info("[WarmStartSnapshot] 没有快照文件 {}，冷启动", file.getAbsolutePath());
+            } else {
+                apply(snapshot, System.currentTimeMillis());
+            }
+        } catch (Exception e) {
+            logger.warn("[WarmStartSnapshot] 读取快照 {} 失败，冷启动: {}", file.getAbsolutePath(), e.getMessage());
+        }
+        // 先恢复再写入，避免用空状态覆盖上次的快照
+        started = true;
+        scheduler.scheduleWithFixedDelay(this::saveSafely, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 写入最后一次快照
+     */
+    @PreDestroy
+    public void destroy() {
+        scheduler.shutdownNow();
+        if (started) {
+            saveSafely();
+        }
+    }
+
+    private void apply(SnapshotFile snapshot, long now) {
+        long age = now - snapshot.savedAt;
+        if (age > maxAgeMs) {
+            logger.info("[WarmStartSnapshot] 快照已过期（{}秒前写入），冷启动", age / 1000);
+            return;
+        }
+        statisticsService.restore(counter(snapshot, CHECK_COUNT), counter(snapshot, SKIPPED_OPPORTUNITIES),
+                counter(snapshot, PROCESSED_OPPORTUNITIES));
+
+        CrossVenueArbitrageDetector detector = arbitrageService.getDetector();
+        int restored = 0;
+        int primed = 0;
+        for (SnapshotFile.QuoteRecord record : snapshot.quotes) {
+            int symbolId = instrumentRegistry.symbolId(record.symbol);
+            int exchangeId = instrumentRegistry.exchangeId(record.exchange);
+            if (symbolId < 0 || exchangeId < 0 || instrumentRegistry.priceScale(symbolId) != record.scale) {
+                continue;
+            }
+            quoteTable.update(symbolId, exchangeId, record.bid, record.ask,
+                    rescale(record.bidSize, record.quantityScale, instrumentRegistry.quantityScale(symbolId)),
+                    rescale(record.askSize, record.quantityScale, instrumentRegistry.quantityScale(symbolId)),
+                    record.timestamp);
+            restored++;
+            if (now - record.timestamp <= quoteMaxAgeMs) {
+                detector.restoreQuote(symbolId, exchangeId, record.bid, record.ask, record.timestamp);
+                primed++;
+            }
+        }
+        logger.info("[WarmStartSnapshot] 已恢复{}秒前的快照: 报价{}/{}条（{}条仍可参与检测），套利检查{}次，已处理机会{}个",
+                age / 1000, restored, snapshot.quotes.size(), primed,
+                statisticsService.getCheckCount(), statisticsService.getProcessedOpportunities());
+    }
+
+    /**
+     * 挂单量精度配置改变（或旧版快照按价格精度保存挂单量）时换算到当前精度
+     */
+    private static long rescale(long size, int fromScale, int toScale) {
+        if (fromScale == toScale) {
+            return size;
+        }
+        return FixedPointUtil.fromBigDecimal(FixedPointUtil.toBigDecimal(size, fromScale), toScale);
+    }
+
+    private static long counter(SnapshotFile snapshot, String name) {
+        Long value = snapshot.counters.get(name);
+        return value == null ? 0 : value;
+    }
+
+    private void saveSafely() {
+        try {
+            save();
+        } catch (Exception e) {
+            // 磁盘暂时不可写等情况，下个周期重试；旧快照保持完整
+            logger.error("[WarmStartSnapshot] 写入快照失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 立即写入一次快照
+     */
+    public synchronized void save() throws IOException {
+        Map<String, Long> counters = new LinkedHashMap<>();
+        counters.put(CHECK_COUNT, statisticsService.getCheckCount());
+        counters.put(SKIPPED_OPPORTUNITIES, statisticsService.getSkippedOpportunities());
+        counters.put(PROCESSED_OPPORTUNITIES, statisticsService.getProcessedOpportunities());
+
+        List<SnapshotFile.QuoteRecord> quotes = new ArrayList<>();
+        for (int symbolId = 0; symbolId < instrumentRegistry.symbolCount(); symbolId++) {
+            for (int exchangeId = 0; exchangeId < instrumentRegistry.exchangeCount(); exchangeId++) {
+                if (quoteTable.read(symbolId, exchangeId, quote)) {
+                    quotes.add(new SnapshotFile.QuoteRecord(quote.getSymbol(), quote.getExchange(),
+                            quote.getScale(), quote.getQuantityScale(),
+                            quote.getBid(), quote.getAsk(), quote.getBidSize(), quote.getAskSize(),
+                            quote.getTimestamp()));
+                }
+            }
+        }
+        new SnapshotFile(System.currentTimeMillis(), counters, quotes).write(new File(path));
+    }
+}
@@ -0,0 +1,317 @@
+package co.codingnomads.bot.arbitrage.service.triangular;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 三角/多腿套利检测器
+ *
+ * 在币种图上检测负权环：
+ * - 节点为币种，每个交易对在每个交易所上对应两条有向边
+ *   base→quote（按买一价卖出base，汇率 bid）与 quote→base（按卖一价买入base，汇率 1/ask）
+ * - 边权为 -ln(汇率) 加上手续费对应的 -ln(1 - fee)，环上权重之和为负即存在套利
+ *
+ * 图的拓扑由配置的交易对决定，启动时一次性枚举出长度为3~4的所有简单环，
+ * 并建立 边 → 环 的倒排索引。某条边更新时只重新计算经过该边的环，
+ * 不在每个tick上跑完整的Bellman-Ford；计算过程只读写预分配数组，不创建对象。
+ *
+ * 环只在单个交易所内部成立（不涉及跨交易所转账）。
+ * 本类不是线程安全的，由调用方串行调用。
+ */
+public class TriangularArbitrageDetector {
+
+    /**
+     * 区间事件监听器
+     */
+    public interface EpisodeListener {
+
+        /**
+         * 环的收益率首次越过阈值
+         */
+        void onEpisodeOpened(int cycleId, int exchangeId, double marginPercent, long now);
+
+        /**
+         * 环的收益率回落、报价过期或区间超时
+         */
+        void onEpisodeClosed(int cycleId, int exchangeId, long startMillis, long endMillis,
+                             double peakMarginPercent, double avgMarginPercent, int tickCount);
+    }
+
+    private static final double LN10 = Math.log(10);
+
+    private final int maxExchanges;
+    private final int[] scales;
+    private final double legFeeWeight;
+    private final double thresholdWeight;
+    private final long expiryMs;
+    private final long maxDurationMs;
+    private final EpisodeListener listener;
+
+    // ==================== 图结构（启动后只读） ====================
+    private final List<String> currencies = new ArrayList<>();
+    /** 环的腿，扁平存储：腿 = symbolId * 2 + 方向（0: base→quote, 1: quote→base） */
+    private final int[] cycleLegs;
+    private final int[] cycleOffsets;
+    /** 每个环的起点币种，用于描述 */
+    private final int[] cycleStartCurrency;
+    /** 腿 → 经过它的环 */
+    private final int[][] cyclesByLeg;
+    private final int[] legFrom;
+    private final int[] legTo;
+
+    // ==================== 边状态 ====================
+    /** 边权，下标为 (symbolId * maxExchanges + exchangeId) * 2 + 方向 */
+    private final double[] weights;
+    private final long[] edgeTimestamps;
+
+    // ==================== 区间状态，下标为 cycleId * maxExchanges + exchangeId ====================
+    private final boolean[] open;
+    private final long[] startMillis;
+    private final long[] lastMillis;
+    private final double[] peakMargin;
+    private final double[] marginSum;
+    private final int[] tickCount;
+
+    /**
+     * @param bases             各交易对的base币种（下标为交易对id）
+     * @param quotes            各交易对的quote币种
+     * @param scales            各交易对的价格定点精度
+     * @param maxExchanges      交易所数量上限
+     * @param maxLegs           环的最大长度（3或4）
+     * @param feeRate           每条腿的手续费率（如0.001）
+     * @param minMarginPercent  开启区间的最小收益率（百分比，已扣除手续费）
+     * @param expiryMs          报价过期时间
+     * @param maxDurationMs     区间最长持续时间
+     * @param listener          区间事件监听器
+     */
+    public TriangularArbitrageDetector(String[] bases, String[] quotes, int[] scales, int maxExchanges,
+                                       int maxLegs, double feeRate, double minMarginPercent,
+                                       long expiryMs, long maxDurationMs, EpisodeListener listener) {
+        this.maxExchanges = maxExchanges;
+        this.scales = scales.clone();
+        this.legFeeWeight = -Math.log(1 - feeRate);
+        this.thresholdWeight = -Math.log(1 + minMarginPercent / 100.0);
+        this.expiryMs = expiryMs;
+        this.maxDurationMs = maxDurationMs;
+        this.listener = listener;
+
+        int symbolCount = bases.length;
+        Map<String, Integer> currencyIds = new HashMap<>();
+        legFrom = new int[symbolCount * 2];
+        legTo = new int[symbolCount * 2];
+        for (int symbolId = 0; symbolId < symbolCount; symbolId++) {
+            int base = currencyIds.computeIfAbsent(bases[symbolId], this::addCurrency);
+            int quote = currencyIds.computeIfAbsent(quotes[symbolId], this::addCurrency);
+            legFrom[symbolId * 2] = base;
+            legTo[symbolId * 2] = quote;
+            legFrom[symbolId * 2 + 1] = quote;
+            legTo[symbolId * 2 + 1] = base;
+        }
+
+        // 邻接表：币种 → 从它出发的腿
+        List<List<Integer>> adjacency = new ArrayList<>();
+        for (int i = 0; i < currencies.size(); i++) {
+            adjacency.add(new ArrayList<>());
+        }
+        for (int leg = 0; leg < legFrom.length; leg++) {
+            if (legFrom[leg] != legTo[leg]) {
+                adjacency.get(legFrom[leg]).add(leg);
+            }
+        }
+
+        List<int[]> cycles = new ArrayList<>();
+        for (int start = 0; start < currencies.size(); start++) {
+            enumerateCycles(adjacency, start, start, new int[maxLegs], 0, new boolean[currencies.size()], maxLegs, cycles);
+        }
+
+        cycleOffsets = new int[cycles.size() + 1];
+        cycleStartCurrency = new int[cycles.size()];
+        int totalLegs = 0;
+        for (int i = 0; i < cycles.size(); i++) {
+            cycleOffsets[i] = totalLegs;
+            totalLegs += cycles.get(i).length;
+            cycleStartCurrency[i] = legFrom[cycles.get(i)[0]];
+        }
+        cycleOffsets[cycles.size()] = totalLegs;
+        cycleLegs = new int[totalLegs];
+        int[] legCycleCounts = new int[legFrom.length];
+        for (int i = 0; i < cycles.size(); i++) {
+            int[] legs = cycles.get(i);
+            System.arraycopy(legs, 0, cycleLegs, cycleOffsets[i], legs.length);
+            for (int leg : legs) {
+                legCycleCounts[leg]++;
+            }
+        }
+        cyclesByLeg = new int[legFrom.length][];
+        for (int leg = 0; leg < legFrom.length; leg++) {
+            cyclesByLeg[leg] = new int[legCycleCounts[leg]];
+        }
+        Arrays.fill(legCycleCounts, 0);
+        for (int i = 0; i < cycles.size(); i++) {
+            for (int leg : cycles.get(i)) {
+                cyclesByLeg[leg][legCycleCounts[leg]++] = i;
+            }
+        }
+
+        weights = new double[symbolCount * maxExchanges * 2];
+        edgeTimestamps = new long[weights.length];
+        int slots = cycles.size() * maxExchanges;
+        open = new boolean[slots];
+        startMillis = new long[slots];
+        lastMillis = new long[slots];
+        peakMargin = new double[slots];
+        marginSum = new double[slots];
+        tickCount = new int[slots];
+    }
+
+    private int addCurrency(String currency) {
+        currencies.add(currency);
+        return currencies.size() - 1;
+    }
+
+    /**
+     * 深度优先枚举以start为最小节点的简单环，避免同一个环因旋转被重复记录
+     */
+    private void enumerateCycles(List<List<Integer>> adjacency, int start, int node, int[] path, int depth,
+                                 boolean[] visited, int maxLegs, List<int[]> out) {
+        visited[node] = true;
+        for (int leg : adjacency.get(node)) {
+            int next = legTo[leg];
+            path[depth] = leg;
+            if (next == start) {
+                if (depth + 1 >= 3) {
+                    out.add(Arrays.copyOf(path, depth + 1));
+                }
+            } else if (next > start && !visited[next] && depth + 1 < maxLegs) {
+                enumerateCycles(adjacency, start, next, path, depth + 1, visited, maxLegs, out);
+            }
+        }
+        visited[node] = false;
+    }
+
+    /**
+     * 某交易所某交易对的最优报价更新
+     *
+     * 更新两条边的权重，然后只重新计算经过这两条边的环
+     *
+     * @param symbolId   交易对id
+     * @param exchangeId 交易所id
+     * @param bid        买一价尾数
+     * @param ask        卖一价尾数
+     * @param now        当前时间（毫秒）
+     */
+    public void onQuote(int symbolId, int exchangeId, long bid, long ask, long now) {
+        if (bid <= 0 || ask <= 0) {
+            return;
+        }
+        double scaleLog = scales[symbolId] * LN10;
+        int edge = (symbolId * maxExchanges + exchangeId) * 2;
+        // base→quote：按bid卖出，汇率 bid；quote→base：按ask买入，汇率 1/ask
+        weights[edge] = -(Math.log(bid) - scaleLog) + legFeeWeight;
+        weights[edge + 1] = (Math.log(ask) - scaleLog) + legFeeWeight;
+        edgeTimestamps[edge] = now;
+        edgeTimestamps[edge + 1] = now;
+
+        evaluateCycles(cyclesByLeg[symbolId * 2], exchangeId, now);
+        evaluateCycles(cyclesByLeg[symbolId * 2 + 1], exchangeId, now);
+    }
+
+    private void evaluateCycles(int[] cycleIds, int exchangeId, long now) {
+        for (int cycleId : cycleIds) {
+            evaluateCycle(cycleId, exchangeId, now);
+        }
+    }
+
+    private void evaluateCycle(int cycleId, int exchangeId, long now) {
+        double sum = 0;
+        boolean complete = true;
+        for (int i = cycleOffsets[cycleId]; i < cycleOffsets[cycleId + 1]; i++) {
+            int leg = cycleLegs[i];
+            int edge = ((leg >> 1) * maxExchanges + exchangeId) * 2 + (leg & 1);
+            long timestamp = edgeTimestamps[edge];
+            if (timestamp == 0 || now - timestamp >= expiryMs) {
+                complete = false;
+                break;
+            }
+            sum += weights[edge];
+        }
+
+        int slot = cycleId * maxExchanges + exchangeId;
+        if (complete && sum < thresholdWeight) {
+            double margin = (Math.exp(-sum) - 1) * 100;
+            if (open[slot] && now - startMillis[slot] >= maxDurationMs) {
+                closeEpisode(slot, cycleId, exchangeId);
+            }
+            if (!open[slot]) {
+                open[slot] = true;
+                startMillis[slot] = now;
+                peakMargin[slot] = margin;
+                marginSum[slot] = 0;
+                tickCount[slot] = 0;
+                listener.onEpisodeOpened(cycleId, exchangeId, margin, now);
+            }
+            lastMillis[slot] = now;
+            marginSum[slot] += margin;
+            tickCount[slot]++;
+            if (margin > peakMargin[slot]) {
+                peakMargin[slot] = margin;
+            }
+        } else if (open[slot]) {
+            lastMillis[slot] = now;
+            closeEpisode(slot, cycleId, exchangeId);
+        }
+    }
+
+    private void closeEpisode(int slot, int cycleId, int exchangeId) {
+        open[slot] = false;
+        listener.onEpisodeClosed(cycleId, exchangeId, startMillis[slot], lastMillis[slot],
+                peakMargin[slot], marginSum[slot] / tickCount[slot], tickCount[slot]);
+    }
+
+    /**
+     * 关闭长时间没有更新的区间
+     *
+     * @param now           当前时间（毫秒）
+     * @param idleTimeoutMs 无更新超时时间
+     */
+    public void expireIdle(long now, long idleTimeoutMs) {
+        for (int slot = 0; slot < open.length; slot++) {
+            if (open[slot] && now - lastMillis[slot] >= idleTimeoutMs) {
+                closeEpisode(slot, slot / maxExchanges, slot % maxExchanges);
+            }
+        }
+    }
+
+    /**
+     * 关闭所有未结束的区间
+     */
+    public void closeAll() {
+        for (int slot = 0; slot < open.length; slot++) {
+            if (open[slot]) {
+                closeEpisode(slot, slot / maxExchanges, slot % maxExchanges);
+            }
+        }
+    }
+
+    /**
+     * @return 枚举出的环数量
+     */
+    public int cycleCount() {
+        return cycleStartCurrency.length;
+    }
+
+    /**
+     * @param cycleId 环id
+     * @return 环的描述，如 usdt&gt;eth&gt;btc
+     */
+    public String describe(int cycleId) {
+        StringBuilder builder = new StringBuilder(currencies.get(cycleStartCurrency[cycleId]));
+        for (int i = cycleOffsets[cycleId]; i < cycleOffsets[cycleId + 1] - 1; i++) {
+            builder.append('>').append(currencies.get(legTo[cycleLegs[i]]));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,197 @@
+package co.codingnomads.bot.arbitrage.service.triangular;
+
+import co.codingnomads.bot.arbitrage.config.ArbitrageConfig;
+import co.codingnomads.bot.arbitrage.model.ArbitrageOpportunity;
+import co.codingnomads.bot.arbitrage.service.StatisticsService;
+import co.codingnomads.bot.arbitrage.service.pipeline.OpportunityNotifier;
+import co.codingnomads.bot.arbitrage.service.quote.InstrumentRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 三角套利服务
+ *
+ * 负责：
+ * 1. 按配置的计价币种把交易对拆分为 base/quote，构建币种图
+ * 2. 接收与跨交易所检测相同的行情更新，增量检测3~4腿的套利环
+ * 3. 把环的套利区间交给通知线程，通过现有的套利机会表落库
+ *
+ * 落库时 symbol 为环的路径（如 usdt&gt;eth&gt;btc），买入/卖出交易所均为环所在交易所，
+ * 买入价格记为1，卖出价格记为绕环一周后的数量。
+ */
+@Service
+public class TriangularArbitrageService implements TriangularArbitrageDetector.EpisodeListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(TriangularArbitrageService.class);
+
+    /** 利润率精度 */
+    private static final int MARGIN_SCALE = 6;
+
+    @Autowired
+    private InstrumentRegistry instrumentRegistry;
+
+    @Autowired
+    private OpportunityNotifier opportunityNotifier;
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    // ==================== 配置 ====================
+    @Value("${arbitrage.triangular.enabled:true}")
+    private boolean enabled;
+
+    /** 计价币种（按最长后缀匹配拆分交易对） */
+    @Value("${arbitrage.triangular.quote-currencies:usdt,usdc,busd,husd,btc,eth,bnb,ht}")
+    private String quoteCurrencies;
+
+    /** 环的最大腿数 */
+    @Value("${arbitrage.triangular.max-legs:4}")
+    private int maxLegs;
+
+    /** 每条腿的手续费率 */
+    @Value("${arbitrage.triangular.fee-rate:0.001}")
+    private double feeRate;
+
+    /** 扣除手续费后的最小收益率（百分比） */
+    @Value("${arbitrage.triangular.min-margin:0.03}")
+    private double minMargin;
+
+    @Value("${arbitrage.episode.max-duration-ms:60000}")
+    private long episodeMaxDurationMs;
+
+    @Value("${arbitrage.episode.idle-timeout-ms:5000}")
+    private long episodeIdleTimeoutMs;
+
+    private TriangularArbitrageDetector detector;
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "Triangular-Sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 构建币种图并枚举套利环
+     */
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        String[] quotes = quoteCurrencies.toLowerCase(Locale.ROOT).split(",");
+        int symbolCount = instrumentRegistry.symbolCount();
+        String[] symbolBases = new String[symbolCount];
+        String[] symbolQuotes = new String[symbolCount];
+        int[] scales = new int[symbolCount];
+        for (int symbolId = 0; symbolId < symbolCount; symbolId++) {
+            String symbol = instrumentRegistry.symbolName(symbolId);
+            String quote = matchQuote(symbol, quotes);
+            if (quote == null) {
+                // 无法拆分的交易对当作孤立的两个节点，不会出现在任何环中
+                logger.warn("[TriangularArbitrageService] 无法识别{}的计价币种，已排除在三角套利之外", symbol);
+                symbolBases[symbolId] = symbol;
+                symbolQuotes[symbolId] = symbol;
+            } else {
+                symbolBases[symbolId] = symbol.substring(0, symbol.length() - quote.length());
+                symbolQuotes[symbolId] = quote;
+            }
+            scales[symbolId] = instrumentRegistry.priceScale(symbolId);
+        }
+
+        detector = new TriangularArbitrageDetector(symbolBases, symbolQuotes, scales,
+                instrumentRegistry.maxExchanges(), maxLegs, feeRate, minMargin,
+                ArbitrageConfig.PRICE_EXPIRY_MS, episodeMaxDurationMs, this);
+        logger.info("[TriangularArbitrageService] 币种图已构建，共{}个套利环", detector.cycleCount());
+
+        if (detector.cycleCount() > 0) {
+            long sweepInterval = Math.max(episodeIdleTimeoutMs / 2, 100);
+            sweeper.scheduleWithFixedDelay(this::expireIdle, sweepInterval, sweepInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 停止清理任务，并把未结束的区间落库
+     */
+    @PreDestroy
+    public synchronized void destroy() {
+        sweeper.shutdown();
+        if (detector != null) {
+            detector.closeAll();
+        }
+    }
+
+    /**
+     * 处理最优报价更新
+     *
+     * @param symbolId   交易对id
+     * @param exchangeId 交易所id
+     * @param bid        买一价尾数
+     * @param ask        卖一价尾数
+     * @param now        当前时间（毫秒）
+     */
+    public synchronized void onQuote(int symbolId, int exchangeId, long bid, long ask, long now) {
+        if (detector != null) {
+            detector.onQuote(symbolId, exchangeId, bid, ask, now);
+        }
+    }
+
+    private synchronized void expireIdle() {
+        detector.expireIdle(System.currentTimeMillis(), episodeIdleTimeoutMs);
+    }
+
+    private static String matchQuote(String symbol, String[] quotes) {
+        String best = null;
+        for (String quote : quotes) {
+            String candidate = quote.trim();
+            if (!candidate.isEmpty() && symbol.endsWith(candidate) && symbol.length() > candidate.length()
+                    && (best == null || candidate.length() > best.length())) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    // ==================== 区间事件 ====================
+
+    @Override
+    public void onEpisodeOpened(int cycleId, int exchangeId, double marginPercent, long now) {
+        opportunityNotifier.publishTriangularOpened(detector.describe(cycleId),
+                instrumentRegistry.exchangeName(exchangeId), marginPercent);
+        statisticsService.incrementTriangularOpportunities(exchangeId);
+    }
+
+    @Override
+    public void onEpisodeClosed(int cycleId, int exchangeId, long startMillis, long endMillis,
+                                double peakMarginPercent, double avgMarginPercent, int tickCount) {
+        String exchange = instrumentRegistry.exchangeName(exchangeId);
+        BigDecimal peak = BigDecimal.valueOf(peakMarginPercent).setScale(MARGIN_SCALE, RoundingMode.HALF_UP);
+        ArbitrageOpportunity opportunity = new ArbitrageOpportunity(detector.describe(cycleId), exchange, exchange,
+                BigDecimal.ONE, BigDecimal.ONE.add(peak.movePointLeft(2)), peak);
+        opportunity.setPeakMargin(peak);
+        opportunity.setAvgMargin(BigDecimal.valueOf(avgMarginPercent).setScale(MARGIN_SCALE, RoundingMode.HALF_UP));
+        opportunity.setTickCount(tickCount);
+        opportunity.setDurationMs(endMillis - startMillis);
+        opportunity.setStartedAt(toLocalDateTime(startMillis));
+        opportunity.setEndedAt(toLocalDateTime(endMillis));
+        opportunity.setDetectedAt(opportunity.getStartedAt());
+        opportunityNotifier.publishClosed(opportunity);
+    }
+
+    private static LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+}
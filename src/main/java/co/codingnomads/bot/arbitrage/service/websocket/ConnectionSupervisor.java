@@ -0,0 +1,249 @@
+package co.codingnomads.bot.arbitrage.service.websocket;
+
+import co.codingnomads.bot.arbitrage.service.metrics.LatencyHistogram;
+import co.codingnomads.bot.arbitrage.service.metrics.jfr.ReconnectEvent;
+import co.codingnomads.bot.arbitrage.service.metrics.jfr.JfrSupport;
+import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.framing.CloseFrame;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 交易所连接监督器
+ *
+ * 所有交易所WebSocket连接（最优报价和深度）共用一个调度线程：
+ * 1. 断线后按带抖动的指数退避重连，第一次几乎立即重连；连上后客户端在 onOpen 中立即重新订阅
+ * 2. 看门狗：连接打开但超过 stale-timeout-ms 没有行情时主动断开，触发重连
+ * 3. 客户端心跳（如火币的ping）在同一线程上按间隔执行，不再每个连接一个Timer
+ * 4. 记录每路行情的断流时长（最后一条行情 → 恢复后的第一条行情）
+ *
+ * 重连状态只在调度线程上修改，读线程的回调通过提交任务转交。
+ */
+@Component
+public class ConnectionSupervisor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionSupervisor.class);
+
+    /** 退避上限的指数，防止移位溢出 */
+    private static final int MAX_BACKOFF_SHIFT = 20;
+
+    // ==================== 配置 ====================
+    /** 退避基数（毫秒），第一次重连在 [0, 基数) 内随机延迟 */
+    @Value("${arbitrage.connection.backoff-initial-ms:250}")
+    private long backoffInitialMs;
+
+    @Value("${arbitrage.connection.backoff-max-ms:30000}")
+    private long backoffMaxMs;
+
+    /** 连接打开但多久没有行情视为假死（毫秒） */
+    @Value("${arbitrage.connection.stale-timeout-ms:30000}")
+    private long staleTimeoutMs;
+
+    /** 看门狗和心跳的检查间隔（毫秒） */
+    @Value("${arbitrage.connection.watchdog-interval-ms:1000}")
+    private long watchdogIntervalMs;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "Connection-Supervisor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final List<SupervisedFeed> feeds = new CopyOnWriteArrayList<>();
+    private volatile boolean stopped;
+
+    /** 打印用的窗口快照，只在统计线程上使用 */
+    private final LatencyHistogram.Window window = new LatencyHistogram.Window();
+
+    /**
+     * 启动看门狗
+     */
+    @PostConstruct
+    public void init() {
+        scheduler.scheduleWithFixedDelay(this::watch, watchdogIntervalMs, watchdogIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 关闭所有连接并停止调度线程
+     */
+    @PreDestroy
+    public void destroy() {
+        stopped = true;
+        feeds.forEach(this::close);
+        scheduler.shutdownNow();
+    }
+
+    // ==================== 连接管理 ====================
+
+    /**
+     * 创建一路行情的句柄，交给客户端构造函数
+     *
+     * @param name 名称（用于日志，如 "Binance ethusdt"）
+     */
+    public SupervisedFeed newFeed(String name) {
+        return new SupervisedFeed(name, this);
+    }
+
+    /**
+     * 开始监督并发起第一次连接
+     *
+     * @param feed   句柄
+     * @param client 使用该句柄的客户端
+     */
+    public void start(SupervisedFeed feed, WebSocketClient client) {
+        feed.attach(client);
+        feeds.add(feed);
+        client.connect();
+    }
+
+    /**
+     * 主动关闭一路连接，之后不再重连
+     */
+    public void close(SupervisedFeed feed) {
+        feed.markClosed();
+        feeds.remove(feed);
+        WebSocketClient client = feed.getClient();
+        if (client != null) {
+            client.close();
+        }
+    }
+
+    // ==================== 客户端回调（读线程） ====================
+
+    void onOpen(SupervisedFeed feed) {
+        execute(() -> feed.nextHeartbeatNanos = System.nanoTime() + feed.getHeartbeatIntervalNanos());
+    }
+
+    void onRecovered(SupervisedFeed feed, long gapNanos) {
+        logger.info("[ConnectionSupervisor] {} 行情已恢复，断流{}ms", feed.getName(), gapNanos / 1_000_000);
+        execute(() -> feed.attempts = 0);
+    }
+
+    void onClosed(SupervisedFeed feed) {
+        execute(() -> scheduleReconnect(feed));
+    }
+
+    private void execute(Runnable task) {
+        if (!stopped) {
+            try {
+                scheduler.execute(task);
+            } catch (RejectedExecutionException e) {
+                // 正在关闭
+            }
+        }
+    }
+
+    // ==================== 调度线程 ====================
+
+    private void scheduleReconnect(SupervisedFeed feed) {
+        if (stopped || feed.isClosed() || feed.reconnectScheduled) {
+            return;
+        }
+        long delay = backoffDelay(feed.attempts++);
+        feed.reconnectScheduled = true;
+        logger.info("[ConnectionSupervisor] {} 连接断开，{}ms后第{}次重连", feed.getName(), delay, feed.attempts);
+        if (JfrSupport.AVAILABLE) {
+            ReconnectEvent event = new ReconnectEvent();
+            if (event.shouldCommit()) {
+                event.connection = feed.getName();
+                event.attempt = feed.attempts;
+                event.backoff = delay;
+                event.commit();
+            }
+        }
+        scheduler.schedule(() -> reconnect(feed), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void reconnect(SupervisedFeed feed) {
+        feed.reconnectScheduled = false;
+        if (stopped || feed.isClosed() || feed.isOpen()) {
+            return;
+        }
+        feed.incrementReconnects();
+        try {
+            // 连接失败时客户端会收到 onClose，再次进入 scheduleReconnect
+            feed.getClient().reconnect();
+        } catch (Exception e) {
+            logger.error("[ConnectionSupervisor] {} 重连失败: {}", feed.getName(), e.getMessage(), e);
+            scheduleReconnect(feed);
+        }
+    }
+
+    /**
+     * 带抖动的指数退避：第0次在 [0, 基数) 内，之后在 [上限/2, 上限) 内，上限 = min(基数 * 2^n, 最大值)
+     */
+    long backoffDelay(int attempt) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (attempt == 0) {
+            return random.nextLong(Math.max(backoffInitialMs, 1));
+        }
+        long cap = Math.min(backoffMaxMs, backoffInitialMs << Math.min(attempt, MAX_BACKOFF_SHIFT));
+        long half = Math.max(cap / 2, 1);
+        return half + random.nextLong(half);
+    }
+
+    private void watch() {
+        long now = System.nanoTime();
+        long staleNanos = staleTimeoutMs * 1_000_000L;
+        for (SupervisedFeed feed : feeds) {
+            if (!feed.isOpen()) {
+                continue;
+            }
+            try {
+                Runnable heartbeat = feed.getHeartbeat();
+                if (heartbeat != null && now - feed.nextHeartbeatNanos >= 0) {
+                    feed.nextHeartbeatNanos = now + feed.getHeartbeatIntervalNanos();
+                    heartbeat.run();
+                }
+                if (now - feed.getLastActivityNanos() > staleNanos) {
+                    feed.incrementStale();
+                    logger.warn("[ConnectionSupervisor] {} 超过{}ms没有行情，断开重连", feed.getName(), staleTimeoutMs);
+                    // 客户端随后收到 onClose，按正常断线重连
+                    feed.getClient().closeConnection(CloseFrame.ABNORMAL_CLOSE, "无数据超时");
+                }
+            } catch (Exception e) {
+                logger.error("[ConnectionSupervisor] {} 检查连接时出错: {}", feed.getName(), e.getMessage(), e);
+            }
+        }
+    }
+
+    // ==================== 指标 ====================
+
+    /**
+     * 打印每路行情的重连次数和本周期的断流时长分位数（统计线程调用）
+     */
+    public synchronized void logStats() {
+        for (SupervisedFeed feed : feeds) {
+            feed.drainGaps(window);
+            long currentGap = feed.getCurrentGapNanos();
+            if (feed.getReconnectCount() == 0 && window.getTotalCount() == 0 && currentGap == 0) {
+                continue;
+            }
+            logger.info("[ConnectionSupervisor] {}: {}，重连{}次，无数据断开{}次，断流{}次(累计{}ms，最长{}ms)，"
+                            + "本周期断流 n={} p50={}ms max={}ms{}",
+                    feed.getName(), feed.isOpen() ? "已连接" : "未连接", feed.getReconnectCount(), feed.getStaleCount(),
+                    feed.getGapCount(), feed.getGapTotalNanos() / 1_000_000, feed.getGapMaxNanos() / 1_000_000,
+                    window.getTotalCount(), window.valueAtPercentile(50) / 1_000_000, window.getMax() / 1_000_000,
+                    currentGap == 0 ? "" : "，当前已断流" + currentGap / 1_000_000 + "ms");
+        }
+    }
+
+    /**
+     * @return 当前受监督的行情
+     */
+    public List<SupervisedFeed> getFeeds() {
+        return feeds;
+    }
+}
@@ -0,0 +1,41 @@
+package co.codingnomads.bot.arbitrage.service.websocket;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按单连接上限把交易对分片，每片一个连接（最优报价和深度连接共用）
+ *
+ * 连接数和读线程数随交易对数量按分片增长，而不是每个交易对各一个
+ */
+public final class FeedShards {
+
+    private FeedShards() {
+    }
+
+    /**
+     * 按顺序把交易对均匀分到尽量少的分片中，每片不超过 perConnection 个
+     */
+    public static List<List<String>> split(List<String> symbols, int perConnection) {
+        int shardCount = Math.max(1, (symbols.size() + perConnection - 1) / Math.max(perConnection, 1));
+        List<List<String>> shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            int from = symbols.size() * i / shardCount;
+            int to = symbols.size() * (i + 1) / shardCount;
+            if (to > from) {
+                shards.add(new ArrayList<>(symbols.subList(from, to)));
+            }
+        }
+        return shards;
+    }
+
+    /**
+     * 连接名称（用于日志）：只有一个交易对时为 "Binance ethusdt"，否则为 "Binance#1/3(40个交易对)"
+     */
+    public static String feedName(String exchange, int index, int shardCount, List<String> shard) {
+        if (shard.size() == 1) {
+            return exchange + " " + shard.get(0);
+        }
+        return exchange + "#" + (index + 1) + "/" + shardCount + "(" + shard.size() + "个交易对)";
+    }
+}
@@ -0,0 +1,220 @@
+package co.codingnomads.bot.arbitrage.service.websocket;
+
+import co.codingnomads.bot.arbitrage.service.metrics.LatencyHistogram;
+import co.codingnomads.bot.arbitrage.service.metrics.jfr.FeedGapEvent;
+import co.codingnomads.bot.arbitrage.service.metrics.jfr.JfrSupport;
+import org.java_websocket.client.WebSocketClient;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 一路行情连接在 {@link ConnectionSupervisor} 中的句柄
+ *
+ * 客户端在连接建立、收到行情、连接关闭时回调本对象；断线重连、无数据看门狗和心跳由监督器统一调度。
+ * 断流时长（最后一条行情 → 重连后的第一条行情）按连接记录。
+ *
+ * 不受监督的句柄（{@link #unsupervised}）只做记录，断线后不会重连，供基准测试等直接构造客户端的场景使用。
+ */
+public final class SupervisedFeed {
+
+    private final String name;
+    private final ConnectionSupervisor supervisor;
+    private volatile WebSocketClient client;
+
+    /** 最后一条行情的 System.nanoTime()，0表示连接后还没有收到行情 */
+    private volatile long lastDataNanos;
+    /** 断流开始时间（断线前最后一条行情），0表示当前没有断流 */
+    private volatile long gapStartNanos;
+    private volatile boolean open;
+    /** 连接建立的 System.nanoTime()，连接后一直没有行情时看门狗以此计时 */
+    private volatile long openedNanos;
+    /** 已由监督器主动关闭，不再重连 */
+    private volatile boolean closed;
+
+    // ==================== 重连状态（监督器线程） ====================
+    /** 连续失败次数，收到行情后清零 */
+    int attempts;
+    boolean reconnectScheduled;
+
+    // ==================== 心跳 ====================
+    private Runnable heartbeat;
+    private long heartbeatIntervalNanos;
+    /** 下次心跳时间（监督器线程） */
+    long nextHeartbeatNanos;
+
+    // ==================== 统计 ====================
+    private final LatencyHistogram gaps = new LatencyHistogram();
+    private final AtomicLong gapCount = new AtomicLong();
+    private final AtomicLong gapTotalNanos = new AtomicLong();
+    private final AtomicLong gapMaxNanos = new AtomicLong();
+    private final AtomicLong reconnectCount = new AtomicLong();
+    private final AtomicLong staleCount = new AtomicLong();
+
+    SupervisedFeed(String name, ConnectionSupervisor supervisor) {
+        this.name = name;
+        this.supervisor = supervisor;
+    }
+
+    /**
+     * 创建不受监督的句柄
+     */
+    public static SupervisedFeed unsupervised(String name) {
+        return new SupervisedFeed(name, null);
+    }
+
+    void attach(WebSocketClient client) {
+        this.client = client;
+    }
+
+    /**
+     * 设置客户端心跳，在连接打开期间按间隔在监督器线程上执行
+     *
+     * @param task       心跳任务（如发送ping）
+     * @param intervalMs 间隔（毫秒）
+     */
+    public void setHeartbeat(Runnable task, long intervalMs) {
+        this.heartbeat = task;
+        this.heartbeatIntervalNanos = intervalMs * 1_000_000L;
+    }
+
+    // ==================== 客户端回调 ====================
+
+    /**
+     * 连接建立（读线程调用，之后客户端应立即订阅）
+     */
+    public void onOpen() {
+        openedNanos = System.nanoTime();
+        lastDataNanos = 0;
+        open = true;
+        if (supervisor != null) {
+            supervisor.onOpen(this);
+        }
+    }
+
+    /**
+     * 收到一条行情（读线程调用）
+     *
+     * @param receiveNanos 收到该帧时的 System.nanoTime()
+     */
+    public void onData(long receiveNanos) {
+        long gapStart = gapStartNanos;
+        if (gapStart != 0) {
+            gapStartNanos = 0;
+            recordGap(receiveNanos - gapStart);
+            if (supervisor != null) {
+                supervisor.onRecovered(this, receiveNanos - gapStart);
+            }
+        }
+        lastDataNanos = receiveNanos;
+    }
+
+    /**
+     * 连接关闭（读线程调用）
+     */
+    public void onClose() {
+        open = false;
+        if (gapStartNanos == 0) {
+            long last = lastDataNanos;
+            gapStartNanos = last != 0 ? last : System.nanoTime();
+        }
+        if (supervisor != null) {
+            supervisor.onClosed(this);
+        }
+    }
+
+    private void recordGap(long nanos) {
+        if (JfrSupport.AVAILABLE) {
+            FeedGapEvent event = new FeedGapEvent();
+            if (event.shouldCommit()) {
+                event.connection = name;
+                event.gap = nanos;
+                event.commit();
+            }
+        }
+        gaps.record(nanos);
+        gapCount.incrementAndGet();
+        gapTotalNanos.addAndGet(nanos);
+        long current = gapMaxNanos.get();
+        while (nanos > current && !gapMaxNanos.compareAndSet(current, nanos)) {
+            current = gapMaxNanos.get();
+        }
+    }
+
+    // ==================== 监督器使用 ====================
+
+    WebSocketClient getClient() {
+        return client;
+    }
+
+    boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * @return 最后一条行情的时间，连接后还没有行情时为连接建立时间
+     */
+    long getLastActivityNanos() {
+        long last = lastDataNanos;
+        return last != 0 ? last : openedNanos;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    void markClosed() {
+        closed = true;
+    }
+
+    Runnable getHeartbeat() {
+        return heartbeat;
+    }
+
+    long getHeartbeatIntervalNanos() {
+        return heartbeatIntervalNanos;
+    }
+
+    void incrementReconnects() {
+        reconnectCount.incrementAndGet();
+    }
+
+    void incrementStale() {
+        staleCount.incrementAndGet();
+    }
+
+    void drainGaps(LatencyHistogram.Window window) {
+        gaps.drainTo(window);
+    }
+
+    // ==================== 指标 ====================
+
+    public String getName() {
+        return name;
+    }
+
+    /** 当前断流已持续的纳秒数，没有断流时为0 */
+    public long getCurrentGapNanos() {
+        long gapStart = gapStartNanos;
+        return gapStart == 0 ? 0 : System.nanoTime() - gapStart;
+    }
+
+    public long getGapCount() {
+        return gapCount.get();
+    }
+
+    public long getGapTotalNanos() {
+        return gapTotalNanos.get();
+    }
+
+    public long getGapMaxNanos() {
+        return gapMaxNanos.get();
+    }
+
+    public long getReconnectCount() {
+        return reconnectCount.get();
+    }
+
+    public long getStaleCount() {
+        return staleCount.get();
+    }
+}
@@ -10,8 +10,39 @@ public interface WebSocketMessageHandler {
      * 处理价格更新
      *
      * @param exchange  交易所名称
+     * @param symbol    交易对（小写，如 ethusdt）
      * @param bestBid   最优买价
      * @param bestAsk   最优卖价
      */
-    void handlePriceUpdate(String exchange, double bestBid, double bestAsk);
-}
\ No newline at end of file
+    void handlePriceUpdate(String exchange, String symbol, double bestBid, double bestAsk);
+
+    /**
+     * 处理带挂单量和交易所事件时间的最优报价更新
+     *
+     * 默认忽略挂单量和事件时间，转交给 {@link #handlePriceUpdate}
+     *
+     * @param exchange  交易所名称
+     * @param symbol    交易对（小写，如 ethusdt）
+     * @param bestBid   最优买价
+     * @param bestAsk   最优卖价
+     * @param bidSize   买一量，未知时为0
+     * @param askSize   卖一量，未知时为0
+     * @param eventTime 交易所事件时间（毫秒），未知时为0
+     */
+    default void handleQuote(String exchange, String symbol, double bestBid, double bestAsk,
+                             double bidSize, double askSize, long eventTime) {
+        handlePriceUpdate(exchange, symbol, bestBid, bestAsk);
+    }
+
+    /**
+     * 处理最优报价更新，附带收到该帧时的本地单调时钟，用于统计解码耗时
+     *
+     * 默认忽略收帧时间，转交给 {@link #handleQuote(String, String, double, double, double, double, long)}
+     *
+     * @param receiveNanos 收到该帧时的 {@link System#nanoTime()}
+     */
+    default void handleQuote(String exchange, String symbol, double bestBid, double bestAsk,
+                             double bidSize, double askSize, long eventTime, long receiveNanos) {
+        handleQuote(exchange, symbol, bestBid, bestAsk, bidSize, askSize, eventTime);
+    }
+}
@@ -0,0 +1,117 @@
+package co.codingnomads.bot.arbitrage.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 定点数价格工具类
+ *
+ * 检测路径上的价格统一使用 long 尾数 + 交易对精度（scale）表示，
+ * 即 价格 = mantissa / 10^scale，计算过程不产生任何对象；
+ * 只有在落库等持久化边界才转换为 BigDecimal。
+ */
+public final class FixedPointUtil {
+
+    /** 支持的最大精度 */
+    public static final int MAX_SCALE = 18;
+
+    private static final long[] POW10 = new long[MAX_SCALE + 1];
+    private static final double[] POW10_DOUBLE = new double[MAX_SCALE + 1];
+
+    static {
+        long value = 1;
+        for (int i = 0; i <= MAX_SCALE; i++) {
+            POW10[i] = value;
+            POW10_DOUBLE[i] = value;
+            value *= 10;
+        }
+    }
+
+    private FixedPointUtil() {
+    }
+
+    /**
+     * double价格转换为定点尾数（四舍五入）
+     *
+     * @param value 价格
+     * @param scale 精度
+     * @return 定点尾数
+     */
+    public static long toMantissa(double value, int scale) {
+        return Math.round(value * POW10_DOUBLE[scale]);
+    }
+
+    /**
+     * 定点尾数转换为double
+     *
+     * @param mantissa 定点尾数
+     * @param scale    精度
+     * @return 价格
+     */
+    public static double toDouble(long mantissa, int scale) {
+        return mantissa / POW10_DOUBLE[scale];
+    }
+
+    /**
+     * 定点尾数转换为BigDecimal（仅在持久化边界使用）
+     *
+     * @param mantissa 定点尾数
+     * @param scale    精度
+     * @return BigDecimal价格
+     */
+    public static BigDecimal toBigDecimal(long mantissa, int scale) {
+        return BigDecimal.valueOf(mantissa, scale);
+    }
+
+    /**
+     * BigDecimal转换为定点尾数
+     *
+     * @param value 价格
+     * @param scale 精度
+     * @return 定点尾数
+     */
+    public static long fromBigDecimal(BigDecimal value, int scale) {
+        return value.setScale(scale, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    /**
+     * 定点尾数换算到另一个精度（降低精度时四舍五入），不创建对象
+     *
+     * @param mantissa  定点尾数
+     * @param fromScale 原精度
+     * @param toScale   目标精度
+     * @return 目标精度下的定点尾数
+     */
+    public static long rescale(long mantissa, int fromScale, int toScale) {
+        if (fromScale == toScale) {
+            return mantissa;
+        }
+        if (fromScale < toScale) {
+            return mantissa * POW10[toScale - fromScale];
+        }
+        long divisor = POW10[fromScale - toScale];
+        long half = divisor / 2;
+        return mantissa >= 0 ? (mantissa + half) / divisor : -((-mantissa + half) / divisor);
+    }
+
+    /**
+     * 计算利润率（百分比）
+     *
+     * 两个价格精度相同，scale在除法中抵消，因此无需传入
+     *
+     * @param buyMantissa  买入价格尾数
+     * @param sellMantissa 卖出价格尾数
+     * @return 利润率（百分比）
+     */
+    public static double marginPercent(long buyMantissa, long sellMantissa) {
+        return (sellMantissa - buyMantissa) * 100.0 / buyMantissa;
+    }
+
+    /**
+     * @param scale 精度
+     * @return 10^scale
+     */
+    public static long pow10(int scale) {
+        return POW10[scale];
+    }
+}
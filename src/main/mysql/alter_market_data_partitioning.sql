@@ -0,0 +1,24 @@
+-- 已有数据库升级：market_data 按 created_at 分区，由 MarketDataRetentionManager 预建和删除日期分区
+USE `botarbitrage`;
+
+-- RANGE COLUMNS 不支持 timestamp 列：created_at 改为 datetime（旧版 simplified_botarbitrage.sql 建的表为 timestamp）
+-- timestamp 按会话时区转换为 datetime，请在与应用连接相同的时区（数据库默认 time_zone）下执行
+-- 分区键必须包含在每个唯一键中：主键改为 (id, created_at)，id 仍是自增列的首列
+-- (exchange, symbol) 的前缀索引被 (exchange, symbol, created_at) 覆盖，按交易所+交易对取最新N条时不再排序
+ALTER TABLE `market_data`
+  MODIFY `created_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '记录创建时间',
+  DROP PRIMARY KEY,
+  ADD PRIMARY KEY (`id`, `created_at`),
+  DROP KEY `idx_exchange_symbol`,
+  ADD KEY `idx_exchange_symbol_created_at` (`exchange`, `symbol`, `created_at`);
+
+-- 已有的历史数据全部放入当天的日期分区（RANGE 只有上界），随保留期一起删除；
+-- pmax 保持为空，服务第一次维护时拆分 pmax 不需要复制数据
+SET @history_partitions = CONCAT(
+  'ALTER TABLE `market_data` PARTITION BY RANGE COLUMNS(`created_at`) (',
+  'PARTITION p', DATE_FORMAT(CURDATE(), '%Y%m%d'),
+  ' VALUES LESS THAN (''', DATE_FORMAT(CURDATE() + INTERVAL 1 DAY, '%Y-%m-%d 00:00:00'), '''), ',
+  'PARTITION pmax VALUES LESS THAN (MAXVALUE))');
+PREPARE stmt FROM @history_partitions;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -0,0 +1,10 @@
+-- 已有数据库升级：套利机会按区间聚合后新增的字段
+USE `botarbitrage`;
+
+ALTER TABLE `arbitrage_opportunities`
+  ADD COLUMN `peak_margin` decimal(10,6) DEFAULT NULL COMMENT '区间峰值利润率(%)',
+  ADD COLUMN `avg_margin` decimal(10,6) DEFAULT NULL COMMENT '区间平均利润率(%)',
+  ADD COLUMN `tick_count` int(11) DEFAULT NULL COMMENT '区间内tick数',
+  ADD COLUMN `duration_ms` bigint(20) DEFAULT NULL COMMENT '区间持续时间(毫秒)',
+  ADD COLUMN `started_at` datetime(3) NULL DEFAULT NULL COMMENT '区间开始时间',
+  ADD COLUMN `ended_at` datetime(3) NULL DEFAULT NULL COMMENT '区间结束时间';
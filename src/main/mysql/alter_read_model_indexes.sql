@@ -0,0 +1,10 @@
+-- 已有数据库升级：查询改为范围条件后使用的组合索引
+USE `botarbitrage`;
+
+-- 按交易对取最新套利机会（symbol = ? AND detected_at < ? ORDER BY detected_at DESC）
+ALTER TABLE `arbitrage_opportunities`
+  ADD KEY `idx_symbol_detected_at` (`symbol`, `detected_at`);
+
+-- 按交易所统计当天行情（exchange = ? AND created_at >= ? AND created_at < ?）
+ALTER TABLE `market_data`
+  ADD KEY `idx_exchange_created_at` (`exchange`, `created_at`);
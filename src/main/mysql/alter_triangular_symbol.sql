@@ -0,0 +1,5 @@
+-- 已有数据库升级：三角套利以环路径（如 usdt>eth>btc）作为symbol落库，加宽字段
+USE `botarbitrage`;
+
+ALTER TABLE `arbitrage_opportunities`
+  MODIFY COLUMN `symbol` varchar(64) NOT NULL COMMENT '交易对符号（三角套利为环路径，如 usdt>eth>btc）';
@@ -5,7 +5,7 @@ USE `botarbitrage`;
 -- 套利机会表
 CREATE TABLE IF NOT EXISTS `arbitrage_opportunities` (
   `id` bigint(20) NOT NULL AUTO_INCREMENT,
-  `symbol` varchar(20) NOT NULL COMMENT '交易对符号',
+  `symbol` varchar(64) NOT NULL COMMENT '交易对符号（三角套利为环路径，如 usdt>eth>btc）',
   `buy_exchange` varchar(50) NOT NULL COMMENT '买入交易所',
   `sell_exchange` varchar(50) NOT NULL COMMENT '卖出交易所',
   `buy_price` decimal(20,8) NOT NULL COMMENT '买入价格',
@@ -13,9 +13,16 @@ CREATE TABLE IF NOT EXISTS `arbitrage_opportunities` (
   `profit_margin` decimal(10,6) NOT NULL COMMENT '利润率(%)',
   `profit_amount` decimal(20,8) DEFAULT NULL COMMENT '利润金额',
   `detected_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '检测时间',
+  `peak_margin` decimal(10,6) DEFAULT NULL COMMENT '区间峰值利润率(%)',
+  `avg_margin` decimal(10,6) DEFAULT NULL COMMENT '区间平均利润率(%)',
+  `tick_count` int(11) DEFAULT NULL COMMENT '区间内tick数',
+  `duration_ms` bigint(20) DEFAULT NULL COMMENT '区间持续时间(毫秒)',
+  `started_at` datetime(3) NULL DEFAULT NULL COMMENT '区间开始时间',
+  `ended_at` datetime(3) NULL DEFAULT NULL COMMENT '区间结束时间',
   PRIMARY KEY (`id`),
   KEY `idx_symbol` (`symbol`),
   KEY `idx_detected_at` (`detected_at`),
+  KEY `idx_symbol_detected_at` (`symbol`, `detected_at`),
   KEY `idx_profit_margin` (`profit_margin`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_bin COMMENT='套利机会表';
 
@@ -30,11 +37,16 @@ CREATE TABLE IF NOT EXISTS `market_data` (
   `ask_volume` decimal(20,8) DEFAULT NULL COMMENT '卖一量',
   `timestamp` bigint(20) NOT NULL COMMENT '时间戳',
   `created_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
-  PRIMARY KEY (`id`),
-  KEY `idx_exchange_symbol` (`exchange`, `symbol`),
+  PRIMARY KEY (`id`, `created_at`),
+  KEY `idx_exchange_symbol_created_at` (`exchange`, `symbol`, `created_at`),
   KEY `idx_timestamp` (`timestamp`),
-  KEY `idx_created_at` (`created_at`)
-) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_bin COMMENT='行情数据表';
+  KEY `idx_created_at` (`created_at`),
+  KEY `idx_exchange_created_at` (`exchange`, `created_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_bin COMMENT='行情数据表'
+-- 按 created_at 分区，日期分区由 MarketDataRetentionManager 从 pmax 拆分预建并按保留期删除
+PARTITION BY RANGE COLUMNS(`created_at`) (
+  PARTITION pmax VALUES LESS THAN (MAXVALUE)
+);
 
 -- 插入测试数据
 INSERT INTO `arbitrage_opportunities` (`symbol`, `buy_exchange`, `sell_exchange`, `buy_price`, `sell_price`, `profit_margin`, `detected_at`) 